@@ -66,6 +66,10 @@ public class CodingManager {
 	public static final String ID_PREFIX_STATE = "S";
 	public static final String ID_PREFIX_WIDGET = "W";
 	public static final String ID_PREFIX_ACTION = "A";
+
+	// the way the identifiers of widgets and states are hashed
+	public static final String ID_HASHING_COMPATIBLE = "compatible"; // concatenated tag values, CRC32 (default)
+	public static final String ID_HASHING_STREAMING = "streaming"; // 128-bit streaming hash of the tag values
 	
 	private static final Tag<?>[] TAGS_CONCRETE_ID = new Tag<?>[]{Tags.Role,Tags.Title,/*Tags.Shape,*/Tags.Enabled, Tags.Path};
 	private static final Tag<?>[] TAGS_ABSTRACT_ID = new Tag<?>[]{Tags.Role};
@@ -73,6 +77,13 @@ public class CodingManager {
 	private static final Tag<?>[] TAGS_ABSTRACT_R_T_ID = new Tag<?>[]{Tags.Role,Tags.Title};
 	private static final Tag<?>[] TAGS_ABSTRACT_R_T_P_ID = new Tag<?>[]{Tags.Role,Tags.Title,Tags.Path};
 
+	// the tags above, followed by the child tags of control pattern tags (see expandTags)
+	private static final Tag<?>[] EXPANDED_TAGS_CONCRETE_ID = expandTags(TAGS_CONCRETE_ID);
+	private static final Tag<?>[] EXPANDED_TAGS_ABSTRACT_ID = expandTags(TAGS_ABSTRACT_ID);
+	private static final Tag<?>[] EXPANDED_TAGS_ABSTRACT_R_ID = expandTags(TAGS_ABSTRACT_R_ID);
+	private static final Tag<?>[] EXPANDED_TAGS_ABSTRACT_R_T_ID = expandTags(TAGS_ABSTRACT_R_T_ID);
+	private static final Tag<?>[] EXPANDED_TAGS_ABSTRACT_R_T_P_ID = expandTags(TAGS_ABSTRACT_R_T_P_ID);
+
 	public static final Role[] ROLES_ABSTRACT_ACTION = new Role[]{ // discard parameters
 		/// ActionRoles.MouseMove, 
 		ActionRoles.Type,
@@ -83,8 +94,12 @@ public class CodingManager {
 	// two arrays to hold the tags that will be used in constructing the concrete and abstract state id's
 	private static Tag<?>[] customTagsForConcreteId = new Tag<?>[]{};
 	private static Tag<?>[] customTagsForAbstractId = new Tag<?>[]{};
+	private static volatile Tag<?>[] expandedCustomTagsForConcreteId = new Tag<?>[]{};
+	private static volatile Tag<?>[] expandedCustomTagsForAbstractId = new Tag<?>[]{};
 	private static Tag<?>[] defaultAbstractStateTags = new Tag<?>[] {StateManagementTags.WidgetControlType};
 
+	private static volatile boolean streamingIdHashing = false;
+
     /**
      * Set the array of tags that should be used in constructing the concrete state id's.
      *
@@ -93,6 +108,7 @@ public class CodingManager {
 	public static synchronized void setCustomTagsForConcreteId(Tag<?>[] tags) {
 		customTagsForConcreteId = tags;
 		Arrays.sort(customTagsForConcreteId,Comparator.comparing(Tag::name));
+		expandedCustomTagsForConcreteId = expandTags(customTagsForConcreteId);
 	}
 
     /**
@@ -103,6 +119,7 @@ public class CodingManager {
 	public static synchronized void setCustomTagsForAbstractId(Tag<?>[] tags) {
 		customTagsForAbstractId = tags;
 		Arrays.sort(customTagsForAbstractId, Comparator.comparing(Tag::name));
+		expandedCustomTagsForAbstractId = expandTags(customTagsForAbstractId);
 	}
 
 	/**
@@ -125,6 +142,26 @@ public class CodingManager {
 	 */
 	public static Tag<?>[] getDefaultAbstractStateTags() {return defaultAbstractStateTags;}
 
+	/**
+	 * Set the way the identifiers of widgets and states are hashed.
+	 * ID_HASHING_COMPATIBLE produces the same identifiers as previous versions of TESTAR,
+	 * ID_HASHING_STREAMING hashes the tag values directly, which is considerably faster for large widget trees.
+	 * Both produce different identifiers, so a state model should always be built using the same setting.
+	 *
+	 * @param idHashing ID_HASHING_COMPATIBLE or ID_HASHING_STREAMING
+	 */
+	public static void setIdHashing(String idHashing) {
+		streamingIdHashing = ID_HASHING_STREAMING.equals(idHashing);
+	}
+
+	/**
+	 * Returns the way the identifiers of widgets and states are currently hashed
+	 * @return ID_HASHING_COMPATIBLE or ID_HASHING_STREAMING
+	 */
+	public static String getIdHashing() {
+		return streamingIdHashing ? ID_HASHING_STREAMING : ID_HASHING_COMPATIBLE;
+	}
+
 	// ###########################################
 	//  Widgets/States and Actions IDs management
 	// ###########################################
@@ -144,22 +181,32 @@ public class CodingManager {
 	 * the concatenation of a set of accessibility properties (e.g. ROLE, TITLE, ENABLED and PATH).
 	 * An example for an enabled "ok" button could be: Buttonoktrue0,0,1 ("0,0,1" being the path in the widget-tree).
  	 *
+	 * When streaming id hashing is enabled, the tag values and the child identifiers are fed into
+	 * a 128-bit hash instead of being concatenated (see setIdHashing).
 	 */
-	public static synchronized void buildIDs(Widget widget){
+	public static void buildIDs(Widget widget){
+		if (streamingIdHashing) {
+			buildStreamingIDs(widget);
+		} else {
+			buildCompatibleIDs(widget);
+		}
+	}
+
+	private static synchronized void buildCompatibleIDs(Widget widget){
 		if (widget.parent() != null){
-			widget.set(Tags.ConcreteID, ID_PREFIX_WIDGET + ID_PREFIX_CONCRETE + CodingManager.codify(widget, CodingManager.TAGS_CONCRETE_ID));
-			widget.set(Tags.AbstractID, ID_PREFIX_WIDGET + ID_PREFIX_ABSTRACT_R + CodingManager.codify(widget, CodingManager.TAGS_ABSTRACT_ID));
-			widget.set(Tags.Abstract_R_ID, ID_PREFIX_WIDGET + ID_PREFIX_ABSTRACT_R + CodingManager.codify(widget, CodingManager.TAGS_ABSTRACT_R_ID));
-			widget.set(Tags.Abstract_R_T_ID, ID_PREFIX_WIDGET + ID_PREFIX_ABSTRACT_R_T + CodingManager.codify(widget, CodingManager.TAGS_ABSTRACT_R_T_ID));
-			widget.set(Tags.Abstract_R_T_P_ID, ID_PREFIX_WIDGET + ID_PREFIX_ABSTRACT_R_T_P + CodingManager.codify(widget, CodingManager.TAGS_ABSTRACT_R_T_P_ID));
-			widget.set(Tags.ConcreteIDCustom, ID_PREFIX_WIDGET + ID_PREFIX_CONCRETE_CUSTOM + CodingManager.codify(widget, customTagsForConcreteId));
-			widget.set(Tags.AbstractIDCustom, ID_PREFIX_WIDGET + ID_PREFIX_ABSTRACT_CUSTOM + CodingManager.codify(widget, customTagsForAbstractId));
+			widget.set(Tags.ConcreteID, ID_PREFIX_WIDGET + ID_PREFIX_CONCRETE + CodingManager.codify(widget, EXPANDED_TAGS_CONCRETE_ID));
+			widget.set(Tags.AbstractID, ID_PREFIX_WIDGET + ID_PREFIX_ABSTRACT_R + CodingManager.codify(widget, EXPANDED_TAGS_ABSTRACT_ID));
+			widget.set(Tags.Abstract_R_ID, ID_PREFIX_WIDGET + ID_PREFIX_ABSTRACT_R + CodingManager.codify(widget, EXPANDED_TAGS_ABSTRACT_R_ID));
+			widget.set(Tags.Abstract_R_T_ID, ID_PREFIX_WIDGET + ID_PREFIX_ABSTRACT_R_T + CodingManager.codify(widget, EXPANDED_TAGS_ABSTRACT_R_T_ID));
+			widget.set(Tags.Abstract_R_T_P_ID, ID_PREFIX_WIDGET + ID_PREFIX_ABSTRACT_R_T_P + CodingManager.codify(widget, EXPANDED_TAGS_ABSTRACT_R_T_P_ID));
+			widget.set(Tags.ConcreteIDCustom, ID_PREFIX_WIDGET + ID_PREFIX_CONCRETE_CUSTOM + CodingManager.codify(widget, expandedCustomTagsForConcreteId));
+			widget.set(Tags.AbstractIDCustom, ID_PREFIX_WIDGET + ID_PREFIX_ABSTRACT_CUSTOM + CodingManager.codify(widget, expandedCustomTagsForAbstractId));
 		} else if (widget instanceof State) { // UI root
 			StringBuilder concreteId, abstractId, abstractRoleId, abstractRoleTitleId, abstractRoleTitlePathId, concreteIdCustom, abstractIdCustom;
 			concreteId = new StringBuilder(abstractId = new StringBuilder(abstractRoleId = new StringBuilder(abstractRoleTitleId = new StringBuilder(abstractRoleTitlePathId = new StringBuilder(concreteIdCustom = new StringBuilder(abstractIdCustom = new StringBuilder()))))));
 			for (Widget childWidget : (State) widget){
 				if (childWidget != widget){
-					buildIDs(childWidget);
+					buildCompatibleIDs(childWidget);
 					concreteId.append(childWidget.get(Tags.ConcreteID));
 					abstractId.append(childWidget.get(Tags.AbstractID));
 					abstractRoleId.append(childWidget.get(Tags.Abstract_R_ID));
@@ -178,6 +225,68 @@ public class CodingManager {
 			widget.set(Tags.AbstractIDCustom, ID_PREFIX_STATE + ID_PREFIX_ABSTRACT_CUSTOM + CodingManager.lowCollisionID(abstractIdCustom.toString()));
 		}	
 	}
+
+	/**
+	 * Builds the IDs for a widget or state using the streaming hash. The IDs of all the families are computed in a
+	 * single walk over the widget tree, in which every widget hash is fed into the state hash of the same family.
+	 * Only local state is used, so no locking is needed.
+	 * @param widget A widget or a State
+	 */
+	private static void buildStreamingIDs(Widget widget){
+		// take a snapshot, the custom tags might be changed by another thread
+		Tag<?>[][] families = new Tag<?>[][]{EXPANDED_TAGS_CONCRETE_ID, EXPANDED_TAGS_ABSTRACT_ID, EXPANDED_TAGS_ABSTRACT_R_ID,
+				EXPANDED_TAGS_ABSTRACT_R_T_ID, EXPANDED_TAGS_ABSTRACT_R_T_P_ID, expandedCustomTagsForConcreteId, expandedCustomTagsForAbstractId};
+		IdHasher widgetHasher = new IdHasher();
+		long[] widgetHashes = new long[2 * families.length];
+
+		if (widget.parent() != null){
+			hashWidget(widget, families, widgetHasher, widgetHashes);
+			setStreamingIDs(widget, ID_PREFIX_WIDGET, widgetHashes);
+		} else if (widget instanceof State) { // UI root
+			IdHasher[] stateHashers = new IdHasher[families.length];
+			for (int i = 0; i < families.length; i++) {
+				stateHashers[i] = new IdHasher();
+			}
+			for (Widget childWidget : (State) widget){
+				if (childWidget != widget){
+					hashWidget(childWidget, families, widgetHasher, widgetHashes);
+					setStreamingIDs(childWidget, ID_PREFIX_WIDGET, widgetHashes);
+					for (int i = 0; i < families.length; i++) {
+						stateHashers[i].putHash(widgetHashes[2 * i], widgetHashes[2 * i + 1]);
+					}
+				}
+			}
+			for (int i = 0; i < families.length; i++) {
+				widgetHashes[2 * i] = stateHashers[i].hash1();
+				widgetHashes[2 * i + 1] = stateHashers[i].hash2();
+			}
+			setStreamingIDs(widget, ID_PREFIX_STATE, widgetHashes);
+		}
+	}
+
+	private static void hashWidget(Widget widget, Tag<?>[][] families, IdHasher hasher, long[] hashes){
+		for (int i = 0; i < families.length; i++) {
+			hasher.reset();
+			for (Tag<?> tag : families[i]) {
+				hasher.putValue(widget.get(tag, null));
+			}
+			hashes[2 * i] = hasher.hash1();
+			hashes[2 * i + 1] = hasher.hash2();
+		}
+	}
+
+	// the hashes are ordered like the families in buildStreamingIDs
+	private static void setStreamingIDs(Widget widget, String prefix, long[] hashes){
+		// widgets use the role prefix for the abstract id, states use the abstract prefix
+		String abstractPrefix = prefix.equals(ID_PREFIX_STATE) ? ID_PREFIX_ABSTRACT : ID_PREFIX_ABSTRACT_R;
+		widget.set(Tags.ConcreteID, IdHasher.toId(prefix + ID_PREFIX_CONCRETE, hashes[0], hashes[1]));
+		widget.set(Tags.AbstractID, IdHasher.toId(prefix + abstractPrefix, hashes[2], hashes[3]));
+		widget.set(Tags.Abstract_R_ID, IdHasher.toId(prefix + ID_PREFIX_ABSTRACT_R, hashes[4], hashes[5]));
+		widget.set(Tags.Abstract_R_T_ID, IdHasher.toId(prefix + ID_PREFIX_ABSTRACT_R_T, hashes[6], hashes[7]));
+		widget.set(Tags.Abstract_R_T_P_ID, IdHasher.toId(prefix + ID_PREFIX_ABSTRACT_R_T_P, hashes[8], hashes[9]));
+		widget.set(Tags.ConcreteIDCustom, IdHasher.toId(prefix + ID_PREFIX_CONCRETE_CUSTOM, hashes[10], hashes[11]));
+		widget.set(Tags.AbstractIDCustom, IdHasher.toId(prefix + ID_PREFIX_ABSTRACT_CUSTOM, hashes[12], hashes[13]));
+	}
 	
 	/**
 	 * Builds IDs (abstract, concrete) for a set of actions.
@@ -277,17 +386,32 @@ public class CodingManager {
 		return lowCollisionID(getTaggedString(state, tags));
 	}
 
+	// the tags should have been expanded with expandTags
 	private static String getTaggedString(Widget leaf, Tag<?>... tags){
 		StringBuilder sb = new StringBuilder();
 		for(Tag<?> t : tags) {
 			sb.append(leaf.get(t, null));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the tags in which every control pattern tag is followed by its child tags, sorted by name.
+	 * The values of these tags are used in constructing the widget ids.
+	 * @param tags
+	 * @return
+	 */
+	private static Tag<?>[] expandTags(Tag<?>[] tags){
+		List<Tag<?>> expandedTags = new ArrayList<>();
+		for(Tag<?> t : tags) {
+			expandedTags.add(t);
 			// check if we are dealing with a state management tag and, if so, if it has child tags
 			// that we need to incorporate
 			if (StateManagementTags.isStateManagementTag(t) && StateManagementTags.getTagGroup(t).equals(StateManagementTags.Group.ControlPattern)) {
-				StateManagementTags.getChildTags(t).stream().sorted(Comparator.comparing(Tag::name)).forEach(tag -> sb.append(leaf.get(tag, null)));
+				StateManagementTags.getChildTags(t).stream().sorted(Comparator.comparing(Tag::name)).forEach(expandedTags::add);
 			}
 		}
-		return sb.toString();
+		return expandedTags.toArray(new Tag<?>[0]);
 	}
 
 	// ################
@@ -330,6 +454,10 @@ public class CodingManager {
 		// we add the application name and version to the hash input
 		hashInput.append(applicationName);
 		hashInput.append(applicationVersion);
+		// models built with streaming id hashing have different state ids
+		if (streamingIdHashing) {
+			hashInput.append(ID_HASHING_STREAMING);
+		}
 		return lowCollisionID(hashInput.toString());
 	}
 
@@ -0,0 +1,176 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package es.upv.staq.testar;
+
+/**
+ * Streaming 128-bit hash used to build widget and state identifiers without
+ * first concatenating the tag values into a string.
+ *
+ * The hash consists of two 64-bit lanes that are updated for every value that is fed into it.
+ * An instance is not thread safe, but is cheap to create and can be reused by calling reset().
+ */
+final class IdHasher {
+
+	private static final long SEED_1 = 0x243F6A8885A308D3L;
+	private static final long SEED_2 = 0x13198A2E03707344L;
+	private static final long MULTIPLIER_1 = 0x9E3779B97F4A7C15L;
+	private static final long MULTIPLIER_2 = 0xC2B2AE3D27D4EB4FL;
+
+	// markers that separate the different kinds of values, so that e.g. "true" and true do not collide
+	private static final long NULL_MARKER = 0x6E756C6CL;
+	private static final long TRUE_MARKER = 0x74727565L;
+	private static final long FALSE_MARKER = 0x66616C73L;
+	private static final long STRING_MARKER = 0x73L << 32;
+	private static final long NUMBER_MARKER = 0x6EL << 32;
+
+	private static final char[] DIGITS = "0123456789abcdefghijklmnopqrstuvwxyz".toCharArray();
+
+	// an unsigned 64-bit value takes at most 13 characters in radix 36
+	private static final int LANE_LENGTH = 13;
+
+	private long h1;
+	private long h2;
+	private long length;
+
+	IdHasher() {
+		reset();
+	}
+
+	void reset() {
+		h1 = SEED_1;
+		h2 = SEED_2;
+		length = 0;
+	}
+
+	void putLong(long value) {
+		h1 = Long.rotateLeft((h1 ^ value) * MULTIPLIER_1, 31);
+		h2 = Long.rotateLeft((h2 ^ Long.rotateLeft(value, 17)) * MULTIPLIER_2, 29) + h1;
+		length++;
+	}
+
+	/**
+	 * Feeds a tag value into the hash. Strings, booleans and numbers are hashed without creating new objects,
+	 * other values are hashed through their string representation.
+	 * @param value The tag value, may be null.
+	 */
+	void putValue(Object value) {
+		if (value == null) {
+			putLong(NULL_MARKER);
+		} else if (value instanceof String) {
+			putString((String) value);
+		} else if (value instanceof Boolean) {
+			putLong((Boolean) value ? TRUE_MARKER : FALSE_MARKER);
+		} else if (value instanceof Double || value instanceof Float) {
+			putLong(NUMBER_MARKER);
+			putLong(Double.doubleToLongBits(((Number) value).doubleValue()));
+		} else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			putLong(NUMBER_MARKER);
+			putLong(((Number) value).longValue());
+		} else {
+			putString(value.toString());
+		}
+	}
+
+	void putString(String value) {
+		int stringLength = value.length();
+		putLong(STRING_MARKER | stringLength);
+		int i = 0;
+		// four characters fit in one long
+		for (; i + 4 <= stringLength; i += 4) {
+			putLong(((long) value.charAt(i) << 48) | ((long) value.charAt(i + 1) << 32) |
+					((long) value.charAt(i + 2) << 16) | value.charAt(i + 3));
+		}
+		if (i < stringLength) {
+			long remainder = 0;
+			for (; i < stringLength; i++) {
+				remainder = (remainder << 16) | value.charAt(i);
+			}
+			putLong(remainder);
+		}
+	}
+
+	/**
+	 * Feeds another finished hash into this one, e.g. the hash of a child widget into the hash of a state.
+	 */
+	void putHash(long hash1, long hash2) {
+		putLong(hash1);
+		putLong(hash2);
+	}
+
+	long hash1() {
+		return mix(h1 ^ length);
+	}
+
+	long hash2() {
+		return mix(h2 + h1 + length);
+	}
+
+	/**
+	 * Returns the identifier for the current hash, which consists of the prefix followed by both lanes in radix 36.
+	 * @param prefix The prefix of the identifier.
+	 * @return The identifier.
+	 */
+	String toId(String prefix) {
+		return toId(prefix, hash1(), hash2());
+	}
+
+	static String toId(String prefix, long hash1, long hash2) {
+		int prefixLength = prefix.length();
+		char[] id = new char[prefixLength + 2 * LANE_LENGTH];
+		prefix.getChars(0, prefixLength, id, 0);
+		writeLane(hash1, id, prefixLength);
+		writeLane(hash2, id, prefixLength + LANE_LENGTH);
+		return new String(id);
+	}
+
+	// writes the unsigned value with a fixed width, so that the lanes cannot be confused
+	private static void writeLane(long value, char[] target, int offset) {
+		// the first division is unsigned, after that the value is positive
+		long quotient = Long.divideUnsigned(value, 36);
+		target[offset + LANE_LENGTH - 1] = DIGITS[(int) (value - quotient * 36)];
+		value = quotient;
+		for (int i = LANE_LENGTH - 2; i >= 0; i--) {
+			target[offset + i] = DIGITS[(int) (value % 36)];
+			value /= 36;
+		}
+	}
+
+	// final mixing step of MurmurHash3, so that every input bit affects every output bit
+	private static long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xFF51AFD7ED558CCDL;
+		value ^= value >>> 33;
+		value *= 0xC4CEB93FE1A85EC3L;
+		value ^= value >>> 33;
+		return value;
+	}
+}
@@ -45,6 +45,7 @@ import org.fruit.alayer.Role;
 import org.fruit.alayer.SUT;
 import org.fruit.alayer.Shape;
 import org.fruit.alayer.State;
+import org.fruit.alayer.StateScreenshot;
 import org.fruit.alayer.Tags;
 import org.fruit.alayer.Verdict;
 import org.fruit.alayer.Widget;
@@ -244,6 +245,11 @@ public class ProtocolUtil {
 	 * @return
 	 */
 	public static AWTCanvas getStateshotBinary(State state) {
+		// the same screenshot is used for the stateshot and the state model
+		return StateScreenshot.of(state, () -> takeStateshot(state));
+	}
+
+	private static AWTCanvas takeStateshot(State state) {
 		Shape viewPort = null;
 		if (state.childCount() > 0){
 			viewPort = state.child(0).get(Tags.Shape, null);
@@ -32,26 +32,65 @@
 package es.upv.staq.testar.serialisation;
 
 import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
-import java.util.LinkedList;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.fruit.Assert;
 import org.fruit.alayer.AWTCanvas;
+import org.fruit.alayer.AWTCanvas.StorageFormat;
 
 /**
  * SUT screenshots serialiser
  *
+ * Screenshots are handed to a configurable number of writer threads through a bounded queue.
+ * When the queue is full, saving a screenshot blocks until one of the writer threads has caught up.
+ * The writer threads encode the screenshots in the configured format, optionally downscaled.
+ *
+ * Screenshots are stored by content: a screenshot with the same pixels as one that was already stored
+ * during the test sequence is not saved again. Instead, the path of the stored screenshot is returned,
+ * and the reference is recorded in the INDEX_FILE of the test sequence folder.
  */
 public class ScreenshotSerialiser extends Thread {
 
 	public static final String SCRSHOTS = "scrshots";
+	public static final String INDEX_FILE = "scrshots_index.txt";
+	private static final int QUEUE_CAPACITY = 32;
 	private static String testSequenceFolder = null;
 	private static String scrshotOutputFolder = null;
-	private static LinkedList<ScrshotRecord> scrshotSavingQueue =  new LinkedList<ScrshotRecord>();
-	private static final int QUEUE_LIMIT = 16;
-	private static ScreenshotSerialiser singletonScreenshotSerialiser;
-	private static boolean alive;
-	private static boolean queueBoost;
+	private static final BlockingQueue<ScrshotRecord> scrshotSavingQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+	private static ScreenshotSerialiser[] writers = new ScreenshotSerialiser[0];
+	private static volatile boolean alive;
+	private static CompletableFuture<Void> closed = CompletableFuture.completedFuture(null);
+
+	// encoding settings
+	private static StorageFormat format = StorageFormat.PNG;
+	private static double quality = 1.0;
+	private static double scale = 1.0;
+
+	// the stored screenshots by pixel hash, and the paths of the duplicates that refer to them
+	private static final Map<Long, StoredScrshot> storedScrshots = new HashMap<>();
+	private static final Set<String> storedPaths = new HashSet<>();
+	private static final Map<String, String> references = new LinkedHashMap<>();
+
+	// the screenshots that are queued or being written, by path
+	private static final Map<String, CompletableFuture<Void>> pendingScrshots = new ConcurrentHashMap<>();
+
+	// queue depth metrics
+	private static volatile int maxQueueLength;
+	private static final AtomicInteger savedScrshots = new AtomicInteger();
+
+	private final CompletableFuture<Void> stopped = new CompletableFuture<>();
 
 	private static class ScrshotRecord{
 		String scrshotPath;
@@ -59,107 +98,247 @@ public class ScreenshotSerialiser extends Thread {
 		public ScrshotRecord(String scrshotPath, AWTCanvas scrshot){this.scrshotPath = scrshotPath; this.scrshot = scrshot;}
 	}
 
-	private ScreenshotSerialiser(){}
-	private ScreenshotSerialiser(String scrshotOutputFolder, String testSequenceFolder){
-		ScreenshotSerialiser.testSequenceFolder = testSequenceFolder;
-		ScreenshotSerialiser.scrshotOutputFolder = scrshotOutputFolder;
-		(new File(scrshotOutputFolder + File.separator + testSequenceFolder)).mkdirs();
+	private static class StoredScrshot{
+		final String path;
+		final int width, height;
+		StoredScrshot(String path, int width, int height){this.path = path; this.width = width; this.height = height;}
+	}
+
+	// tells a writer thread to stop
+	private static final ScrshotRecord STOP = new ScrshotRecord(null, null);
+
+	private ScreenshotSerialiser(int index){
+		super("ScreenshotSerialiser-" + index);
 	}
 
 	public static void start(String outputFolder, String testSequenceFolder){
+		start(outputFolder, testSequenceFolder, 1);
+	}
+
+	public static void start(String outputFolder, String testSequenceFolder, int writerThreads){
+		start(outputFolder, testSequenceFolder, writerThreads, StorageFormat.PNG, 1.0, 1.0);
+	}
+
+	/**
+	 * @param outputFolder
+	 * @param testSequenceFolder
+	 * @param writerThreads The number of threads that encode and write the screenshots.
+	 * @param format The format in which the screenshots are saved.
+	 * @param quality The JPEG quality, between 0 and 1.
+	 * @param scale Factor by which the screenshots are resized, between 0 and 1.
+	 */
+	public static synchronized void start(String outputFolder, String testSequenceFolder, int writerThreads,
+			StorageFormat format, double quality, double scale){
 		Assert.isTrue(!alive);
 		Assert.isTrue(scrshotSavingQueue.isEmpty());
-		alive = true; queueBoost = false;
-		singletonScreenshotSerialiser = new ScreenshotSerialiser(outputFolder, testSequenceFolder);
-		singletonScreenshotSerialiser.setPriority(Thread.MIN_PRIORITY);
-		singletonScreenshotSerialiser.start();
+		Assert.isTrue(writerThreads > 0);
+		Assert.notNull(format);
+		Assert.isTrue(quality > 0 && quality <= 1 && scale > 0 && scale <= 1);
+		ScreenshotSerialiser.format = format;
+		ScreenshotSerialiser.quality = quality;
+		ScreenshotSerialiser.scale = scale;
+		storedScrshots.clear(); storedPaths.clear(); references.clear();
+		ScreenshotSerialiser.testSequenceFolder = testSequenceFolder;
+		ScreenshotSerialiser.scrshotOutputFolder = outputFolder;
+		(new File(outputFolder + File.separator + testSequenceFolder)).mkdirs();
+		maxQueueLength = 0; savedScrshots.set(0);
+		alive = true;
+		writers = new ScreenshotSerialiser[writerThreads];
+		CompletableFuture<?>[] writersStopped = new CompletableFuture<?>[writerThreads];
+		for (int i = 0; i < writerThreads; i++){
+			writers[i] = new ScreenshotSerialiser(i);
+			writersStopped[i] = writers[i].stopped;
+			writers[i].start();
+		}
+		closed = CompletableFuture.allOf(writersStopped);
+	}
+
+	/**
+	 * Stops accepting screenshots. The writer threads stop once the queued screenshots are saved.
+	 * @return A future that completes when all screenshots have been saved.
+	 */
+	public static synchronized CompletableFuture<Void> finish(){
+		if (alive){
+			alive = false;
+			for (int i = 0; i < writers.length; i++)
+				enqueue(STOP);
+		}
+		return closed;
 	}
 
-	public static void finish(){
-		alive = false;
+	/**
+	 * @return A future that completes when the screenshots that are queued now have been saved.
+	 */
+	public static CompletableFuture<Void> flush(){
+		return CompletableFuture.allOf(pendingScrshots.values().toArray(new CompletableFuture<?>[0]));
 	}
 
 	public static boolean isSavingQueueEmpty() {
-		if(scrshotSavingQueue.isEmpty())
-			return true;
-		return false;
+		return pendingScrshots.isEmpty();
 	}
 
 	@Override
 	public void run(){		
-		while (alive || !scrshotSavingQueue.isEmpty()){
-			while(alive && scrshotSavingQueue.isEmpty()){
-				try {
-					Thread.sleep(1000);
-				} catch (InterruptedException e1) {}
+		while (true){
+			ScrshotRecord r;
+			try {
+				r = scrshotSavingQueue.take();
+			} catch (InterruptedException e) {
+				continue; // the queue still needs to be saved
 			}
-			if (!scrshotSavingQueue.isEmpty()){
-				if (!queueBoost && scrshotSavingQueue.size() > QUEUE_LIMIT){
-					this.setPriority(NORM_PRIORITY);
-					queueBoost = true;
-				} else if (queueBoost && scrshotSavingQueue.size() < QUEUE_LIMIT/2){
-					this.setPriority(MIN_PRIORITY);
-					queueBoost = false;
-				}
-				ScrshotRecord r;
-				synchronized(scrshotSavingQueue){
-					r = scrshotSavingQueue.removeFirst();
-				}
-				try {
-					r.scrshot.saveAsPng(r.scrshotPath);
-				} catch (IOException e) {
-					LogSerialiser.log("I/O exception saving screenshot <" + r.scrshotPath + ">\n", LogSerialiser.LogLevel.Critical);
-				}
+			if (r == STOP)
+				break;
+			try {
+				r.scrshot.save(r.scrshotPath, format, quality, scale);
+				savedScrshots.incrementAndGet();
+			} catch (IOException e) {
+				LogSerialiser.log("I/O exception saving screenshot <" + r.scrshotPath + ">\n", LogSerialiser.LogLevel.Critical);
+			} catch (RuntimeException e) {
+				// the writer keeps running, exit() and the producers blocked on the queue wait for it
+				LogSerialiser.log("Exception saving screenshot <" + r.scrshotPath + ">: " + e + "\n", LogSerialiser.LogLevel.Critical);
+			} finally {
+				pendingScrshots.remove(r.scrshotPath).complete(null);
 			}
 		}
-		synchronized(testSequenceFolder){
-			singletonScreenshotSerialiser = null;
-			testSequenceFolder.notifyAll();
-		}
+		stopped.complete(null);
 	}
 
 	public static String saveStateshot(String stateID, AWTCanvas stateshot){
-		String statePath = scrshotOutputFolder + File.separator + testSequenceFolder + File.separator + stateID + ".png";
-		if (!new File(statePath).exists())
-			savethis(statePath,stateshot);
-		return statePath;
+		return store(scrshotOutputFolder + File.separator + testSequenceFolder + File.separator + stateID + AWTCanvas.extension(format), stateshot);
 	}
 
 	public static String saveActionshot(String stateID, String actionID, final AWTCanvas actionshot){
-		String actionPath = scrshotOutputFolder + File.separator + testSequenceFolder + File.separator + stateID + "_" + actionID + ".png";
-		if (!new File(actionPath).exists())
-			savethis(actionPath,actionshot);
-		return actionPath;
+		return store(getActionshotPath(stateID, actionID), actionshot);
 	}
 
-	private static void savethis(String scrshotPath, AWTCanvas scrshot){
-		if (alive){
-			synchronized(scrshotSavingQueue){
-				scrshotSavingQueue.add(new ScrshotRecord(scrshotPath,scrshot));
+	/**
+	 * @return The path under which the actionshot is saved, which may refer to an identical screenshot.
+	 * An identical screenshot is only found once the actionshot has been saved, before that the requested path is returned.
+	 */
+	public static String getActionshotPath(String stateID, String actionID){
+		return resolve(getRequestedActionshotPath(stateID, actionID));
+	}
+
+	/**
+	 * @return The path the actionshot is requested to be saved to, see resolve for the path under which it is stored.
+	 * Only valid while the test sequence is being saved, exit() forgets the test sequence folder.
+	 */
+	public static String getRequestedActionshotPath(String stateID, String actionID){
+		return scrshotOutputFolder + File.separator + testSequenceFolder + File.separator + stateID + "_" + actionID + AWTCanvas.extension(format);
+	}
+
+	/**
+	 * The references are kept until the next test sequence starts, so a path can still be resolved after exit().
+	 * @param scrshotPath The path a screenshot was requested to be saved to.
+	 * @return The path of the identical screenshot that was stored instead, or scrshotPath itself.
+	 */
+	public static synchronized String resolve(String scrshotPath){
+		String storedPath = references.get(scrshotPath);
+		return storedPath == null ? scrshotPath : storedPath;
+	}
+
+	/**
+	 * Screenshots are compared by their size and their 64-bit pixel hash, the pixels themselves are not kept.
+	 * When two different screenshots of the same size have the same hash, which is very unlikely, the second
+	 * one is not saved and refers to the first one.
+	 */
+	private static String store(String scrshotPath, AWTCanvas scrshot){
+		long hash = scrshot.pixelHash();
+		int width = (int) scrshot.width(), height = (int) scrshot.height();
+		synchronized (ScreenshotSerialiser.class){
+			StoredScrshot stored = storedScrshots.get(hash);
+			if (stored != null && stored.width == width && stored.height == height){
+				if (!stored.path.equals(scrshotPath))
+					references.put(scrshotPath, stored.path);
+				return stored.path;
 			}
+			// a screenshot that was stored before with other pixels is kept, as the old implementation did
+			if (!storedPaths.add(scrshotPath) || new File(scrshotPath).exists())
+				return scrshotPath;
+			if (stored == null)
+				storedScrshots.put(hash, new StoredScrshot(scrshotPath, width, height));
 		}
+		savethis(scrshotPath, scrshot);
+		return scrshotPath;
 	}
 
-	public static void exit(){
-		if (singletonScreenshotSerialiser != null){
-			ScreenshotSerialiser.finish();
+	private static synchronized void savethis(String scrshotPath, AWTCanvas scrshot){
+		// the same screenshot might still be waiting to be saved
+		if (alive && !pendingScrshots.containsKey(scrshotPath)){
+			pendingScrshots.put(scrshotPath, new CompletableFuture<>());
+			enqueue(new ScrshotRecord(scrshotPath,scrshot));
+			maxQueueLength = Math.max(maxQueueLength, pendingScrshots.size());
+		}
+	}
+
+	// blocks while the queue is full, this is what keeps the test from running too far ahead of the writers
+	private static void enqueue(ScrshotRecord record){
+		boolean interrupted = false;
+		while (true){
 			try {
-				synchronized(testSequenceFolder){
-					while (singletonScreenshotSerialiser != null){
-						try {
-							testSequenceFolder.wait(10);
-						} catch (InterruptedException e) {
-							System.out.println("ScreenshotSerialiser exit interrupted");
-						}
-					}
-				}
-			} catch (Exception e) {} // testSequenceFolder may be set to null when we try to sync on it
+				scrshotSavingQueue.put(record);
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	/**
+	 * Finishes the screenshot serialisation and waits until all screenshots have been saved.
+	 */
+	public static void exit(){
+		if (writers.length > 0){
+			finish().join();
+			writeIndex();
+			LogSerialiser.log("ScreenshotSerialiser saved " + savedScrshots.get() + " screenshots, " + duplicateScrshots()
+					+ " duplicates refer to these, maximum queue length was " + maxQueueLength + "\n", LogSerialiser.LogLevel.Debug);
+			writers = new ScreenshotSerialiser[0];
 			testSequenceFolder = null;
 		}
 	}	
 
+	// one line per duplicate: the requested file name and the name of the file that holds the screenshot
+	private static synchronized void writeIndex(){
+		if (references.isEmpty())
+			return;
+		File index = new File(scrshotOutputFolder + File.separator + testSequenceFolder + File.separator + INDEX_FILE);
+		try (PrintWriter writer = new PrintWriter(new FileWriter(index, true))){
+			for (Map.Entry<String, String> reference : references.entrySet())
+				writer.println(new File(reference.getKey()).getName() + "\t" + new File(reference.getValue()).getName());
+		} catch (IOException e) {
+			LogSerialiser.log("I/O exception saving screenshot index <" + index + ">\n", LogSerialiser.LogLevel.Critical);
+		}
+	}
+
+	/**
+	 * @return The number of screenshots that have not been saved yet.
+	 */
 	public static int queueLength(){
-		return scrshotSavingQueue.size();
+		return pendingScrshots.size();
 	}	
 
+	/**
+	 * @return The maximum number of screenshots waiting to be saved during the current test sequence.
+	 */
+	public static int maxQueueLength(){
+		return maxQueueLength;
+	}
+
+	/**
+	 * @return The number of screenshots saved during the current test sequence.
+	 */
+	public static int savedScrshots(){
+		return savedScrshots.get();
+	}
+
+	/**
+	 * @return The number of screenshots that were not saved because an identical screenshot was stored already.
+	 */
+	public static synchronized int duplicateScrshots(){
+		return references.size();
+	}
+
 }
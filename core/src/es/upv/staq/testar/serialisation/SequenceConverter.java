@@ -0,0 +1,91 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package es.upv.staq.testar.serialisation;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+import org.fruit.alayer.Taggable;
+
+/**
+ * Converts replayable sequence files from the legacy format into the compact sequence format.
+ * The classes of the legacy fragments (e.g. the widgets of the SUT) need to be available on the class path.
+ *
+ * Usage: SequenceConverter legacyFile compactFile
+ */
+public class SequenceConverter {
+
+	private SequenceConverter(){}
+
+	/**
+	 * Converts a (compressed) legacy sequence file into a compressed compact sequence file.
+	 * @param legacyFile The sequence file to convert.
+	 * @param compactFile The file to write the converted sequence to.
+	 * @return The number of converted fragments.
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	public static int convert(File legacyFile, File compactFile) throws IOException, ClassNotFoundException {
+		int fragments = 0;
+		try (SequenceReader reader = SequenceReader.open(legacyFile);
+			 SequenceWriter writer = new SequenceWriter(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(compactFile))))) {
+			if (reader.isCompact())
+				throw new IOException(legacyFile + " already is a compact sequence file");
+			Taggable fragment;
+			while ((fragment = reader.read()) != null) {
+				writer.write(fragment);
+				fragments++;
+			}
+		}
+		return fragments;
+	}
+
+	public static void main(String[] args) {
+		if (args.length != 2) {
+			System.out.println("Usage: SequenceConverter <legacy sequence file> <compact sequence file>");
+			return;
+		}
+		try {
+			File legacyFile = new File(args[0]);
+			File compactFile = new File(args[1]);
+			int fragments = convert(legacyFile, compactFile);
+			System.out.println("Converted " + fragments + " fragments, " + legacyFile.length() + " -> " + compactFile.length() + " bytes");
+		} catch (IOException | ClassNotFoundException e) {
+			System.out.println("Could not convert sequence file: " + e.getMessage());
+			e.printStackTrace();
+		}
+	}
+
+}
@@ -0,0 +1,117 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package es.upv.staq.testar.serialisation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.List;
+
+import org.fruit.alayer.Shape;
+import org.fruit.alayer.Tag;
+
+/**
+ * Constants and helpers of the compact replayable sequence format.
+ *
+ * A compact sequence file starts with MAGIC and VERSION, followed by records. A string record adds a string to the
+ * dictionary of the file, a fragment record contains what is needed to replay or view an executed action:
+ * the action itself (without the widgets it refers to), the verdict, the title of the target widget,
+ * the action duration and delay, the screenshot path and the shapes of the target widgets.
+ * Strings are written once and referred to by their index in the dictionary.
+ *
+ * Like legacy sequence files, compact sequence files are compressed when they are copied to the output directory.
+ */
+public final class SequenceFormat {
+
+	public static final String FORMAT_LEGACY = "legacy"; // serialised fragments, including the state and action set
+	public static final String FORMAT_COMPACT = "compact";
+
+	public static final int MAGIC = 0x54534551; // TSEQ
+	public static final int VERSION = 1;
+
+	static final int RECORD_STRING = 1;
+	static final int RECORD_FRAGMENT = 2;
+
+	// the fields that are present in a fragment record
+	static final int FIELD_TITLE = 1;
+	static final int FIELD_ACTION_DURATION = 1 << 1;
+	static final int FIELD_ACTION_DELAY = 1 << 2;
+	static final int FIELD_SCREENSHOT_PATH = 1 << 3;
+
+	// shorter strings are cheaper to write than a reference to the dictionary
+	static final int MIN_DICTIONARY_STRING_LENGTH = 8;
+
+	/**
+	 * The shapes of the target widgets of the executed action, relative to the SUT window.
+	 * Set on fragments read from compact sequence files, as these do not contain the state.
+	 */
+	@SuppressWarnings("unchecked")
+	public static final Tag<List<Shape>> TargetShapes = Tag.from("TargetShapes", (Class<List<Shape>>)(Class<?>)List.class);
+
+	private SequenceFormat(){}
+
+	/**
+	 * Writes a non-negative int using 1 to 5 bytes.
+	 */
+	static void writeVarInt(DataOutput out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	static int readVarInt(DataInput in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			byte b = in.readByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+		throw new IOException("Malformed sequence file: invalid number");
+	}
+
+	/**
+	 * Takes the place of a string that was added to the dictionary, in the serialised objects of a fragment.
+	 */
+	static final class DictionaryString implements Serializable {
+		private static final long serialVersionUID = 5186622354094419583L;
+		final int index;
+
+		DictionaryString(int index){
+			this.index = index;
+		}
+	}
+
+}
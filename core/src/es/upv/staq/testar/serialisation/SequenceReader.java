@@ -0,0 +1,223 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package es.upv.staq.testar.serialisation;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.fruit.alayer.Action;
+import org.fruit.alayer.Shape;
+import org.fruit.alayer.Taggable;
+import org.fruit.alayer.TaggableBase;
+import org.fruit.alayer.Tags;
+import org.fruit.alayer.Verdict;
+
+import static es.upv.staq.testar.serialisation.SequenceFormat.*;
+
+/**
+ * Reads the fragments of a replayable sequence, which can be stored in the legacy or in the compact sequence format.
+ * Fragments read from a compact sequence file contain the tags ExecutedAction, OracleVerdict, Title, ActionDuration,
+ * ActionDelay, ScreenshotPath and SequenceFormat.TargetShapes, but no SystemState and ActionSet.
+ */
+public class SequenceReader implements Closeable {
+
+	private final InputStream in;
+	private final boolean compact;
+	private DataInputStream dataIn;
+	private ObjectInputStream legacyIn;
+	private final List<String> dictionary = new ArrayList<>();
+
+	/**
+	 * Opens a (compressed) sequence file, as stored in the output directory.
+	 * @param file The sequence file.
+	 * @return The reader.
+	 * @throws IOException
+	 */
+	public static SequenceReader open(File file) throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(file));
+		try {
+			return new SequenceReader(new BufferedInputStream(new GZIPInputStream(in)));
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @param in The uncompressed sequence.
+	 * @throws IOException
+	 */
+	public SequenceReader(InputStream in) throws IOException {
+		this.in = in.markSupported() ? in : new BufferedInputStream(in);
+		this.in.mark(4);
+		DataInputStream header = new DataInputStream(this.in);
+		int magic = header.readInt();
+		compact = magic == MAGIC;
+		if (compact) {
+			dataIn = header;
+			int version = readVarInt(dataIn);
+			if (version > VERSION)
+				throw new IOException("Unsupported sequence file version: " + version);
+		} else {
+			this.in.reset();
+			legacyIn = new ObjectInputStream(this.in);
+		}
+	}
+
+	public boolean isCompact() {
+		return compact;
+	}
+
+	/**
+	 * Reads the next fragment.
+	 * @return The fragment, or null if the end of the sequence has been reached.
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	public Taggable read() throws IOException, ClassNotFoundException {
+		if (!compact) {
+			try {
+				return (Taggable) legacyIn.readObject();
+			} catch (EOFException e) {
+				return null;
+			}
+		}
+
+		int record;
+		while ((record = dataIn.read()) == RECORD_STRING) {
+			byte[] bytes = new byte[readVarInt(dataIn)];
+			dataIn.readFully(bytes);
+			dictionary.add(new String(bytes, StandardCharsets.UTF_8));
+		}
+		if (record == -1)
+			return null;
+		if (record != RECORD_FRAGMENT)
+			throw new IOException("Malformed sequence file: unknown record " + record);
+
+		TaggableBase fragment = new TaggableBase();
+		int fields = dataIn.readUnsignedByte();
+		if ((fields & FIELD_TITLE) != 0)
+			fragment.set(Tags.Title, lookup(readVarInt(dataIn)));
+		if ((fields & FIELD_ACTION_DURATION) != 0)
+			fragment.set(Tags.ActionDuration, dataIn.readDouble());
+		if ((fields & FIELD_ACTION_DELAY) != 0)
+			fragment.set(Tags.ActionDelay, dataIn.readDouble());
+		if ((fields & FIELD_SCREENSHOT_PATH) != 0)
+			fragment.set(Tags.ScreenshotPath, lookup(readVarInt(dataIn)));
+
+		byte[] objects = new byte[readVarInt(dataIn)];
+		dataIn.readFully(objects);
+		try (DictionaryObjectInputStream objectIn = new DictionaryObjectInputStream(new ByteArrayInputStream(objects))) {
+			Action action = (Action) objectIn.readObject();
+			Verdict verdict = (Verdict) objectIn.readObject();
+			@SuppressWarnings("unchecked")
+			List<Shape> targetShapes = (List<Shape>) objectIn.readObject();
+			if (action != null)
+				fragment.set(Tags.ExecutedAction, action);
+			if (verdict != null)
+				fragment.set(Tags.OracleVerdict, verdict);
+			fragment.set(TargetShapes, targetShapes);
+		}
+		return fragment;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	private String lookup(int index) throws IOException {
+		if (index < 0 || index >= dictionary.size())
+			throw new IOException("Malformed sequence file: unknown string " + index);
+		return dictionary.get(index);
+	}
+
+	/**
+	 * Object stream that resolves the class descriptors and strings from the dictionary.
+	 */
+	private class DictionaryObjectInputStream extends ObjectInputStream {
+
+		DictionaryObjectInputStream(InputStream in) throws IOException {
+			super(in);
+			enableResolveObject(true);
+		}
+
+		@Override
+		protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+			String className = lookup(readVarInt(this));
+			long serialVersionUID = readLong();
+			ObjectStreamClass desc = ObjectStreamClass.lookupAny(loadClass(className));
+			if (desc.getSerialVersionUID() != serialVersionUID)
+				throw new InvalidClassException(className, "the sequence was written using a different version of the class");
+			return desc;
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws ClassNotFoundException {
+			return loadClass(desc.getName());
+		}
+
+		@Override
+		protected Object resolveObject(Object obj) throws IOException {
+			if (obj instanceof DictionaryString)
+				return lookup(((DictionaryString) obj).index);
+			return obj;
+		}
+
+		private Class<?> loadClass(String className) throws ClassNotFoundException {
+			ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+			if (contextLoader != null) {
+				try {
+					return Class.forName(className, false, contextLoader);
+				} catch (ClassNotFoundException e) {
+					// try the loader of TESTAR itself
+				}
+			}
+			return Class.forName(className, false, SequenceReader.class.getClassLoader());
+		}
+	}
+
+}
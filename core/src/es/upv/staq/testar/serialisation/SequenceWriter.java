@@ -0,0 +1,264 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package es.upv.staq.testar.serialisation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.fruit.alayer.Action;
+import org.fruit.alayer.Finder;
+import org.fruit.alayer.Rect;
+import org.fruit.alayer.Shape;
+import org.fruit.alayer.State;
+import org.fruit.alayer.Taggable;
+import org.fruit.alayer.TaggableBase;
+import org.fruit.alayer.Tags;
+import org.fruit.alayer.Widget;
+import org.fruit.alayer.exceptions.WidgetNotFoundException;
+
+import static es.upv.staq.testar.serialisation.SequenceFormat.*;
+
+/**
+ * Writes replayable sequence fragments in the compact sequence format (see SequenceFormat).
+ * The fragments are expected to have the tags TESTAR sets when saving an executed action:
+ * ExecutedAction, SystemState, OracleVerdict, Title, ActionDuration and ActionDelay.
+ * The state and the action set are not written.
+ *
+ * Widgets are left out of the written action, except when the action itself needs a widget to be executed:
+ * an action that keeps a widget in one of its fields is written together with its widget tree.
+ */
+public class SequenceWriter implements Closeable {
+
+	private final DataOutputStream out;
+	private final Map<String, Integer> dictionary = new HashMap<>();
+	private final List<String> pendingStrings = new ArrayList<>();
+	private final ByteArrayOutputStream objectBuffer = new ByteArrayOutputStream();
+	private final Map<Class<?>, List<Field>> actionFields = new HashMap<>();
+
+	public SequenceWriter(OutputStream out) throws IOException {
+		this.out = new DataOutputStream(out);
+		this.out.writeInt(MAGIC);
+		writeVarInt(this.out, VERSION);
+	}
+
+	public void write(Taggable fragment) throws IOException {
+		Action action = fragment.get(Tags.ExecutedAction, null);
+		State state = fragment.get(Tags.SystemState, null);
+
+		// serialise the objects first, so that the strings they add to the dictionary are written before the fragment
+		objectBuffer.reset();
+		try (DictionaryObjectOutputStream objects = new DictionaryObjectOutputStream(objectBuffer, holdsWidget(action))) {
+			objects.writeObject(action);
+			objects.writeObject(fragment.get(Tags.OracleVerdict, null));
+			objects.writeObject(getTargetShapes(state, action));
+		}
+
+		String title = fragment.get(Tags.Title, null);
+		Double actionDuration = fragment.get(Tags.ActionDuration, null);
+		Double actionDelay = fragment.get(Tags.ActionDelay, null);
+		String screenshotPath = state == null ? null : state.get(Tags.ScreenshotPath, null);
+		int titleIndex = title == null ? -1 : intern(title);
+		int screenshotPathIndex = screenshotPath == null ? -1 : intern(screenshotPath);
+
+		writePendingStrings();
+
+		int fields = (title != null ? FIELD_TITLE : 0) |
+				(actionDuration != null ? FIELD_ACTION_DURATION : 0) |
+				(actionDelay != null ? FIELD_ACTION_DELAY : 0) |
+				(screenshotPath != null ? FIELD_SCREENSHOT_PATH : 0);
+		out.writeByte(RECORD_FRAGMENT);
+		out.writeByte(fields);
+		if (title != null)
+			writeVarInt(out, titleIndex);
+		if (actionDuration != null)
+			out.writeDouble(actionDuration);
+		if (actionDelay != null)
+			out.writeDouble(actionDelay);
+		if (screenshotPath != null)
+			writeVarInt(out, screenshotPathIndex);
+		writeVarInt(out, objectBuffer.size());
+		objectBuffer.writeTo(out);
+	}
+
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	/**
+	 * Returns the index of the string in the dictionary, adding it when it is not present yet.
+	 */
+	private int intern(String string) {
+		Integer index = dictionary.get(string);
+		if (index == null) {
+			index = dictionary.size();
+			dictionary.put(string, index);
+			pendingStrings.add(string);
+		}
+		return index;
+	}
+
+	private void writePendingStrings() throws IOException {
+		for (String string : pendingStrings) {
+			out.writeByte(RECORD_STRING);
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(out, bytes.length);
+			out.write(bytes);
+		}
+		pendingStrings.clear();
+	}
+
+	/**
+	 * Returns whether the action, or one of the actions it is composed of, keeps a widget in one of its fields.
+	 * The tags of the actions are not taken into account, as the widgets in there are only used for reporting.
+	 */
+	private boolean holdsWidget(Action action) {
+		return holdsWidget(action, Collections.newSetFromMap(new IdentityHashMap<>()));
+	}
+
+	private boolean holdsWidget(Object value, Set<Object> visited) {
+		if (value instanceof Widget)
+			return true;
+		if (value == null || !visited.add(value))
+			return false;
+		if (value instanceof Iterable) {
+			for (Object element : (Iterable<?>) value)
+				if (holdsWidget(element, visited))
+					return true;
+		} else if (value instanceof Object[]) {
+			for (Object element : (Object[]) value)
+				if (holdsWidget(element, visited))
+					return true;
+		} else if (value instanceof Action) {
+			for (Field field : getActionFields(value.getClass())) {
+				try {
+					if (holdsWidget(field.get(value), visited))
+						return true;
+				} catch (IllegalAccessException e) {
+					// setAccessible succeeded, so this does not happen
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the serialised fields of an action class and its super classes, up to the tags of TaggableBase.
+	 */
+	private List<Field> getActionFields(Class<?> actionClass) {
+		return actionFields.computeIfAbsent(actionClass, c -> {
+			List<Field> fields = new ArrayList<>();
+			for (Class<?> current = c; current != null && current != TaggableBase.class && current != Object.class; current = current.getSuperclass()) {
+				for (Field field : current.getDeclaredFields()) {
+					if (field.getType().isPrimitive() || (field.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT)) != 0)
+						continue;
+					field.setAccessible(true);
+					fields.add(field);
+				}
+			}
+			return fields;
+		});
+	}
+
+	/**
+	 * Returns the shapes of the target widgets relative to the SUT window, which the sequence viewer shows.
+	 */
+	private static ArrayList<Shape> getTargetShapes(State state, Action action) {
+		ArrayList<Shape> shapes = new ArrayList<>();
+		if (state == null || action == null || state.childCount() == 0)
+			return shapes;
+		List<Finder> targets = action.get(Tags.Targets, null);
+		Shape sutShape = state.child(0).get(Tags.Shape, null);
+		if (targets == null || sutShape == null)
+			return shapes;
+		for (Finder finder : targets) {
+			try {
+				Shape shape = finder.apply(state).get(Tags.Shape, null);
+				if (shape != null)
+					shapes.add(Rect.from(shape.x() - sutShape.x(), shape.y() - sutShape.y(), shape.width(), shape.height()));
+			} catch (WidgetNotFoundException e) {
+				// the target is not part of the state, nothing to show
+			}
+		}
+		return shapes;
+	}
+
+	/**
+	 * Object stream that leaves out widgets, as these refer to the complete widget tree, unless keepWidgets is set,
+	 * and replaces class descriptors and long strings by references to the dictionary.
+	 */
+	private class DictionaryObjectOutputStream extends ObjectOutputStream {
+
+		private final boolean keepWidgets;
+
+		DictionaryObjectOutputStream(OutputStream out, boolean keepWidgets) throws IOException {
+			super(out);
+			this.keepWidgets = keepWidgets;
+			enableReplaceObject(true);
+		}
+
+		@Override
+		protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+			writeVarInt(this, intern(desc.getName()));
+			writeLong(desc.getSerialVersionUID());
+		}
+
+		@Override
+		protected Object replaceObject(Object obj) {
+			if (obj instanceof Widget && !keepWidgets)
+				return null;
+			if (obj instanceof String && ((String) obj).length() >= MIN_DICTIONARY_STRING_LENGTH)
+				return new DictionaryString(intern((String) obj));
+			return obj;
+		}
+	}
+
+}
@@ -33,7 +33,10 @@ package es.upv.staq.testar.serialisation;
 
 import java.io.IOException;
 import java.io.ObjectOutputStream;
-import java.util.LinkedList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.fruit.Assert;
 import org.fruit.alayer.TaggableBase;
@@ -42,93 +45,196 @@ import es.upv.staq.testar.serialisation.LogSerialiser.LogLevel;
 
 /**
  * Tests serialiser..
+ *
+ * Fragments are handed to a single writer thread through a bounded queue, as they need to be written in order.
+ * When the queue is full, write() blocks until the writer thread has caught up.
  */
 public class TestSerialiser extends Thread {
 
+	private static final int QUEUE_CAPACITY = 64;
+
 	private static ObjectOutputStream test;
+	private static SequenceWriter compactTest; // used instead of test when the compact sequence format is used
 	private static int fragmentTimes;
 	private static final int FLUSH_INTERVAL = 16;
-	private static LinkedList<TaggableBase> testSavingQueue =  new LinkedList<>();
-	private static final int QUEUE_LIMIT = 16;
+	private static final BlockingQueue<Request> testSavingQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
 	private static TestSerialiser singletonTestSerialiser;
-	private static boolean alive;
-	private static boolean queueBoost;
+	private static volatile boolean alive;
+	private static CompletableFuture<Void> closed = CompletableFuture.completedFuture(null);
+
+	// queue depth metrics
+	private static final AtomicInteger pendingFragments = new AtomicInteger();
+	private static volatile int maxQueueLength;
+	private static volatile int writtenFragments;
+
+	/**
+	 * A fragment to write, or a request to flush or close the test file once the preceding fragments are written.
+	 */
+	private static class Request {
+		final TaggableBase fragment;
+		final CompletableFuture<Void> done;
+		final boolean close;
+
+		Request(TaggableBase fragment, CompletableFuture<Void> done, boolean close){
+			this.fragment = fragment; this.done = done; this.close = close;
+		}
+	}
 
 	private TestSerialiser(){}
 
 	public static void start(ObjectOutputStream test){
+		start(test, null);
+	}
+
+	/**
+	 * Starts serialising the test in the compact sequence format.
+	 * @param compactTest
+	 */
+	public static void start(SequenceWriter compactTest){
+		start(null, compactTest);
+	}
+
+	private static synchronized void start(ObjectOutputStream test, SequenceWriter compactTest){
 		Assert.isTrue(!alive);
 		Assert.isTrue(testSavingQueue.isEmpty());
 		TestSerialiser.test = test;
+		TestSerialiser.compactTest = compactTest;
 		fragmentTimes = 0;
-		alive = true; queueBoost = false;
+		maxQueueLength = 0; writtenFragments = 0;
+		closed = new CompletableFuture<>();
+		alive = true;
 		singletonTestSerialiser = new TestSerialiser();
-		singletonTestSerialiser.setPriority(Thread.MIN_PRIORITY);
 		singletonTestSerialiser.start();		
 	}
 
-	public static void finish(){
-		alive = false;
+	/**
+	 * Stops accepting fragments. The test file is closed once the queued fragments are written.
+	 * @return A future that completes when the test file has been closed.
+	 */
+	public static synchronized CompletableFuture<Void> finish(){
+		if (alive){
+			alive = false;
+			enqueue(new Request(null, closed, true));
+		}
+		return closed;
+	}
+
+	/**
+	 * @return A future that completes when the fragments that are queued now have been written and flushed.
+	 */
+	public static synchronized CompletableFuture<Void> flush(){
+		if (!alive)
+			return closed;
+		CompletableFuture<Void> flushed = new CompletableFuture<>();
+		enqueue(new Request(null, flushed, false));
+		return flushed;
 	}
 
 	public static boolean isSavingQueueEmpty() {
-		if(testSavingQueue.isEmpty())
-			return true;
-		return false;
+		return pendingFragments.get() == 0;
 	}
 
 	@Override
 	public void run(){
-		while (alive || !testSavingQueue.isEmpty()){
-			while(alive && testSavingQueue.isEmpty()){
-				try {
-					Thread.sleep(1000); // 1 second
-				} catch (InterruptedException e1) {}
+		while (true){
+			Request request;
+			try {
+				request = testSavingQueue.take();
+			} catch (InterruptedException e) {
+				continue; // the queue still needs to be written
 			}
-			if (!testSavingQueue.isEmpty()){
-				if (!queueBoost && testSavingQueue.size() > QUEUE_LIMIT){
-					this.setPriority(NORM_PRIORITY);
-					queueBoost = true;
-				} else if (queueBoost && testSavingQueue.size() < QUEUE_LIMIT/2){
-					this.setPriority(MIN_PRIORITY);
-					queueBoost = false;
-				}				
-				TaggableBase fragment;
-				synchronized(testSavingQueue){
-					fragment = testSavingQueue.removeFirst();
+			// a failing request must not stop the writer, the producers and finish() wait for it
+			try {
+				if (request.fragment != null){
+					writethis(request.fragment);
+					writtenFragments++;
+				} else if (request.close){
+					close();
+				} else {
+					try {
+						flushTest();
+					} catch (IOException e) {
+						LogSerialiser.log("TestSerialiser - flushing exception: " + e.getMessage(),LogLevel.Critical);
+					}
+				}
+			} catch (RuntimeException e) {
+				LogSerialiser.log("TestSerialiser - exception writing the test: " + e + "\n", LogLevel.Critical);
+			} finally {
+				if (request.fragment != null){
+					pendingFragments.decrementAndGet();
+				} else if (!request.close){
+					request.done.complete(null);
 				}
-				writethis(fragment);
+			}
+			if (request.close){
+				break;
 			}
 		}
+		LogSerialiser.log("TestSerialiser wrote " + writtenFragments + " fragments, maximum queue length was " + maxQueueLength + "\n", LogLevel.Debug);
+		singletonTestSerialiser = null;
+		closed.complete(null);
+	}
+
+	private static void close(){
 		try {
-			test.flush();
-			test.close();
+			flushTest();
 		} catch (IOException e) {
 			LogSerialiser.log("I/O exception serialising test file!\n", LogSerialiser.LogLevel.Critical);
 		} finally{
 			try {
-				test.close();
+				if (compactTest != null){
+					compactTest.close();
+				} else {
+					test.close();
+				}
 			} catch (IOException e) {
 				LogSerialiser.log("I/O exception closing serialisation of test file!\n", LogSerialiser.LogLevel.Critical);				
 			}
 		}
-		synchronized(test){
-			//System.out.println("TestSerialiser finished");
-			singletonTestSerialiser = null;
-			test.notifyAll();
+	}
+
+	private static void flushTest() throws IOException {
+		if (compactTest != null){
+			compactTest.flush();
+		} else {
+			test.flush();
 		}
 	}
 
-	public static void write(TaggableBase fragment){
+	public static synchronized void write(TaggableBase fragment){
 		if (alive){
-			synchronized(testSavingQueue){
-				testSavingQueue.add(fragment);
+			pendingFragments.incrementAndGet();
+			enqueue(new Request(fragment, null, false));
+			maxQueueLength = Math.max(maxQueueLength, pendingFragments.get());
+		}
+	}
+
+	// blocks while the queue is full, this is what keeps the test from running too far ahead of the writer
+	private static void enqueue(Request request){
+		boolean interrupted = false;
+		while (true){
+			try {
+				testSavingQueue.put(request);
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
 			}
 		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
 	}
 
 	private static void writethis(TaggableBase fragment){
 		Assert.notNull(fragment);
+		if (compactTest != null){
+			// the compact format does not keep references to previous fragments, so no reset is needed
+			try {
+				compactTest.write(fragment);
+			} catch (IOException e) {
+				LogSerialiser.log("TestSerialiser - exception writing fragment: " + e.getMessage(), LogLevel.Critical);
+			}
+			return;
+		}
 		try {
 			test.writeObject(fragment);
 		} catch (IOException e) {
@@ -146,27 +252,36 @@ public class TestSerialiser extends Thread {
 		}
 	}
 
+	/**
+	 * Finishes the test serialisation and waits until the test file has been closed.
+	 */
 	public static void exit(){
 		if (singletonTestSerialiser != null){
-			TestSerialiser.finish();
-			try {
-				synchronized(test){
-					while (singletonTestSerialiser != null){
-						try {
-							test.wait();
-						} catch (InterruptedException e) {
-							System.out.println("TestSerialiser exit interrupted");
-						}
-					}
-				}
-			} catch (Exception e) {} // test may be set to null when we try to sync on it		
-			//System.out.println("TestSerialisationManager exited");
+			finish().join();
 			test = null;
+			compactTest = null;
 		}
 	}
 
+	/**
+	 * @return The number of fragments that have not been written yet.
+	 */
 	public static int queueLength(){
-		return testSavingQueue.size();
+		return pendingFragments.get();
+	}
+
+	/**
+	 * @return The maximum number of fragments waiting to be written during the current test.
+	 */
+	public static int maxQueueLength(){
+		return maxQueueLength;
+	}
+
+	/**
+	 * @return The number of fragments written during the current test.
+	 */
+	public static int writtenFragments(){
+		return writtenFragments;
 	}
 
 }
@@ -39,6 +39,7 @@ import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.Polygon;
 import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.Robot;
 import java.awt.font.FontRenderContext;
 import java.awt.font.TextLayout;
@@ -59,6 +60,7 @@ import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.util.Iterator;
 import java.util.Locale;
+import java.util.zip.Deflater;
 
 import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
@@ -74,7 +76,30 @@ import org.fruit.Pair;
 
 public class AWTCanvas implements Image, Canvas {
 
-	public static enum StorageFormat{ JPEG, PNG, BMP; }
+	/**
+	 * PNG_FAST is a lossless PNG without alpha channel, encoded with the fastest compression level.
+	 */
+	public static enum StorageFormat{ JPEG, PNG, BMP, PNG_FAST; }
+
+	/**
+	 * @return The file extension for images stored in the given format.
+	 */
+	public static String extension(StorageFormat format){
+		switch(format){
+		case JPEG: return ".jpg";
+		case BMP: return ".bmp";
+		default: return ".png";
+		}
+	}
+
+	public static void save(BufferedImage image, OutputStream os, StorageFormat format, double quality) throws IOException{
+		switch(format){
+		case JPEG: saveAsJpeg(withoutAlpha(image), os, quality); break;
+		case PNG: saveAsPng(image, os); break;
+		case BMP: saveAsBmp(image, os); break;
+		case PNG_FAST: saveAsFastPng(image, os); break;
+		}
+	}
 
 	public static void saveAsJpeg(BufferedImage image, OutputStream os, double quality) throws IOException{
 		if(quality == 1){
@@ -105,11 +130,24 @@ public class AWTCanvas implements Image, Canvas {
 			throw new IOException("Unable to write image as PNG!");
 	}
 
+	public static void saveAsFastPng(BufferedImage image, OutputStream os) throws IOException{
+		if(image.getType() != BufferedImage.TYPE_INT_ARGB && image.getType() != BufferedImage.TYPE_INT_RGB)
+			image = withoutAlpha(image);
+		PngEncoder.encode(image, os, Deflater.BEST_SPEED);
+	}
+
 	public static void saveAsBmp(BufferedImage image, OutputStream os) throws IOException{
+		if(!ImageIO.write(withoutAlpha(image), "bmp", os))
+			throw new IOException("Unable to write image as BMP!");
+	}
+
+	// the JPEG and BMP writers do not accept an alpha channel
+	private static BufferedImage withoutAlpha(BufferedImage image){
+		if(image.getType() == BufferedImage.TYPE_INT_RGB)
+			return image;
 		BufferedImage target = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
 		target.getGraphics().drawImage(image, 0, 0, image.getWidth(), image.getHeight(), null);
-		if(!ImageIO.write(target, "bmp", os))
-			throw new IOException("Unable to write image as BMP!");
+		return target;
 	}
 
 	public static AWTCanvas fromScreenshot(Rect r, long windowHandle){
@@ -351,6 +389,59 @@ public class AWTCanvas implements Image, Canvas {
 		}
 	}
 
+	/**
+	 * Saves the image in the given format.
+	 * @param file
+	 * @param format
+	 * @param quality The JPEG quality, ignored by the other formats.
+	 * @param scale Factor by which the image is resized before it is saved, 1 keeps the original size.
+	 * @throws IOException
+	 */
+	public void save(String file, StorageFormat format, double quality, double scale) throws IOException{
+		Assert.isTrue(scale > 0 && scale <= 1);
+		BufferedImage image = img;
+		if(scale < 1){
+			int width = Math.max(1, (int)Math.round(img.getWidth() * scale));
+			int height = Math.max(1, (int)Math.round(img.getHeight() * scale));
+			image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = image.createGraphics();
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.drawImage(img, 0, 0, width, height, null);
+			g.dispose();
+		}
+
+		BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(new File(file)), 1 << 16);
+		try{
+			save(image, bos, format, quality);
+		}finally{
+			bos.close();
+		}
+	}
+
+	/**
+	 * @return A 64-bit hash of the size and the pixels of the image, which can be used to detect identical images.
+	 */
+	public long pixelHash(){
+		int[] data = ((DataBufferInt)img.getRaster().getDataBuffer()).getData();
+		// four independent lanes of two pixels each, so that the multiplications can run in parallel
+		long h1 = 0x9E3779B97F4A7C15L ^ (((long)img.getWidth() << 32) | img.getHeight());
+		long h2 = 0x243F6A8885A308D3L, h3 = 0x13198A2E03707344L, h4 = 0xA4093822299F31D0L;
+		int i = 0;
+		for(; i + 7 < data.length; i += 8){
+			h1 = Long.rotateLeft((h1 ^ ((long)data[i] << 32 | (data[i + 1] & 0xFFFFFFFFL))) * 0xC2B2AE3D27D4EB4FL, 31);
+			h2 = Long.rotateLeft((h2 ^ ((long)data[i + 2] << 32 | (data[i + 3] & 0xFFFFFFFFL))) * 0xC2B2AE3D27D4EB4FL, 31);
+			h3 = Long.rotateLeft((h3 ^ ((long)data[i + 4] << 32 | (data[i + 5] & 0xFFFFFFFFL))) * 0xC2B2AE3D27D4EB4FL, 31);
+			h4 = Long.rotateLeft((h4 ^ ((long)data[i + 6] << 32 | (data[i + 7] & 0xFFFFFFFFL))) * 0xC2B2AE3D27D4EB4FL, 31);
+		}
+		for(; i < data.length; i++)
+			h1 = Long.rotateLeft((h1 ^ data[i]) * 0xC2B2AE3D27D4EB4FL, 31);
+		long h = h1 ^ Long.rotateLeft(h2, 17) ^ Long.rotateLeft(h3, 29) ^ Long.rotateLeft(h4, 43);
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		return h;
+	}
+
 	private void readObject(ObjectInputStream is) throws IOException, ClassNotFoundException{
 		is.defaultReadObject();
 		img = ImageIO.read(is);
@@ -364,11 +455,7 @@ public class AWTCanvas implements Image, Canvas {
 
 	private void writeObject(ObjectOutputStream os) throws IOException, ClassNotFoundException{
 		os.defaultWriteObject();
-		switch(format){
-		case JPEG: saveAsJpeg(img, os, quality); break;
-		case PNG: saveAsPng(img, os); break;
-		case BMP: saveAsBmp(img, os); break;
-		}
+		save(img, os, format, quality);
 	}
 
 	public void paint(Canvas canvas, double x, double y, double width,
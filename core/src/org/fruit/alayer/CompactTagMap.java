@@ -0,0 +1,309 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package org.fruit.alayer;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map from tags to values that needs less memory than a <code>HashMap</code>, meant for the tags of the
+ * widgets of a state.
+ *
+ * The entries are stored in arrays with open addressing, hashed by the ordinal of the tag. Double, Long
+ * and Integer values are stored without boxing, booleans are stored as the shared <code>Boolean</code>
+ * instances and a tag that is known to have no value (null) refers to a shared marker. Reading a numeric
+ * value creates a new boxed value.
+ *
+ * Like <code>HashMap</code>, this map is not thread safe.
+ */
+public final class CompactTagMap extends AbstractMap<Tag<?>, Object> implements Serializable {
+
+	private static final long serialVersionUID = 5106285432471862153L;
+
+	private static final int INITIAL_CAPACITY = 8;
+
+	// markers in the values array
+	private static final Object ABSENT = new Object();
+	private static final Object DOUBLE = new Object();
+	private static final Object LONG = new Object();
+	private static final Object INTEGER = new Object();
+
+	// the tags are unique, so they are compared by identity, null marks an empty slot
+	private transient Tag<?>[] tags;
+	private transient Object[] values;
+	// the bits of the unboxed values, only created when needed
+	private transient long[] primitives;
+	private transient int size;
+
+	public CompactTagMap(){
+		init(INITIAL_CAPACITY);
+	}
+
+	private void init(int capacity){
+		tags = new Tag<?>[capacity];
+		values = new Object[capacity];
+		primitives = null;
+		size = 0;
+	}
+
+	@Override
+	public int size(){
+		return size;
+	}
+
+	@Override
+	public boolean containsKey(Object key){
+		return key instanceof Tag && indexOf((Tag<?>) key) >= 0;
+	}
+
+	@Override
+	public Object get(Object key){
+		if(!(key instanceof Tag))
+			return null;
+		int i = indexOf((Tag<?>) key);
+		return i < 0 ? null : valueAt(i);
+	}
+
+	@Override
+	public Object put(Tag<?> tag, Object value){
+		int mask = tags.length - 1;
+		int i = slot(tag, mask);
+		while(tags[i] != null){
+			if(tags[i] == tag){
+				Object old = valueAt(i);
+				setValueAt(i, value);
+				return old;
+			}
+			i = (i + 1) & mask;
+		}
+		tags[i] = tag;
+		setValueAt(i, value);
+		// the tables are small and the ordinals are spread well, so a load factor of 7/8 keeps the runs short
+		if(++size * 8 > tags.length * 7)
+			resize(tags.length * 2);
+		return null;
+	}
+
+	@Override
+	public Object remove(Object key){
+		if(!(key instanceof Tag))
+			return null;
+		int i = indexOf((Tag<?>) key);
+		if(i < 0)
+			return null;
+		Object old = valueAt(i);
+		delete(i);
+		return old;
+	}
+
+	@Override
+	public void clear(){
+		init(INITIAL_CAPACITY);
+	}
+
+	@Override
+	public Set<Map.Entry<Tag<?>, Object>> entrySet(){
+		return new AbstractSet<Map.Entry<Tag<?>, Object>>(){
+			@Override
+			public Iterator<Map.Entry<Tag<?>, Object>> iterator(){
+				// iterates over a copy of the keys, so that removing entries does not move the entries still to visit
+				final Tag<?>[] snapshot = tags.clone();
+				return new Iterator<Map.Entry<Tag<?>, Object>>(){
+					private int next = advance(0);
+					private Tag<?> last;
+
+					private int advance(int i){
+						while(i < snapshot.length && snapshot[i] == null)
+							i++;
+						return i;
+					}
+
+					@Override
+					public boolean hasNext(){
+						return next < snapshot.length;
+					}
+
+					@Override
+					public Map.Entry<Tag<?>, Object> next(){
+						if(!hasNext())
+							throw new NoSuchElementException();
+						last = snapshot[next];
+						next = advance(next + 1);
+						return new AbstractMap.SimpleImmutableEntry<Tag<?>, Object>(last, get(last));
+					}
+
+					@Override
+					public void remove(){
+						if(last == null)
+							throw new IllegalStateException();
+						CompactTagMap.this.remove(last);
+						last = null;
+					}
+				};
+			}
+
+			@Override
+			public int size(){
+				return size;
+			}
+		};
+	}
+
+	private int indexOf(Tag<?> tag){
+		int mask = tags.length - 1;
+		int i = slot(tag, mask);
+		while(tags[i] != null){
+			if(tags[i] == tag)
+				return i;
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+
+	private static int slot(Tag<?> tag, int mask){
+		// the ordinals are dense, spreading them keeps the runs of occupied slots short
+		return (tag.ordinal() * 0x9E3779B9) >>> 16 & mask;
+	}
+
+	private Object valueAt(int i){
+		Object value = values[i];
+		if(value == ABSENT)
+			return null;
+		else if(value == DOUBLE)
+			return Double.longBitsToDouble(primitives[i]);
+		else if(value == LONG)
+			return primitives[i];
+		else if(value == INTEGER)
+			return (int) primitives[i];
+		return value;
+	}
+
+	private void setValueAt(int i, Object value){
+		if(value == null){
+			values[i] = ABSENT;
+		}else if(value instanceof Double){
+			primitives()[i] = Double.doubleToRawLongBits((Double) value);
+			values[i] = DOUBLE;
+		}else if(value instanceof Long){
+			primitives()[i] = (Long) value;
+			values[i] = LONG;
+		}else if(value instanceof Integer){
+			primitives()[i] = (Integer) value;
+			values[i] = INTEGER;
+		}else if(value instanceof Boolean){
+			values[i] = Boolean.valueOf((Boolean) value);
+		}else{
+			values[i] = value;
+		}
+	}
+
+	private long[] primitives(){
+		if(primitives == null)
+			primitives = new long[tags.length];
+		return primitives;
+	}
+
+	// removes the entry and moves the following entries of the run back, so that they can still be found
+	private void delete(int i){
+		int mask = tags.length - 1;
+		int j = i;
+		while(true){
+			j = (j + 1) & mask;
+			if(tags[j] == null)
+				break;
+			int home = slot(tags[j], mask);
+			// move the entry at j to i if its home slot is not in the cyclic range (i, j]
+			if(i <= j ? (home <= i || home > j) : (home <= i && home > j)){
+				tags[i] = tags[j];
+				values[i] = values[j];
+				if(primitives != null)
+					primitives[i] = primitives[j];
+				i = j;
+			}
+		}
+		tags[i] = null;
+		values[i] = null;
+		size--;
+	}
+
+	private void resize(int capacity){
+		Tag<?>[] oldTags = tags;
+		Object[] oldValues = values;
+		long[] oldPrimitives = primitives;
+		tags = new Tag<?>[capacity];
+		values = new Object[capacity];
+		primitives = oldPrimitives == null ? null : new long[capacity];
+		int mask = capacity - 1;
+		for(int j = 0; j < oldTags.length; j++){
+			if(oldTags[j] == null)
+				continue;
+			int i = slot(oldTags[j], mask);
+			while(tags[i] != null)
+				i = (i + 1) & mask;
+			tags[i] = oldTags[j];
+			values[i] = oldValues[j];
+			if(oldPrimitives != null)
+				primitives[i] = oldPrimitives[j];
+		}
+	}
+
+	// the ordinals differ between virtual machines, so the entries are written one by one
+	private void writeObject(ObjectOutputStream oos) throws IOException{
+		oos.defaultWriteObject();
+		oos.writeInt(size);
+		for(int i = 0; i < tags.length; i++){
+			if(tags[i] != null){
+				oos.writeObject(tags[i]);
+				oos.writeObject(valueAt(i));
+			}
+		}
+	}
+
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException{
+		ois.defaultReadObject();
+		int entries = ois.readInt();
+		int capacity = INITIAL_CAPACITY;
+		while(entries * 8 > capacity * 7)
+			capacity *= 2;
+		init(capacity);
+		for(int i = 0; i < entries; i++)
+			put((Tag<?>) ois.readObject(), ois.readObject());
+	}
+}
@@ -0,0 +1,191 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package org.fruit.alayer;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.fruit.Assert;
+import org.fruit.Util;
+
+/**
+ * An index over the widgets of a state, used by the finders of the <code>StdAbstractor</code> to look up the
+ * widgets whose Role, Title and ToolTipText match the widget they are looking for, instead of comparing the
+ * tags of every widget of the state.
+ *
+ * For every widget the index holds the widget under its values of all combinations of these three tags,
+ * so that the widgets matching one, two or all three of the values can be looked up. The index is built on
+ * first use and attached to the state with the FinderIndex tag, so it is shared by all finders applied to the state.
+ */
+public final class FinderIndex implements Serializable {
+
+	private static final long serialVersionUID = -3016726152417395043L;
+
+	private static final int[] NONE = new int[0];
+
+	/** The tags the widgets are indexed by. */
+	static final Tag<?>[] KEY_TAGS = {Tags.Role, Tags.Title, Tags.ToolTipText};
+
+	// the number of combinations of the key tags, each combination is a bit mask over KEY_TAGS
+	private static final int MASKS = 1 << KEY_TAGS.length;
+
+	// the index is rebuilt from the state after deserialisation
+	private final transient Widget[] widgets;
+	private final transient Map<Key, int[]> buckets;
+	private transient int[][] indexPaths;
+
+	public FinderIndex(State state){
+		Assert.notNull(state);
+		List<Widget> all = new ArrayList<>();
+		for(Widget w : Util.makeIterable(state))
+			all.add(w);
+		widgets = all.toArray(new Widget[all.size()]);
+
+		Map<Key, List<Integer>> lists = new HashMap<>();
+		Object[] values = new Object[KEY_TAGS.length];
+		for(int i = 0; i < widgets.length; i++){
+			for(int t = 0; t < KEY_TAGS.length; t++)
+				values[t] = widgets[i].get(KEY_TAGS[t], null);
+			for(int mask = 1; mask < MASKS; mask++)
+				lists.computeIfAbsent(new Key(mask, values), k -> new ArrayList<>()).add(i);
+		}
+
+		buckets = new HashMap<>(lists.size() * 4 / 3 + 1);
+		for(Map.Entry<Key, List<Integer>> e : lists.entrySet()){
+			List<Integer> list = e.getValue();
+			int[] indices = new int[list.size()];
+			for(int i = 0; i < indices.length; i++)
+				indices[i] = list.get(i);
+			buckets.put(e.getKey(), indices);
+		}
+		indexPaths = new int[widgets.length][];
+	}
+
+	/**
+	 * Returns the index attached to the state, or builds the index and attaches it to the state.
+	 * @param state The state.
+	 * @return The finder index of the state.
+	 */
+	public static FinderIndex of(State state){
+		Assert.notNull(state);
+		FinderIndex index = state.get(Tags.FinderIndex, null);
+		if(index == null || index.widgets == null){
+			index = new FinderIndex(state);
+			state.set(Tags.FinderIndex, index);
+		}
+		return index;
+	}
+
+	/**
+	 * @return The number of widgets in the state, including the state itself.
+	 */
+	public int size(){
+		return widgets.length;
+	}
+
+	/**
+	 * @param i The position of the widget in the iteration order of the state.
+	 * @return The widget.
+	 */
+	public Widget widget(int i){
+		return widgets[i];
+	}
+
+	/**
+	 * Returns the widgets whose values of the key tags in the mask equal the given values.
+	 * @param mask The key tags to match, bit t stands for KEY_TAGS[t].
+	 * @param values The values of all key tags, the values of the tags outside the mask are ignored.
+	 * @return The positions of the widgets in ascending order.
+	 */
+	int[] matching(int mask, Object[] values){
+		int[] ret = buckets.get(new Key(mask, values));
+		return ret == null ? NONE : ret;
+	}
+
+	/**
+	 * @return The index path of the widget at the given position, computed once.
+	 */
+	synchronized int[] indexPath(int i){
+		int[] ret = indexPaths[i];
+		if(ret == null){
+			ret = Util.indexPath(widgets[i]);
+			indexPaths[i] = ret;
+		}
+		return ret;
+	}
+
+	public String toString(){
+		return "FinderIndex (widgets: " + (widgets == null ? 0 : widgets.length) + ")";
+	}
+
+	/**
+	 * The values of the key tags in a mask.
+	 */
+	private static final class Key {
+		private final int mask;
+		private final Object[] values;
+		private final int hash;
+
+		Key(int mask, Object[] all){
+			this.mask = mask;
+			values = new Object[KEY_TAGS.length];
+			int h = mask;
+			for(int t = 0; t < values.length; t++){
+				if((mask & (1 << t)) != 0){
+					values[t] = all[t];
+					h = h * 31 + Util.hashCode(all[t]);
+				}
+			}
+			hash = h;
+		}
+
+		public int hashCode(){
+			return hash;
+		}
+
+		public boolean equals(Object o){
+			if(!(o instanceof Key))
+				return false;
+			Key other = (Key)o;
+			if(other.mask != mask || other.hash != hash)
+				return false;
+			for(int t = 0; t < values.length; t++){
+				if(!Util.equals(values[t], other.values[t]))
+					return false;
+			}
+			return true;
+		}
+	}
+}
@@ -40,5 +40,14 @@ public interface HitTester extends Serializable {
 	boolean apply(double x, double y);
 	
 	boolean apply(double x, double y, boolean obscuredByChildFeature); // by urueda
+
+	/**
+	 * The area outside of which this hit tester never hits, used by the <code>WidgetIndex</code>
+	 * to skip widgets that cannot be hit at a point.
+	 * @return the area, or null if the hit tester can hit anywhere
+	 */
+	default Rect bounds(){
+		return null;
+	}
 	
 }
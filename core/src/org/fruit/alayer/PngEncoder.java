@@ -0,0 +1,120 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package org.fruit.alayer;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Minimal PNG encoder for screenshots, which favours encoding speed over file size.
+ *
+ * The image is written as 8-bit RGB with the Sub filter on every row and the fastest deflate level.
+ * The alpha channel is not written, which is fine for screenshots as these are opaque.
+ */
+final class PngEncoder {
+
+	private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+	private static final int COLOR_TYPE_RGB = 2;
+	private static final int FILTER_SUB = 1;
+
+	private PngEncoder(){}
+
+	/**
+	 * @param image An image of type TYPE_INT_ARGB or TYPE_INT_RGB.
+	 * @param os
+	 * @param level The deflate level, from Deflater.NO_COMPRESSION to Deflater.BEST_COMPRESSION.
+	 */
+	static void encode(BufferedImage image, OutputStream os, int level) throws IOException{
+		int width = image.getWidth();
+		int height = image.getHeight();
+		int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+		DataOutputStream out = new DataOutputStream(os);
+		out.write(SIGNATURE);
+
+		ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+		DataOutputStream headerOut = new DataOutputStream(header);
+		headerOut.writeInt(width);
+		headerOut.writeInt(height);
+		headerOut.writeByte(8); // bit depth
+		headerOut.writeByte(COLOR_TYPE_RGB);
+		headerOut.writeByte(0); // compression method
+		headerOut.writeByte(0); // filter method
+		headerOut.writeByte(0); // no interlace
+		writeChunk(out, "IHDR", header.toByteArray(), header.size());
+
+		ByteArrayOutputStream data = new ByteArrayOutputStream(width * height);
+		Deflater deflater = new Deflater(level);
+		try{
+			DeflaterOutputStream dos = new DeflaterOutputStream(data, deflater, 1 << 16);
+			byte[] row = new byte[1 + 3 * width];
+			row[0] = FILTER_SUB;
+			for(int y = 0; y < height; y++){
+				int offset = y * width;
+				int r = 0, g = 0, b = 0;
+				for(int x = 0, i = 1; x < width; x++, i += 3){
+					int pixel = pixels[offset + x];
+					int pr = (pixel >> 16) & 0xFF, pg = (pixel >> 8) & 0xFF, pb = pixel & 0xFF;
+					row[i] = (byte) (pr - r);
+					row[i + 1] = (byte) (pg - g);
+					row[i + 2] = (byte) (pb - b);
+					r = pr; g = pg; b = pb;
+				}
+				dos.write(row);
+			}
+			dos.finish();
+		}finally{
+			deflater.end();
+		}
+		writeChunk(out, "IDAT", data.toByteArray(), data.size());
+		writeChunk(out, "IEND", new byte[0], 0);
+		out.flush();
+	}
+
+	private static void writeChunk(DataOutputStream out, String type, byte[] data, int length) throws IOException{
+		byte[] typeBytes = type.getBytes("US-ASCII");
+		CRC32 crc = new CRC32();
+		crc.update(typeBytes);
+		crc.update(data, 0, length);
+		out.writeInt(length);
+		out.write(typeBytes);
+		out.write(data, 0, length);
+		out.writeInt((int) crc.getValue());
+	}
+}
@@ -0,0 +1,192 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package org.fruit.alayer;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import javax.imageio.ImageIO;
+
+import org.fruit.Assert;
+import org.fruit.alayer.AWTCanvas.StorageFormat;
+
+/**
+ * The screenshot of a state, attached to the state with the StateScreenshot tag, so that every part of
+ * TESTAR that needs the screenshot of a state (the stored stateshot, the state model) shares one capture.
+ *
+ * The PNG encoding is done once, on request, by a background thread. Screenshots with the same pixels
+ * share the encoded bytes. The screenshot itself is not serialised with the state.
+ *
+ * A state can be kept for a long time (the last state, the previous state of a policy, the queued test
+ * fragments), so the screenshot only keeps the canvas until it is released, which it is once the PNG has
+ * been encoded. After that the canvas is only weakly referenced and, when it has been collected, decoded
+ * from the PNG again.
+ */
+public final class StateScreenshot implements Serializable {
+
+	private static final long serialVersionUID = -4183645287150452216L;
+
+	// the number of recently encoded screenshots whose bytes are kept to share with identical screenshots
+	private static final int ENCODED_CAPACITY = 16;
+
+	private static final ExecutorService encoder = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "StateScreenshotEncoder");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// only used by the encoder thread
+	private static final Map<Long, byte[]> encoded = new LinkedHashMap<Long, byte[]>(16, 0.75f, true){
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest){
+			return size() > ENCODED_CAPACITY;
+		}
+	};
+
+	private transient AWTCanvas canvas;
+	private transient WeakReference<AWTCanvas> released;
+	private transient CompletableFuture<byte[]> png;
+	// the position of the canvas, which is not part of the PNG
+	private transient double x, y;
+
+	public StateScreenshot(AWTCanvas canvas){
+		Assert.notNull(canvas);
+		this.canvas = canvas;
+		this.x = canvas.x();
+		this.y = canvas.y();
+	}
+
+	/**
+	 * Returns the screenshot attached to the state, or captures it and attaches it to the state.
+	 * @param state The state.
+	 * @param capture Takes the screenshot of the state.
+	 * @return The screenshot of the state.
+	 */
+	public static AWTCanvas of(State state, Supplier<AWTCanvas> capture){
+		StateScreenshot screenshot = state.get(Tags.StateScreenshot, null);
+		AWTCanvas canvas = screenshot == null ? null : screenshot.canvas();
+		if(canvas != null)
+			return canvas;
+		canvas = capture.get();
+		state.set(Tags.StateScreenshot, new StateScreenshot(canvas));
+		return canvas;
+	}
+
+	/**
+	 * @return The screenshot, null if the state was deserialised or the screenshot was released before it was encoded
+	 * and has been collected since.
+	 */
+	public synchronized AWTCanvas canvas(){
+		if(canvas != null)
+			return canvas;
+		AWTCanvas releasedCanvas = released == null ? null : released.get();
+		if(releasedCanvas == null && png != null && png.isDone() && !png.isCompletedExceptionally())
+			releasedCanvas = decode(png.join(), x, y);
+		return releasedCanvas;
+	}
+
+	/**
+	 * @return The screenshot encoded as PNG. The first call starts the encoding in the background,
+	 * the canvas is released once it has been encoded.
+	 */
+	public synchronized CompletableFuture<byte[]> png(){
+		if(png == null){
+			AWTCanvas source = canvas();
+			if(source == null)
+				png = CompletableFuture.completedFuture(null);
+			else
+				png = CompletableFuture.supplyAsync(() -> encode(source), encoder).whenComplete((bytes, e) -> release());
+		}
+		return png;
+	}
+
+	/**
+	 * Stops keeping the canvas, it is only weakly referenced from now on.
+	 */
+	public synchronized void release(){
+		if(canvas != null){
+			released = new WeakReference<>(canvas);
+			canvas = null;
+		}
+	}
+
+	/**
+	 * @return True if the canvas is still kept by this screenshot.
+	 */
+	public synchronized boolean holdsCanvas(){
+		return canvas != null;
+	}
+
+	private static byte[] encode(AWTCanvas canvas){
+		long hash = canvas.pixelHash();
+		byte[] bytes = encoded.get(hash);
+		if(bytes == null){
+			ByteArrayOutputStream os = new ByteArrayOutputStream();
+			try{
+				AWTCanvas.save(canvas.image(), os, StorageFormat.PNG_FAST, 1.0);
+			}catch(IOException e){
+				throw new UncheckedIOException(e);
+			}
+			bytes = os.toByteArray();
+			encoded.put(hash, bytes);
+		}
+		return bytes;
+	}
+
+	private static AWTCanvas decode(byte[] bytes, double x, double y){
+		if(bytes == null)
+			return null;
+		try{
+			BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+			return image == null ? null : new AWTCanvas(x, y, image, StorageFormat.PNG, 1.0);
+		}catch(IOException e){
+			return null;
+		}
+	}
+
+	public synchronized String toString(){
+		return canvas == null ? "StateScreenshot" : "StateScreenshot (width: " + canvas.width() + " height: " + canvas.height() + ")";
+	}
+}
@@ -33,6 +33,10 @@
  */
 package org.fruit.alayer;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
 
 import org.fruit.Assert;
@@ -77,6 +81,9 @@ public final class StdAbstractor implements Abstractor {
 			if(cachedWidget != null && cachedWidget.root() == start)
 				return cachedWidget;
 			
+			if(start instanceof State && indexable())
+				return apply(FinderIndex.of((State)start));
+			
 			List<Widget> candidates = Util.newArrayList();
 			double maxScore = 0.0;
 			
@@ -117,6 +124,88 @@ public final class StdAbstractor implements Abstractor {
 			return bestCandidate;
 		}
 		
+		/**
+		 * Finds the widget like apply(Widget), but only scores the widgets that match the most key tags of
+		 * the index, until none of the remaining widgets can reach the best score found.
+		 */
+		private Widget apply(FinderIndex index) throws WidgetNotFoundException {
+			int keys = FinderIndex.KEY_TAGS.length;
+			double[] keyWeights = Arrays.copyOf(weights, keys);
+			Arrays.sort(keyWeights);
+			double otherWeights = 0.0;
+			for(int i = keys; i < weights.length; i++)
+				otherWeights += weights[i];
+			
+			BitSet seen = new BitSet(index.size());
+			List<Integer> candidates = new ArrayList<>();
+			double maxScore = 0.0;
+			
+			for(int matches = keys; matches >= 0; matches--){
+				// the widgets we have not seen yet match at most this many key tags
+				double bound = otherWeights;
+				for(int i = 0; i < matches; i++)
+					bound += keyWeights[keys - 1 - i];
+				if(!candidates.isEmpty() && bound < maxScore)
+					break;
+				if(Math.max(maxScore, bound) / bestScore < minSimilarity)
+					throw new WidgetNotFoundException();
+				
+				for(int mask = 0; mask < 1 << keys; mask++){
+					if(Integer.bitCount(mask) != matches)
+						continue;
+					int[] widgets = null;
+					if(matches > 0)
+						widgets = index.matching(mask, values);
+					int count = widgets == null ? index.size() : widgets.length;
+					for(int j = 0; j < count; j++){
+						int i = widgets == null ? j : widgets[j];
+						if(seen.get(i))
+							continue;
+						seen.set(i);
+						double score = widgetSimilarity(index.widget(i));
+						if(score > maxScore){
+							candidates.clear();
+							maxScore = score;
+							candidates.add(i);
+						}else if(score == maxScore){
+							candidates.add(i);
+						}
+					}
+				}
+			}
+			
+			if(maxScore / bestScore < minSimilarity)
+				throw new WidgetNotFoundException();
+			
+			if(candidates.size() == 1)
+				return index.widget(candidates.get(0));
+			
+			// the same choice as apply(Widget), which examines the widgets in the order of the state
+			Collections.sort(candidates);
+			int bestCandidate = -1;
+			maxScore = -1.0;
+			for(int candidate : candidates){
+				double score = indexPathSimilarity(indexPath, index.indexPath(candidate));
+				if(score > maxScore){
+					bestCandidate = candidate;
+					maxScore = score;
+				}
+			}
+			
+			return index.widget(bestCandidate);
+		}
+		
+		// the index can only be used if the finder compares the key tags of the index
+		private boolean indexable(){
+			if(tags.length < FinderIndex.KEY_TAGS.length)
+				return false;
+			for(int i = 0; i < FinderIndex.KEY_TAGS.length; i++){
+				if(tags[i] != FinderIndex.KEY_TAGS[i])
+					return false;
+			}
+			return true;
+		}
+		
 		private double widgetSimilarity(Widget other){
 			double score = 0.0;
 			for(int i = 0; i < tags.length; i++)
@@ -37,7 +37,11 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.fruit.Assert;
 import org.fruit.Util;
@@ -48,6 +52,8 @@ import org.fruit.Util;
  */
 public final class Tag<T> implements Serializable{
 	private final static ConcurrentHashMap<Tag<?>, Tag<?>> existingTags = new ConcurrentHashMap<Tag<?>, Tag<?>>();
+	private final static ConcurrentHashMap<String, List<Tag<?>>> tagsByName = new ConcurrentHashMap<String, List<Tag<?>>>();
+	private final static AtomicInteger registrations = new AtomicInteger();
 
 	/**
 	 * Returns a tag object which is identified by <code>name</code> and <code>valueType</code>. 
@@ -59,16 +65,51 @@ public final class Tag<T> implements Serializable{
 	public static <T> Tag<T> from(String name, Class<T> valueType){
 		Assert.notNull(name, valueType);
 		Tag<T> ret = new Tag<T>(name, valueType);
-		Tag<T> existing = (Tag<T>)existingTags.putIfAbsent(ret, ret);
+		Tag<?> existing = existingTags.get(ret);
 		if(existing != null)
-			return existing;
-		return ret;
+			return (Tag<T>)existing;
+		return (Tag<T>)register(ret);
+	}
+
+	/**
+	 * Returns all tags that were created with the given name, in the order in which they were created.
+	 * Usually there is only one, but the same name may be used for different value types.
+	 * @param name The name of the tags
+	 * @return An unmodifiable list with the tags, empty if there is no tag with that name.
+	 */
+	public static List<Tag<?>> fromName(String name){
+		Assert.notNull(name);
+		List<Tag<?>> ret = tagsByName.get(name);
+		return ret == null ? Collections.<Tag<?>>emptyList() : Collections.unmodifiableList(ret);
+	}
+
+	/**
+	 * The number of different tags created so far. Can be used to find out whether
+	 * a name that was looked up with <code>fromName</code> might have more tags now.
+	 * @return the number of tags
+	 */
+	public static int registrations(){
+		return registrations.get();
+	}
+
+	private static Tag<?> register(Tag<?> tag){
+		synchronized(existingTags){
+			Tag<?> existing = existingTags.get(tag);
+			if(existing != null)
+				return existing;
+			tag.ordinal = registrations.get();
+			existingTags.put(tag, tag);
+			tagsByName.computeIfAbsent(tag.name, n -> new CopyOnWriteArrayList<Tag<?>>()).add(tag);
+			registrations.incrementAndGet();
+			return tag;
+		}
 	}
 
 	private static final long serialVersionUID = -1215427100999751182L;
 	private final Class<T> clazz;
 	private final String name;
 	private int hashcode;
+	private transient int ordinal;
 
 	private Tag(String name, Class<T> clazz){
 		this.clazz = clazz;
@@ -87,6 +128,14 @@ public final class Tag<T> implements Serializable{
 	 * @return value type
 	 */
 	public Class<T> type() { return clazz; }
+
+	/**
+	 * A number that identifies the tag within this virtual machine. The tags are numbered
+	 * in the order in which they are created, starting at 0. It is not kept when the tag is serialised.
+	 * @return the ordinal of the tag
+	 */
+	public int ordinal() { return ordinal; }
+
 	public String toString(){ return name; }
 	
 	public int hashCode(){
@@ -113,8 +162,7 @@ public final class Tag<T> implements Serializable{
 	}
 	
 	private Object readResolve() throws ObjectStreamException{
-		Tag<?> existing = existingTags.putIfAbsent(this, this);		
-		return existing == null ? this : existing;
+		return register(this);
 	}
 	
 	// by urueda
@@ -0,0 +1,157 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package org.fruit.alayer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * Matches a regular expression against the values of a list of tags, given by name (e.g. the
+ * TagsToFilter and ClickFilter settings).
+ *
+ * The names are resolved to tags once, so only the values of these tags are requested from a widget,
+ * instead of all the tags of the widget. The results of the regular expression are kept in a memo of
+ * bounded size, as the same values (titles, descriptions) are seen over and over again.
+ * An instance is not thread safe.
+ */
+public final class TagValuePattern {
+
+	public static final int DEFAULT_MEMO_CAPACITY = 10000;
+
+	private final List<String> tagNames;
+	private final String regex;
+	private final Pattern pattern;
+	private final Map<String, Boolean> memo;
+
+	private Tag<?>[] tags = new Tag<?>[0];
+	private int resolvedAt = -1;
+
+	public TagValuePattern(List<String> tagNames, String regex){
+		this(tagNames, regex, DEFAULT_MEMO_CAPACITY);
+	}
+
+	public TagValuePattern(List<String> tagNames, String regex, final int memoCapacity){
+		this.tagNames = new ArrayList<>(tagNames);
+		this.regex = regex;
+		this.pattern = Pattern.compile(regex, Pattern.UNICODE_CHARACTER_CLASS);
+		this.memo = new LinkedHashMap<String, Boolean>(16, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest){
+				return size() > memoCapacity;
+			}
+		};
+	}
+
+	/**
+	 * Whether this pattern was created for the given tag names and regular expression,
+	 * so that a caller can find out if the settings have changed.
+	 */
+	public boolean isFor(List<String> tagNames, String regex){
+		return this.regex.equals(regex) && this.tagNames.equals(tagNames);
+	}
+
+	public Pattern pattern(){
+		return pattern;
+	}
+
+	/**
+	 * Returns the first tag, in the order of the tag names, whose value for the widget matches the regular expression.
+	 * @param w The widget.
+	 * @return The matching tag, or null if no value matches.
+	 */
+	public Tag<?> find(Widget w){
+		return find(w, null);
+	}
+
+	/**
+	 * Returns the first tag, in the order of the tag names, whose value for the widget matches the regular expression.
+	 * @param w The widget.
+	 * @param ignore Tells which (widget, value) combinations to skip, may be null.
+	 * @return The matching tag, or null if no value matches.
+	 */
+	public Tag<?> find(Widget w, BiPredicate<Widget, String> ignore){
+		for(Tag<?> tag : resolve()){
+			String value = valueOf(w, tag);
+			if(value == null || value.isEmpty())
+				continue;
+			if(ignore != null && ignore.test(w, value))
+				continue;
+			if(matches(value))
+				return tag;
+		}
+		return null;
+	}
+
+	/**
+	 * Whether the value matches the regular expression.
+	 */
+	public boolean matches(String value){
+		Boolean ret = memo.get(value);
+		if(ret == null){
+			ret = pattern.matcher(value).matches();
+			memo.put(value, ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * The value of a tag of the widget as a string.
+	 * @return The value, or null if the widget does not have the tag.
+	 */
+	public static String valueOf(Widget w, Tag<?> tag){
+		Object value = w.get(tag, null);
+		return value == null ? null : value.toString();
+	}
+
+	int memoSize(){
+		return memo.size();
+	}
+
+	// tags can be created later on (e.g. when the classes of a platform are loaded), so we check for new ones
+	private Tag<?>[] resolve(){
+		int registrations = Tag.registrations();
+		if(registrations != resolvedAt){
+			List<Tag<?>> resolved = new ArrayList<>();
+			for(String name : tagNames)
+				resolved.addAll(Tag.fromName(name));
+			tags = resolved.toArray(new Tag<?>[0]);
+			resolvedAt = registrations;
+		}
+		return tags;
+	}
+}
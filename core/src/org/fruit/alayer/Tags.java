@@ -168,6 +168,18 @@ public final class Tags extends TagsBase {
 	/** Usually attached to an object of {@link State}. The value is a screenshot of the state. */
 	//public static final Tag<Image> Screenshot = from("Screenshot", Image.class);
 	public static final Tag<String> ScreenshotPath = from("ScreenshotPath", String.class);
+
+	/** Usually attached to an object of {@link State}. The value holds the screenshot that was taken of the state,
+	 * so that it is captured and encoded only once. */
+	public static final Tag<StateScreenshot> StateScreenshot = from("StateScreenshot", StateScreenshot.class);
+
+	/** Usually attached to an object of {@link State}. The value is the spatial index of the widgets of the state,
+	 * which is built on the first point or area query. */
+	public static final Tag<WidgetIndex> WidgetIndex = from("WidgetIndex", WidgetIndex.class);
+
+	/** Usually attached to an object of {@link State}. The value is the index used by the finders of the
+	 * {@link StdAbstractor} to look up the widgets of the state. */
+	public static final Tag<FinderIndex> FinderIndex = from("FinderIndex", FinderIndex.class);
 		
 	/** Usually attached to a {@link State} object. The value is an outcome of a test oracle for that state. It is
 	 * used to mark states as 'suspicious' or 'erroneous' */
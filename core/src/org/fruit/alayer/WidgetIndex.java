@@ -0,0 +1,356 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package org.fruit.alayer;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.fruit.Assert;
+import org.fruit.Util;
+
+/**
+ * A spatial index over the widgets of a state, used to answer which widgets are at a point or in an area
+ * without testing every widget of the state.
+ *
+ * The index is built on the first query and attached to the state with the WidgetIndex tag, so it reflects
+ * the state as it was at that moment. It consists of two uniform grids: one over the shapes of the widgets,
+ * for area queries, and one over the bounds of the hit testers of the widgets, for point queries. The grids
+ * only select the candidates, the final decision is still made by the shape or the hit tester itself.
+ */
+public final class WidgetIndex implements Serializable {
+
+	private static final long serialVersionUID = 2948305173620955671L;
+
+	// the average number of widgets per cell the grid is sized for
+	private static final int WIDGETS_PER_CELL = 4;
+	private static final int MAX_CELLS_PER_AXIS = 256;
+
+	// rectangles covering a larger part of the grid are tested for every query
+	private static final double LARGE_RECT_FRACTION = 0.25;
+
+	// hit testers may be slightly less strict than the bounds they report
+	private static final double HIT_MARGIN = 1.0;
+
+	// the index is rebuilt from the state after deserialisation
+	private final transient Widget[] widgets;
+	private final transient Shape[] shapes;
+	private final transient HitTester[] testers;
+	private final transient Grid shapeGrid;
+	private final transient Grid hitGrid;
+
+	public WidgetIndex(State state){
+		Assert.notNull(state);
+		List<Widget> all = new ArrayList<>();
+		for(Widget w : state)
+			all.add(w);
+
+		int size = all.size();
+		widgets = all.toArray(new Widget[size]);
+		shapes = new Shape[size];
+		testers = new HitTester[size];
+		Rect[] shapeBounds = new Rect[size];
+		Rect[] hitBounds = new Rect[size];
+		boolean[] hittable = new boolean[size];
+		for(int i = 0; i < size; i++){
+			Shape shape = widgets[i].get(Tags.Shape, null);
+			shapes[i] = shape;
+			if(shape != null)
+				shapeBounds[i] = Rect.from(shape.x(), shape.y(), shape.width(), shape.height());
+
+			HitTester tester = widgets[i].get(Tags.HitTester, Util.FalseTester);
+			testers[i] = tester;
+			if(tester != Util.FalseTester){
+				hittable[i] = true;
+				Rect bounds = tester.bounds();
+				if(bounds != null)
+					hitBounds[i] = Rect.from(bounds.x() - HIT_MARGIN, bounds.y() - HIT_MARGIN,
+							bounds.width() + 2 * HIT_MARGIN, bounds.height() + 2 * HIT_MARGIN);
+			}
+		}
+		shapeGrid = new Grid(shapeBounds, null);
+		hitGrid = new Grid(hitBounds, hittable);
+	}
+
+	/**
+	 * Returns the index attached to the state, or builds the index and attaches it to the state.
+	 * @param state The state.
+	 * @return The index of the widgets of the state.
+	 */
+	public static WidgetIndex of(State state){
+		Assert.notNull(state);
+		WidgetIndex index = state.get(Tags.WidgetIndex, null);
+		if(index == null || index.widgets == null){
+			index = new WidgetIndex(state);
+			state.set(Tags.WidgetIndex, index);
+		}
+		return index;
+	}
+
+	/**
+	 * @return The widgets whose hit tester is hit at the given point, in the order of the state.
+	 */
+	public Set<Widget> widgetsAt(double x, double y){
+		Set<Widget> ret = new LinkedHashSet<>();
+		int[] candidates = hitGrid.at(x, y);
+		for(int i : candidates){
+			if(testers[i].apply(x, y))
+				ret.add(widgets[i]);
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the top widget at the given point, which is the hit widget with the smallest shape.
+	 * Widgets without shape come first, and of widgets with equal shapes the first in the state is taken.
+	 * @return The top widget at the given point, null if there is none.
+	 */
+	public Widget topWidgetAt(double x, double y){
+		int best = -1;
+		double bestArea = 0;
+		for(int i : hitGrid.at(x, y)){
+			if(!testers[i].apply(x, y))
+				continue;
+			double area = shapes[i] == null ? -1 : Util.area(shapes[i]);
+			if(best == -1 || area < bestArea || (area == bestArea && i < best)){
+				best = i;
+				bestArea = area;
+			}
+		}
+		return best == -1 ? null : widgets[best];
+	}
+
+	/**
+	 * @return The widgets whose shape intersects the given area, in the order of the state.
+	 */
+	public Set<Widget> widgetsIn(Rect area){
+		Assert.notNull(area);
+		BitSet found = new BitSet(widgets.length);
+		for(int i : shapeGrid.in(area)){
+			if(!found.get(i) && Rect.intersect(Rect.from(shapes[i].x(), shapes[i].y(), shapes[i].width(), shapes[i].height()), area))
+				found.set(i);
+		}
+		Set<Widget> ret = new LinkedHashSet<>();
+		for(int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1))
+			ret.add(widgets[i]);
+		return ret;
+	}
+
+	/**
+	 * @return The number of widgets in the index.
+	 */
+	public int size(){
+		return widgets.length;
+	}
+
+	public String toString(){
+		return "WidgetIndex (widgets: " + (widgets == null ? 0 : widgets.length) + ")";
+	}
+
+	/**
+	 * A uniform grid over rectangles. The widgets of every cell are stored consecutively in one array.
+	 */
+	private static final class Grid {
+
+		private static final int[] NONE = new int[0];
+
+		// widgets without bounds or with very large bounds, which are candidates for every query
+		private final int[] always;
+
+		private final double minX, minY, cellWidth, cellHeight;
+		private final int columns, rows;
+		private final int[] cellStart;
+		private final int[] cellWidgets;
+
+		/**
+		 * @param bounds The bounds of every widget, null for a widget that can be anywhere.
+		 * @param included Which widgets to index, null to index the widgets with bounds.
+		 */
+		Grid(Rect[] bounds, boolean[] included){
+			double x1 = Double.POSITIVE_INFINITY, y1 = Double.POSITIVE_INFINITY;
+			double x2 = Double.NEGATIVE_INFINITY, y2 = Double.NEGATIVE_INFINITY;
+			int count = 0;
+			List<Integer> unbounded = new ArrayList<>();
+			for(int i = 0; i < bounds.length; i++){
+				Rect r = bounds[i];
+				if(r != null && (!isFinite(r) || r.width() < 0 || r.height() < 0)){
+					// cannot be placed in the grid, so it is tested for every query
+					unbounded.add(i);
+					bounds[i] = null;
+					continue;
+				}
+				if(r == null){
+					if(included != null && included[i])
+						unbounded.add(i);
+					continue;
+				}
+				x1 = Math.min(x1, r.x());
+				y1 = Math.min(y1, r.y());
+				x2 = Math.max(x2, r.x() + r.width());
+				y2 = Math.max(y2, r.y() + r.height());
+				count++;
+			}
+
+			if(count == 0){
+				minX = minY = 0;
+				cellWidth = cellHeight = 1;
+				columns = rows = 0;
+				cellStart = new int[]{0};
+				cellWidgets = NONE;
+				always = toArray(unbounded);
+				return;
+			}
+
+			int cellsPerAxis = (int)Math.ceil(Math.sqrt((double)count / WIDGETS_PER_CELL));
+			cellsPerAxis = Math.max(1, Math.min(MAX_CELLS_PER_AXIS, cellsPerAxis));
+			minX = x1;
+			minY = y1;
+			columns = rows = cellsPerAxis;
+			// avoid empty cells for points and lines
+			cellWidth = Math.max(x2 - x1, 1) / columns;
+			cellHeight = Math.max(y2 - y1, 1) / rows;
+
+			// first count the widgets per cell, then fill the cells
+			int[] counts = new int[columns * rows + 1];
+			boolean[] large = new boolean[bounds.length];
+			double largeCells = LARGE_RECT_FRACTION * columns * rows;
+			for(int i = 0; i < bounds.length; i++){
+				Rect r = bounds[i];
+				if(r == null)
+					continue;
+				int c1 = column(r.x()), c2 = column(r.x() + r.width());
+				int r1 = row(r.y()), r2 = row(r.y() + r.height());
+				if(columns * rows > 1 && (double)(c2 - c1 + 1) * (r2 - r1 + 1) > largeCells){
+					large[i] = true;
+					continue;
+				}
+				for(int row = r1; row <= r2; row++)
+					for(int column = c1; column <= c2; column++)
+						counts[row * columns + column + 1]++;
+			}
+			for(int cell = 0; cell < columns * rows; cell++)
+				counts[cell + 1] += counts[cell];
+			cellStart = counts.clone();
+			cellWidgets = new int[counts[columns * rows]];
+			List<Integer> alwaysList = new ArrayList<>(unbounded);
+			for(int i = 0; i < bounds.length; i++){
+				Rect r = bounds[i];
+				if(r == null)
+					continue;
+				if(large[i]){
+					alwaysList.add(i);
+					continue;
+				}
+				int c1 = column(r.x()), c2 = column(r.x() + r.width());
+				int r1 = row(r.y()), r2 = row(r.y() + r.height());
+				for(int row = r1; row <= r2; row++)
+					for(int column = c1; column <= c2; column++)
+						cellWidgets[counts[row * columns + column]++] = i;
+			}
+			Collections.sort(alwaysList);
+			always = toArray(alwaysList);
+		}
+
+		/**
+		 * @return The candidates at the given point, in ascending order.
+		 */
+		int[] at(double x, double y){
+			if(columns == 0 || Double.isNaN(x) || Double.isNaN(y) ||
+					x < minX || y < minY || x > minX + cellWidth * columns || y > minY + cellHeight * rows)
+				return always;
+			int cell = row(y) * columns + column(x);
+			int start = cellStart[cell], end = cellStart[cell + 1];
+			if(always.length == 0)
+				return Arrays.copyOfRange(cellWidgets, start, end);
+			return merge(always, cellWidgets, start, end);
+		}
+
+		/**
+		 * @return The candidates in the given area, a widget may occur more than once.
+		 */
+		int[] in(Rect area){
+			double ax2 = area.x() + area.width(), ay2 = area.y() + area.height();
+			if(columns == 0 || !isFinite(area) ||
+					ax2 < minX || ay2 < minY || area.x() > minX + cellWidth * columns || area.y() > minY + cellHeight * rows)
+				return always;
+			int c1 = column(area.x()), c2 = column(ax2);
+			int r1 = row(area.y()), r2 = row(ay2);
+			int size = always.length;
+			for(int row = r1; row <= r2; row++)
+				size += cellStart[row * columns + c2 + 1] - cellStart[row * columns + c1];
+			int[] ret = Arrays.copyOf(always, size);
+			int n = always.length;
+			for(int row = r1; row <= r2; row++){
+				int start = cellStart[row * columns + c1], end = cellStart[row * columns + c2 + 1];
+				System.arraycopy(cellWidgets, start, ret, n, end - start);
+				n += end - start;
+			}
+			return ret;
+		}
+
+		private int column(double x){
+			return Math.max(0, Math.min(columns - 1, (int)((x - minX) / cellWidth)));
+		}
+
+		private int row(double y){
+			return Math.max(0, Math.min(rows - 1, (int)((y - minY) / cellHeight)));
+		}
+
+		private static int[] merge(int[] a, int[] b, int start, int end){
+			int[] ret = new int[a.length + end - start];
+			int i = 0, j = start, n = 0;
+			while(i < a.length && j < end)
+				ret[n++] = a[i] <= b[j] ? a[i++] : b[j++];
+			while(i < a.length)
+				ret[n++] = a[i++];
+			while(j < end)
+				ret[n++] = b[j++];
+			return ret;
+		}
+
+		private static boolean isFinite(Rect r){
+			return Double.isFinite(r.x()) && Double.isFinite(r.y()) && Double.isFinite(r.width()) && Double.isFinite(r.height());
+		}
+
+		private static int[] toArray(List<Integer> list){
+			int[] ret = new int[list.size()];
+			for(int i = 0; i < ret.length; i++)
+				ret[i] = list.get(i);
+			return ret;
+		}
+	}
+}
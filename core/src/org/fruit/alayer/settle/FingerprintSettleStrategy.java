@@ -0,0 +1,99 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package org.fruit.alayer.settle;
+
+import org.fruit.Assert;
+import org.fruit.Util;
+import org.fruit.alayer.Action;
+import org.fruit.alayer.SUT;
+import org.fruit.alayer.State;
+
+/**
+ * Considers the SUT settled as soon as a number of consecutive fingerprints are identical.
+ *
+ * The wait after an action ends when the user interface is quiet, or at the latest when the timeout expires.
+ * The configured time to wait after an action (TimeToWaitAfterAction) is then not used, so the
+ * wait can be both shorter and longer than that time. Only when no fingerprint can be taken, the configured
+ * time is waited instead, and the timeout still bounds it: the wait takes min(waitTime, timeout) in total.
+ */
+public class FingerprintSettleStrategy implements SettleStrategy {
+
+	public static final double DEFAULT_POLL_INTERVAL = 0.05; // seconds
+	public static final int DEFAULT_STABLE_FINGERPRINTS = 3;
+
+	private final Fingerprint fingerprint;
+	private final double pollInterval;
+	private final int stableFingerprints;
+	private final double timeout;
+
+	public FingerprintSettleStrategy(Fingerprint fingerprint, double timeout){
+		this(fingerprint, DEFAULT_POLL_INTERVAL, DEFAULT_STABLE_FINGERPRINTS, timeout);
+	}
+
+	/**
+	 * @param fingerprint The fingerprint to observe.
+	 * @param pollInterval The time between two fingerprints, in seconds.
+	 * @param stableFingerprints The number of consecutive identical fingerprints after which the SUT is settled.
+	 * @param timeout The maximum time to wait, in seconds.
+	 */
+	public FingerprintSettleStrategy(Fingerprint fingerprint, double pollInterval, int stableFingerprints, double timeout){
+		Assert.notNull(fingerprint);
+		Assert.isTrue(pollInterval > 0 && stableFingerprints > 1 && timeout >= 0);
+		this.fingerprint = fingerprint;
+		this.pollInterval = pollInterval;
+		this.stableFingerprints = stableFingerprints;
+		this.timeout = timeout;
+	}
+
+	@Override
+	public void afterAction(SUT system, State state, Action action, double waitTime){
+		double start = Util.time();
+		double deadline = start + timeout;
+		Object last = fingerprint.take(system, state);
+		int stable = 1;
+		while(stable < stableFingerprints && Util.time() < deadline){
+			if(last == null){
+				// the user interface can not be observed, so there is no way to tell when it is quiet
+				Util.pause(Math.min(start + waitTime, deadline) - Util.time());
+				return;
+			}
+			Util.pause(pollInterval);
+			Object current = fingerprint.take(system, state);
+			if(current != null && current.equals(last)){
+				stable++;
+			}else{
+				last = current;
+				stable = 1;
+			}
+		}
+	}
+}
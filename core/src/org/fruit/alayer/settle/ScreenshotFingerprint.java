@@ -0,0 +1,104 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package org.fruit.alayer.settle;
+
+import java.awt.AWTException;
+import java.awt.Rectangle;
+import java.awt.Robot;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+import org.fruit.Environment;
+import org.fruit.alayer.SUT;
+import org.fruit.alayer.Shape;
+import org.fruit.alayer.State;
+import org.fruit.alayer.Tags;
+
+/**
+ * Fingerprint of the pixels on the screen area of the SUT.
+ *
+ * The fingerprint is taken several times per action, so it only hashes every SAMPLE_STEP-th pixel of every
+ * SAMPLE_STEP-th row of the capture, which is not copied into an AWTCanvas. A change that only covers pixels
+ * in between, like a blinking text cursor, does not change the fingerprint. Use it with POLL_INTERVAL,
+ * a capture of the whole screen takes several milliseconds.
+ */
+public class ScreenshotFingerprint implements Fingerprint {
+
+	public static final double POLL_INTERVAL = 0.2; // seconds
+	public static final int STABLE_FINGERPRINTS = 2;
+	static final int SAMPLE_STEP = 4;
+
+	private Robot robot;
+
+	@Override
+	public Object take(SUT system, State state){
+		Shape shape = state.get(Tags.Shape, null);
+		if(shape == null || shape.width() <= 0 || shape.height() <= 0)
+			return null;
+		try{
+			if(robot == null)
+				robot = new Robot();
+			double displayScale = Environment.getInstance().getDisplayScale(state.get(Tags.HWND, 0L));
+			Rectangle rect = new Rectangle((int)(shape.x() * displayScale), (int)(shape.y() * displayScale),
+					(int)(shape.width() * displayScale), (int)(shape.height() * displayScale));
+			return sampledHash(robot.createScreenCapture(rect));
+		}catch(AWTException | RuntimeException e){
+			return null;
+		}
+	}
+
+	/**
+	 * @return A hash of the size of the image and the pixels at every SAMPLE_STEP-th column and row.
+	 */
+	static long sampledHash(BufferedImage image){
+		int width = image.getWidth(), height = image.getHeight();
+		long h = 0x9E3779B97F4A7C15L ^ (((long)width << 32) | height);
+		// the screen captures store one int per pixel, other images are read pixel by pixel
+		WritableRaster raster = image.getRaster();
+		int[] data = null;
+		int stride = 0;
+		if(raster.getDataBuffer() instanceof DataBufferInt && raster.getSampleModel() instanceof SinglePixelPackedSampleModel
+				&& raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0){
+			data = ((DataBufferInt)raster.getDataBuffer()).getData();
+			stride = ((SinglePixelPackedSampleModel)raster.getSampleModel()).getScanlineStride();
+		}
+		for(int y = 0; y < height; y += SAMPLE_STEP){
+			for(int x = 0; x < width; x += SAMPLE_STEP){
+				int pixel = data != null ? data[y * stride + x] : image.getRGB(x, y);
+				h = Long.rotateLeft((h ^ (pixel & 0xFFFFFFL)) * 0xC2B2AE3D27D4EB4FL, 31);
+			}
+		}
+		return h;
+	}
+}
@@ -0,0 +1,122 @@
+package es.upv.staq.testar;
+
+import org.fruit.alayer.Roles;
+import org.fruit.alayer.StdState;
+import org.fruit.alayer.StdWidget;
+import org.fruit.alayer.Tag;
+import org.fruit.alayer.Tags;
+import org.fruit.alayer.Widget;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the time needed to build the widget and state ids of synthetic widget trees,
+ * using the compatible (string concatenation) and the streaming id hashing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class CodingManagerBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int nrOfWidgets;
+
+    private TreeState state;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // the same tags TESTAR uses for the custom concrete id
+        CodingManager.setCustomTagsForConcreteId(StateManagementTags.getAllTags().toArray(new Tag<?>[0]));
+        CodingManager.setCustomTagsForAbstractId(new Tag<?>[]{StateManagementTags.WidgetControlType});
+
+        state = new TreeState();
+        List<TreeWidget> widgets = new ArrayList<>();
+        for (int i = 0; i < nrOfWidgets; i++) {
+            Widget parent = i == 0 ? state : widgets.get((i - 1) / 10);
+            TreeWidget widget = new TreeWidget(state, parent);
+            widget.set(Tags.Role, Roles.Control);
+            widget.set(Tags.Title, "widget title " + i);
+            widget.set(Tags.Enabled, i % 3 != 0);
+            widget.set(Tags.Path, "[0, " + (i / 10) + ", " + (i % 10) + "]");
+            widget.set(StateManagementTags.WidgetControlType, "Button");
+            widget.set(StateManagementTags.WidgetTitle, "widget title " + i);
+            widget.set(StateManagementTags.WidgetIsEnabled, i % 3 != 0);
+            widget.set(StateManagementTags.WidgetPath, "[0, " + (i / 10) + ", " + (i % 10) + "]");
+            widget.set(StateManagementTags.WidgetWindowHandle, 1000L + i);
+            widgets.add(widget);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        CodingManager.setIdHashing(CodingManager.ID_HASHING_COMPATIBLE);
+    }
+
+    @Benchmark
+    public String compatible() {
+        CodingManager.setIdHashing(CodingManager.ID_HASHING_COMPATIBLE);
+        CodingManager.buildIDs(state);
+        return state.get(Tags.ConcreteIDCustom);
+    }
+
+    @Benchmark
+    public String streaming() {
+        CodingManager.setIdHashing(CodingManager.ID_HASHING_STREAMING);
+        CodingManager.buildIDs(state);
+        return state.get(Tags.ConcreteIDCustom);
+    }
+
+    /**
+     * Minimal widget that keeps its children, as StdWidget does not support a tree.
+     */
+    private static class TreeWidget extends StdWidget {
+        private static final long serialVersionUID = 1L;
+
+        private final org.fruit.alayer.State root;
+        private final Widget parent;
+        final List<Widget> children = new ArrayList<>();
+
+        TreeWidget(org.fruit.alayer.State root, Widget parent) {
+            this.root = root;
+            this.parent = parent;
+            if (parent instanceof TreeWidget) {
+                ((TreeWidget) parent).children.add(this);
+            } else if (parent instanceof TreeState) {
+                ((TreeState) parent).children.add(this);
+            }
+        }
+
+        @Override
+        public org.fruit.alayer.State root() { return root; }
+
+        @Override
+        public Widget parent() { return parent; }
+
+        @Override
+        public Widget child(int i) { return children.get(i); }
+
+        @Override
+        public int childCount() { return children.size(); }
+    }
+
+    private static class TreeState extends StdState {
+        private static final long serialVersionUID = 1L;
+
+        final List<Widget> children = new ArrayList<>();
+
+        @Override
+        public org.fruit.alayer.State root() { return this; }
+
+        @Override
+        public Widget child(int i) { return children.get(i); }
+
+        @Override
+        public int childCount() { return children.size(); }
+    }
+}
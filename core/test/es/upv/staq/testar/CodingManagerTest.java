@@ -0,0 +1,217 @@
+package es.upv.staq.testar;
+
+import org.fruit.alayer.Roles;
+import org.fruit.alayer.StdState;
+import org.fruit.alayer.StdWidget;
+import org.fruit.alayer.Tag;
+import org.fruit.alayer.Tags;
+import org.fruit.alayer.Widget;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class CodingManagerTest {
+
+    private static final String[] TITLES = {"File", "Edit", "Open", "Save", "Cut", "Paste"};
+
+    // the ids of the state, the File menu and the Paste item created from TITLES, in the order of ID_TAGS
+    private static final String[] STATE_IDS = {
+            "SC1r9d4qk783066457686",
+            "SA1rxr20072172847708",
+            "SR1rxr20072172847708",
+            "ST1ryv8ww762470531463",
+            "SPahtp1e773951523379",
+            "SCCmpfa0m852168519113",
+            "SAC1q15scw7a437141823"};
+    private static final String[] MENU_IDS = {
+            "WC4q7bel151609258276",
+            "WR179m62l7577115607",
+            "WR179m62l7577115607",
+            "WT1y8ncrdb1795486800",
+            "WPb6scmn11340123953",
+            "WCCiuic2ce3591890487",
+            "WAC1q3xquq82476031934"};
+    private static final String[] ITEM_IDS = {
+            "WC1ttp7a118528734366",
+            "WRx3fioi61034594571",
+            "WRx3fioi61034594571",
+            "WT1xa18blb2753798154",
+            "WP1033ejr141118191334",
+            "WCCugrlpz2d63707695593",
+            "WACx3fioi61034594571"};
+    private static final String[] STREAMING_STATE_IDS = {
+            "SC3ivhhb1g8tobh1bxzknutdn7n8",
+            "SA2i899cjfkttn40ed7lzg0jg5i8",
+            "SR2i899cjfkttn40ed7lzg0jg5i8",
+            "ST2vxai3t9ok8h53gbopgsu835fi",
+            "SP3btgfpozayv8j1rbyeotx6zubg",
+            "SCC229pmzqj1ue1027ihoyvzo8nrh",
+            "SAC090yj66mp6r2m308rm82k43amu"};
+
+    // the id tags of a widget or state
+    private static final List<Tag<String>> ID_TAGS = Arrays.asList(Tags.ConcreteID, Tags.AbstractID, Tags.Abstract_R_ID,
+            Tags.Abstract_R_T_ID, Tags.Abstract_R_T_P_ID, Tags.ConcreteIDCustom, Tags.AbstractIDCustom);
+
+    /**
+     * Minimal widget that keeps its children, as StdWidget does not support a tree.
+     */
+    private static class TreeWidget extends StdWidget {
+        private static final long serialVersionUID = 1L;
+
+        private final org.fruit.alayer.State root;
+        private final Widget parent;
+        final List<Widget> children = new ArrayList<>();
+
+        TreeWidget(TreeState root, Widget parent) {
+            this.root = root;
+            this.parent = parent;
+            if (parent instanceof TreeWidget) {
+                ((TreeWidget) parent).children.add(this);
+            } else {
+                root.children.add(this);
+            }
+        }
+
+        public org.fruit.alayer.State root() { return root; }
+
+        public Widget parent() { return parent; }
+
+        public Widget child(int i) { return children.get(i); }
+
+        public int childCount() { return children.size(); }
+    }
+
+    private static class TreeState extends StdState {
+        private static final long serialVersionUID = 1L;
+
+        final List<Widget> children = new ArrayList<>();
+
+        public org.fruit.alayer.State root() { return this; }
+
+        public Widget child(int i) { return children.get(i); }
+
+        public int childCount() { return children.size(); }
+    }
+
+    /**
+     * Creates a menu bar with two menus of two items each. The last item has a value pattern,
+     * of which the child tags are part of the custom concrete id.
+     */
+    private static TreeState createState(String... titles) {
+        TreeState state = new TreeState();
+        List<TreeWidget> widgets = new ArrayList<>();
+        for (int i = 0; i < titles.length; i++) {
+            Widget parent = i < 2 ? state : widgets.get((i - 2) / 2);
+            TreeWidget widget = new TreeWidget(state, parent);
+            String path = i < 2 ? "[0, " + i + "]" : "[0, " + ((i - 2) / 2) + ", " + (i % 2) + "]";
+            widget.set(Tags.Role, i < 2 ? Roles.Control : Roles.Button);
+            widget.set(Tags.Title, titles[i]);
+            widget.set(Tags.Enabled, i != 3);
+            widget.set(Tags.Path, path);
+            widget.set(StateManagementTags.WidgetControlType, i < 2 ? "MenuItem" : "Button");
+            widget.set(StateManagementTags.WidgetTitle, titles[i]);
+            widget.set(StateManagementTags.WidgetIsEnabled, i != 3);
+            widget.set(StateManagementTags.WidgetPath, path);
+            if (i == titles.length - 1) {
+                widget.set(StateManagementTags.WidgetValuePattern, true);
+                widget.set(StateManagementTags.WidgetValueValue, "clipboard");
+                widget.set(StateManagementTags.WidgetValueIsReadOnly, false);
+            }
+            widgets.add(widget);
+        }
+        return state;
+    }
+
+    private static List<String> ids(Widget widget) {
+        List<String> ids = new ArrayList<>();
+        for (Tag<String> tag : ID_TAGS) {
+            ids.add(widget.get(tag));
+        }
+        return ids;
+    }
+
+    @Before
+    public void setUp() {
+        // the tags TESTAR uses by default for the custom ids
+        CodingManager.setCustomTagsForConcreteId(StateManagementTags.getAllTags().toArray(new Tag<?>[0]));
+        CodingManager.setCustomTagsForAbstractId(new Tag<?>[]{StateManagementTags.WidgetControlType});
+    }
+
+    @After
+    public void tearDown() {
+        CodingManager.setIdHashing(CodingManager.ID_HASHING_COMPATIBLE);
+        CodingManager.setCustomTagsForConcreteId(new Tag<?>[]{});
+        CodingManager.setCustomTagsForAbstractId(new Tag<?>[]{});
+    }
+
+    @Test
+    public void buildIDs_givesThePreviousIds_whenHashingIsCompatible() {
+        // given
+        CodingManager.setIdHashing(CodingManager.ID_HASHING_COMPATIBLE);
+        TreeState state = createState(TITLES);
+
+        // when
+        CodingManager.buildIDs(state);
+
+        // then
+        // computed with the implementation before streaming id hashing was added, state models refer to these
+        assertEquals(Arrays.asList(STATE_IDS), ids(state));
+        assertEquals(Arrays.asList(MENU_IDS), ids(state.child(0)));
+        assertEquals(Arrays.asList(ITEM_IDS), ids(state.child(1).child(1)));
+    }
+
+    @Test
+    public void buildIDs_givesTheSameIds_whenHashingIsStreaming() {
+        // given
+        CodingManager.setIdHashing(CodingManager.ID_HASHING_STREAMING);
+        TreeState state = createState(TITLES);
+        TreeState identical = createState(TITLES);
+
+        // when
+        CodingManager.buildIDs(state);
+        CodingManager.buildIDs(identical);
+
+        // then
+        assertEquals(ids(state), ids(identical));
+        assertEquals(ids(state.child(1).child(1)), ids(identical.child(1).child(1)));
+        // the streaming hash does not depend on the run either
+        assertEquals(Arrays.asList(STREAMING_STATE_IDS), ids(state));
+    }
+
+    @Test
+    public void buildIDs_givesDistinctIds_whenHashingIsStreaming() {
+        // given
+        CodingManager.setIdHashing(CodingManager.ID_HASHING_STREAMING);
+        TreeState state = createState(TITLES);
+        TreeState retitled = createState("File", "Edit", "Open", "Save", "Copy", "Paste");
+
+        // when
+        CodingManager.buildIDs(state);
+        CodingManager.buildIDs(retitled);
+
+        // then
+        Set<String> widgetIds = new HashSet<>();
+        for (Widget widget : state) {
+            if (widget != state) {
+                widgetIds.add(widget.get(Tags.ConcreteIDCustom));
+            }
+        }
+        assertEquals(TITLES.length, widgetIds.size());
+
+        // only the ids that include the title change
+        assertNotEquals(state.get(Tags.ConcreteID), retitled.get(Tags.ConcreteID));
+        assertNotEquals(state.get(Tags.Abstract_R_T_ID), retitled.get(Tags.Abstract_R_T_ID));
+        assertNotEquals(state.get(Tags.ConcreteIDCustom), retitled.get(Tags.ConcreteIDCustom));
+        assertEquals(state.get(Tags.AbstractID), retitled.get(Tags.AbstractID));
+        assertEquals(state.get(Tags.AbstractIDCustom), retitled.get(Tags.AbstractIDCustom));
+        assertEquals(ids(state.child(1).child(1)), ids(retitled.child(1).child(1)));
+    }
+}
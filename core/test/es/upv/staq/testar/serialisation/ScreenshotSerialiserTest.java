@@ -0,0 +1,94 @@
+package es.upv.staq.testar.serialisation;
+
+import org.fruit.alayer.AWTCanvas;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class ScreenshotSerialiserTest {
+
+    private AWTCanvas createScreenshot(int color) {
+        AWTCanvas canvas = new AWTCanvas(0, 0, 20, 10);
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 20; x++) {
+                canvas.image().setRGB(x, y, 0xFF000000 | color);
+            }
+        }
+        return canvas;
+    }
+
+    @Test
+    public void saveStateshot_refersToStoredScreenshot_whenPixelsAreIdentical() throws IOException {
+        // given
+        File outputFolder = Files.createTempDirectory("scrshots").toFile();
+        ScreenshotSerialiser.start(outputFolder.getPath(), "sequence_1", 2);
+
+        // when
+        String first = ScreenshotSerialiser.saveStateshot("state_0", createScreenshot(0x336699));
+        String other = ScreenshotSerialiser.saveStateshot("state_1", createScreenshot(0x996633));
+        String duplicate = ScreenshotSerialiser.saveStateshot("state_2", createScreenshot(0x336699));
+        String resolved = ScreenshotSerialiser.resolve(new File(new File(outputFolder, "sequence_1"), "state_2.png").getPath());
+        ScreenshotSerialiser.exit();
+
+        // then
+        assertEquals(first, duplicate);
+        assertNotEquals(first, other);
+        assertEquals(first, resolved);
+        assertEquals(1, ScreenshotSerialiser.duplicateScrshots());
+        assertEquals(2, ScreenshotSerialiser.savedScrshots());
+        File sequenceFolder = new File(outputFolder, "sequence_1");
+        String[] files = sequenceFolder.list();
+        Arrays.sort(files);
+        assertArrayEquals(new String[]{ScreenshotSerialiser.INDEX_FILE, "state_0.png", "state_1.png"}, files);
+        assertEquals(Collections.singletonList("state_2.png\tstate_0.png"),
+                Files.readAllLines(new File(sequenceFolder, ScreenshotSerialiser.INDEX_FILE).toPath()));
+    }
+
+    @Test(timeout = 10000)
+    public void exit_savesTheOtherScreenshots_whenSavingAScreenshotFails() throws IOException {
+        // given
+        File outputFolder = Files.createTempDirectory("scrshots").toFile();
+        ScreenshotSerialiser.start(outputFolder.getPath(), "sequence_1", 1);
+        AWTCanvas failing = new AWTCanvas(0, 0, 20, 10) {
+            @Override
+            public void save(String file, AWTCanvas.StorageFormat format, double quality, double scale) {
+                throw new IllegalStateException("cannot encode");
+            }
+        };
+
+        // when
+        ScreenshotSerialiser.saveStateshot("state_0", failing);
+        ScreenshotSerialiser.saveStateshot("state_1", createScreenshot(0x996633));
+        ScreenshotSerialiser.exit();
+
+        // then
+        assertTrue(ScreenshotSerialiser.isSavingQueueEmpty());
+        assertEquals(1, ScreenshotSerialiser.savedScrshots());
+        assertArrayEquals(new String[]{"state_1.png"}, new File(outputFolder, "sequence_1").list());
+    }
+
+    @Test
+    public void saveStateshot_storesBothScreenshots_whenOnlyTheSizeDiffers() throws IOException {
+        // given
+        File outputFolder = Files.createTempDirectory("scrshots").toFile();
+        ScreenshotSerialiser.start(outputFolder.getPath(), "sequence_1", 1);
+        AWTCanvas wide = new AWTCanvas(0, 0, 20, 10);
+        AWTCanvas high = new AWTCanvas(0, 0, 10, 20);
+
+        // when
+        String first = ScreenshotSerialiser.saveStateshot("state_0", wide);
+        String second = ScreenshotSerialiser.saveStateshot("state_1", high);
+        ScreenshotSerialiser.exit();
+
+        // then
+        assertNotEquals(first, second);
+        assertEquals(0, ScreenshotSerialiser.duplicateScrshots());
+        assertEquals(2, ScreenshotSerialiser.savedScrshots());
+    }
+}
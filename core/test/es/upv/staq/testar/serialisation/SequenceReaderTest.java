@@ -0,0 +1,126 @@
+package es.upv.staq.testar.serialisation;
+
+import org.fruit.alayer.*;
+import org.fruit.alayer.actions.CompoundAction;
+import org.fruit.alayer.actions.KeyDown;
+import org.fruit.alayer.actions.NOP;
+import org.fruit.alayer.devices.KBKeys;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class SequenceReaderTest {
+
+    // an action that needs its target widget when it is executed, like the Space Engineers block actions
+    private static class TargetedAction extends NOP {
+        private static final long serialVersionUID = 1L;
+        protected Widget targetBlock;
+
+        TargetedAction(Widget targetBlock) {
+            this.targetBlock = targetBlock;
+        }
+    }
+
+    private TaggableBase createFragment(String title) {
+        Action action = new CompoundAction.Builder().add(new KeyDown(KBKeys.VK_A), 1.0).build();
+        action.set(Tags.Desc, "Type 'a' into the text field with title " + title);
+        action.set(Tags.Targets, Collections.singletonList(new IndexFinder(new int[]{0, 1})));
+        action.set(Tags.OriginWidget, new StdWidget());
+
+        TaggableBase fragment = new TaggableBase();
+        fragment.set(Tags.ExecutedAction, action);
+        fragment.set(Tags.SystemState, new StdState());
+        fragment.set(Tags.OracleVerdict, new Verdict(Verdict.SEVERITY_OK, "No problem detected."));
+        fragment.set(Tags.Title, title);
+        fragment.set(Tags.ActionDuration, 0.5);
+        fragment.set(Tags.ActionDelay, 1.5);
+        return fragment;
+    }
+
+    @Test
+    public void read_returnsWrittenFragments_whenSequenceIsCompact() throws IOException, ClassNotFoundException {
+        // given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SequenceWriter writer = new SequenceWriter(bytes)) {
+            writer.write(createFragment("first text field"));
+            writer.write(createFragment("second text field"));
+        }
+
+        // when
+        SequenceReader reader = new SequenceReader(new ByteArrayInputStream(bytes.toByteArray()));
+        Taggable first = reader.read();
+        Taggable second = reader.read();
+
+        // then
+        assertTrue(reader.isCompact());
+        assertEquals("first text field", first.get(Tags.Title));
+        assertEquals("second text field", second.get(Tags.Title));
+        assertEquals(0.5, second.get(Tags.ActionDuration), 0.0);
+        assertEquals(1.5, second.get(Tags.ActionDelay), 0.0);
+        assertEquals(Verdict.SEVERITY_OK, second.get(Tags.OracleVerdict).severity(), 0.0);
+
+        Action action = second.get(Tags.ExecutedAction);
+        assertEquals("Type 'a' into the text field with title second text field", action.get(Tags.Desc));
+        assertEquals(1, action.get(Tags.Targets).size());
+        // the widgets are not stored
+        assertNull(action.get(Tags.OriginWidget, null));
+        assertNull(second.get(Tags.SystemState, null));
+
+        assertNull(reader.read());
+    }
+
+    @Test
+    public void read_keepsTheWidgetOfTheAction_whenTheActionNeedsItToBeExecuted() throws IOException, ClassNotFoundException {
+        // given
+        StdState state = new StdState();
+        Widget block = new StdWidget();
+        block.set(Tags.Title, "Battery block");
+        TargetedAction action = new TargetedAction(block);
+        action.set(Tags.OriginWidget, block);
+        TaggableBase fragment = new TaggableBase();
+        fragment.set(Tags.ExecutedAction, action);
+        fragment.set(Tags.SystemState, state);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SequenceWriter writer = new SequenceWriter(bytes)) {
+            writer.write(fragment);
+            writer.write(createFragment("text field"));
+        }
+
+        // when
+        SequenceReader reader = new SequenceReader(new ByteArrayInputStream(bytes.toByteArray()));
+        TargetedAction read = (TargetedAction) reader.read().get(Tags.ExecutedAction);
+        Action other = reader.read().get(Tags.ExecutedAction);
+
+        // then
+        assertNotNull(read.targetBlock);
+        assertEquals("Battery block", read.targetBlock.get(Tags.Title));
+        assertSame(read.targetBlock, read.get(Tags.OriginWidget));
+        // the widgets of other actions are still left out
+        assertNull(other.get(Tags.OriginWidget, null));
+    }
+
+    @Test
+    public void read_returnsFragments_whenSequenceIsLegacy() throws IOException, ClassNotFoundException {
+        // given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(createFragment("text field"));
+        }
+
+        // when
+        SequenceReader reader = new SequenceReader(new ByteArrayInputStream(bytes.toByteArray()));
+        Taggable fragment = reader.read();
+
+        // then
+        assertFalse(reader.isCompact());
+        assertEquals("text field", fragment.get(Tags.Title));
+        assertNotNull(fragment.get(Tags.SystemState, null));
+        assertNull(reader.read());
+    }
+}
@@ -0,0 +1,51 @@
+package org.fruit.alayer;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class AWTCanvasTest {
+
+	private static BufferedImage createImage(int width, int height, int seed){
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		for (int y = 0; y < height; y++)
+			for (int x = 0; x < width; x++)
+				image.setRGB(x, y, 0xFF000000 | ((x * 7 + seed) & 0xFF) << 16 | ((y * 13) & 0xFF) << 8 | ((x * y + seed) & 0xFF));
+		return image;
+	}
+
+	@Test
+	public void fastPng_isLossless() throws IOException {
+		// given
+		BufferedImage image = createImage(37, 21, 0);
+
+		// when
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		AWTCanvas.save(image, bytes, AWTCanvas.StorageFormat.PNG_FAST, 1);
+		AWTCanvas read = AWTCanvas.fromInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+
+		// then
+		assertEquals(37, (int) read.width());
+		assertEquals(21, (int) read.height());
+		for (int y = 0; y < 21; y++)
+			for (int x = 0; x < 37; x++)
+				assertEquals(image.getRGB(x, y), read.image().getRGB(x, y));
+	}
+
+	@Test
+	public void pixelHash_dependsOnPixelsOnly() {
+		// given
+		AWTCanvas canvas = new AWTCanvas(0, 0, createImage(40, 30, 0), AWTCanvas.StorageFormat.PNG, 1);
+		AWTCanvas same = new AWTCanvas(10, 10, createImage(40, 30, 0), AWTCanvas.StorageFormat.JPEG, 1);
+		AWTCanvas other = new AWTCanvas(0, 0, createImage(40, 30, 1), AWTCanvas.StorageFormat.PNG, 1);
+
+		// then
+		assertEquals(canvas.pixelHash(), same.pixelHash());
+		assertNotEquals(canvas.pixelHash(), other.pixelHash());
+	}
+}
@@ -0,0 +1,160 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package org.fruit.alayer;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CompactTagMapTest {
+
+	private static final List<Tag<?>> TAGS = new ArrayList<>();
+	static {
+		for (int i = 0; i < 40; i++) {
+			TAGS.add(Tag.from("CompactTagMapTest" + i, Object.class));
+		}
+	}
+
+	private static Object randomValue(Random random) {
+		switch (random.nextInt(6)) {
+			case 0: return null;
+			case 1: return random.nextDouble();
+			case 2: return random.nextLong();
+			case 3: return random.nextInt();
+			case 4: return random.nextBoolean();
+			default: return "value" + random.nextInt(100);
+		}
+	}
+
+	@Test
+	public void behavesLikeHashMap() {
+		// given
+		Random random = new Random(42);
+		Map<Tag<?>, Object> expected = new HashMap<>();
+		CompactTagMap map = new CompactTagMap();
+
+		// when / then
+		for (int i = 0; i < 20000; i++) {
+			Tag<?> tag = TAGS.get(random.nextInt(TAGS.size()));
+			int operation = random.nextInt(10);
+			if (operation < 6) {
+				Object value = randomValue(random);
+				assertEquals(expected.put(tag, value), map.put(tag, value));
+			} else if (operation < 8) {
+				assertEquals(expected.remove(tag), map.remove(tag));
+			} else {
+				assertEquals(expected.get(tag), map.get(tag));
+				assertEquals(expected.containsKey(tag), map.containsKey(tag));
+			}
+			assertEquals(expected.size(), map.size());
+		}
+		assertEquals(expected, map);
+		assertEquals(expected.keySet(), map.keySet());
+	}
+
+	@Test
+	public void keepsAbsentValuesAndValueTypes() {
+		// given
+		CompactTagMap map = new CompactTagMap();
+
+		// when
+		map.put(Tags.Title, "title");
+		map.put(Tags.ZIndex, 2.5);
+		map.put(Tags.HWND, 12L);
+		map.put(Tags.Enabled, true);
+		map.put(Tags.Desc, null);
+
+		// then
+		assertEquals(2.5, map.get(Tags.ZIndex));
+		assertEquals(12L, map.get(Tags.HWND));
+		assertSame(Boolean.TRUE, map.get(Tags.Enabled));
+		assertNull(map.get(Tags.Desc));
+		assertTrue(map.containsKey(Tags.Desc));
+		assertFalse(map.containsKey(Tags.Shape));
+	}
+
+	@Test
+	public void iteratorRemove_visitsEveryEntryOnce() {
+		// given
+		CompactTagMap map = new CompactTagMap();
+		for (Tag<?> tag : TAGS) {
+			map.put(tag, tag.name());
+		}
+
+		// when
+		int visited = 0;
+		for (Iterator<Map.Entry<Tag<?>, Object>> it = map.entrySet().iterator(); it.hasNext(); ) {
+			Map.Entry<Tag<?>, Object> entry = it.next();
+			assertEquals(entry.getKey().name(), entry.getValue());
+			it.remove();
+			visited++;
+		}
+
+		// then
+		assertEquals(TAGS.size(), visited);
+		assertTrue(map.isEmpty());
+	}
+
+	@Test
+	public void serialisation_keepsTheEntries() throws Exception {
+		// given
+		CompactTagMap map = new CompactTagMap();
+		map.put(Tags.Title, "title");
+		map.put(Tags.ZIndex, 2.5);
+		map.put(Tags.Desc, null);
+
+		// when
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+			oos.writeObject(map);
+		}
+		Object read;
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			read = ois.readObject();
+		}
+
+		// then
+		assertEquals(map, read);
+		assertTrue(((CompactTagMap) read).containsKey(Tags.Desc));
+	}
+}
@@ -0,0 +1,86 @@
+package org.fruit.alayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time needed to encode a synthetic screenshot in each of the storage formats,
+ * and the time needed to compute the pixel hash that is used to skip identical stateshots.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ScreenshotEncodingBenchmark {
+
+    @Param({"1920x1080", "3840x2160"})
+    public String resolution;
+
+    @Param({"PNG", "PNG_FAST", "JPEG", "BMP"})
+    public AWTCanvas.StorageFormat format;
+
+    private AWTCanvas screenshot;
+    private ByteArrayOutputStream output;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] size = resolution.split("x");
+        int width = Integer.parseInt(size[0]);
+        int height = Integer.parseInt(size[1]);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+
+        // something that looks like a desktop: flat panels with text and a photo-like area
+        Random random = new Random(42);
+        Graphics2D g = image.createGraphics();
+        g.setColor(new java.awt.Color(240, 240, 240));
+        g.fillRect(0, 0, width, height);
+        g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 14));
+        for (int i = 0; i < 400; i++) {
+            int x = random.nextInt(width), y = random.nextInt(height);
+            g.setColor(new java.awt.Color(random.nextInt(0xFFFFFF)));
+            g.fillRect(x, y, 40 + random.nextInt(200), 15 + random.nextInt(40));
+            g.setColor(java.awt.Color.BLACK);
+            g.drawString("Widget title " + i, x + 4, y + 14);
+        }
+        g.dispose();
+        for (int y = 0; y < height / 4; y++) {
+            for (int x = 0; x < width / 4; x++) {
+                image.setRGB(x, y, 0xFF000000 | random.nextInt(0x40) << 16 | (x + random.nextInt(8)) % 256 << 8 | y % 256);
+            }
+        }
+
+        screenshot = new AWTCanvas(0, 0, image, AWTCanvas.StorageFormat.PNG, 1);
+        output = new ByteArrayOutputStream(width * height * 4);
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        output.reset();
+        AWTCanvas.save(screenshot.image(), output, format, 1);
+        return output.size();
+    }
+
+    @Benchmark
+    public long pixelHash() {
+        return screenshot.pixelHash();
+    }
+}
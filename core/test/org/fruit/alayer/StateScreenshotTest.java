@@ -0,0 +1,109 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package org.fruit.alayer;
+
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayInputStream;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class StateScreenshotTest {
+
+	@Test
+	public void of_capturesTheScreenshotOncePerState() {
+		// given
+		StdState state = new StdState();
+		AtomicInteger captures = new AtomicInteger();
+
+		// when
+		AWTCanvas first = StateScreenshot.of(state, () -> { captures.incrementAndGet(); return new AWTCanvas(10, 10); });
+		AWTCanvas second = StateScreenshot.of(state, () -> { captures.incrementAndGet(); return new AWTCanvas(10, 10); });
+
+		// then
+		assertSame(first, second);
+		assertEquals(1, captures.get());
+		assertSame(first, state.get(Tags.StateScreenshot).canvas());
+	}
+
+	@Test
+	public void png_encodesOnce_andSharesTheBytesOfIdenticalScreenshots() throws Exception {
+		// given
+		StateScreenshot screenshot = new StateScreenshot(new AWTCanvas(20, 10));
+		StateScreenshot identical = new StateScreenshot(new AWTCanvas(20, 10));
+
+		// when
+		byte[] bytes = screenshot.png().get();
+
+		// then
+		assertSame(screenshot.png(), screenshot.png());
+		assertSame(bytes, identical.png().get());
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+		assertEquals(20, image.getWidth());
+		assertEquals(10, image.getHeight());
+	}
+
+	@Test
+	public void png_releasesTheCanvas_onceItIsEncoded() throws Exception {
+		// given
+		AWTCanvas canvas = new AWTCanvas(5, 7, 20, 10);
+		canvas.image().setRGB(3, 4, 0xFF336699);
+		StateScreenshot screenshot = new StateScreenshot(canvas);
+
+		// when
+		screenshot.png().get();
+
+		// then
+		assertFalse(screenshot.holdsCanvas());
+		AWTCanvas released = screenshot.canvas();
+		assertEquals(canvas.pixelHash(), released.pixelHash());
+		assertEquals(5, released.x(), 0);
+		assertEquals(7, released.y(), 0);
+	}
+
+	@Test
+	public void release_keepsTheCanvasAvailable_whileItIsUsedElsewhere() {
+		// given
+		StdState state = new StdState();
+		AWTCanvas canvas = StateScreenshot.of(state, () -> new AWTCanvas(10, 10));
+
+		// when
+		state.get(Tags.StateScreenshot).release();
+
+		// then
+		assertFalse(state.get(Tags.StateScreenshot).holdsCanvas());
+		assertSame(canvas, StateScreenshot.of(state, () -> new AWTCanvas(10, 10)));
+	}
+}
@@ -0,0 +1,190 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package org.fruit.alayer;
+
+import org.fruit.Util;
+import org.fruit.alayer.exceptions.WidgetNotFoundException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class StdAbstractorTest {
+
+	private static final Role[] roles = {Roles.Button, Roles.Item, Roles.Control};
+	private static final String[] titles = {"", "OK", "Cancel", null};
+
+	private static class TreeWidget extends StdWidget {
+		private static final long serialVersionUID = 1L;
+
+		private final State root;
+		private final Widget parent;
+		final List<Widget> children = new ArrayList<>();
+
+		TreeWidget(TreeState root, Widget parent) {
+			this.root = root;
+			this.parent = parent;
+			if (parent instanceof TreeWidget) {
+				((TreeWidget) parent).children.add(this);
+			} else {
+				root.children.add(this);
+			}
+		}
+
+		public State root() { return root; }
+
+		public Widget parent() { return parent; }
+
+		public Widget child(int i) { return children.get(i); }
+
+		public int childCount() { return children.size(); }
+	}
+
+	private static class TreeState extends StdState {
+		private static final long serialVersionUID = 1L;
+
+		final List<Widget> children = new ArrayList<>();
+
+		public State root() { return this; }
+
+		public Widget child(int i) { return children.get(i); }
+
+		public int childCount() { return children.size(); }
+	}
+
+	/**
+	 * Creates a state with few distinct tag values, so that many widgets are equally similar.
+	 */
+	private static TreeState randomState(int nrOfWidgets, long seed) {
+		Random random = new Random(seed);
+		TreeState state = new TreeState();
+		List<TreeWidget> widgets = new ArrayList<>();
+		for (int i = 0; i < nrOfWidgets; i++) {
+			Widget parent = i < 5 ? state : widgets.get(random.nextInt(i));
+			TreeWidget widget = new TreeWidget(state, parent);
+			widget.set(Tags.Role, roles[random.nextInt(roles.length)]);
+			String title = titles[random.nextInt(titles.length)];
+			if (title != null) {
+				widget.set(Tags.Title, title);
+			}
+			widget.set(Tags.ToolTipText, titles[random.nextInt(titles.length - 1)]);
+			widget.set(Tags.Enabled, random.nextBoolean());
+			widget.set(Tags.Blocked, random.nextInt(4) == 0);
+			widgets.add(widget);
+		}
+		return state;
+	}
+
+	/**
+	 * The finder as it examined every widget of the state, before the finder index.
+	 */
+	private static Widget linearFind(Widget target, State state, double minSimilarity) {
+		Tag<?>[] tags = {Tags.Role, Tags.Title, Tags.ToolTipText, Tags.Enabled, Tags.Blocked};
+		double[] weights = {2.0, 2.0, 2.0, 1.0, 1.0};
+		List<Widget> candidates = new ArrayList<>();
+		double maxScore = 0.0;
+		for (Widget w : Util.makeIterable(state)) {
+			double score = 0.0;
+			for (int i = 0; i < tags.length; i++) {
+				score += (Util.equals(w.get(tags[i], null), target.get(tags[i], null)) ? 1.0 : 0.0) * weights[i];
+			}
+			if (score > maxScore) {
+				candidates.clear();
+				maxScore = score;
+				candidates.add(w);
+			} else if (score == maxScore) {
+				candidates.add(w);
+			}
+		}
+		if (maxScore / 8.0 < minSimilarity) {
+			return null;
+		}
+		int[] path = Util.indexPath(target);
+		Widget best = null;
+		maxScore = -1.0;
+		for (Widget candidate : candidates) {
+			int[] other = Util.indexPath(candidate);
+			double score = 0.0;
+			for (int i = 0; i < Math.min(path.length, other.length); i++) {
+				score += 1.0 / (Math.abs(path[path.length - 1 - i] - other[other.length - 1 - i]) + 1.0);
+			}
+			if (score > maxScore) {
+				best = candidate;
+				maxScore = score;
+			}
+		}
+		return best;
+	}
+
+	@Test
+	public void finder_findsTheSameWidgetsAsLinearScan() {
+		// given
+		TreeState state = randomState(2000, 3);
+		TreeState previousState = randomState(300, 4);
+
+		for (double minSimilarity : new double[]{0.0, 0.5, 0.9}) {
+			StdAbstractor abstractor = new StdAbstractor(false, minSimilarity);
+			for (Widget target : previousState) {
+				// when
+				Widget found;
+				try {
+					found = abstractor.apply(target).apply(state);
+				} catch (WidgetNotFoundException e) {
+					found = null;
+				}
+
+				// then
+				assertSame(linearFind(target, state, minSimilarity), found);
+			}
+		}
+	}
+
+	@Test
+	public void finder_sharesIndexOfState() {
+		// given
+		TreeState state = randomState(100, 5);
+		StdAbstractor abstractor = new StdAbstractor(false, 0.5);
+
+		// when
+		Widget found = abstractor.apply(state.child(0)).apply(state);
+		FinderIndex index = state.get(Tags.FinderIndex);
+		abstractor.apply(state.child(1)).apply(state);
+
+		// then
+		assertSame(state.child(0), found);
+		assertSame(index, state.get(Tags.FinderIndex));
+		assertEquals(101, index.size());
+	}
+}
@@ -0,0 +1,109 @@
+package org.fruit.alayer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the HashMap and the CompactTagMap as tag store of the widgets of a state, for building the maps
+ * (run with -prof gc for the allocated bytes) and for reading the tags. The widgets have the mix of tags
+ * a web widget has after the state was fetched: strings, doubles, booleans, longs and tags without a value.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class TagMapBenchmark {
+
+    static final int NR_OF_WIDGETS = 5000;
+
+    @Param({"hashmap", "compact"})
+    public String store;
+
+    private List<Map<Tag<?>, Object>> widgets;
+    private Tag<?>[] tags;
+    private Object[] values;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Tag<?>> tagList = new ArrayList<>();
+        List<Object> valueList = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tagList.add(Tag.from("BenchmarkString" + i, String.class));
+            valueList.add(i % 3 == 0 ? null : "value " + i);
+        }
+        for (int i = 0; i < 8; i++) {
+            tagList.add(Tag.from("BenchmarkDouble" + i, Double.class));
+            valueList.add(i * 10.5);
+        }
+        for (int i = 0; i < 6; i++) {
+            tagList.add(Tag.from("BenchmarkBoolean" + i, Boolean.class));
+            valueList.add(i % 2 == 0);
+        }
+        for (int i = 0; i < 2; i++) {
+            tagList.add(Tag.from("BenchmarkLong" + i, Long.class));
+            valueList.add(1000L + i);
+        }
+        tags = tagList.toArray(new Tag<?>[0]);
+        values = valueList.toArray();
+        widgets = build();
+    }
+
+    static Map<Tag<?>, Object> newMap(String store) {
+        return store.equals("compact") ? new CompactTagMap() : new HashMap<>();
+    }
+
+    // the values are created for every widget, as the state fetcher does
+    private Object copy(Object value, int widget) {
+        if (value instanceof Double) {
+            return Double.valueOf((Double) value + widget);
+        } else if (value instanceof Long) {
+            return Long.valueOf((Long) value + widget);
+        }
+        return value;
+    }
+
+    @Benchmark
+    public List<Map<Tag<?>, Object>> build() {
+        List<Map<Tag<?>, Object>> ret = new ArrayList<>(NR_OF_WIDGETS);
+        for (int w = 0; w < NR_OF_WIDGETS; w++) {
+            Map<Tag<?>, Object> map = newMap(store);
+            for (int i = 0; i < tags.length; i++) {
+                map.put(tags[i], copy(values[i], w));
+            }
+            ret.add(map);
+        }
+        return ret;
+    }
+
+    @Benchmark
+    public int get() {
+        int found = 0;
+        for (Map<Tag<?>, Object> map : widgets) {
+            for (Tag<?> tag : tags) {
+                if (map.get(tag) != null) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int getMissing() {
+        // the lookups the widgets do before fetching a tag for the first time
+        int found = 0;
+        for (Map<Tag<?>, Object> map : widgets) {
+            if (map.containsKey(Tags.Title) || map.containsKey(Tags.Shape)) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
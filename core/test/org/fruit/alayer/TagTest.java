@@ -117,4 +117,20 @@ public class TagTest {
 
    }
 
+   @Test
+   public void fromName() {
+      Tag<String> tag1 = Tag.from("namedString", String.class);
+      Tag<Boolean> tag2 = Tag.from("namedString", Boolean.class);
+      int registrations = Tag.registrations();
+
+      assertEquals("Both tags shall be found by name", java.util.Arrays.asList(tag1, tag2), Tag.fromName("namedString"));
+      assertTrue("An unknown name shall have no tags", Tag.fromName("unknownName").isEmpty());
+
+      Tag.from("namedString", String.class);
+      assertEquals("An existing tag shall not be registered again", registrations, Tag.registrations());
+      Tag.from("namedString", Integer.class);
+      assertEquals("A new tag shall be registered", registrations + 1, Tag.registrations());
+      assertEquals("The new tag shall be found by name", 3, Tag.fromName("namedString").size());
+   }
+
 }
@@ -0,0 +1,102 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package org.fruit.alayer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class TagValuePatternTest {
+
+	@Test
+	public void find_returnsFirstMatchingTag_andSkipsMissingValues() {
+		// given
+		TagValuePattern pattern = new TagValuePattern(Arrays.asList("Desc", "Title"), ".*[eE]xit.*");
+		StdWidget widget = new StdWidget();
+		widget.set(Tags.Title, "Exit application");
+
+		// when
+		Tag<?> tag = pattern.find(widget);
+
+		// then
+		assertEquals(Tags.Title, tag);
+		assertEquals("Exit application", TagValuePattern.valueOf(widget, tag));
+	}
+
+	@Test
+	public void find_returnsNull_whenNoValueMatchesOrIsIgnored() {
+		// given
+		TagValuePattern pattern = new TagValuePattern(Collections.singletonList("Title"), ".*[eE]rror.*");
+		StdWidget widget = new StdWidget();
+		widget.set(Tags.Title, "Error");
+
+		// when / then
+		assertNull(pattern.find(widget, (w, value) -> value.equals("Error")));
+		widget.set(Tags.Title, "Open file");
+		assertNull(pattern.find(widget));
+	}
+
+	@Test
+	public void find_resolvesTagsCreatedLater() {
+		// given
+		TagValuePattern pattern = new TagValuePattern(Collections.singletonList("LaterCreatedTag"), "match");
+		StdWidget widget = new StdWidget();
+		assertNull(pattern.find(widget));
+
+		// when
+		Tag<String> later = Tag.from("LaterCreatedTag", String.class);
+		widget.set(later, "match");
+
+		// then
+		assertEquals(later, pattern.find(widget));
+	}
+
+	@Test
+	public void matches_keepsTheMemoBounded() {
+		// given
+		TagValuePattern pattern = new TagValuePattern(Collections.singletonList("Title"), "[0-9]+", 100);
+
+		// when
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(pattern.matches(Integer.toString(i)));
+		}
+
+		// then
+		assertEquals(100, pattern.memoSize());
+		assertFalse(pattern.matches("abc"));
+		assertTrue(pattern.isFor(Collections.singletonList("Title"), "[0-9]+"));
+		assertFalse(pattern.isFor(Collections.singletonList("Title"), "[a-z]+"));
+	}
+}
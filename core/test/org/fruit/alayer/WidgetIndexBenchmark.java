@@ -0,0 +1,116 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package org.fruit.alayer;
+
+import org.fruit.Util;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the point and area queries of the widget index with the linear scan over all widgets of a
+ * synthetic state, and measures the time needed to build the index.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class WidgetIndexBenchmark {
+
+	@Param({"10000", "50000"})
+	public int nrOfWidgets;
+
+	private State state;
+	private double[] xs, ys;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		state = WidgetIndexTest.randomState(nrOfWidgets, 42);
+		WidgetIndex.of(state);
+		Random random = new Random(7);
+		xs = new double[1024];
+		ys = new double[1024];
+		for (int i = 0; i < xs.length; i++) {
+			xs[i] = random.nextInt(1900);
+			ys[i] = random.nextInt(1000);
+		}
+	}
+
+	@Benchmark
+	public Set<Widget> widgetsFromPointLinear() {
+		int i = next++ & 1023;
+		Set<Widget> ret = new HashSet<>();
+		for (Widget w : state) {
+			if (w.get(Tags.HitTester, Util.FalseTester).apply(xs[i], ys[i])) {
+				ret.add(w);
+			}
+		}
+		return ret;
+	}
+
+	@Benchmark
+	public Set<Widget> widgetsFromPointIndexed() {
+		int i = next++ & 1023;
+		return Util.widgetsFromPoint(state, xs[i], ys[i]);
+	}
+
+	@Benchmark
+	public Set<Widget> widgetsFromAreaLinear() {
+		int i = next++ & 1023;
+		Rect area = Rect.from(xs[i], ys[i], 100, 50);
+		Set<Widget> ret = new HashSet<>();
+		for (Widget w : state) {
+			Shape shape = w.get(Tags.Shape, null);
+			if (shape != null && Rect.intersect(Rect.from(shape.x(), shape.y(), shape.width(), shape.height()), area)) {
+				ret.add(w);
+			}
+		}
+		return ret;
+	}
+
+	@Benchmark
+	public Set<Widget> widgetsFromAreaIndexed() {
+		int i = next++ & 1023;
+		return Util.widgetsFromArea(state, Rect.from(xs[i], ys[i], 100, 50));
+	}
+
+	@Benchmark
+	public WidgetIndex buildIndex() {
+		return new WidgetIndex(state);
+	}
+}
@@ -0,0 +1,194 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package org.fruit.alayer;
+
+import org.fruit.Util;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class WidgetIndexTest {
+
+	/**
+	 * Hits the given rectangle, like the hit testers of the widgets of a SUT.
+	 */
+	static class RectHitTester implements HitTester {
+		private static final long serialVersionUID = 1L;
+
+		private final Rect rect;
+		private final boolean bounded;
+
+		RectHitTester(Rect rect, boolean bounded) {
+			this.rect = rect;
+			this.bounded = bounded;
+		}
+
+		public boolean apply(double x, double y) {
+			return rect.contains(x, y);
+		}
+
+		public boolean apply(double x, double y, boolean obscuredByChildFeature) {
+			return apply(x, y);
+		}
+
+		public Rect bounds() {
+			return bounded ? rect : null;
+		}
+	}
+
+	static class FlatWidget extends StdWidget {
+		private static final long serialVersionUID = 1L;
+
+		private final FlatState root;
+
+		FlatWidget(FlatState root) {
+			this.root = root;
+			root.children.add(this);
+		}
+
+		public State root() { return root; }
+
+		public Widget parent() { return root; }
+	}
+
+	static class FlatState extends StdState {
+		private static final long serialVersionUID = 1L;
+
+		final List<Widget> children = new ArrayList<>();
+
+		public State root() { return this; }
+
+		public Widget child(int i) { return children.get(i); }
+
+		public int childCount() { return children.size(); }
+	}
+
+	/**
+	 * Creates a state with random widgets, some of them without shape, hit tester or hit tester bounds.
+	 */
+	static FlatState randomState(int nrOfWidgets, long seed) {
+		Random random = new Random(seed);
+		FlatState state = new FlatState();
+		for (int i = 0; i < nrOfWidgets; i++) {
+			Widget widget = new FlatWidget(state);
+			Rect rect = Rect.from(random.nextInt(1900), random.nextInt(1000), 1 + random.nextInt(i % 50 == 0 ? 1000 : 60), 1 + random.nextInt(30));
+			if (i % 97 != 0) {
+				widget.set(Tags.Shape, rect);
+			}
+			if (i % 89 != 0) {
+				widget.set(Tags.HitTester, new RectHitTester(rect, i % 83 != 0));
+			}
+		}
+		return state;
+	}
+
+	@Test
+	public void queries_matchLinearScan() {
+		// given
+		FlatState state = randomState(5000, 42);
+		Random random = new Random(7);
+
+		for (int q = 0; q < 500; q++) {
+			double x = random.nextInt(2100) - 50 + random.nextDouble();
+			double y = random.nextInt(1200) - 50 + random.nextDouble();
+			Rect area = Rect.from(x, y, random.nextInt(200), random.nextInt(200));
+
+			// when
+			Set<Widget> atPoint = Util.widgetsFromPoint(state, x, y);
+			Set<Widget> inArea = Util.widgetsFromArea(state, area);
+			Widget top = Util.widgetFromPoint(state, x, y, null);
+
+			// then
+			Set<Widget> expectedAtPoint = new HashSet<>();
+			Set<Widget> expectedInArea = new HashSet<>();
+			Widget expectedTop = null;
+			double expectedTopArea = 0;
+			for (Widget w : state) {
+				if (w.get(Tags.HitTester, Util.FalseTester).apply(x, y)) {
+					expectedAtPoint.add(w);
+					Shape shape = w.get(Tags.Shape, null);
+					double a = shape == null ? -1 : Util.area(shape);
+					if (expectedTop == null || a < expectedTopArea) {
+						expectedTop = w;
+						expectedTopArea = a;
+					}
+				}
+				Shape shape = w.get(Tags.Shape, null);
+				if (shape != null && Rect.intersect(Rect.from(shape.x(), shape.y(), shape.width(), shape.height()), area)) {
+					expectedInArea.add(w);
+				}
+			}
+			assertEquals(expectedAtPoint, atPoint);
+			assertEquals(expectedInArea, inArea);
+			assertSame(expectedTop, top);
+		}
+	}
+
+	@Test
+	public void of_attachesIndexToState() {
+		// given
+		FlatState state = randomState(100, 1);
+
+		// when
+		WidgetIndex first = WidgetIndex.of(state);
+		WidgetIndex second = WidgetIndex.of(state);
+
+		// then
+		assertSame(first, second);
+		assertSame(first, state.get(Tags.WidgetIndex));
+		assertEquals(101, first.size());
+	}
+
+	@Test
+	public void widgetFromPoint_returnsDefaultValueOutsideOfWidgets() {
+		// given
+		FlatState state = new FlatState();
+		Widget widget = new FlatWidget(state);
+		Rect rect = Rect.from(10, 10, 20, 20);
+		widget.set(Tags.Shape, rect);
+		widget.set(Tags.HitTester, new RectHitTester(rect, true));
+
+		// when
+		Widget inside = Util.widgetFromPoint(state, 15, 15, null);
+		Widget outside = Util.widgetFromPoint(state, 50, 50, null);
+
+		// then
+		assertSame(widget, inside);
+		assertNull(outside);
+	}
+}
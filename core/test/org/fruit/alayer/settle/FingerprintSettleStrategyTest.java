@@ -0,0 +1,57 @@
+package org.fruit.alayer.settle;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class FingerprintSettleStrategyTest {
+
+	@Test
+	public void afterAction_returns_whenFingerprintIsStable() {
+		// given: the user interface changes during the first five fingerprints
+		AtomicInteger fingerprints = new AtomicInteger();
+		FingerprintSettleStrategy strategy = new FingerprintSettleStrategy(
+				(system, state) -> Math.min(fingerprints.incrementAndGet(), 5), 0.01, 3, 10);
+
+		// when
+		long start = System.currentTimeMillis();
+		strategy.afterAction(null, null, null, 1.0);
+
+		// then
+		assertEquals(7, fingerprints.get());
+		assertTrue(System.currentTimeMillis() - start < 5000);
+	}
+
+	@Test
+	public void afterAction_returns_whenTimeoutExpires() {
+		// given: the user interface keeps changing
+		AtomicInteger fingerprints = new AtomicInteger();
+		FingerprintSettleStrategy strategy = new FingerprintSettleStrategy(
+				(system, state) -> fingerprints.incrementAndGet(), 0.01, 3, 0.2);
+
+		// when
+		long start = System.currentTimeMillis();
+		strategy.afterAction(null, null, null, 1.0);
+
+		// then
+		long elapsed = System.currentTimeMillis() - start;
+		assertTrue(elapsed >= 200 && elapsed < 2000);
+	}
+
+	@Test
+	public void afterAction_waitsTheConfiguredTime_whenNoFingerprintCanBeTaken() {
+		// given: for instance a state without a shape
+		FingerprintSettleStrategy strategy = new FingerprintSettleStrategy(
+				(system, state) -> null, 0.01, 3, 5.0);
+
+		// when
+		long start = System.currentTimeMillis();
+		strategy.afterAction(null, null, null, 0.1);
+
+		// then
+		long elapsed = System.currentTimeMillis() - start;
+		assertTrue(elapsed >= 100 && elapsed < 1000);
+	}
+}
@@ -0,0 +1,46 @@
+package org.fruit.alayer.settle;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+public class ScreenshotFingerprintTest {
+
+	private BufferedImage createImage(int type) {
+		BufferedImage image = new BufferedImage(40, 20, type);
+		for (int y = 0; y < 20; y++) {
+			for (int x = 0; x < 40; x++) {
+				image.setRGB(x, y, 0xFF000000 | (x * 1000 + y));
+			}
+		}
+		return image;
+	}
+
+	@Test
+	public void sampledHash_isTheSame_forTheSamePixels() {
+		// given: a screen capture and a copy in another format
+		BufferedImage capture = createImage(BufferedImage.TYPE_INT_RGB);
+		BufferedImage copy = createImage(BufferedImage.TYPE_3BYTE_BGR);
+
+		// when
+		long hash = ScreenshotFingerprint.sampledHash(capture);
+
+		// then
+		assertEquals(hash, ScreenshotFingerprint.sampledHash(copy));
+	}
+
+	@Test
+	public void sampledHash_changes_whenASampledPixelChanges() {
+		// given
+		BufferedImage capture = createImage(BufferedImage.TYPE_INT_RGB);
+		long hash = ScreenshotFingerprint.sampledHash(capture);
+
+		// when
+		capture.setRGB(ScreenshotFingerprint.SAMPLE_STEP * 3, ScreenshotFingerprint.SAMPLE_STEP, 0xFFFFFFFF);
+
+		// then
+		assertNotEquals(hash, ScreenshotFingerprint.sampledHash(capture));
+	}
+}
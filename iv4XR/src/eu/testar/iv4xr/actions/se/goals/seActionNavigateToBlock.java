@@ -31,9 +31,7 @@
 package eu.testar.iv4xr.actions.se.goals;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import org.fruit.alayer.Role;
@@ -49,12 +47,7 @@ import eu.testar.iv4xr.actions.iv4xrActionRoles;
 import eu.testar.iv4xr.enums.IV4XRtags;
 import eu.testar.iv4xr.enums.SVec3;
 import spaceEngineers.controller.Observer;
-import spaceEngineers.model.extensions.ObservationExtensionsKt;
-import spaceEngineers.navigation.NavGraph;
-import spaceEngineers.navigation.RichNavGraph;
-import spaceEngineers.navigation.RichNavGraphKt;
 import spaceEngineers.controller.SpaceEngineers;
-import spaceEngineers.graph.DataNode;
 import spaceEngineers.iv4xr.navigation.NavigableGraph;
 import spaceEngineers.model.Vec2F;
 import spaceEngineers.model.Vec3F;
@@ -97,43 +90,26 @@ public class seActionNavigateToBlock extends seActionGoal {
 	}
 
 	protected void navigateToReachableBlockPosition(SUT system, State state) {
-		// Create a navigational graph of the largest grid
+		// Use the navigational graph of the largest grid, requested once per state
 		SpaceEngineers seController = system.get(IV4XRtags.iv4xrSpaceEngineers);
 		Observer seObserver = seController.getObserver();
-		String largestGridId = ObservationExtensionsKt.largestGrid(seObserver.observeBlocks()).getId();
-		NavGraph navGraph = seObserver.navigationGraph(largestGridId);
-		RichNavGraph richNavGraph = RichNavGraphKt.toRichGraph(navGraph);
+		seNavGraphSnapshot navGraph = seNavGraphSnapshot.of(system, state);
 
 		Set<Vec3F> notReachablePositions = notReachablePositions(seObserver, state);
 
 		// Check if there is a reachable node in the navigational graph
 		// that allows the agent to reach the target block position
-		String reachableNode = "";
 		//float closestDistance = 3f; // Near the block to be able to interact later
 		float closestDistance = 7f; // Closest distance to a 2 dimensions block is 3.7f approx
-		for (DataNode<String, Vec3F> node : richNavGraph.getNodeMap().values()) {
-
-			// Ignore the not reachable positions (due to block size)
-			Vec3F nodePosition = new Vec3F(node.getData().getX(), 0f, node.getData().getZ());
-			if(notReachablePositions.contains(nodePosition)) continue;
-
-			float distance = node.getData().distanceTo(targetPosition); // the target position of the widget to interact with
-			if(distance < closestDistance){
-				reachableNode = node.getId();
-				closestDistance = distance;
-			}
-		}
+		// Ignore the not reachable positions (due to block size)
+		String reachableNode = navGraph.nearestNode(targetPosition, closestDistance, notReachablePositions);
 
 		Vec3F characterPosition = seObserver.observeBlocks().getCharacter().getPosition();
 
-		String startNode = richNavGraph.getNodeMap().entrySet()
-				.stream()
-				.min(Comparator.comparingDouble(entry -> entry.getValue().getData().distanceTo(characterPosition)))
-				.map(Map.Entry::getKey)
-				.orElse("");
+		String startNode = navGraph.nearestNode(characterPosition, Float.POSITIVE_INFINITY);
 
 		if(!reachableNode.isEmpty() && !startNode.isEmpty()) {
-			NavigableGraph navigableGraph = new NavigableGraph(navGraph);
+			NavigableGraph navigableGraph = navGraph.getNavigableGraph();
 			List<String> nodePath = getPath((Navigatable<String>) navigableGraph, startNode, reachableNode);
 
 			// For each calculated node in the navigable path
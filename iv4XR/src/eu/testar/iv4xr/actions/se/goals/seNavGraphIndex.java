@@ -0,0 +1,203 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2022 - 2023 Universitat Politecnica de Valencia - www.upv.es
+ * Copyright (c) 2022 - 2023 Open Universiteit - www.ou.nl
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package eu.testar.iv4xr.actions.se.goals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * KD-tree over the positions of the nodes of a navigational graph. 
+ * Nodes are identified by their index in the arrays used to build the tree, 
+ * and the nearest node and the nodes inside a radius are found without 
+ * comparing the position with every node of the graph. 
+ */
+public class seNavGraphIndex {
+
+	private final float[] x;
+	private final float[] y;
+	private final float[] z;
+
+	// the node indexes, arranged as an implicit balanced tree:
+	// the median of every range is the node that splits the range
+	private final int[] tree;
+
+	public seNavGraphIndex(float[] x, float[] y, float[] z) {
+		if(x.length != y.length || x.length != z.length) {
+			throw new IllegalArgumentException("The coordinate arrays have different lengths");
+		}
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.tree = new int[x.length];
+		for(int i = 0; i < tree.length; i++) {
+			tree[i] = i;
+		}
+		build(0, tree.length, 0);
+	}
+
+	public int size() {
+		return tree.length;
+	}
+
+	/**
+	 * Find the node nearest to a position. 
+	 * 
+	 * @param px
+	 * @param py
+	 * @param pz
+	 * @param maxDistance only nodes closer than this distance are considered
+	 * @param accept only nodes accepted by this filter are considered, null to accept all nodes
+	 * @return the index of the nearest node, or -1 if there is no such node
+	 */
+	public int nearest(float px, float py, float pz, float maxDistance, IntPredicate accept) {
+		Nearest nearest = new Nearest(accept, (double) maxDistance * maxDistance);
+		nearest(0, tree.length, 0, px, py, pz, nearest);
+		return nearest.node;
+	}
+
+	/**
+	 * Find all the nodes at a maximum distance of a position. 
+	 * 
+	 * @param px
+	 * @param py
+	 * @param pz
+	 * @param maxDistance nodes at exactly this distance are included
+	 * @return the indexes of the nodes, in no particular order
+	 */
+	public List<Integer> withinDistance(float px, float py, float pz, float maxDistance) {
+		List<Integer> nodes = new ArrayList<>();
+		withinDistance(0, tree.length, 0, px, py, pz, (double) maxDistance * maxDistance, nodes);
+		return nodes;
+	}
+
+	private void build(int from, int to, int axis) {
+		if(to - from <= 1) {
+			return;
+		}
+		int median = (from + to) >>> 1;
+		select(from, to - 1, median, axis);
+		build(from, median, (axis + 1) % 3);
+		build(median + 1, to, (axis + 1) % 3);
+	}
+
+	/**
+	 * Partially sort tree[left..right] so that tree[k] holds the node 
+	 * that would be there if the range was sorted on the axis. 
+	 */
+	private void select(int left, int right, int k, int axis) {
+		while(left < right) {
+			float pivot = coordinate(tree[(left + right) >>> 1], axis);
+			int i = left;
+			int j = right;
+			while(i <= j) {
+				while(coordinate(tree[i], axis) < pivot) i++;
+				while(coordinate(tree[j], axis) > pivot) j--;
+				if(i <= j) {
+					int swap = tree[i];
+					tree[i] = tree[j];
+					tree[j] = swap;
+					i++;
+					j--;
+				}
+			}
+			if(k <= j) {
+				right = j;
+			} else if(k >= i) {
+				left = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	private float coordinate(int node, int axis) {
+		return axis == 0 ? x[node] : axis == 1 ? y[node] : z[node];
+	}
+
+	private double squaredDistance(int node, float px, float py, float pz) {
+		double dx = x[node] - px;
+		double dy = y[node] - py;
+		double dz = z[node] - pz;
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	private void nearest(int from, int to, int axis, float px, float py, float pz, Nearest nearest) {
+		if(from >= to) {
+			return;
+		}
+		int median = (from + to) >>> 1;
+		int node = tree[median];
+		double distance = squaredDistance(node, px, py, pz);
+		if(distance < nearest.distance && (nearest.accept == null || nearest.accept.test(node))) {
+			nearest.node = node;
+			nearest.distance = distance;
+		}
+
+		// visit the side of the position first, and the other side only if it can hold a nearer node
+		double offset = (double) (axis == 0 ? px : axis == 1 ? py : pz) - coordinate(node, axis);
+		int next = (axis + 1) % 3;
+		if(offset < 0) {
+			nearest(from, median, next, px, py, pz, nearest);
+			if(offset * offset < nearest.distance) nearest(median + 1, to, next, px, py, pz, nearest);
+		} else {
+			nearest(median + 1, to, next, px, py, pz, nearest);
+			if(offset * offset < nearest.distance) nearest(from, median, next, px, py, pz, nearest);
+		}
+	}
+
+	private void withinDistance(int from, int to, int axis, float px, float py, float pz, double maxDistance, List<Integer> nodes) {
+		if(from >= to) {
+			return;
+		}
+		int median = (from + to) >>> 1;
+		int node = tree[median];
+		if(squaredDistance(node, px, py, pz) <= maxDistance) {
+			nodes.add(node);
+		}
+
+		double offset = (double) (axis == 0 ? px : axis == 1 ? py : pz) - coordinate(node, axis);
+		int next = (axis + 1) % 3;
+		if(offset <= 0 || offset * offset <= maxDistance) withinDistance(from, median, next, px, py, pz, maxDistance, nodes);
+		if(offset >= 0 || offset * offset <= maxDistance) withinDistance(median + 1, to, next, px, py, pz, maxDistance, nodes);
+	}
+
+	private static class Nearest {
+		private final IntPredicate accept;
+		private int node = -1;
+		private double distance;
+
+		private Nearest(IntPredicate accept, double distance) {
+			this.accept = accept;
+			this.distance = distance;
+		}
+	}
+}
@@ -0,0 +1,200 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2022 - 2023 Universitat Politecnica de Valencia - www.upv.es
+ * Copyright (c) 2022 - 2023 Open Universiteit - www.ou.nl
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package eu.testar.iv4xr.actions.se.goals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.fruit.alayer.SUT;
+import org.fruit.alayer.State;
+
+import eu.testar.iv4xr.enums.IV4XRtags;
+import eu.testar.iv4xr.se.SeObservation;
+import spaceEngineers.controller.Observer;
+import spaceEngineers.controller.SpaceEngineers;
+import spaceEngineers.graph.DataNode;
+import spaceEngineers.iv4xr.navigation.NavigableGraph;
+import spaceEngineers.model.Observation;
+import spaceEngineers.model.Vec3F;
+import spaceEngineers.model.extensions.ObservationExtensionsKt;
+import spaceEngineers.navigation.NavGraph;
+import spaceEngineers.navigation.RichNavGraph;
+import spaceEngineers.navigation.RichNavGraphKt;
+
+/**
+ * Snapshot of the navigational graph of the largest grid, 
+ * with a spatial index over the positions of the nodes. 
+ * 
+ * Observing the blocks and requesting the navigational graph are requests to the game, 
+ * so the snapshot of the last state is kept and shared by the reachability checks 
+ * of the derived actions and by the navigation actions executed in the same state. 
+ */
+public class seNavGraphSnapshot {
+
+	private static State cachedState;
+	private static seNavGraphSnapshot cachedSnapshot;
+
+	private final String gridId;
+	private final NavGraph navGraph;
+	private final String[] nodeIds;
+	private final Vec3F[] nodePositions;
+	private final seNavGraphIndex index;
+	private NavigableGraph navigableGraph;
+
+	private seNavGraphSnapshot(String gridId, NavGraph navGraph) {
+		this.gridId = gridId;
+		this.navGraph = navGraph;
+
+		RichNavGraph richNavGraph = RichNavGraphKt.toRichGraph(navGraph);
+		int size = richNavGraph.getNodeMap().size();
+		nodeIds = new String[size];
+		nodePositions = new Vec3F[size];
+		float[] x = new float[size];
+		float[] y = new float[size];
+		float[] z = new float[size];
+		int i = 0;
+		for (DataNode<String, Vec3F> node : richNavGraph.getNodeMap().values()) {
+			nodeIds[i] = node.getId();
+			nodePositions[i] = node.getData();
+			x[i] = node.getData().getX();
+			y[i] = node.getData().getY();
+			z[i] = node.getData().getZ();
+			i++;
+		}
+		index = new seNavGraphIndex(x, y, z);
+	}
+
+	/**
+	 * Obtain the navigational graph snapshot of the state. 
+	 * The game is only requested the first time for each state. 
+	 * 
+	 * @param system
+	 * @param state the state the snapshot belongs to, or null to always request a new snapshot
+	 * @return
+	 */
+	public static synchronized seNavGraphSnapshot of(SUT system, State state) {
+		if(state != null && state == cachedState) {
+			return cachedSnapshot;
+		}
+		seNavGraphSnapshot snapshot = observe(system);
+		if(state != null) {
+			cachedState = state;
+			cachedSnapshot = snapshot;
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Request the navigational graph of the largest grid to the game. 
+	 * 
+	 * @param system
+	 * @return
+	 */
+	public static seNavGraphSnapshot observe(SUT system) {
+		SpaceEngineers seController = system.get(IV4XRtags.iv4xrSpaceEngineers);
+		Observer seObserver = seController.getObserver();
+		// The blocks of the state were already observed to fetch the state
+		SeObservation observation = system.get(IV4XRtags.iv4xrSeObservation, null);
+		Observation blocks = observation != null ? observation.observeBlocks() : seObserver.observeBlocks();
+		String largestGridId = ObservationExtensionsKt.largestGrid(blocks).getId();
+		return new seNavGraphSnapshot(largestGridId, seObserver.navigationGraph(largestGridId));
+	}
+
+	public String getGridId() {
+		return gridId;
+	}
+
+	public NavGraph getNavGraph() {
+		return navGraph;
+	}
+
+	public synchronized NavigableGraph getNavigableGraph() {
+		if(navigableGraph == null) {
+			navigableGraph = new NavigableGraph(navGraph);
+		}
+		return navigableGraph;
+	}
+
+	/**
+	 * Find the node nearest to a position. 
+	 * 
+	 * @param position
+	 * @param maxDistance only nodes closer than this distance are considered
+	 * @return the node id, or an empty string if there is no node closer than maxDistance
+	 */
+	public String nearestNode(Vec3F position, float maxDistance) {
+		return nearestNode(position, maxDistance, null);
+	}
+
+	/**
+	 * Find the node nearest to a position, ignoring the nodes 
+	 * whose (x, 0, z) position is one of the not reachable positions. 
+	 * 
+	 * @param position
+	 * @param maxDistance only nodes closer than this distance are considered
+	 * @param notReachablePositions null to consider all nodes
+	 * @return the node id, or an empty string if there is no such node
+	 */
+	public String nearestNode(Vec3F position, float maxDistance, Set<Vec3F> notReachablePositions) {
+		int node = index.nearest(position.getX(), position.getY(), position.getZ(), maxDistance,
+				notReachablePositions == null || notReachablePositions.isEmpty() ? null :
+					i -> !notReachablePositions.contains(new Vec3F(nodePositions[i].getX(), 0f, nodePositions[i].getZ())));
+		return node < 0 ? "" : nodeIds[node];
+	}
+
+	/**
+	 * Check if there is a node closer than maxDistance to a position. 
+	 * 
+	 * @param position
+	 * @param maxDistance
+	 * @return true or false
+	 */
+	public boolean hasNodeNear(Vec3F position, float maxDistance) {
+		return index.nearest(position.getX(), position.getY(), position.getZ(), maxDistance, null) >= 0;
+	}
+
+	/**
+	 * Obtain the positions of the nodes at a maximum distance of a position. 
+	 * 
+	 * @param position
+	 * @param maxDistance nodes at exactly this distance are included
+	 * @return
+	 */
+	public List<Vec3F> nodePositionsWithin(Vec3F position, float maxDistance) {
+		List<Integer> nodes = index.withinDistance(position.getX(), position.getY(), position.getZ(), maxDistance);
+		List<Vec3F> positions = new ArrayList<>(nodes.size());
+		for (int node : nodes) {
+			positions.add(nodePositions[node]);
+		}
+		return positions;
+	}
+}
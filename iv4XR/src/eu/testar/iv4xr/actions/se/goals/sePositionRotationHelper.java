@@ -39,14 +39,7 @@ import org.fruit.alayer.Widget;
 
 import eu.testar.iv4xr.enums.IV4XRtags;
 import eu.testar.iv4xr.enums.SVec3;
-import spaceEngineers.controller.Observer;
-import spaceEngineers.controller.SpaceEngineers;
-import spaceEngineers.graph.DataNode;
 import spaceEngineers.model.Vec3F;
-import spaceEngineers.model.extensions.ObservationExtensionsKt;
-import spaceEngineers.navigation.NavGraph;
-import spaceEngineers.navigation.RichNavGraph;
-import spaceEngineers.navigation.RichNavGraphKt;
 
 public class sePositionRotationHelper {
 
@@ -54,6 +47,7 @@ public class sePositionRotationHelper {
 
 	/**
 	 * Calculate a reachable node position near the desired entity. 
+	 * The navigational graph of the state of the widget is requested only once. 
 	 * 
 	 * @param system
 	 * @param w
@@ -62,51 +56,21 @@ public class sePositionRotationHelper {
 	public static boolean calculateIfEntityReachable(SUT system, Widget w) {
 		Vec3F targetPosition = SVec3.labToSE(w.get(IV4XRtags.entityPosition));
 
-		// Create a navigational graph of the largest grid
-		SpaceEngineers seController = system.get(IV4XRtags.iv4xrSpaceEngineers);
-		Observer seObserver = seController.getObserver();
-		String largestGridId = ObservationExtensionsKt.largestGrid(seObserver.observeBlocks()).getId();
-		NavGraph navGraph = seObserver.navigationGraph(largestGridId);
-		RichNavGraph richNavGraph = RichNavGraphKt.toRichGraph(navGraph);
-
-		// Check if there is a reachable node in the navigational graph
+		// Check if there is a reachable node in the navigational graph of the largest grid
 		// that allows the agent to reach the target block position
-		String reachableNode = "";
-		float closestDistance = 3f; // Near the block to be able to interact later
-		for (DataNode<String, Vec3F> node : richNavGraph.getNodeMap().values()) {
-			float distance = node.getData().distanceTo(targetPosition); // the target position of the widget to interact with
-			if(distance < closestDistance){
-				reachableNode = node.getId();
-				closestDistance = distance;
-			}
-		}
-
-		return !reachableNode.isEmpty();
+		// Near the block to be able to interact later
+		return seNavGraphSnapshot.of(system, w.root()).hasNodeNear(targetPosition, 3f);
 	}
 
 	public static Set<Action> calculateExploratoryNodeMap(SUT system, State state, String agentId, Set<Action> actions, float maxDistance) {
 		// Agent position
 		Vec3F agentPosition = state.get(IV4XRtags.agentWidget).get(IV4XRtags.seAgentPosition);
 
-		// Create a navigational graph of the largest grid
-		SpaceEngineers seController = system.get(IV4XRtags.iv4xrSpaceEngineers);
-		Observer seObserver = seController.getObserver();
-		String largestGridId = ObservationExtensionsKt.largestGrid(seObserver.observeBlocks()).getId();
-		NavGraph navGraph = seObserver.navigationGraph(largestGridId);
-		RichNavGraph richNavGraph = RichNavGraphKt.toRichGraph(navGraph);
-
 		// Based on a maximum distance, derive the exploratory node movements
-		for (DataNode<String, Vec3F> node : richNavGraph.getNodeMap().values()) {
-			Vec3F nodePosition = node.getData();
-			float nodeDistance = nodePosition.distanceTo(agentPosition); // the target position of the widget to interact with
-			// If the node is inside the max distance radio
-			if(nodeDistance <= maxDistance){
-				// And the position of the node is reachable
-				if(sePositionRotationHelper.calculateIfPositionIsReachable(system, nodePosition)) {
-					// Add an exploratory movement to the node
-					actions.add(new seActionExplorePosition(state, SVec3.seToLab(nodePosition), system, agentId));
-				}
-			}
+		// A node of the navigational graph is a reachable position by itself
+		for (Vec3F nodePosition : seNavGraphSnapshot.of(system, state).nodePositionsWithin(agentPosition, maxDistance)) {
+			// Add an exploratory movement to the node
+			actions.add(new seActionExplorePosition(state, SVec3.seToLab(nodePosition), system, agentId));
 		}
 
 		return actions;
@@ -120,26 +84,23 @@ public class sePositionRotationHelper {
 	 * @return true or false
 	 */
 	public static boolean calculateIfPositionIsReachable(SUT system, Vec3F position) {
-		// Create a navigational graph of the largest grid
-		SpaceEngineers seController = system.get(IV4XRtags.iv4xrSpaceEngineers);
-		Observer seObserver = seController.getObserver();
-		String largestGridId = ObservationExtensionsKt.largestGrid(seObserver.observeBlocks()).getId();
-		NavGraph navGraph = seObserver.navigationGraph(largestGridId);
-		RichNavGraph richNavGraph = RichNavGraphKt.toRichGraph(navGraph);
+		return calculateIfPositionIsReachable(system, null, position);
+	}
 
+	/**
+	 * Calculate if a specific position is reachable, 
+	 * using the navigational graph snapshot of the state. 
+	 * 
+	 * @param system
+	 * @param state
+	 * @param position
+	 * @return true or false
+	 */
+	public static boolean calculateIfPositionIsReachable(SUT system, State state, Vec3F position) {
 		// Check if there is a reachable node in the navigational graph
 		// that allows the agent to reach the position to explore
-		String reachableNode = "";
-		float closestDistance = 0.5f; // Not exactly the same position but almost
-		for (DataNode<String, Vec3F> node : richNavGraph.getNodeMap().values()) {
-			float distance = node.getData().distanceTo(position); // the destination position to explore
-			if(distance < closestDistance){
-				reachableNode = node.getId();
-				closestDistance = distance;
-			}
-		}
-
-		return !reachableNode.isEmpty();
+		// Not exactly the same position but almost
+		return seNavGraphSnapshot.of(system, state).hasNodeNear(position, 0.5f);
 	}
 
 	/**
@@ -47,6 +47,7 @@ import eu.iv4xr.framework.environments.W3DEnvironment;
 import eu.iv4xr.framework.mainConcepts.TestAgent;
 import eu.iv4xr.framework.spatial.Vec3;
 import eu.testar.iv4xr.labrecruits.listener.LabRecruitsEnvironmentListener;
+import eu.testar.iv4xr.se.SeObservation;
 import world.LabWorldModel;
 import world.Observation;
 
@@ -74,6 +75,8 @@ public class IV4XRtags extends TagsBase {
 	public static final Tag<SpaceEngineers> iv4xrSpaceEngineers = from("iv4xrSpaceEngineers", SpaceEngineers.class);
 	public static final Tag<spaceEngineers.controller.Character> iv4xrSpaceEngCharacter = from("iv4xrSpaceEngCharacter", spaceEngineers.controller.Character.class);
 	public static final Tag<spaceEngineers.controller.Items> iv4xrSpaceEngItems = from("iv4xrSpaceEngItems", spaceEngineers.controller.Items.class);
+	// Character and blocks observations, requested once per state
+	public static final Tag<SeObservation> iv4xrSeObservation = from("iv4xrSeObservation", SeObservation.class);
 
 	/**
 	 * World Object Model Tags
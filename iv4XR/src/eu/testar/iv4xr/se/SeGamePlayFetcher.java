@@ -60,13 +60,13 @@ public class SeGamePlayFetcher extends SeStateFetcher {
 		if(seObserver == null) throw new StateBuildException("SE Agent Oberver is null! Exception trying to fetch the State of iv4XR SpaceEngineers");
 
 		// Get the Character and Blocks observation that we use to create the element tree
-		CharacterObservation seObsCharacter = seController.getObserver().observe();
-		Observation seObsBlocks = seController.getObserver().observeBlocks();
+		CharacterObservation seObsCharacter = observation().observe();
+		Observation seObsBlocks = observation().observeBlocks();
 
 		// If the agent observes himself and in this instant of time also has observation of blocks
 		if(seObsCharacter != null && seObsBlocks != null && seObsBlocks.getGrids() != null && seObsBlocks.getGrids().size() > 0) {
 			// Add manually the Agent as an Element (Observed Blocks + 1)
-			seRootElement.children = new ArrayList<IV4XRElement>((int) seObserver.observeBlocks().getGrids().size() + 1);
+			seRootElement.children = new ArrayList<IV4XRElement>((int) seObsBlocks.getGrids().size() + 1);
 
 			seRootElement.zindex = 0;
 			fillRect(seRootElement);
@@ -0,0 +1,130 @@
+/***************************************************************************************************
+ *
+ * Copyright (c) 2023 Universitat Politecnica de Valencia - www.upv.es
+ * Copyright (c) 2023 Open Universiteit - www.ou.nl
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************************************/
+
+package eu.testar.iv4xr.se;
+
+import spaceEngineers.controller.Observer;
+import spaceEngineers.controller.SpaceEngineers;
+import spaceEngineers.model.CharacterObservation;
+import spaceEngineers.model.Observation;
+
+/**
+ * Observes the Space Engineers character and blocks only once per state. 
+ * 
+ * Every observation is a request to the game, and the blocks observation can be large. 
+ * The state fetcher and the derived actions share the observations of this class, 
+ * which are discarded when a new state is fetched and when an action is executed. 
+ */
+public class SeObservation {
+
+	private final SpaceEngineers seController;
+
+	private CharacterObservation character;
+	private boolean characterObserved = false;
+	private Observation blocks;
+	private boolean blocksObserved = false;
+
+	// number of requests to the game since the current state started to be fetched
+	private int roundTrips = 0;
+	private int previousStateRoundTrips = 0;
+
+	public SeObservation(SpaceEngineers seController) {
+		this.seController = seController;
+	}
+
+	public SpaceEngineers getController() {
+		return seController;
+	}
+
+	/**
+	 * Observe the character, requesting the game only the first time after an invalidation. 
+	 * 
+	 * @return
+	 */
+	public synchronized CharacterObservation observe() {
+		if(!characterObserved) {
+			character = observer().observe();
+			characterObserved = true;
+			roundTrips++;
+		}
+		return character;
+	}
+
+	/**
+	 * Observe the blocks, requesting the game only the first time after an invalidation. 
+	 * 
+	 * @return
+	 */
+	public synchronized Observation observeBlocks() {
+		if(!blocksObserved) {
+			blocks = observer().observeBlocks();
+			blocksObserved = true;
+			roundTrips++;
+		}
+		return blocks;
+	}
+
+	/**
+	 * Discard the observations, because the game has changed (e.g., an action was executed). 
+	 */
+	public synchronized void invalidate() {
+		character = null;
+		characterObserved = false;
+		blocks = null;
+		blocksObserved = false;
+	}
+
+	/**
+	 * Discard the observations and start counting the requests of a new state. 
+	 */
+	public synchronized void nextState() {
+		invalidate();
+		previousStateRoundTrips = roundTrips;
+		roundTrips = 0;
+	}
+
+	/**
+	 * @return the number of observation requests of the current state
+	 */
+	public synchronized int getRoundTrips() {
+		return roundTrips;
+	}
+
+	/**
+	 * @return the number of observation requests of the previous state
+	 */
+	public synchronized int getPreviousStateRoundTrips() {
+		return previousStateRoundTrips;
+	}
+
+	private Observer observer() {
+		return seController.getObserver();
+	}
+}
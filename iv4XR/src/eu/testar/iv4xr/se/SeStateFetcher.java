@@ -62,6 +62,9 @@ public class SeStateFetcher extends IV4XRStateFetcher {
 		rootElement.timeStamp = System.currentTimeMillis();
 		rootElement.pid = system.get(Tags.PID);
 
+		// A new state is going to be fetched, request the game observations again
+		observation().nextState();
+
 		if(!rootElement.isRunning) {
 			return rootElement;
 		}
@@ -112,7 +115,7 @@ public class SeStateFetcher extends IV4XRStateFetcher {
 			seRootElement.children = new ArrayList<IV4XRElement>(1);
 			seRootElement.zindex = 0;
 			fillRect(seRootElement);
-			SeElement seAgentEl = SEagent(seRootElement, seController.getObserver().observe());
+			SeElement seAgentEl = SEagent(seRootElement, observation().observe());
 			seAgentEl.unknownScreen = true;
 		}
 
@@ -147,7 +150,7 @@ public class SeStateFetcher extends IV4XRStateFetcher {
 		childElement.seAgentDampenersOn = seObsCharacter.getDampenersOn();
 
 		childElement.entityVelocity = new Vec3(seObsCharacter.getVelocity().getX(), seObsCharacter.getVelocity().getY(), seObsCharacter.getVelocity().getZ());
-		childElement.entityId = system.get(IV4XRtags.iv4xrSpaceEngineers).getObserver().observe().getId();
+		childElement.entityId = seObsCharacter.getId();
 		childElement.entityType = "AGENT"; //TODO: check proper entity for agent
 		childElement.entityTimestamp = -1;
 
@@ -156,6 +159,21 @@ public class SeStateFetcher extends IV4XRStateFetcher {
 		return childElement;
 	}
 
+	/**
+	 * Obtain the observations of the SE system, 
+	 * which are only requested to the game once per state. 
+	 * 
+	 * @return
+	 */
+	protected SeObservation observation() {
+		SeObservation observation = system.get(IV4XRtags.iv4xrSeObservation, null);
+		if(observation == null) {
+			observation = new SeObservation(system.get(IV4XRtags.iv4xrSpaceEngineers));
+			system.set(IV4XRtags.iv4xrSeObservation, observation);
+		}
+		return observation;
+	}
+
 	@Override
 	protected IV4XRState createWidgetTree(IV4XRRootElement root) {
 		SeState state = new SeState(root);
@@ -62,7 +62,7 @@ public class SeTerminalFetcher extends SeStateFetcher {
 		fillRect(seRootElement);
 
 		// Create the Agent as element of the tree, because always exists as a Widget
-		SEagent(seRootElement, seController.getObserver().observe());
+		SEagent(seRootElement, observation().observe());
 
 		if(terminal.data().getSelectedTab().contains("Inventory")) {
 			inventoryDescend(seRootElement, terminal.getInventory());
@@ -153,6 +153,7 @@ public class SpaceEngineersProcess extends SUTBase {
 			this.set(IV4XRtags.windowsProcess, win);
 			this.set(Tags.PID, win.pid());
 			this.set(IV4XRtags.iv4xrSpaceEngineers, seBuilder);
+			this.set(IV4XRtags.iv4xrSeObservation, new SeObservation(seBuilder));
 			this.set(IV4XRtags.iv4xrSpaceEngCharacter, seBuilder.getCharacter());
 			this.set(IV4XRtags.iv4xrSpaceEngItems, seBuilder.getItems());
 			this.set(IV4XRtags.iv4xrTestAgent, testAgent);
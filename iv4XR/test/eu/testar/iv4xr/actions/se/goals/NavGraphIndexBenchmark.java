@@ -0,0 +1,70 @@
+package eu.testar.iv4xr.actions.se.goals;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares deriving the exploratory positions around the agent the way the position helper used to do, 
+ * scanning every node of the navigational graph for every node near the agent, with the spatial index 
+ * of the navigational graph snapshot. The requests to the game are not part of the measurement. 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class NavGraphIndexBenchmark {
+
+	@Param({"1000", "10000"})
+	public int nrOfNodes;
+
+	private float[][] positions;
+	private seNavGraphIndex index;
+	private Random random;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		random = new Random(3);
+		positions = NavGraphIndexTest.randomGridPositions(random, nrOfNodes);
+		index = new seNavGraphIndex(positions[0], positions[1], positions[2]);
+	}
+
+	private float distance(int node, float x, float y, float z) {
+		float dx = positions[0][node] - x;
+		float dy = positions[1][node] - y;
+		float dz = positions[2][node] - z;
+		return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+	}
+
+	@Benchmark
+	public int linearScan() {
+		int agent = random.nextInt(nrOfNodes);
+		int reachable = 0;
+		for(int node = 0; node < nrOfNodes; node++) {
+			if(distance(node, positions[0][agent], positions[1][agent], positions[2][agent]) <= 10f) {
+				for(int other = 0; other < nrOfNodes; other++) {
+					if(distance(other, positions[0][node], positions[1][node], positions[2][node]) < 0.5f) {
+						reachable++;
+						break;
+					}
+				}
+			}
+		}
+		return reachable;
+	}
+
+	@Benchmark
+	public int index() {
+		int agent = random.nextInt(nrOfNodes);
+		int reachable = 0;
+		for(int node : index.withinDistance(positions[0][agent], positions[1][agent], positions[2][agent], 10f)) {
+			if(index.nearest(positions[0][node], positions[1][node], positions[2][node], 0.5f, null) >= 0) {
+				reachable++;
+			}
+		}
+		return reachable;
+	}
+}
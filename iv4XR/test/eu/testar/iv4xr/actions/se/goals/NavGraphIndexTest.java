@@ -0,0 +1,84 @@
+package eu.testar.iv4xr.actions.se.goals;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class NavGraphIndexTest {
+
+	/**
+	 * Navigational graph nodes are placed on the block grid, 
+	 * so many nodes share the same coordinates on every axis. 
+	 */
+	static float[][] randomGridPositions(Random random, int size) {
+		float[][] positions = new float[3][size];
+		for(int i = 0; i < size; i++) {
+			positions[0][i] = random.nextInt(40) * 2.5f;
+			positions[1][i] = random.nextInt(3) * 2.5f;
+			positions[2][i] = random.nextInt(40) * 2.5f;
+		}
+		return positions;
+	}
+
+	private static double distance(float[][] positions, int node, float x, float y, float z) {
+		double dx = positions[0][node] - x;
+		double dy = positions[1][node] - y;
+		double dz = positions[2][node] - z;
+		return Math.sqrt(dx * dx + dy * dy + dz * dz);
+	}
+
+	@Test
+	public void nearest_and_withinDistance_match_a_linear_scan() {
+		// given
+		Random random = new Random(5);
+		float[][] positions = randomGridPositions(random, 2000);
+		seNavGraphIndex index = new seNavGraphIndex(positions[0], positions[1], positions[2]);
+
+		for(int query = 0; query < 500; query++) {
+			float x = random.nextFloat() * 100f;
+			float y = random.nextFloat() * 5f;
+			float z = random.nextFloat() * 100f;
+			float maxDistance = query % 5 == 0 ? Float.POSITIVE_INFINITY : random.nextFloat() * 10f;
+
+			// when
+			int nearest = index.nearest(x, y, z, maxDistance, node -> node % 3 != 0);
+			List<Integer> within = index.withinDistance(x, y, z, maxDistance);
+
+			// then
+			double closest = maxDistance;
+			List<Integer> expectedWithin = new ArrayList<>();
+			for(int node = 0; node < index.size(); node++) {
+				double distance = distance(positions, node, x, y, z);
+				if(node % 3 != 0 && distance < closest) {
+					closest = distance;
+				}
+				if(distance <= maxDistance) {
+					expectedWithin.add(node);
+				}
+			}
+			if(closest == maxDistance) {
+				assertEquals(-1, nearest);
+			} else {
+				assertNotEquals(0, nearest % 3);
+				assertEquals(closest, distance(positions, nearest, x, y, z), 1e-6);
+			}
+			Collections.sort(within);
+			assertEquals(expectedWithin, within);
+		}
+	}
+
+	@Test
+	public void empty_index_has_no_nodes() {
+		// given
+		seNavGraphIndex index = new seNavGraphIndex(new float[0], new float[0], new float[0]);
+
+		// then
+		assertEquals(-1, index.nearest(0f, 0f, 0f, Float.POSITIVE_INFINITY, null));
+		assertTrue(index.withinDistance(0f, 0f, 0f, 10f).isEmpty());
+	}
+}
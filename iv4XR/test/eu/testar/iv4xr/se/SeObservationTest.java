@@ -0,0 +1,78 @@
+package eu.testar.iv4xr.se;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import spaceEngineers.controller.Observer;
+import spaceEngineers.controller.SpaceEngineers;
+
+/**
+ * Uses a local stub of the SpaceEngineers controller, 
+ * no running Space Engineers game is needed. 
+ */
+public class SeObservationTest {
+
+	private Observer seObserver;
+	private SeObservation observation;
+
+	@Before
+	public void setup() {
+		SpaceEngineers seController = mock(SpaceEngineers.class);
+		seObserver = mock(Observer.class);
+		when(seController.getObserver()).thenReturn(seObserver);
+		observation = new SeObservation(seController);
+	}
+
+	@Test
+	public void observations_are_requested_once_per_state() {
+		// when
+		observation.observe();
+		observation.observeBlocks();
+		observation.observe();
+		observation.observeBlocks();
+
+		// then
+		verify(seObserver, times(1)).observe();
+		verify(seObserver, times(1)).observeBlocks();
+		assertEquals(2, observation.getRoundTrips());
+	}
+
+	@Test
+	public void invalidate_requests_the_observations_again() {
+		// given
+		observation.observe();
+		observation.observeBlocks();
+
+		// when
+		observation.invalidate();
+		observation.observe();
+		observation.observe();
+
+		// then
+		verify(seObserver, times(2)).observe();
+		verify(seObserver, times(1)).observeBlocks();
+		assertEquals(3, observation.getRoundTrips());
+	}
+
+	@Test
+	public void nextState_records_the_round_trips_of_the_previous_state() {
+		// given
+		observation.observe();
+		observation.observeBlocks();
+
+		// when
+		observation.nextState();
+		observation.observeBlocks();
+
+		// then
+		verify(seObserver, times(2)).observeBlocks();
+		assertEquals(2, observation.getPreviousStateRoundTrips());
+		assertEquals(1, observation.getRoundTrips());
+	}
+}
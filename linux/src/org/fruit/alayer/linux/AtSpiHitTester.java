@@ -32,6 +32,7 @@ package org.fruit.alayer.linux;
 
 
 import org.fruit.alayer.HitTester;
+import org.fruit.alayer.Rect;
 
 
 /**
@@ -97,6 +98,16 @@ public class AtSpiHitTester implements HitTester {
     }
 
 
+    /**
+     * The area outside of which the element cannot be hit.
+     * @return The bounding box of the element on the screen.
+     */
+    @Override
+    public Rect bounds() {
+        return _element.boundingBoxOnScreen;
+    }
+
+
     //endregion
 
 
@@ -0,0 +1,70 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package es.upv.staq.testar;
+
+import org.fruit.Util;
+import org.fruit.alayer.Action;
+import org.fruit.alayer.SUT;
+import org.fruit.alayer.State;
+import org.fruit.alayer.settle.SettleStrategy;
+
+/**
+ * The default settle strategy: waits half of the wait time before the action, and after the action
+ * waits in steps of half of the wait time until the SUT process does not use CPU time anymore.
+ */
+public class CpuSettleStrategy implements SettleStrategy {
+
+	public static final double MAX_ACTION_WAIT_FRAME = 1.0; // (seconds)
+
+	private static double halfWait(double waitTime){
+		return waitTime == 0 ? 0.01 : waitTime / 2.0; // seconds
+	}
+
+	@Override
+	public void beforeAction(SUT system, State state, Action action, double waitTime){
+		Util.pause(halfWait(waitTime)); // help for a better match of the state' actions visualization
+	}
+
+	@Override
+	public void afterAction(SUT system, State state, Action action, double waitTime){
+		double halfWait = halfWait(waitTime);
+		int waitCycles = (int) (MAX_ACTION_WAIT_FRAME / halfWait);
+		long actionCPU;
+		do {
+			long CPU1[] = NativeLinker.getCPUsage(system);
+			Util.pause(halfWait);
+			long CPU2[] = NativeLinker.getCPUsage(system);
+			actionCPU = ( CPU2[0] + CPU2[1] - CPU1[0] - CPU1[1] );
+			waitCycles--;
+		} while (actionCPU > 0 && waitCycles > 0);
+	}
+}
@@ -122,6 +122,18 @@ public class NativeLinker {
 	 * @return A StateBuilder instance.
 	 */
 	public static StateBuilder getNativeStateBuilder(Double timeToFreeze, boolean accessBridgeEnabled, String SUTProcesses){
+		return getNativeStateBuilder(timeToFreeze, accessBridgeEnabled, SUTProcesses, false);
+	}
+
+	/**
+	 * Retrieves a StateBuilder instance which will be used to determine the state of the application.
+	 * @param timeToFreeze The time after which requesting the state of an application will time out.
+	 * @param accessBridgeEnabled Whether to activate the AccessBridge (Java/Swing SUTs).
+	 * @param SUTProcesses A regex of the set of processes that conform the SUT.
+	 * @param compactTags Whether the widgets store their tags in a CompactTagMap (Windows and webdriver).
+	 * @return A StateBuilder instance.
+	 */
+	public static StateBuilder getNativeStateBuilder(Double timeToFreeze, boolean accessBridgeEnabled, String SUTProcesses, boolean compactTags){
 		if (PLATFORM_OS.contains(OperatingSystems.IV4XR_LAB)) {
 			return new IV4XRStateBuilder(timeToFreeze, "Lab");
 		}
@@ -129,19 +141,19 @@ public class NativeLinker {
 			return new IV4XRStateBuilder(timeToFreeze, "Se");
 		}
 		if (PLATFORM_OS.contains(OperatingSystems.WEBDRIVER)) {
-			return new WdStateBuilder(timeToFreeze);
+			return new WdStateBuilder(timeToFreeze, compactTags);
 		}
 		if (PLATFORM_OS.contains(OperatingSystems.WINDOWS)) {
 			if (PLATFORM_OS.contains(OperatingSystems.WINDOWS_7)) {
-				return new UIAStateBuilder(timeToFreeze, accessBridgeEnabled, SUTProcesses);
+				return new UIAStateBuilder(timeToFreeze, accessBridgeEnabled, SUTProcesses, compactTags);
 			}
 			else if (PLATFORM_OS.contains(OperatingSystems.WINDOWS_10)) {
 				// TODO: a win10 state builder might make use of the new CUI8 Automation object.
-				return new UIAStateBuilder(timeToFreeze, accessBridgeEnabled, SUTProcesses);
+				return new UIAStateBuilder(timeToFreeze, accessBridgeEnabled, SUTProcesses, compactTags);
 			}
 			else {
 				System.out.println("TESTAR detected OS: " + osName + " and this is not yet full supported. If the detected OS is wrong, please contact the TESTAR team at info@testar.org.");
-				return new UIAStateBuilder(timeToFreeze, accessBridgeEnabled, SUTProcesses);
+				return new UIAStateBuilder(timeToFreeze, accessBridgeEnabled, SUTProcesses, compactTags);
 			}
 		} else if (PLATFORM_OS.contains(OperatingSystems.UNIX)) {
 			return new AtSpiStateBuilder(timeToFreeze);
@@ -210,7 +210,7 @@ public class Protocol_se_testar_navigate_survival extends SEProtocol {
 		// If the agent has a reachable position in front of him, trigger a place block action
 		Vec3F agentPosition = state.get(IV4XRtags.agentWidget).get(IV4XRtags.seAgentPosition);
 		Vec3F frontPosition = new Vec3F((agentPosition.getX() - 2.5f), agentPosition.getY(), agentPosition.getZ());
-		if(sePositionRotationHelper.calculateIfPositionIsReachable(system, frontPosition)) {
+		if(sePositionRotationHelper.calculateIfPositionIsReachable(system, state, frontPosition)) {
 			labActions.add(new seActionTriggerBlockConstruction(state, system, agentId, "LargeHeavyBlockArmorBlock"));
 		}
 
@@ -31,6 +31,7 @@
 
 package nl.ou.testar.HtmlReporting;
 
+import es.upv.staq.testar.serialisation.ScreenshotSerialiser;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.fruit.alayer.Action;
 import org.fruit.alayer.State;
@@ -63,6 +64,9 @@ public class HtmlSequenceReport implements Reporting{
     
     private int innerLoopCounter = 0;
 
+    // the selected action of which the actionshot still has to be written
+    private String pendingActionshotPath = null;
+
     public HtmlSequenceReport() {
         try{
             //TODO put filename into settings, name with sequence number
@@ -249,20 +253,6 @@ public class HtmlSequenceReport implements Reporting{
     }
 
     public void addSelectedAction(State state, Action action){
-    	String screenshotDir = OutputStructure.screenshotsOutputDir;
-//        System.out.println("path="+state_path);
-    	if(screenshotDir.contains("./output")){
-        	int indexStart = screenshotDir.indexOf("./output");
-        	int indexScrn = screenshotDir.indexOf("scrshots");
-        	String replaceString = screenshotDir.substring(indexStart,indexScrn);
-        	screenshotDir = screenshotDir.replace(replaceString,"../");
-        }
-//        System.out.println("path="+actionPath);
-        String actionPath = screenshotDir + File.separator 
-        		+ OutputStructure.startInnerLoopDateString + "_" + OutputStructure.executedSUTname
-        		+ "_sequence_" + OutputStructure.sequenceInnerLoopCount 
-        		+ File.separator + state.get(Tags.ConcreteIDCustom, "NoConcreteIdAvailable") + "_" + action.get(Tags.ConcreteIDCustom, "NoConcreteIdAvailable") + ".png";
-//        System.out.println("path="+actionPath);
         write("<h2>Selected Action "+innerLoopCounter+" leading to State "+innerLoopCounter+"\"</h2>");
         write("<h4>concreteID="+action.get(Tags.ConcreteIDCustom, "NoConcreteIdAvailable"));
 
@@ -274,10 +264,32 @@ public class HtmlSequenceReport implements Reporting{
         }catch(Exception e){}
 
         write("</h4>");
+
+        // the protocols add the selected action before the actionshot is saved, which is when an identical
+        // screenshot is found, so the image is only written together with the next line of the report.
+        // The path is taken now, the screenshots of the sequence may be finished before the report is closed
+        pendingActionshotPath = ScreenshotSerialiser.getRequestedActionshotPath(
+                state.get(Tags.ConcreteIDCustom, "NoConcreteIdAvailable"),
+                action.get(Tags.ConcreteIDCustom, "NoConcreteIdAvailable"));
+    }
+
+    private void writePendingActionshot(){
+        if(pendingActionshotPath == null){
+            return;
+        }
+        // the actionshot may refer to an identical screenshot that was saved before
+        String actionPath = ScreenshotSerialiser.resolve(pendingActionshotPath);
+        pendingActionshotPath = null;
+        if(actionPath.contains("./output")){
+            int indexStart = actionPath.indexOf("./output");
+            int indexScrn = actionPath.indexOf("scrshots");
+            String replaceString = actionPath.substring(indexStart,indexScrn);
+            actionPath = actionPath.replace(replaceString,"../");
+        }
         if(actionPath.contains("./output")){
             actionPath = actionPath.replace("./output","..");
         }
-        write("<p><img src=\""+actionPath+"\"></p>"); //<img src="smiley.gif" alt="Smiley face" height="42" width="42">
+        out.println("<p><img src=\""+actionPath+"\"></p>"); //<img src="smiley.gif" alt="Smiley face" height="42" width="42">
     }
 
     public void addTestVerdict(Verdict verdict){
@@ -304,6 +316,7 @@ public class HtmlSequenceReport implements Reporting{
     }
 
     private void write(String s) {
+        writePendingActionshot();
         out.println(s);
         out.flush();
     }
@@ -1,16 +1,12 @@
 package nl.ou.testar.ReinforcementLearning.Policies;
 
 import nl.ou.testar.RandomActionSelector;
+import nl.ou.testar.ReinforcementLearning.QFunctions.QTable;
 import nl.ou.testar.ReinforcementLearning.RLTags;
 import nl.ou.testar.StateModel.AbstractAction;
-import org.apache.commons.lang.Validate;
-import org.apache.commons.math3.distribution.EnumeratedDistribution;
-import org.apache.commons.math3.util.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Set;
 
 public class BoltzmannDistributedExplorationPolicy implements Policy {
@@ -27,9 +23,19 @@ public class BoltzmannDistributedExplorationPolicy implements Policy {
      */
     float boltzmannTemperature;
 
+    /**
+     * Samples the actions based on their Q-values
+     */
+    private final SoftmaxSampler softmaxSampler;
+
     public BoltzmannDistributedExplorationPolicy(final float decayRate, final float boltzmannTemperature) {
+        this(decayRate, boltzmannTemperature, new SoftmaxSampler(new QTable(RLTags.SarsaValue, 0f)));
+    }
+
+    public BoltzmannDistributedExplorationPolicy(final float decayRate, final float boltzmannTemperature, final SoftmaxSampler softmaxSampler) {
         this.decayRate = decayRate;
         this.boltzmannTemperature = boltzmannTemperature;
+        this.softmaxSampler = softmaxSampler;
     }
 
     /**
@@ -38,18 +44,8 @@ public class BoltzmannDistributedExplorationPolicy implements Policy {
      */
     @Override
     public AbstractAction applyPolicy(Set<AbstractAction> actions) {
-        final List<Pair<AbstractAction,Double>> probabilityOfActions = new ArrayList<>();
-
         try {
-            double sumOfUtilityForAllActions = actions.stream()
-                    .mapToDouble(this::getActionUtility)
-                    .sum();
-            Validate.isTrue(sumOfUtilityForAllActions != 0.0f, "Utility or q-function for all actions results in zero");
-
-            // get probability for all actions
-            actions.forEach(abstractAction -> probabilityOfActions.add(new Pair<>(abstractAction, getProbabilityForAction(abstractAction, sumOfUtilityForAllActions))));
-
-            final AbstractAction selectedAbstractAction = selectActionBasedOnProbability(probabilityOfActions);
+            final AbstractAction selectedAbstractAction = softmaxSampler.sample(actions, boltzmannTemperature);
 
             updateTemperature();
 
@@ -61,20 +57,6 @@ public class BoltzmannDistributedExplorationPolicy implements Policy {
         }
     }
 
-    private AbstractAction selectActionBasedOnProbability(List<Pair<AbstractAction, Double>> probabilityOfActions) {
-        return new EnumeratedDistribution<>(probabilityOfActions).sample();
-    }
-
-    private double getProbabilityForAction(AbstractAction abstractAction, double sumOfUtilityForAllActions) {
-        return getActionUtility(abstractAction) / sumOfUtilityForAllActions;
-    }
-
-    private double getActionUtility(AbstractAction abstractAction) {
-        final float qValue = abstractAction.getAttributes().get(RLTags.SarsaValue, 0f);
-        Validate.isTrue(boltzmannTemperature != 0.0f, "The BoltzmannTemperature is now zero");
-        return Math.exp(qValue / boltzmannTemperature);
-    }
-
     private void  updateTemperature () {
         boltzmannTemperature = boltzmannTemperature * decayRate;
     }
@@ -2,6 +2,7 @@ package nl.ou.testar.ReinforcementLearning.Policies;
 
 import nl.ou.testar.StateModel.AbstractAction;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class EpsilonGreedyAndBoltzmannDistributedExplorationPolicy implements Policy {
 
@@ -29,6 +30,6 @@ public class EpsilonGreedyAndBoltzmannDistributedExplorationPolicy implements Po
     }
 
     float getRandomValue() {
-        return (float) Math.random();
+        return ThreadLocalRandom.current().nextFloat();
     }
 }
@@ -6,6 +6,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class EpsilonGreedyPolicy implements Policy {
     private static final Logger logger = LogManager.getLogger(EpsilonGreedyPolicy.class);
@@ -35,6 +36,6 @@ public class EpsilonGreedyPolicy implements Policy {
     }
 
     float getRandomValue() {
-        return (float) Math.random();
+        return ThreadLocalRandom.current().nextFloat();
     }
 }
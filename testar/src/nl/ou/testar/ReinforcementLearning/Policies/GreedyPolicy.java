@@ -2,12 +2,14 @@ package nl.ou.testar.ReinforcementLearning.Policies;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
+import nl.ou.testar.ReinforcementLearning.QFunctions.QTable;
 import nl.ou.testar.ReinforcementLearning.Utils.ReinforcementLearningUtil;
 import nl.ou.testar.StateModel.AbstractAction;
 import org.fruit.alayer.Tag;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Random;
 import java.util.Set;
 
 /**
@@ -17,10 +19,23 @@ public class GreedyPolicy<T extends Object & Comparable<? super T>>  implements
 
     private final T defaultQValue;
     private final Tag<T> tag;
+    private final QTable qTable;
+    private final Random random = new Random();
 
     public GreedyPolicy(final T defaultQValue, final Tag<T> tag){
         this.defaultQValue = defaultQValue;
         this.tag = tag;
+        this.qTable = null;
+    }
+
+    /**
+     * Constructor for a greedy policy that reads the Q-values from a {@link QTable}
+     * @param qTable
+     */
+    public GreedyPolicy(final QTable qTable){
+        this.defaultQValue = null;
+        this.tag = null;
+        this.qTable = qTable;
     }
 
     /**
@@ -29,6 +44,10 @@ public class GreedyPolicy<T extends Object & Comparable<? super T>>  implements
      */
     @Override
     public AbstractAction applyPolicy(final Set<AbstractAction> actions) {
+        if (qTable != null) {
+            return applyPolicy(qTable, actions);
+        }
+
         final Multimap<T, AbstractAction> qValuesActionsMultimap = ArrayListMultimap.create();
         actions.forEach(action -> qValuesActionsMultimap.put(action.getAttributes().get(tag, defaultQValue), action));
 
@@ -41,4 +60,32 @@ public class GreedyPolicy<T extends Object & Comparable<? super T>>  implements
         final Collection<AbstractAction> actionsSelected = qValuesActionsMultimap.get(maxValue);
         return ReinforcementLearningUtil.selectAction(actionsSelected);
     }
+
+    /**
+     * Selects a random action among the actions with the max Q-value, without collecting them
+     */
+    private AbstractAction applyPolicy(final QTable qTable, final Set<AbstractAction> actions) {
+        float maxQValue = Float.NEGATIVE_INFINITY;
+        int nrOfMaxActions = 0;
+        for (final AbstractAction action : actions) {
+            final float qValue = qTable.getQValue(action);
+            if (qValue > maxQValue) {
+                maxQValue = qValue;
+                nrOfMaxActions = 1;
+            } else if (qValue == maxQValue) {
+                nrOfMaxActions++;
+            }
+        }
+        if (nrOfMaxActions == 0) {
+            return null;
+        }
+
+        int selected = nrOfMaxActions == 1 ? 0 : random.nextInt(nrOfMaxActions);
+        for (final AbstractAction action : actions) {
+            if (qTable.getQValue(action) == maxQValue && selected-- == 0) {
+                return action;
+            }
+        }
+        return null;
+    }
 }
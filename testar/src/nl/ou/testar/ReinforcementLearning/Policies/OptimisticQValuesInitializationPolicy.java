@@ -1,11 +1,10 @@
 package nl.ou.testar.ReinforcementLearning.Policies;
 
+import nl.ou.testar.ReinforcementLearning.QFunctions.QTable;
 import nl.ou.testar.ReinforcementLearning.RLTags;
 import nl.ou.testar.StateModel.AbstractAction;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.fruit.alayer.TaggableBase;
-import org.fruit.alayer.exceptions.NoSuchTagException;
 
 import java.util.Set;
 
@@ -15,11 +14,17 @@ public class OptimisticQValuesInitializationPolicy implements Policy {
 
     private final GreedyPolicy<?> greedyPolicy;
     private final float maxQValue;
+    private final QTable qTable;
 
     public OptimisticQValuesInitializationPolicy(final GreedyPolicy<?> greedyPolicy, final float maxQValue) {
+        this(greedyPolicy, maxQValue, new QTable(RLTags.SarsaValue, 0f));
+    }
+
+    public OptimisticQValuesInitializationPolicy(final GreedyPolicy<?> greedyPolicy, final float maxQValue, final QTable qTable) {
         logger.info("OptimisticQValuesInitializationPolicy initialised with maxQValue={}", maxQValue);
         this.greedyPolicy = greedyPolicy;
         this.maxQValue = maxQValue;
+        this.qTable = qTable;
     }
 
     /**
@@ -30,17 +35,13 @@ public class OptimisticQValuesInitializationPolicy implements Policy {
     public AbstractAction applyPolicy(final Set<AbstractAction> actions) {
 
         // set all actions to max if no Q-value is set
-        actions.forEach(abstractAction -> setDefaultValueOnNewAbstractAction(abstractAction.getAttributes()));
+        for (final AbstractAction abstractAction : actions) {
+            if (!qTable.hasQValue(abstractAction)) {
+                qTable.setQValue(abstractAction, maxQValue);
+            }
+        }
 
         // returns max Q-value
         return greedyPolicy.applyPolicy(actions);
     }
-
-    private void setDefaultValueOnNewAbstractAction(final TaggableBase attributes) {
-        try {
-            attributes.get(RLTags.SarsaValue);
-        } catch (final NoSuchTagException e) {
-            attributes.set(RLTags.SarsaValue, maxQValue);
-        }
-    }
 }
@@ -2,6 +2,7 @@ package nl.ou.testar.ReinforcementLearning.Policies;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import nl.ou.testar.ReinforcementLearning.QFunctions.QTable;
 import nl.ou.testar.ReinforcementLearning.Utils.ReinforcementLearningUtil;
 import org.fruit.alayer.Tag;
 import org.fruit.monkey.ConfigTags;
@@ -12,24 +13,35 @@ public class PolicyFactory {
     private static final Logger logger = LogManager.getLogger(PolicyFactory.class);
 
     public static Policy getPolicy(final Settings settings){
+        final float defaultQValue = settings.get(ConfigTags.DefaultValue, 0f);
+        Tag<Float> tag = ReinforcementLearningUtil.getTag(settings);
+        return getPolicy(settings, new QTable(tag, defaultQValue));
+    }
+
+    /**
+     * Gets the {@link Policy} from the settings
+     * @param settings
+     * @param qTable The {@link QTable} the policy reads the Q-values from, also used by the Q-function
+     */
+    public static Policy getPolicy(final Settings settings, final QTable qTable){
         final String policy = settings.get(ConfigTags.Policy, "");
         final Policy selectedPolicy;
 
         switch (policy) {
             case "EpsilonGreedyPolicy":
-                selectedPolicy = getEpsilonGreedyPolicy(settings);
+                selectedPolicy = getEpsilonGreedyPolicy(settings, qTable);
                 break;
             case "OptimisticQValuesInitializationPolicy":
-                selectedPolicy = getOptimisticQValuesInitializationPolicy(settings);
+                selectedPolicy = getOptimisticQValuesInitializationPolicy(settings, qTable);
                 break;
             case "EpsilonGreedyAndBoltzmannDistributedExplorationPolicy":
-                selectedPolicy = getEpsilonGreedyAndBoltzmannDistributedExplorationPolicy(settings);
+                selectedPolicy = getEpsilonGreedyAndBoltzmannDistributedExplorationPolicy(settings, qTable);
                 break;
             case "BoltzmannDistributedExplorationPolicy":
-                selectedPolicy = getBoltzmannDistributedExplorationPolicy(settings);
+                selectedPolicy = getBoltzmannDistributedExplorationPolicy(settings, qTable);
                 break;
             default:
-                selectedPolicy = getGreedyPolicy(settings);
+                selectedPolicy = getGreedyPolicy(qTable);
         }
 
         logger.info("Using policy={}", selectedPolicy.getClass().getName());
@@ -37,38 +49,30 @@ public class PolicyFactory {
         return selectedPolicy;
     }
 
-    private static Policy getEpsilonGreedyPolicy(final Settings settings) {
+    private static Policy getEpsilonGreedyPolicy(final Settings settings, final QTable qTable) {
         final float epsilon = settings.get(ConfigTags.Epsilon, 0.7f);
-        final float defaultQValue = settings.get(ConfigTags.DefaultValue, 0f);
-        Tag<Float> tag = ReinforcementLearningUtil.getTag(settings);
-        return new EpsilonGreedyPolicy(new GreedyPolicy<Float>(defaultQValue, tag), epsilon);
+        return new EpsilonGreedyPolicy(new GreedyPolicy<Float>(qTable), epsilon);
     }
 
-    private static Policy getGreedyPolicy(final Settings settings) {
-        final float defaultQValue = settings.get(ConfigTags.DefaultValue, 0f);
-        Tag<Float> tag = ReinforcementLearningUtil.getTag(settings);
-        return new GreedyPolicy<Float>(defaultQValue, tag);
+    private static Policy getGreedyPolicy(final QTable qTable) {
+        return new GreedyPolicy<Float>(qTable);
     }
 
-    private static Policy getOptimisticQValuesInitializationPolicy(final Settings settings) {
-        final float defaultQValue = settings.get(ConfigTags.DefaultValue, 0f);
+    private static Policy getOptimisticQValuesInitializationPolicy(final Settings settings, final QTable qTable) {
         final float maxQValue = settings.get(ConfigTags.MaxQValue, 0f);
-        Tag<Float> tag = ReinforcementLearningUtil.getTag(settings);
-        return new OptimisticQValuesInitializationPolicy(new GreedyPolicy<Float>(defaultQValue, tag), maxQValue);
+        return new OptimisticQValuesInitializationPolicy(new GreedyPolicy<Float>(qTable), maxQValue, qTable);
     }
 
-    private static Policy getEpsilonGreedyAndBoltzmannDistributedExplorationPolicy(final Settings settings) {
-        final float defaultQValue = settings.get(ConfigTags.DefaultValue, 0f);
+    private static Policy getEpsilonGreedyAndBoltzmannDistributedExplorationPolicy(final Settings settings, final QTable qTable) {
         final float decayRate = settings.get(ConfigTags.DecayRate, 0.0001f);
         final float temperature = settings.get(ConfigTags.Temperature, 1.0f);
         final float epsilon = settings.get(ConfigTags.Epsilon, 0.7f);
-        Tag<Float> tag = ReinforcementLearningUtil.getTag(settings);
-        return new EpsilonGreedyAndBoltzmannDistributedExplorationPolicy(new GreedyPolicy<Float>(defaultQValue, tag), new BoltzmannDistributedExplorationPolicy(decayRate, temperature), epsilon);
+        return new EpsilonGreedyAndBoltzmannDistributedExplorationPolicy(new GreedyPolicy<Float>(qTable), new BoltzmannDistributedExplorationPolicy(decayRate, temperature, new SoftmaxSampler(qTable)), epsilon);
     }
 
-    private static BoltzmannDistributedExplorationPolicy getBoltzmannDistributedExplorationPolicy(final Settings settings) {
+    private static BoltzmannDistributedExplorationPolicy getBoltzmannDistributedExplorationPolicy(final Settings settings, final QTable qTable) {
         final float decayRate = settings.get(ConfigTags.DecayRate, 0.0001f);
         final float temperature = settings.get(ConfigTags.Temperature, 1.0f);
-        return new BoltzmannDistributedExplorationPolicy(decayRate, temperature);
+        return new BoltzmannDistributedExplorationPolicy(decayRate, temperature, new SoftmaxSampler(qTable));
     }
 }
@@ -0,0 +1,238 @@
+package nl.ou.testar.ReinforcementLearning.Policies;
+
+import nl.ou.testar.ReinforcementLearning.QFunctions.QTable;
+import nl.ou.testar.StateModel.AbstractAction;
+import org.apache.commons.lang.Validate;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Samples an action from the Boltzmann (softmax) distribution of the Q-values, in which the probability of an action
+ * is exp(q / T) divided by the sum over all actions. The exponentials are computed over primitive arrays as
+ * exp(q / T - max(q / T)), which is the same distribution but can not overflow for high Q-values or a low temperature.
+ *
+ * When the actions are exactly the actions of a state registered in the {@link QTable} and the temperature is the
+ * same as in the previous call, the distribution is stored in an alias table (Vose's method) for the state, from
+ * which an action is sampled in constant time. The alias table is reused until a Q-value of the state or the
+ * temperature changes. Building it costs more than one scan of the cumulative distribution, so while the temperature
+ * decays every call, as in {@link BoltzmannDistributedExplorationPolicy}, and in all other cases the actions are
+ * sampled from the cumulative distribution.
+ *
+ * The buffers are reused between calls, so an instance must not be used by several threads at the same time.
+ */
+public class SoftmaxSampler {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final QTable qTable;
+
+    // the alias table per state index of the Q-table
+    private AliasTable[] aliasTables = new AliasTable[INITIAL_CAPACITY];
+
+    // the temperature of the previous call
+    private float previousTemperature = Float.NaN;
+
+    // reused between calls, only grown when more actions come along
+    private AbstractAction[] actionBuffer = new AbstractAction[INITIAL_CAPACITY];
+    private float[] qValueBuffer = new float[INITIAL_CAPACITY];
+    private double[] weights = new double[INITIAL_CAPACITY];
+    private int[] small = new int[INITIAL_CAPACITY];
+    private int[] large = new int[INITIAL_CAPACITY];
+
+    /**
+     * Constructor
+     * @param qTable The {@link QTable} to read the Q-values from
+     */
+    public SoftmaxSampler(final QTable qTable) {
+        this.qTable = qTable;
+    }
+
+    /**
+     * Samples one of the actions.
+     * @param actions The actions to choose from
+     * @param temperature The Boltzmann temperature, can not be zero
+     * @return The sampled action, one of the given actions, or null if there are no actions
+     */
+    public AbstractAction sample(final Set<AbstractAction> actions, final float temperature) {
+        if (actions.isEmpty()) {
+            return null;
+        }
+        Validate.isTrue(temperature != 0.0f, "The BoltzmannTemperature is now zero");
+
+        final boolean sameTemperature = temperature == previousTemperature;
+        previousTemperature = temperature;
+        final int size = actions.size();
+        ensureCapacity(size);
+        if (sameTemperature) {
+            final int stateIndex = getStateIndex(actions);
+            if (stateIndex >= 0) {
+                final AliasTable aliasTable = getAliasTable(stateIndex, temperature);
+                final AbstractAction selectedAction = actionBuffer[aliasTable.sample(ThreadLocalRandom.current())];
+                Arrays.fill(actionBuffer, 0, size, null);
+                return selectedAction;
+            }
+        }
+
+        int n = 0;
+        for (final AbstractAction action : actions) {
+            actionBuffer[n] = action;
+            qValueBuffer[n++] = qTable.getQValue(action);
+        }
+        double remaining = ThreadLocalRandom.current().nextDouble() * computeWeights(qValueBuffer, size, temperature);
+        int selected = size - 1;
+        for (int i = 0; i < size - 1; i++) {
+            remaining -= weights[i];
+            if (remaining < 0) {
+                selected = i;
+                break;
+            }
+        }
+        final AbstractAction selectedAction = actionBuffer[selected];
+        Arrays.fill(actionBuffer, 0, size, null);
+        return selectedAction;
+    }
+
+    /**
+     * Puts every action in the action buffer at its index in the Q-values of the state, so that the sampled index
+     * gives the instance of the caller.
+     * @return The index of the state in the Q-table if the actions are all the actions of that state, -1 otherwise
+     */
+    private int getStateIndex(final Set<AbstractAction> actions) {
+        int stateIndex = -1;
+        for (final AbstractAction action : actions) {
+            final int actionStateIndex = qTable.getStateIndex(action);
+            if (actionStateIndex < 0 || (stateIndex >= 0 && actionStateIndex != stateIndex)) {
+                Arrays.fill(actionBuffer, 0, actions.size(), null);
+                return -1;
+            }
+            stateIndex = actionStateIndex;
+            final int index = qTable.getActionIndex(action);
+            if (index >= actions.size() || actionBuffer[index] != null) {
+                Arrays.fill(actionBuffer, 0, actions.size(), null);
+                return -1;
+            }
+            actionBuffer[index] = action;
+        }
+        if (qTable.getNrOfActions(stateIndex) != actions.size()) {
+            Arrays.fill(actionBuffer, 0, actions.size(), null);
+            return -1;
+        }
+        return stateIndex;
+    }
+
+    private AliasTable getAliasTable(final int stateIndex, final float temperature) {
+        if (stateIndex >= aliasTables.length) {
+            aliasTables = Arrays.copyOf(aliasTables, Math.max(aliasTables.length * 2, stateIndex + 1));
+        }
+        if (aliasTables[stateIndex] == null) {
+            aliasTables[stateIndex] = new AliasTable();
+        }
+
+        final AliasTable aliasTable = aliasTables[stateIndex];
+        final int version = qTable.getVersion(stateIndex);
+        if (!aliasTable.built || aliasTable.version != version || aliasTable.temperature != temperature) {
+            final int size = qTable.getNrOfActions(stateIndex);
+            ensureCapacity(size);
+            build(aliasTable, computeWeights(qTable.getQValues(stateIndex), size, temperature), size);
+            aliasTable.built = true;
+            aliasTable.version = version;
+            aliasTable.temperature = temperature;
+        }
+        return aliasTable;
+    }
+
+    /**
+     * Computes exp(q / T - max(q / T)) for the first size Q-values into the weights.
+     * @return The sum of the weights, at least 1
+     */
+    private double computeWeights(final float[] qValues, final int size, final float temperature) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            weights[i] = (double) qValues[i] / temperature;
+            max = Math.max(max, weights[i]);
+        }
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            weights[i] = Math.exp(weights[i] - max);
+            sum += weights[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Builds the alias table for the weights with Vose's method.
+     */
+    private void build(final AliasTable aliasTable, final double sum, final int size) {
+        if (aliasTable.probabilities.length < size) {
+            aliasTable.probabilities = new double[size];
+            aliasTable.aliases = new int[size];
+        }
+        aliasTable.size = size;
+
+        // scale the probabilities so that their average is 1
+        int nrOfSmall = 0;
+        int nrOfLarge = 0;
+        for (int i = 0; i < size; i++) {
+            weights[i] = weights[i] * size / sum;
+            if (weights[i] < 1.0) {
+                small[nrOfSmall++] = i;
+            } else {
+                large[nrOfLarge++] = i;
+            }
+        }
+
+        // fill up each small column with a part of a large one
+        while (nrOfSmall > 0 && nrOfLarge > 0) {
+            final int less = small[--nrOfSmall];
+            final int more = large[--nrOfLarge];
+            aliasTable.probabilities[less] = weights[less];
+            aliasTable.aliases[less] = more;
+            weights[more] = weights[more] + weights[less] - 1.0;
+            if (weights[more] < 1.0) {
+                small[nrOfSmall++] = more;
+            } else {
+                large[nrOfLarge++] = more;
+            }
+        }
+
+        // the remaining columns are full, up to rounding errors
+        while (nrOfLarge > 0) {
+            aliasTable.probabilities[large[--nrOfLarge]] = 1.0;
+        }
+        while (nrOfSmall > 0) {
+            aliasTable.probabilities[small[--nrOfSmall]] = 1.0;
+        }
+    }
+
+    private void ensureCapacity(final int size) {
+        if (weights.length < size) {
+            final int capacity = Math.max(weights.length * 2, size);
+            actionBuffer = new AbstractAction[capacity];
+            qValueBuffer = new float[capacity];
+            weights = new double[capacity];
+            small = new int[capacity];
+            large = new int[capacity];
+        }
+    }
+
+    /**
+     * The alias table of a state, with the version of the Q-values and the temperature it was built for.
+     */
+    private static class AliasTable {
+
+        private double[] probabilities = new double[0];
+        private int[] aliases = new int[0];
+        private int size;
+
+        private boolean built;
+        private int version;
+        private float temperature;
+
+        private int sample(final ThreadLocalRandom random) {
+            final int column = random.nextInt(size);
+            return random.nextDouble() < probabilities[column] ? column : aliases[column];
+        }
+    }
+}
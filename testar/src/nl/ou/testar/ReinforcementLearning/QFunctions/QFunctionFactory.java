@@ -1,6 +1,6 @@
 package nl.ou.testar.ReinforcementLearning.QFunctions;
 
-import nl.ou.testar.ReinforcementLearning.RewardFunctions.RewardFunctionFactory;
+import nl.ou.testar.ReinforcementLearning.Utils.ReinforcementLearningUtil;
 import org.fruit.monkey.ConfigTags;
 import org.fruit.monkey.Settings;
 import org.slf4j.Logger;
@@ -15,11 +15,20 @@ public class QFunctionFactory {
     private static final float DEFAULT_QVALUE = 0.0f;
 
     public static QFunction getQFunction (final Settings settings){
+        final float defaultQValue = settings.get(ConfigTags.DefaultValue, DEFAULT_QVALUE);
+        return getQFunction(settings, new QTable(ReinforcementLearningUtil.getTag(settings), defaultQValue));
+    }
+
+    /**
+     * Gets the {@link QFunction} from the settings
+     * @param settings
+     * @param qTable The {@link QTable} the Q-function reads the Q-values from, also used by the policy
+     */
+    public static QFunction getQFunction (final Settings settings, final QTable qTable){
         final float alphaDiscount = settings.get(ConfigTags.Alpha, ALPHA_DISCOUNT);
         final float gammaDiscount = settings.get(ConfigTags.Gamma, GAMMA_DISCOUNT);
-        final float defaultQValue = settings.get(ConfigTags.DefaultValue, DEFAULT_QVALUE);
 
-        logger.info("QFunction loaded with alpha='{}' gammaDiscount='{}' and defaultQValue='{}'", alphaDiscount, gammaDiscount, defaultQValue);
+        logger.info("QFunction loaded with alpha='{}' gammaDiscount='{}' and defaultQValue='{}'", alphaDiscount, gammaDiscount, qTable.getDefaultQValue());
 
         final String qfunction = settings.get(ConfigTags.QFunction, "");
         final QFunction selectedQFunction;
@@ -27,10 +36,10 @@ public class QFunctionFactory {
         switch(qfunction) {
             case "QlearningFunction":
                 System.out.println("//*/*/*/*/*/*/*/*/* qlearningfunction");
-                selectedQFunction = new QlearningFunction(alphaDiscount, gammaDiscount, defaultQValue);
+                selectedQFunction = new QlearningFunction(alphaDiscount, gammaDiscount, qTable);
                 break;
             default:
-                selectedQFunction = new SarsaQFunction(alphaDiscount, gammaDiscount, defaultQValue);
+                selectedQFunction = new SarsaQFunction(alphaDiscount, gammaDiscount, qTable);
         }
 
 
@@ -0,0 +1,264 @@
+package nl.ou.testar.ReinforcementLearning.QFunctions;
+
+import nl.ou.testar.StateModel.AbstractAction;
+import nl.ou.testar.StateModel.AbstractState;
+import org.fruit.alayer.Tag;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores the Q-values of the abstract actions in primitive arrays, so that the policies and Q-functions can read
+ * them without boxing a Float per action.
+ *
+ * When an abstract state is registered, the state and its actions get dense int ids. The Q-values of a state are
+ * kept in one float array, together with the maximum Q-value of the state, which is only recomputed after the action
+ * that had the maximum got a lower value.
+ *
+ * The table is kept in line with the state model: when a state is registered the Q-values are imported from the
+ * attributes of its abstract actions, which hold the values loaded from an OrientDB model, and every update is
+ * exported to the attributes, from where the persistence manager saves it. The Q-values of actions in states that
+ * were not registered are read from their attributes.
+ *
+ * The arrays of a registered state can also be read by their index, see {@link #getStateIndex}. Every change of the
+ * Q-values of a state increments the version of the state, so that values derived from them can be cached.
+ */
+public class QTable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Tag<Float> tag;
+    private final float defaultQValue;
+
+    private final Map<String, Integer> stateIds = new HashMap<>();
+    private final Map<String, Integer> actionIds = new HashMap<>();
+
+    // per state id: the Q-values of its actions, the actions, the number of actions, the version and the cached
+    // maximum Q-value
+    private float[][] qValues = new float[INITIAL_CAPACITY][];
+    private AbstractAction[][] actions = new AbstractAction[INITIAL_CAPACITY][];
+    private int[] nrOfActions = new int[INITIAL_CAPACITY];
+    private int[] versions = new int[INITIAL_CAPACITY];
+    private float[] maxQValues = new float[INITIAL_CAPACITY];
+    private boolean[] maxQValueValid = new boolean[INITIAL_CAPACITY];
+
+    // per action id: the state it belongs to, its index in the Q-values of that state and whether it has a Q-value
+    private int[] actionStates = new int[INITIAL_CAPACITY];
+    private int[] actionIndexes = new int[INITIAL_CAPACITY];
+    private boolean[] assigned = new boolean[INITIAL_CAPACITY];
+
+    /**
+     * Constructor
+     * @param tag The attribute of the abstract actions that holds the Q-value
+     * @param defaultQValue The Q-value of actions that do not have one yet
+     */
+    public QTable(final Tag<Float> tag, final float defaultQValue) {
+        this.tag = tag;
+        this.defaultQValue = defaultQValue;
+    }
+
+    public Tag<Float> getTag() {
+        return tag;
+    }
+
+    public float getDefaultQValue() {
+        return defaultQValue;
+    }
+
+    /**
+     * Registers an abstract state and the actions it has. Actions that were added to the state after it was
+     * registered are registered as well, the Q-values of all new actions are imported from their attributes.
+     * @param state The abstract state
+     */
+    public void register(final AbstractState state) {
+        final int stateId = getStateId(state);
+        if (nrOfActions[stateId] == state.getActionIds().size()) {
+            return;
+        }
+
+        for (final AbstractAction action : state.getActions()) {
+            if (!actionIds.containsKey(action.getActionId())) {
+                addAction(stateId, action);
+            }
+        }
+    }
+
+    /**
+     * @param action An abstract action
+     * @return The Q-value of the action, or the default Q-value if it has none
+     */
+    public float getQValue(final AbstractAction action) {
+        final Integer actionId = actionIds.get(action.getActionId());
+        if (actionId == null) {
+            final Float qValue = action.getAttributes().get(tag, null);
+            return qValue == null ? defaultQValue : qValue;
+        }
+        return qValues[actionStates[actionId]][actionIndexes[actionId]];
+    }
+
+    /**
+     * @param action An abstract action
+     * @return True if a Q-value was set or imported for the action
+     */
+    public boolean hasQValue(final AbstractAction action) {
+        final Integer actionId = actionIds.get(action.getActionId());
+        if (actionId == null) {
+            return action.getAttributes().get(tag, null) != null;
+        }
+        return assigned[actionId];
+    }
+
+    /**
+     * Sets the Q-value of an action and exports it to the attributes of the action.
+     * @param action An abstract action
+     * @param qValue The new Q-value
+     */
+    public void setQValue(final AbstractAction action, final float qValue) {
+        final Integer actionId = actionIds.get(action.getActionId());
+        if (actionId != null) {
+            final int stateId = actionStates[actionId];
+            final float[] stateQValues = qValues[stateId];
+            final float oldQValue = stateQValues[actionIndexes[actionId]];
+            stateQValues[actionIndexes[actionId]] = qValue;
+            assigned[actionId] = true;
+            if (qValue != oldQValue) {
+                versions[stateId]++;
+            }
+
+            if (maxQValueValid[stateId]) {
+                if (qValue >= maxQValues[stateId]) {
+                    maxQValues[stateId] = qValue;
+                } else if (oldQValue == maxQValues[stateId]) {
+                    maxQValueValid[stateId] = false;
+                }
+            }
+        }
+        action.addAttribute(tag, qValue);
+    }
+
+    /**
+     * Returns the maximum Q-value of the actions of an abstract state, registering the state if needed.
+     * @param state The abstract state
+     * @return The maximum Q-value, or 0 if the state has no actions
+     */
+    public float getMaxQValue(final AbstractState state) {
+        register(state);
+        final int stateId = stateIds.get(state.getStateId());
+        if (nrOfActions[stateId] == 0) {
+            return 0f;
+        }
+
+        if (!maxQValueValid[stateId]) {
+            final float[] stateQValues = qValues[stateId];
+            float max = stateQValues[0];
+            for (int i = 1; i < nrOfActions[stateId]; i++) {
+                max = Math.max(max, stateQValues[i]);
+            }
+            maxQValues[stateId] = max;
+            maxQValueValid[stateId] = true;
+        }
+        return maxQValues[stateId];
+    }
+
+    /**
+     * @param action An abstract action
+     * @return The index of the registered state the action belongs to, or -1 if the action was not registered
+     */
+    public int getStateIndex(final AbstractAction action) {
+        final Integer actionId = actionIds.get(action.getActionId());
+        return actionId == null ? -1 : actionStates[actionId];
+    }
+
+    /**
+     * @param action An abstract action
+     * @return The index of the action in its registered state, or -1 if the action was not registered
+     */
+    public int getActionIndex(final AbstractAction action) {
+        final Integer actionId = actionIds.get(action.getActionId());
+        return actionId == null ? -1 : actionIndexes[actionId];
+    }
+
+    /**
+     * @param stateIndex The index of a registered state
+     * @return The number of registered actions of the state
+     */
+    public int getNrOfActions(final int stateIndex) {
+        return nrOfActions[stateIndex];
+    }
+
+    /**
+     * @param stateIndex The index of a registered state
+     * @return The Q-values of the actions of the state, the array may be longer than the number of actions
+     * and must not be changed
+     */
+    public float[] getQValues(final int stateIndex) {
+        return qValues[stateIndex];
+    }
+
+    /**
+     * @param stateIndex The index of a registered state
+     * @param index The index of the action in the state, from 0 to the number of actions
+     * @return The action that has the Q-value at the same index
+     */
+    public AbstractAction getAction(final int stateIndex, final int index) {
+        return actions[stateIndex][index];
+    }
+
+    /**
+     * @param stateIndex The index of a registered state
+     * @return A number that changes whenever an action is added to the state or one of its Q-values changes
+     */
+    public int getVersion(final int stateIndex) {
+        return versions[stateIndex];
+    }
+
+    private int getStateId(final AbstractState state) {
+        final Integer known = stateIds.get(state.getStateId());
+        if (known != null) {
+            return known;
+        }
+
+        final int stateId = stateIds.size();
+        if (stateId == qValues.length) {
+            final int capacity = qValues.length * 2;
+            qValues = Arrays.copyOf(qValues, capacity);
+            actions = Arrays.copyOf(actions, capacity);
+            nrOfActions = Arrays.copyOf(nrOfActions, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            maxQValues = Arrays.copyOf(maxQValues, capacity);
+            maxQValueValid = Arrays.copyOf(maxQValueValid, capacity);
+        }
+        qValues[stateId] = new float[Math.max(1, state.getActionIds().size())];
+        actions[stateId] = new AbstractAction[qValues[stateId].length];
+        stateIds.put(state.getStateId(), stateId);
+        return stateId;
+    }
+
+    private void addAction(final int stateId, final AbstractAction action) {
+        final int actionId = actionIds.size();
+        if (actionId == actionStates.length) {
+            final int capacity = actionStates.length * 2;
+            actionStates = Arrays.copyOf(actionStates, capacity);
+            actionIndexes = Arrays.copyOf(actionIndexes, capacity);
+            assigned = Arrays.copyOf(assigned, capacity);
+        }
+
+        final int index = nrOfActions[stateId]++;
+        if (index == qValues[stateId].length) {
+            qValues[stateId] = Arrays.copyOf(qValues[stateId], index * 2);
+            actions[stateId] = Arrays.copyOf(actions[stateId], index * 2);
+        }
+
+        // import the Q-value, for instance the one that was loaded from the model in the database
+        final Float qValue = action.getAttributes().get(tag, null);
+        qValues[stateId][index] = qValue == null ? defaultQValue : qValue;
+        actions[stateId][index] = action;
+        assigned[actionId] = qValue != null;
+        actionStates[actionId] = stateId;
+        actionIndexes[actionId] = index;
+        actionIds.put(action.getActionId(), actionId);
+        maxQValueValid[stateId] = false;
+        versions[stateId]++;
+    }
+}
@@ -1,7 +1,5 @@
 package nl.ou.testar.ReinforcementLearning.QFunctions;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.Multimap;
 import nl.ou.testar.ReinforcementLearning.RLTags;
 import nl.ou.testar.StateModel.AbstractAction;
 import nl.ou.testar.StateModel.AbstractState;
@@ -9,7 +7,6 @@ import nl.ou.testar.StateModel.Exception.ActionNotFoundException;
 import org.fruit.alayer.Action;
 import org.fruit.alayer.Tags;
 
-import java.util.Collections;
 import java.util.Set;
 
 /**
@@ -19,7 +16,7 @@ public class QlearningFunction implements QFunction {
 
     private final float alphaDiscount;
     private final float gammaDiscount;
-    private final float defaultQValue;
+    private final QTable qTable;
 
     /**
      * Constructor
@@ -28,9 +25,19 @@ public class QlearningFunction implements QFunction {
      * @param defaultQValue
      */
     public QlearningFunction(float alphaDiscount, final float gammaDiscount, final float defaultQValue) {
+        this(alphaDiscount, gammaDiscount, new QTable(RLTags.SarsaValue, defaultQValue));
+    }
+
+    /**
+     * Constructor
+     * @param alphaDiscount
+     * @param gammaDiscount
+     * @param qTable The {@link QTable} to read the Q-values from
+     */
+    public QlearningFunction(float alphaDiscount, final float gammaDiscount, final QTable qTable) {
         this.alphaDiscount = alphaDiscount;
         this.gammaDiscount = gammaDiscount;
-        this.defaultQValue = defaultQValue;
+        this.qTable = qTable;
     }
 
     /**
@@ -40,21 +47,21 @@ public class QlearningFunction implements QFunction {
     public float getQValue(final AbstractAction previouslyExecutedAction, final AbstractAction actionUnderExecution, final float reward, final AbstractState currentAbstractState, final Set<Action> actions) {
         float oldQValue = 0f;
         if (previouslyExecutedAction != null) {
-            oldQValue = previouslyExecutedAction.getAttributes().get(RLTags.SarsaValue, defaultQValue);
+            oldQValue = qTable.getQValue(previouslyExecutedAction);
         }
-        final Multimap<Float, Action> abstractActions = ArrayListMultimap.create();
-        actions.forEach(action -> {
-            try {
-                abstractActions.put(currentAbstractState.getAction(action.get(Tags.AbstractIDCustom, "")).getAttributes().get(RLTags.SarsaValue, defaultQValue),
-                        action);
-            } catch (ActionNotFoundException e) {
-                e.printStackTrace();
+        // the maximum over the available actions only, the abstract state also has the actions of its other concrete states
+        float newQValue = Float.NEGATIVE_INFINITY;
+        if (currentAbstractState != null) {
+            for (final Action action : actions) {
+                try {
+                    newQValue = Math.max(newQValue, qTable.getQValue(currentAbstractState.getAction(action.get(Tags.AbstractIDCustom, ""))));
+                } catch (ActionNotFoundException e) {
+                    e.printStackTrace();
+                }
             }
-        });
-        final Set<Float> qValuesActions = abstractActions.keySet();
-        float newQValue = 0;
-        if (!qValuesActions.isEmpty()) {
-            newQValue = Collections.max(qValuesActions);
+        }
+        if (newQValue == Float.NEGATIVE_INFINITY) {
+            newQValue = 0;
         }
 
         return oldQValue + alphaDiscount * (reward + gammaDiscount * newQValue - oldQValue);
@@ -18,7 +18,7 @@ public class SarsaQFunction implements QFunction {
 
     private final float alphaDiscount;
     private final float gammaDiscount;
-    private final float defaultQValue;
+    private final QTable qTable;
 
     /**
      * Constructor
@@ -27,10 +27,20 @@ public class SarsaQFunction implements QFunction {
      * @param defaultQValue
      */
     public SarsaQFunction(float alphaDiscount, final float gammaDiscount, final float defaultQValue) {
-        logger.info("SarsaQFunction initialized with alpha='{} gamma='{}' and defaultQValue='{}'", alphaDiscount, gammaDiscount, defaultQValue);
+        this(alphaDiscount, gammaDiscount, new QTable(RLTags.SarsaValue, defaultQValue));
+    }
+
+    /**
+     * Constructor
+     * @param alphaDiscount
+     * @param gammaDiscount
+     * @param qTable The {@link QTable} to read the Q-values from
+     */
+    public SarsaQFunction(float alphaDiscount, final float gammaDiscount, final QTable qTable) {
+        logger.info("SarsaQFunction initialized with alpha='{} gamma='{}' and defaultQValue='{}'", alphaDiscount, gammaDiscount, qTable.getDefaultQValue());
         this.alphaDiscount = alphaDiscount;
         this.gammaDiscount = gammaDiscount;
-        this.defaultQValue = defaultQValue;
+        this.qTable = qTable;
     }
 
     /**
@@ -40,11 +50,11 @@ public class SarsaQFunction implements QFunction {
     public float getQValue(final AbstractAction previouslyExecutedAction, final AbstractAction actionUnderExecution, final float reward) {
         float oldQValue = 0f;
         if (previouslyExecutedAction != null) {
-            oldQValue = previouslyExecutedAction.getAttributes().get(RLTags.SarsaValue, defaultQValue);
+            oldQValue = qTable.getQValue(previouslyExecutedAction);
         }
-        float newQValue = defaultQValue;
+        float newQValue = qTable.getDefaultQValue();
         if (actionUnderExecution != null) {
-            newQValue = actionUnderExecution.getAttributes().get(RLTags.SarsaValue, defaultQValue);
+            newQValue = qTable.getQValue(actionUnderExecution);
         }
         final float qValue = oldQValue + alphaDiscount * (reward + gammaDiscount * newQValue - oldQValue);
         logger.info("For abstract action with abstractID={} q-value={} was found", previouslyExecutedAction == null? null : previouslyExecutedAction.getId(), qValue);
@@ -1,5 +1,6 @@
 package nl.ou.testar.ReinforcementLearning.RewardFunctions;
 
+import nl.ou.testar.ReinforcementLearning.Utils.TreeEditDistance;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.fruit.monkey.ConfigTags;
@@ -16,7 +17,7 @@ public class RewardFunctionFactory {
 
         switch(rewardFunction) {
             case "WidgetTreeBasedRewardFunction":
-                selectedRewardFunction = new WidgetTreeZhangShashaBasedRewardFunction(new LRKeyrootsHelper(), new TreeDistHelper());
+                selectedRewardFunction = new WidgetTreeZhangShashaBasedRewardFunction(new TreeEditDistance());
                 break;
             case "ImageRecognitionBasedRewardFunction":
                 selectedRewardFunction = new ImageRecognitionBasedRewardFunction(defaultReward);
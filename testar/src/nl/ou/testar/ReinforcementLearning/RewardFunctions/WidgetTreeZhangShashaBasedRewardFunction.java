@@ -3,14 +3,12 @@ package nl.ou.testar.ReinforcementLearning.RewardFunctions;
 import com.google.common.collect.Iterables;
 import nl.ou.testar.StateModel.AbstractAction;
 import nl.ou.testar.StateModel.AbstractState;
+import nl.ou.testar.ReinforcementLearning.Utils.PostOrderTree;
+import nl.ou.testar.ReinforcementLearning.Utils.TreeEditDistance;
 import nl.ou.testar.StateModel.ConcreteState;
-import org.apache.commons.collections.map.MultiKeyMap;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.fruit.alayer.State;
-import org.fruit.alayer.Widget;
-
-import java.util.Deque;
 
 /**
  * This reward function is based on the article
@@ -23,17 +21,15 @@ public class WidgetTreeZhangShashaBasedRewardFunction implements RewardFunction
     private static final Logger logger = LogManager.getLogger(WidgetTreeZhangShashaBasedRewardFunction.class);
     public static final float MIN_REWARD = 0.0001f;
 
-    private final LRKeyrootsHelper lrKeyrootsHelper;
-    private final TreeDistHelper treeDistHelper;
+    private final TreeEditDistance treeEditDistance;
 
     static State previousState = null;
 
-    final static MultiKeyMap treeDist = new MultiKeyMap();
-    final static MultiKeyMap forestDist = new MultiKeyMap();
+    // the previous state converted for the tree edit distance, so that every state is only converted once
+    private PostOrderTree previousTree = null;
 
-    public WidgetTreeZhangShashaBasedRewardFunction(final LRKeyrootsHelper lrKeyrootsHelper, final TreeDistHelper treeDistHelper) {
-        this.lrKeyrootsHelper = lrKeyrootsHelper;
-        this.treeDistHelper = treeDistHelper;
+    public WidgetTreeZhangShashaBasedRewardFunction(final TreeEditDistance treeEditDistance) {
+        this.treeEditDistance = treeEditDistance;
     }
 
     @Override
@@ -48,17 +44,15 @@ public class WidgetTreeZhangShashaBasedRewardFunction implements RewardFunction
             return 0f;
         }
 
-        final Deque<Widget> lrKeyroots1 = lrKeyrootsHelper.getLRKeyroots(previousState);
-        final Deque<Widget> lrKeyroots2 = lrKeyrootsHelper.getLRKeyroots(state);
-
-        for (final Widget keyRoot1 : lrKeyroots1) {
-            for (final Widget keyRoot2 : lrKeyroots2) {
-                treeDistHelper.treeDist(keyRoot1, keyRoot2, forestDist, treeDist);
-                forestDist.clear();
-            }
+        if (previousTree == null || previousTree.getRoot() != previousState) {
+            previousTree = treeEditDistance.toPostOrderTree(previousState);
         }
+        final PostOrderTree tree = treeEditDistance.toPostOrderTree(state);
 
-        int reward = (int) treeDist.get(previousState, state);
+        if (!treeEditDistance.isExact(previousTree, tree)) {
+            logger.info("Approximating the tree edit distance for trees of {} and {} widgets", previousTree.size(), tree.size());
+        }
+        int reward = treeEditDistance.distance(previousTree, tree);
 
         /**
          * For debugging purposes
@@ -78,7 +72,7 @@ public class WidgetTreeZhangShashaBasedRewardFunction implements RewardFunction
         logger.info("Reward for Action Transition from Previous State to Current State is '{}'", reward);
 
         previousState = state;
-        treeDist.clear();
+        previousTree = tree;
 
         logger.info("ID={} reward={}", executedAction.getId(), reward);
         return reward;
@@ -87,7 +81,7 @@ public class WidgetTreeZhangShashaBasedRewardFunction implements RewardFunction
     @Override
     public void reset() {
         previousState = null;
-        treeDist.clear();
+        previousTree = null;
         logger.info("WidgetTreeZhangShashaBasedRewardFunction was reset");
     }
 }
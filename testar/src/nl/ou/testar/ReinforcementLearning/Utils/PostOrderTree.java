@@ -0,0 +1,167 @@
+package nl.ou.testar.ReinforcementLearning.Utils;
+
+import org.fruit.alayer.Widget;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A widget tree converted to the arrays used by the {@link TreeEditDistance}.
+ *
+ * The nodes are numbered 1..size in post order, children sorted by their abstract representation like the
+ * {@link TreedistUtil} does. For every node the tree stores the id of its label (the abstract representation) and the
+ * number of its leftmost leaf, and it stores the LR keyroots in increasing order. The label ids are only valid within
+ * the tree, the {@link TreeEditDistance} matches the labels of two trees by their representation.
+ */
+public class PostOrderTree {
+
+    private final Widget root;
+
+    // index 0 is unused, the nodes are numbered from 1
+    private final int[] labels;
+    private final int[] leftmostLeaves;
+    private final int[] keyroots;
+
+    // the representation of every label id
+    private final String[] labelNames;
+
+    /**
+     * Converts a widget tree.
+     * @param root The root widget of the tree
+     */
+    public PostOrderTree(final Widget root) {
+        this.root = root;
+
+        final Map<String, Integer> labelIds = new HashMap<>();
+        final List<Integer> labelList = new ArrayList<>();
+        final List<Integer> leftmostList = new ArrayList<>();
+        labelList.add(0);
+        leftmostList.add(0);
+        addPostOrder(root, root.getAbstractRepresentation(), labelIds, labelList, leftmostList);
+        labelNames = new String[labelIds.size()];
+        labelIds.forEach((labelName, labelId) -> labelNames[labelId] = labelName);
+
+        final int size = labelList.size() - 1;
+        labels = new int[size + 1];
+        leftmostLeaves = new int[size + 1];
+        for (int i = 1; i <= size; i++) {
+            labels[i] = labelList.get(i);
+            leftmostLeaves[i] = leftmostList.get(i);
+        }
+
+        // a keyroot is the highest node with a given leftmost leaf
+        final boolean[] leftmostSeen = new boolean[size + 1];
+        final int[] found = new int[size];
+        int count = 0;
+        for (int i = size; i >= 1; i--) {
+            if (!leftmostSeen[leftmostLeaves[i]]) {
+                leftmostSeen[leftmostLeaves[i]] = true;
+                found[count++] = i;
+            }
+        }
+        keyroots = new int[count];
+        for (int i = 0; i < count; i++) {
+            keyroots[i] = found[count - 1 - i];
+        }
+    }
+
+    /**
+     * Adds the widget and its descendants in post order.
+     * @return the number of the leftmost leaf of the widget
+     */
+    private static int addPostOrder(final Widget widget, final String representation, final Map<String, Integer> labelIds,
+                                    final List<Integer> labelList, final List<Integer> leftmostList) {
+        // the representations are computed once per widget, also to sort the children
+        final int childCount = widget.childCount();
+        final Widget[] children = new Widget[childCount];
+        final String[] representations = new String[childCount];
+        final Integer[] order = new Integer[childCount];
+        for (int i = 0; i < childCount; i++) {
+            children[i] = widget.child(i);
+            representations[i] = children[i].getAbstractRepresentation();
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> representations[i]));
+
+        int leftmost = -1;
+        for (final int i : order) {
+            final int childLeftmost = addPostOrder(children[i], representations[i], labelIds, labelList, leftmostList);
+            if (leftmost == -1) {
+                leftmost = childLeftmost;
+            }
+        }
+
+        labelList.add(labelIds.computeIfAbsent(representation, label -> labelIds.size()));
+        if (leftmost == -1) {
+            // a leaf is its own leftmost leaf
+            leftmost = labelList.size() - 1;
+        }
+        leftmostList.add(leftmost);
+        return leftmost;
+    }
+
+    public Widget getRoot() {
+        return root;
+    }
+
+    /**
+     * @return The number of nodes in the tree
+     */
+    public int size() {
+        return labels.length - 1;
+    }
+
+    /**
+     * @param node The number of a node, from 1 to size
+     * @return The id of the label of the node
+     */
+    public int getLabel(final int node) {
+        return labels[node];
+    }
+
+    /**
+     * @return The number of distinct labels, the label ids are 0 up to this number
+     */
+    public int getNrOfLabels() {
+        return labelNames.length;
+    }
+
+    /**
+     * @param labelId The id of a label of this tree
+     * @return The abstract representation of the label
+     */
+    public String getLabelName(final int labelId) {
+        return labelNames[labelId];
+    }
+
+    /**
+     * @param node The number of a node, from 1 to size
+     * @return The number of the leftmost leaf of the node
+     */
+    public int getLeftmostLeaf(final int node) {
+        return leftmostLeaves[node];
+    }
+
+    /**
+     * @return The LR keyroots in increasing order, the root is the last one
+     */
+    public int[] getKeyroots() {
+        return keyroots;
+    }
+
+    /**
+     * Counts the nodes per label id.
+     * @return The number of nodes for each label id
+     */
+    int[] getLabelCounts() {
+        final int[] counts = new int[labelNames.length];
+        for (int i = 1; i < labels.length; i++) {
+            counts[labels[i]]++;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,196 @@
+package nl.ou.testar.ReinforcementLearning.Utils;
+
+import org.fruit.alayer.Widget;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Computes the tree edit distance between widget trees with the algorithm of the article
+ * "Simple Fast Algorithms for the Editing Distance Between Trees and Related Problems"
+ * by Zhang AND Shasha
+ * DOI: 10.1137/0218082
+ *
+ * Deleting, inserting and relabeling a node cost 1. Two nodes have the same label when their abstract representation
+ * is equal. The trees are first converted to {@link PostOrderTree}s, of which the labels are matched per pair of trees,
+ * so that no labels are kept after a computation. The distance matrices are reused between computations, so an
+ * instance must not be used by several threads at the same time.
+ *
+ * For huge trees the matrices would be too large, so when the number of matrix cells exceeds a maximum the distance
+ * is approximated by a lower bound that only counts the labels of both trees.
+ */
+public class TreeEditDistance {
+
+    public static final int DEFAULT_MAX_CELLS = 4_000_000;
+
+    private static final int DELETE = 1;
+    private static final int INSERT = 1;
+    private static final int RELABEL = 1;
+
+    private final int maxCells;
+
+    // reused between computations, only grown when a larger tree comes along, up to the maximum number of cells
+    private int[][] treeDist = new int[0][0];
+    private int[][] forestDist = new int[0][0];
+
+    // reused between computations, the label of every node of the second tree as a label id of the first tree
+    private int[] matchedLabels = new int[0];
+
+    public TreeEditDistance() {
+        this(DEFAULT_MAX_CELLS);
+    }
+
+    /**
+     * @param maxCells The maximum number of cells of the distance matrices,
+     *                 larger trees get an approximated distance
+     */
+    public TreeEditDistance(final int maxCells) {
+        this.maxCells = maxCells;
+    }
+
+    /**
+     * Converts a widget tree.
+     * @param root The root widget of the tree
+     * @return The converted tree
+     */
+    public PostOrderTree toPostOrderTree(final Widget root) {
+        return new PostOrderTree(root);
+    }
+
+    /**
+     * @return True if the distance between the trees is computed exactly, false if it is approximated
+     */
+    public boolean isExact(final PostOrderTree tree1, final PostOrderTree tree2) {
+        return (long) (tree1.size() + 1) * (tree2.size() + 1) <= maxCells;
+    }
+
+    /**
+     * Returns the tree edit distance, or the lower bound if the trees are too large, see {@link #isExact}.
+     * @param tree1 A converted tree
+     * @param tree2 A converted tree
+     * @return The distance
+     */
+    public int distance(final PostOrderTree tree1, final PostOrderTree tree2) {
+        if (!isExact(tree1, tree2)) {
+            return lowerBound(tree1, tree2);
+        }
+
+        final int size1 = tree1.size();
+        final int size2 = tree2.size();
+        if (treeDist.length < size1 + 1 || treeDist[0].length < size2 + 1) {
+            int rows = Math.max(treeDist.length, size1 + 1);
+            int columns = Math.max(treeDist.length == 0 ? 0 : treeDist[0].length, size2 + 1);
+            if ((long) rows * columns > maxCells) {
+                // keeping the other dimension of the previous matrices would exceed the maximum
+                rows = size1 + 1;
+                columns = size2 + 1;
+            }
+            treeDist = new int[rows][columns];
+            forestDist = new int[rows][columns];
+        }
+
+        final int[] labelMatches = matchLabels(tree1, tree2);
+        if (matchedLabels.length < size2 + 1) {
+            matchedLabels = new int[Math.max(matchedLabels.length * 2, size2 + 1)];
+        }
+        for (int j = 1; j <= size2; j++) {
+            matchedLabels[j] = labelMatches[tree2.getLabel(j)];
+        }
+
+        for (final int keyroot1 : tree1.getKeyroots()) {
+            for (final int keyroot2 : tree2.getKeyroots()) {
+                computeTreeDist(tree1, tree2, keyroot1, keyroot2);
+            }
+        }
+        return treeDist[size1][size2];
+    }
+
+    /**
+     * Converts both widget trees and returns their distance.
+     */
+    public int distance(final Widget root1, final Widget root2) {
+        return distance(toPostOrderTree(root1), toPostOrderTree(root2));
+    }
+
+    /**
+     * @return The number of cells of each of the distance matrices that are kept for the next computation
+     */
+    long getAllocatedCells() {
+        return treeDist.length == 0 ? 0 : (long) treeDist.length * treeDist[0].length;
+    }
+
+    /**
+     * Computes the distances between the subtrees of the keyroots and the subtrees in their leftmost paths.
+     */
+    private void computeTreeDist(final PostOrderTree tree1, final PostOrderTree tree2, final int keyroot1, final int keyroot2) {
+        final int leftmost1 = tree1.getLeftmostLeaf(keyroot1);
+        final int leftmost2 = tree2.getLeftmostLeaf(keyroot2);
+
+        // the forest distances are stored at the node numbers, the empty forest at the leftmost leaf - 1
+        forestDist[leftmost1 - 1][leftmost2 - 1] = 0;
+        for (int i = leftmost1; i <= keyroot1; i++) {
+            forestDist[i][leftmost2 - 1] = forestDist[i - 1][leftmost2 - 1] + DELETE;
+        }
+        for (int j = leftmost2; j <= keyroot2; j++) {
+            forestDist[leftmost1 - 1][j] = forestDist[leftmost1 - 1][j - 1] + INSERT;
+        }
+
+        for (int i = leftmost1; i <= keyroot1; i++) {
+            final int nodeLeftmost1 = tree1.getLeftmostLeaf(i);
+            final int[] forestRow = forestDist[i];
+            final int[] previousForestRow = forestDist[i - 1];
+            final int[] treeRow = treeDist[i];
+            for (int j = leftmost2; j <= keyroot2; j++) {
+                final int nodeLeftmost2 = tree2.getLeftmostLeaf(j);
+                final int delete = previousForestRow[j] + DELETE;
+                final int insert = forestRow[j - 1] + INSERT;
+                if (nodeLeftmost1 == leftmost1 && nodeLeftmost2 == leftmost2) {
+                    // both forests are trees
+                    final int relabel = previousForestRow[j - 1] + (tree1.getLabel(i) == matchedLabels[j] ? 0 : RELABEL);
+                    forestRow[j] = Math.min(Math.min(delete, insert), relabel);
+                    treeRow[j] = forestRow[j];
+                } else {
+                    final int subtrees = forestDist[nodeLeftmost1 - 1][nodeLeftmost2 - 1] + treeRow[j];
+                    forestRow[j] = Math.min(Math.min(delete, insert), subtrees);
+                }
+            }
+        }
+    }
+
+    /**
+     * A lower bound of the distance: every operation changes the size by at most one, and changes the number of
+     * nodes with a label for at most two labels.
+     */
+    static int lowerBound(final PostOrderTree tree1, final PostOrderTree tree2) {
+        final int[] labelMatches = matchLabels(tree1, tree2);
+        final int[] counts = tree1.getLabelCounts();
+        final int[] counts2 = tree2.getLabelCounts();
+        int difference = 0;
+        for (int label2 = 0; label2 < counts2.length; label2++) {
+            if (labelMatches[label2] < 0) {
+                difference += counts2[label2];
+            } else {
+                counts[labelMatches[label2]] -= counts2[label2];
+            }
+        }
+        for (final int count : counts) {
+            difference += Math.abs(count);
+        }
+        return Math.max(Math.abs(tree1.size() - tree2.size()), (difference + 1) / 2);
+    }
+
+    /**
+     * @return For every label id of the second tree the id of the same label in the first tree, or -1
+     */
+    private static int[] matchLabels(final PostOrderTree tree1, final PostOrderTree tree2) {
+        final Map<String, Integer> labelIds = new HashMap<>();
+        for (int label1 = 0; label1 < tree1.getNrOfLabels(); label1++) {
+            labelIds.put(tree1.getLabelName(label1), label1);
+        }
+        final int[] labelMatches = new int[tree2.getNrOfLabels()];
+        for (int label2 = 0; label2 < labelMatches.length; label2++) {
+            labelMatches[label2] = labelIds.getOrDefault(tree2.getLabelName(label2), -1);
+        }
+        return labelMatches;
+    }
+}
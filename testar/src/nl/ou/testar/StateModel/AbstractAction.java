@@ -20,6 +20,15 @@ public class AbstractAction extends AbstractEntity implements Persistable {
         concreteActionIds = new HashSet<>();
     }
 
+    /**
+     * Creates a snapshot of an abstract action, which does not change when the action itself changes.
+     * @param abstractAction
+     */
+    public AbstractAction(AbstractAction abstractAction) {
+        super(abstractAction);
+        concreteActionIds = new HashSet<>(abstractAction.concreteActionIds);
+    }
+
     /**
      * This method returns the `attributes` that have been added to this abstract state
      *
@@ -28,6 +28,18 @@ public abstract class AbstractEntity {
         eventListeners = new HashSet<>();
     }
 
+    /**
+     * Copy constructor, used to take a snapshot of an entity. The copy has its own attributes and no event listeners.
+     * @param entity
+     */
+    protected AbstractEntity(AbstractEntity entity) {
+        this(entity.id);
+        modelIdentifier = entity.modelIdentifier;
+        for (Tag<?> tag : entity.attributes.tags()) {
+            addAttribute(tag, entity.attributes.get(tag));
+        }
+    }
+
     /**
      * Returns this entity's identifier
      * @return
@@ -3,8 +3,11 @@ package nl.ou.testar.StateModel;
 import nl.ou.testar.StateModel.Exception.ActionNotFoundException;
 import nl.ou.testar.StateModel.Persistence.Persistable;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -21,6 +24,9 @@ public class AbstractState extends AbstractEntity implements Persistable {
     // is this an initial state?
     private boolean isInitial = false;
 
+    // the state model this state was added to, which is told about changes in the unvisited actions
+    private AbstractStateModel abstractStateModel;
+
     /**
      * Constructor
      * @param stateId
@@ -40,6 +46,30 @@ public class AbstractState extends AbstractEntity implements Persistable {
         concreteStateIds = new HashSet<>();
     }
 
+    /**
+     * Creates a snapshot of an abstract state, which does not change when the state or its actions change.
+     * The snapshot is not part of a state model.
+     * @param abstractState
+     */
+    public AbstractState(AbstractState abstractState) {
+        super(abstractState);
+        // every action is copied once, so that the maps of the snapshot share their actions like the original maps do
+        Map<AbstractAction, AbstractAction> copies = new IdentityHashMap<>();
+        actions = copyActions(abstractState.actions, copies);
+        unvisitedActions = copyActions(abstractState.unvisitedActions, copies);
+        visitedActions = copyActions(abstractState.visitedActions, copies);
+        concreteStateIds = new HashSet<>(abstractState.concreteStateIds);
+        isInitial = abstractState.isInitial;
+    }
+
+    private static Map<String, AbstractAction> copyActions(Map<String, AbstractAction> actions, Map<AbstractAction, AbstractAction> copies) {
+        Map<String, AbstractAction> copiedActions = new HashMap<>();
+        for (Map.Entry<String, AbstractAction> entry : actions.entrySet()) {
+            copiedActions.put(entry.getKey(), copies.computeIfAbsent(entry.getValue(), AbstractAction::new));
+        }
+        return copiedActions;
+    }
+
     /**
      * Adds a concrete state id that corresponds to this abstract state.
      * @param concreteStateId the concrete id to add
@@ -61,8 +91,11 @@ public class AbstractState extends AbstractEntity implements Persistable {
      * @param action the visited action
      */
     public void addVisitedAction(AbstractAction action) {
-        unvisitedActions.remove(action.getActionId());
+        boolean wasUnvisited = unvisitedActions.remove(action.getActionId()) != null;
         visitedActions.put(action.getActionId(), action);
+        if (wasUnvisited && abstractStateModel != null) {
+            abstractStateModel.unvisitedActionsChanged(this, -1);
+        }
     }
 
     /**
@@ -110,6 +143,31 @@ public class AbstractState extends AbstractEntity implements Persistable {
         return new HashSet<>(unvisitedActions.values());
     }
 
+    /**
+     * This method returns a read-only view of the actions that have not yet been visited from this state.
+     * The view reflects later changes to the state.
+     * @return
+     */
+    public Collection<AbstractAction> getUnvisitedActionsView() {
+        return Collections.unmodifiableCollection(unvisitedActions.values());
+    }
+
+    /**
+     * This method returns the number of actions that have not yet been visited from this state
+     * @return
+     */
+    public int getNrOfUnvisitedActions() {
+        return unvisitedActions.size();
+    }
+
+    /**
+     * This method returns true if there are actions that have not yet been visited from this state
+     * @return
+     */
+    public boolean hasUnvisitedActions() {
+        return !unvisitedActions.isEmpty();
+    }
+
     /**
      * This method returns all the actions for this abstract state that have been visited
      * @return
@@ -154,9 +212,20 @@ public class AbstractState extends AbstractEntity implements Persistable {
             action.setModelIdentifier(this.getModelIdentifier());
             actions.put(action.getActionId(), action);
             unvisitedActions.put(action.getActionId(), action);
+            if (abstractStateModel != null) {
+                abstractStateModel.unvisitedActionsChanged(this, 1);
+            }
         }
     }
 
+    /**
+     * Sets the state model this state was added to.
+     * @param abstractStateModel
+     */
+    void setAbstractStateModel(AbstractStateModel abstractStateModel) {
+        this.abstractStateModel = abstractStateModel;
+    }
+
     @Override
     public boolean canBeDelayed() {
         return false;
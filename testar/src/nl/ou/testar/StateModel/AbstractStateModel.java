@@ -8,7 +8,10 @@ import nl.ou.testar.StateModel.Exception.StateModelException;
 import nl.ou.testar.StateModel.Exception.StateNotFoundException;
 import org.fruit.alayer.Tag;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Set;
@@ -39,6 +42,22 @@ public class AbstractStateModel {
     // set of initial states
     private Map<String, AbstractState> initialStates;
 
+    // the states in the model that still have unvisited actions
+    private Map<String, AbstractState> statesWithUnvisitedActions;
+
+    // the total number of unvisited actions of the states in the model
+    private int nrOfUnvisitedActions;
+
+    // the target states that were reached per source state and action, used to detect non-determinism
+    // without having to query the data store. The structure is: source state id -> action id -> target state ids
+    private Map<String, Map<String, Set<String>>> targetStatesBySourceAndAction;
+
+    // the number of transitions in the model whose source state and action lead to more than one target state
+    private int nrOfNonDeterministicActions;
+
+    // the planner that keeps track of the paths to unvisited actions, created when it is first needed
+    private UnvisitedActionPlanner unvisitedActionPlanner;
+
     // a set of event listeners
     private Set<StateModelEventListener> eventListeners;
 
@@ -64,6 +83,10 @@ public class AbstractStateModel {
         stateTransitionsByTarget = new HashMap<>();
         states = new HashMap<>();
         initialStates = new HashMap<>();
+        statesWithUnvisitedActions = new LinkedHashMap<>();
+        nrOfUnvisitedActions = 0;
+        targetStatesBySourceAndAction = new HashMap<>();
+        nrOfNonDeterministicActions = 0;
         this.eventListeners = new HashSet<>();
         for (int i = 0; i < eventListeners.length;i++) {
             this.eventListeners.add(eventListeners[i]);
@@ -136,6 +159,38 @@ public class AbstractStateModel {
             stateTransitionsByTarget.put(newTransition.getTargetStateId(), new HashSet<>());
         }
         stateTransitionsByTarget.get(newTransition.getTargetStateId()).add(newTransition);
+
+        // and to the non-determinism index
+        updateNonDeterminismIndex(newTransition);
+
+        // and finally let the planner know about the new path
+        if (unvisitedActionPlanner != null) {
+            unvisitedActionPlanner.transitionAdded(newTransition);
+        }
+    }
+
+    /**
+     * Helper method to keep track of the number of non-deterministic actions in the model.
+     * An action is non-deterministic when executing it in the same source state leads to more than one target state.
+     * The number is counted the same way as in the persistence layer: every transition that belongs to
+     * a non-deterministic source state and action pair is counted.
+     * @param newTransition
+     */
+    private void updateNonDeterminismIndex(AbstractStateTransition newTransition) {
+        Set<String> targetStateIds = targetStatesBySourceAndAction
+                .computeIfAbsent(newTransition.getSourceStateId(), sourceStateId -> new HashMap<>())
+                .computeIfAbsent(newTransition.getActionId(), actionId -> new HashSet<>());
+        if (!targetStateIds.add(newTransition.getTargetStateId())) {
+            return;
+        }
+
+        if (targetStateIds.size() == 2) {
+            // the action just became non-deterministic, so both transitions count
+            nrOfNonDeterministicActions += 2;
+        }
+        else if (targetStateIds.size() > 2) {
+            nrOfNonDeterministicActions++;
+        }
     }
 
     /**
@@ -153,6 +208,8 @@ public class AbstractStateModel {
                 newState.addEventListener(eventListener);
             }
             this.states.put(newState.getStateId(), newState);
+            newState.setAbstractStateModel(this);
+            unvisitedActionsChanged(newState, newState.getNrOfUnvisitedActions());
             emitEvent(new StateModelEvent(StateModelEventType.ABSTRACT_STATE_ADDED, newState));
         }
         else {
@@ -237,6 +294,79 @@ public class AbstractStateModel {
         return stateTransitionsByTarget.get(stateId);
     }
 
+    /**
+     * This method returns the planner that keeps track of the paths to the states with unvisited actions.
+     * @return
+     */
+    public UnvisitedActionPlanner getUnvisitedActionPlanner() {
+        if (unvisitedActionPlanner == null) {
+            unvisitedActionPlanner = new UnvisitedActionPlanner(this);
+        }
+        return unvisitedActionPlanner;
+    }
+
+    /**
+     * Called when a state is added to the model, and by the states in the model when an action is visited
+     * or a new action is added.
+     * @param abstractState
+     * @param change the change in the number of unvisited actions of the state
+     */
+    void unvisitedActionsChanged(AbstractState abstractState, int change) {
+        nrOfUnvisitedActions += change;
+        if (abstractState.hasUnvisitedActions()) {
+            statesWithUnvisitedActions.put(abstractState.getStateId(), abstractState);
+        }
+        else {
+            statesWithUnvisitedActions.remove(abstractState.getStateId());
+        }
+
+        if (unvisitedActionPlanner != null) {
+            unvisitedActionPlanner.unvisitedActionsChanged(abstractState);
+        }
+    }
+
+    /**
+     * This method returns the number of states in the model.
+     * @return
+     */
+    public int getNrOfStates() {
+        return states.size();
+    }
+
+    /**
+     * This method returns the total number of unvisited actions of the states in the model.
+     * @return
+     */
+    public int getNrOfUnvisitedActions() {
+        return nrOfUnvisitedActions;
+    }
+
+    /**
+     * This method returns a read-only view of the states in the model that still have unvisited actions.
+     * The view reflects later changes to the model.
+     * @return
+     */
+    public Collection<AbstractState> getStatesWithUnvisitedActions() {
+        return Collections.unmodifiableCollection(statesWithUnvisitedActions.values());
+    }
+
+    /**
+     * This method returns the number of transitions in the model for which the source state and action
+     * lead to more than one target state.
+     * @return
+     */
+    public int getNrOfNonDeterministicActions() {
+        return nrOfNonDeterministicActions;
+    }
+
+    /**
+     * This method returns true if none of the actions in the model lead to more than one target state.
+     * @return
+     */
+    public boolean isDeterministic() {
+        return nrOfNonDeterministicActions == 0;
+    }
+
     /**
      * Add an event listener to this state model
      * @param eventListener
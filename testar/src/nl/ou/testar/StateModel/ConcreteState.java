@@ -1,12 +1,18 @@
 package nl.ou.testar.StateModel;
 
 import nl.ou.testar.StateModel.Persistence.Persistable;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.fruit.alayer.Tag;
 
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class ConcreteState extends Widget implements Persistable {
 
+    private static final Logger logger = LogManager.getLogger(ConcreteState.class);
+
     // a set of tags that was used in creating the concrete state id
     private Set<Tag<?>> tags;
 
@@ -18,6 +24,9 @@ public class ConcreteState extends Widget implements Persistable {
     // a byte array holding the screenshot for this state
     private byte[] screenshot;
 
+    // the screenshot while it is still being encoded
+    private CompletableFuture<byte[]> pendingScreenshot;
+
     public ConcreteState(String id, Set<Tag<?>> tags, AbstractState abstractState) {
         super(id);
         this.tags = tags;
@@ -25,11 +34,37 @@ public class ConcreteState extends Widget implements Persistable {
         this.abstractState = abstractState;
     }
 
+    /**
+     * Creates a snapshot of a concrete state, attached to a snapshot of its abstract state.
+     * The widget tree is shared with the concrete state, as it does not change once the state has been created.
+     * @param concreteState
+     * @param abstractState
+     */
+    public ConcreteState(ConcreteState concreteState, AbstractState abstractState) {
+        this(concreteState.getId(), concreteState.tags, abstractState);
+        for (Tag<?> tag : concreteState.getAttributes().tags()) {
+            addAttribute(tag, concreteState.getAttributes().get(tag));
+        }
+        children = concreteState.children;
+        synchronized (concreteState) {
+            screenshot = concreteState.screenshot;
+            pendingScreenshot = concreteState.pendingScreenshot;
+        }
+    }
+
     /**
      * Retrieves the screenshot data for this state.
      * @return
      */
-    public byte[] getScreenshot() {
+    public synchronized byte[] getScreenshot() {
+        if (pendingScreenshot != null) {
+            try {
+                screenshot = pendingScreenshot.join();
+            } catch (CompletionException e) {
+                logger.error("Problem encoding the screenshot of concrete state " + getId(), e.getCause());
+            }
+            pendingScreenshot = null;
+        }
         return screenshot;
     }
 
@@ -37,8 +72,18 @@ public class ConcreteState extends Widget implements Persistable {
      * Sets the screenshot data for this state.
      * @param screenshot
      */
-    public void setScreenshot(byte[] screenshot) {
+    public synchronized void setScreenshot(byte[] screenshot) {
         this.screenshot = screenshot;
+        pendingScreenshot = null;
+    }
+
+    /**
+     * Sets the screenshot data for this state, which will be available once the screenshot has been encoded.
+     * @param screenshot
+     */
+    public synchronized void setScreenshot(CompletableFuture<byte[]> screenshot) {
+        this.screenshot = null;
+        pendingScreenshot = screenshot;
     }
 
     /**
@@ -5,13 +5,10 @@ import es.upv.staq.testar.OperatingSystems;
 import es.upv.staq.testar.ProtocolUtil;
 import eu.testar.iv4xr.labrecruits.LabRecruitsProcess;
 
-import org.fruit.alayer.AWTCanvas;
 import org.fruit.alayer.State;
 import org.fruit.alayer.Tag;
 import org.fruit.alayer.Tags;
 import org.fruit.alayer.webdriver.WdProtocolUtil;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.Set;
 
 public abstract class ConcreteStateFactory {
@@ -34,25 +31,20 @@ public abstract class ConcreteStateFactory {
         
         // Do not take state screenshot because LabRecruits is running in server mode
         if(!LabRecruitsProcess.labRecruitsGraphics) {
-        	concreteState.setScreenshot(null);
+        	concreteState.setScreenshot((byte[]) null);
         	return concreteState;
         }
 
         // get a screenshot for this concrete state
-        ByteArrayOutputStream screenshotBytes = new ByteArrayOutputStream();
-
-        AWTCanvas screenshot;
-        if(NativeLinker.getPLATFORM_OS().contains(OperatingSystems.WEBDRIVER)){
-        	screenshot = WdProtocolUtil.getStateshotBinary(newState);
+        // this is usually the screenshot the protocol took of the state already, the encoding is done in the background
+        if(newState.get(Tags.StateScreenshot, null) == null){
+        	if(NativeLinker.getPLATFORM_OS().contains(OperatingSystems.WEBDRIVER)){
+        		WdProtocolUtil.getStateshotBinary(newState);
+        	}
+        	else ProtocolUtil.getStateshotBinary(newState);
         }
-        else screenshot = ProtocolUtil.getStateshotBinary(newState);
 
-        try {
-            screenshot.saveAsPng(screenshotBytes);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        concreteState.setScreenshot(screenshotBytes.toByteArray());
+        concreteState.setScreenshot(newState.get(Tags.StateScreenshot).png());
 
         return concreteState;
     }
@@ -64,6 +56,10 @@ public abstract class ConcreteStateFactory {
      */
     private static void setAttributes(Widget widget, org.fruit.alayer.Widget testarWidget) {
         for (Tag<?> t : testarWidget.tags()) {
+            // the screenshot is stored separately and the indices are rebuilt from the state
+            if (t.equals(Tags.StateScreenshot) || t.equals(Tags.WidgetIndex) || t.equals(Tags.FinderIndex)) {
+                continue;
+            }
             widget.addAttribute(t, testarWidget.get(t, null));
         }
     }
@@ -80,10 +80,12 @@ public class ModelManager implements StateModelManager {
      */
     private void init() {
         // check if the model is deterministic
-        boolean modelIsDeterministic = persistenceManager.modelIsDeterministic(abstractStateModel);
-        System.out.println("Model is deterministic: " + persistenceManager.modelIsDeterministic(abstractStateModel));
+        // the abstract state model has been seeded with the transitions that were loaded from the data store,
+        // so there is no need to query the persistence layer for this
+        boolean modelIsDeterministic = abstractStateModel.isDeterministic();
+        System.out.println("Model is deterministic: " + modelIsDeterministic);
         if (!modelIsDeterministic) {
-            nrOfNonDeterministicActions = persistenceManager.getNrOfNondeterministicActions(abstractStateModel);
+            nrOfNonDeterministicActions = abstractStateModel.getNrOfNonDeterministicActions();
         }
     }
 
@@ -160,7 +162,7 @@ public class ModelManager implements StateModelManager {
         }
 
         // check if non-determinism was introduced into the model
-        int currentNrOfNonDeterministicActions = persistenceManager.getNrOfNondeterministicActions(abstractStateModel);
+        int currentNrOfNonDeterministicActions = abstractStateModel.getNrOfNonDeterministicActions();
         if (currentNrOfNonDeterministicActions > nrOfNonDeterministicActions) {
             System.out.println("Non-deterministic action was executed!");
             sequenceManager.notifyStateReached(newConcreteState, concreteActionUnderExecution, SequenceError.NON_DETERMINISTIC_ACTION);
@@ -174,12 +176,10 @@ public class ModelManager implements StateModelManager {
         concreteActionUnderExecution = null;
 
         // temporarily output the nr of states in the model
-        System.out.println(abstractStateModel.getStates().size() + " abstract states in the model");
+        System.out.println(abstractStateModel.getNrOfStates() + " abstract states in the model");
 
         // temporarily output the number of unvisited actions still left
-        System.out.println(abstractStateModel.getStates().stream().map(AbstractState::getUnvisitedActions).flatMap(
-                Collection::stream
-        ).count() + " unvisited actions left");
+        System.out.println(abstractStateModel.getNrOfUnvisitedActions() + " unvisited actions left");
         System.out.println("----------------------------");
         System.out.println();
     }
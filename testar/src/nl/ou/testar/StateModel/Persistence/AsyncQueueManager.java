@@ -0,0 +1,464 @@
+package nl.ou.testar.StateModel.Persistence;
+
+import nl.ou.testar.StateModel.*;
+import nl.ou.testar.StateModel.Event.StateModelEvent;
+import nl.ou.testar.StateModel.Event.StateModelEventListener;
+import nl.ou.testar.StateModel.Exception.InvalidEventException;
+import nl.ou.testar.StateModel.Sequence.Sequence;
+import nl.ou.testar.StateModel.Sequence.SequenceManager;
+import nl.ou.testar.StateModel.Sequence.SequenceNode;
+import nl.ou.testar.StateModel.Sequence.SequenceStep;
+import nl.ou.testar.StateModel.Util.EventHelper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.awt.GraphicsEnvironment;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persistence manager that hands the persistence requests to a dedicated writer thread, so that the data is stored
+ * while testing continues. The requests are stored in a bounded queue: when the writer cannot keep up, the test
+ * thread blocks until there is room in the queue again.
+ *
+ * The test thread keeps changing the state model while the requests wait in the queue. Each request therefore holds
+ * a snapshot of the entities it stores, which is taken on the test thread when the request is made. The writer
+ * thread only reads these snapshots. The widget tree of a concrete state and the concrete actions are shared with
+ * the snapshots, as they do not change once they have been created.
+ *
+ * The requests are executed in the order in which they were made, which the relations between the entities in the
+ * data store depend on. A later request for an abstract state, concrete state or transition that is still waiting
+ * in the queue cancels the waiting request and takes its own place at the tail of the queue. The entity is then
+ * stored once, with the latest data, and after every request that was made before, such as a transition that
+ * stores an older snapshot of the same abstract state.
+ *
+ * The writer thread takes the waiting requests from the queue in batches and stores each batch in a single
+ * transaction. When a batch fails, its requests are retried one by one. Requests that can not be stored are logged
+ * and counted, see {@link #getNrOfDroppedRequests()}.
+ */
+public class AsyncQueueManager implements PersistenceManager, StateModelEventListener {
+
+    private static final Logger logger = LogManager.getLogger(AsyncQueueManager.class);
+
+    /**
+     * The default number of requests that can wait in the queue before the test thread is blocked
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    /**
+     * The maximum number of requests the writer thread takes from the queue at once
+     */
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * A bounded queue holding the requests to execute
+     */
+    private BlockingQueue<PersistenceRequest> queue;
+
+    /**
+     * The requests that are waiting in the queue and can be coalesced, by key
+     */
+    private Map<String, PersistenceRequest> pendingRequests;
+
+    /**
+     * Composite persistencemanager that will do the actual work for us.
+     */
+    private PersistenceManager delegateManager;
+
+    /**
+     * Helper class for dealing with events
+     */
+    private EventHelper eventHelper;
+
+    /**
+     * Is the event listener processing events?
+     */
+    private boolean listening = true;
+
+    /**
+     * Should the writer thread keep waiting for new requests?
+     */
+    private volatile boolean running = true;
+
+    /**
+     * The thread that executes the requests
+     */
+    private Thread writerThread;
+
+    /**
+     * The number of waiting requests that were cancelled by a later request for the same entity
+     */
+    private final AtomicLong nrOfCoalescedRequests = new AtomicLong();
+
+    /**
+     * The number of requests that could not be stored
+     */
+    private final AtomicLong nrOfDroppedRequests = new AtomicLong();
+
+    public AsyncQueueManager(PersistenceManager persistenceManager, EventHelper eventHelper) {
+        this(persistenceManager, eventHelper, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public AsyncQueueManager(PersistenceManager persistenceManager, EventHelper eventHelper, int queueCapacity) {
+        delegateManager = persistenceManager;
+        this.eventHelper = eventHelper;
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        pendingRequests = new ConcurrentHashMap<>();
+        writerThread = new Thread(this::processQueue, "StateModelPersistenceWriter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Adds a request to the queue. Blocks when the queue is full.
+     * @param key a key identifying the entity that is stored
+     * @param coalesce true if the request cancels a waiting request with the same key
+     * @param runnable stores the snapshot of the entity
+     */
+    private void processRequest(String key, boolean coalesce, Runnable runnable) {
+        if (!running) {
+            drop(key, "it was received after shutdown", null);
+            return;
+        }
+
+        PersistenceRequest request = new PersistenceRequest(key, runnable);
+        if (coalesce) {
+            // the writer removes a request from the pending requests before it executes it, so the waiting request
+            // is either cancelled here, and then skipped by the writer, or it has been taken already
+            PersistenceRequest cancelled = pendingRequests.put(key, request);
+            if (cancelled != null) {
+                cancelled.runnable = null;
+                nrOfCoalescedRequests.incrementAndGet();
+            }
+        }
+        try {
+            queue.put(request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (coalesce) {
+                pendingRequests.remove(key, request);
+            }
+            drop(key, "the test was interrupted while waiting for room in the queue", e);
+        }
+    }
+
+    /**
+     * The main loop of the writer thread.
+     */
+    private void processQueue() {
+        List<PersistenceRequest> batch = new ArrayList<>(BATCH_SIZE);
+        List<PersistenceRequest> requests = new ArrayList<>(BATCH_SIZE);
+        List<Runnable> runnables = new ArrayList<>(BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                PersistenceRequest request = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (request == null) {
+                    continue;
+                }
+                batch.add(request);
+            } catch (InterruptedException e) {
+                // we only stop when the queue has been processed
+                continue;
+            }
+            queue.drainTo(batch, BATCH_SIZE - 1);
+
+            for (PersistenceRequest request : batch) {
+                // from now on the request can no longer be cancelled, later updates are stored after it
+                pendingRequests.remove(request.key, request);
+                Runnable runnable = request.runnable;
+                if (runnable != null) {
+                    requests.add(request);
+                    runnables.add(runnable);
+                }
+            }
+            if (!requests.isEmpty()) {
+                execute(requests, runnables);
+            }
+            batch.clear();
+            requests.clear();
+            runnables.clear();
+        }
+    }
+
+    /**
+     * Stores a batch of requests in one transaction. If that fails, the requests are stored one by one,
+     * so that a single request that can not be stored does not take the rest of the batch with it.
+     */
+    private void execute(List<PersistenceRequest> batch, List<Runnable> runnables) {
+        try {
+            delegateManager.persistBatch(() -> runnables.forEach(Runnable::run));
+            return;
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                drop(batch.get(0).key, "it could not be stored", e);
+                return;
+            }
+            logger.warn("Could not store a batch of {} requests, storing them one by one", batch.size(), e);
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            Runnable runnable = runnables.get(i);
+            try {
+                delegateManager.persistBatch(runnable);
+            } catch (RuntimeException e) {
+                drop(batch.get(i).key, "it could not be stored", e);
+            }
+        }
+    }
+
+    private void drop(String key, String reason, Exception cause) {
+        nrOfDroppedRequests.incrementAndGet();
+        logger.error("Dropped the persistence request for " + key + ", as " + reason, cause);
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        if (!queue.isEmpty() && !GraphicsEnvironment.isHeadless()) {
+            QueueVisualizer visualizer = new QueueVisualizer("Processing persistence queue");
+            try {
+                while (writerThread.isAlive()) {
+                    visualizer.updateMessage("Processing persistence queue : " + queue.size() + " items left");
+                    writerThread.join(500);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            visualizer.stop();
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Persistence queue processed, {} requests were coalesced", nrOfCoalescedRequests.get());
+        if (nrOfDroppedRequests.get() > 0) {
+            logger.error("{} persistence requests could not be stored, the state model in the data store is incomplete", nrOfDroppedRequests.get());
+        }
+        delegateManager.shutdown();
+    }
+
+    /**
+     * Returns the number of requests that are waiting to be executed.
+     * @return
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the number of waiting requests that were cancelled by a later request for the same entity.
+     * @return
+     */
+    public long getNrOfCoalescedRequests() {
+        return nrOfCoalescedRequests.get();
+    }
+
+    /**
+     * Returns the number of requests that could not be stored. The reason for each of them has been logged.
+     * @return
+     */
+    public long getNrOfDroppedRequests() {
+        return nrOfDroppedRequests.get();
+    }
+
+    @Override
+    public void persistAbstractState(AbstractState abstractState) {
+        AbstractState snapshot = snapshot(abstractState);
+        processRequest("AbstractState-" + abstractState.getStateId(), true, () -> delegateManager.persistAbstractState(snapshot));
+    }
+
+    @Override
+    public void persistAbstractAction(AbstractAction abstractAction) {
+        AbstractAction snapshot = snapshot(abstractAction);
+        processRequest("AbstractAction-" + abstractAction.getActionId(), false, () -> delegateManager.persistAbstractAction(snapshot));
+    }
+
+    @Override
+    public void persistAbstractStateTransition(AbstractStateTransition abstractStateTransition) {
+        AbstractStateTransition snapshot = snapshot(abstractStateTransition);
+        processRequest("AbstractStateTransition-" + getTransitionKey(abstractStateTransition), true,
+                () -> delegateManager.persistAbstractStateTransition(snapshot));
+    }
+
+    @Override
+    public void persistAbstractActionAttributeUpdated(AbstractStateTransition abstractStateTransition) {
+        AbstractStateTransition snapshot = snapshot(abstractStateTransition);
+        processRequest("AbstractActionAttribute-" + getTransitionKey(abstractStateTransition), true,
+                () -> delegateManager.persistAbstractActionAttributeUpdated(snapshot));
+    }
+
+    @Override
+    public void persistConcreteState(ConcreteState concreteState) {
+        ConcreteState snapshot = snapshot(concreteState);
+        processRequest("ConcreteState-" + concreteState.getId(), true, () -> delegateManager.persistConcreteState(snapshot));
+    }
+
+    @Override
+    public void persistConcreteStateTransition(ConcreteStateTransition concreteStateTransition) {
+        ConcreteStateTransition snapshot = new ConcreteStateTransition(snapshot(concreteStateTransition.getSourceState()),
+                snapshot(concreteStateTransition.getTargetState()), concreteStateTransition.getAction());
+        processRequest("ConcreteStateTransition-" + getIdOrNull(concreteStateTransition.getSourceState()) + "-"
+                + getIdOrNull(concreteStateTransition.getTargetState()), false,
+                () -> delegateManager.persistConcreteStateTransition(snapshot));
+    }
+
+    @Override
+    public void initAbstractStateModel(AbstractStateModel abstractStateModel) {
+        setListening(false);
+        delegateManager.initAbstractStateModel(abstractStateModel);
+        setListening(true);
+    }
+
+    @Override
+    public void persistSequence(Sequence sequence) {
+        Sequence snapshot = new Sequence(sequence);
+        processRequest("Sequence-" + sequence.getCurrentSequenceId(), false, () -> delegateManager.persistSequence(snapshot));
+    }
+
+    @Override
+    public void initSequenceManager(SequenceManager sequenceManager) {
+        setListening(false);
+        delegateManager.initSequenceManager(sequenceManager);
+        setListening(true);
+    }
+
+    @Override
+    public void persistSequenceNode(SequenceNode sequenceNode) {
+        SequenceNode snapshot = snapshot(sequenceNode);
+        processRequest("SequenceNode-" + sequenceNode.getNodeId(), false, () -> delegateManager.persistSequenceNode(snapshot));
+    }
+
+    @Override
+    public void persistSequenceStep(SequenceStep sequenceStep) {
+        SequenceStep snapshot = new SequenceStep(sequenceStep, snapshot(sequenceStep.getSourceNode()), snapshot(sequenceStep.getTargetNode()));
+        processRequest("SequenceStep-" + sequenceStep.getTargetNode().getNodeId(), false, () -> delegateManager.persistSequenceStep(snapshot));
+    }
+
+    @Override
+    public boolean modelIsDeterministic(AbstractStateModel abstractStateModel) {
+        return delegateManager.modelIsDeterministic(abstractStateModel);
+    }
+
+    @Override
+    public int getNrOfNondeterministicActions(AbstractStateModel abstractStateModel) {
+        return delegateManager.getNrOfNondeterministicActions(abstractStateModel);
+    }
+
+    @Override
+    public void eventReceived(StateModelEvent event) {
+        if (!listening) return;
+
+        try {
+            eventHelper.validateEvent(event);
+        } catch (InvalidEventException e) {
+            // There is something wrong with the event. we do nothing and exit
+            return;
+        }
+
+        switch (event.getEventType()) {
+            case ABSTRACT_STATE_ADDED:
+            case ABSTRACT_STATE_CHANGED:
+                persistAbstractState((AbstractState) (event.getPayload()));
+                break;
+
+            case ABSTRACT_STATE_TRANSITION_ADDED:
+            case ABSTRACT_STATE_TRANSITION_CHANGED:
+            case ABSTRACT_ACTION_CHANGED:
+                persistAbstractStateTransition((AbstractStateTransition) (event.getPayload()));
+                break;
+
+            case ABSTRACT_ACTION_ATTRIBUTE_UPDATED:
+                persistAbstractActionAttributeUpdated((AbstractStateTransition) (event.getPayload()));
+                break;
+
+            case ABSTRACT_STATE_MODEL_INITIALIZED:
+                initAbstractStateModel((AbstractStateModel) (event.getPayload()));
+                break;
+
+            case SEQUENCE_STARTED:
+            case SEQUENCE_ENDED:
+                persistSequence((Sequence) event.getPayload());
+                break;
+
+            case SEQUENCE_MANAGER_INITIALIZED:
+                initSequenceManager((SequenceManager) event.getPayload());
+                break;
+
+            case SEQUENCE_NODE_ADDED:
+            case SEQUENCE_NODE_UPDATED:
+                persistSequenceNode((SequenceNode) event.getPayload());
+                break;
+
+            case SEQUENCE_STEP_ADDED:
+                persistSequenceStep((SequenceStep) event.getPayload());
+        }
+    }
+
+    @Override
+    public void setListening(boolean listening) {
+        this.listening = listening;
+    }
+
+    private String getTransitionKey(AbstractStateTransition abstractStateTransition) {
+        return getIdOrNull(abstractStateTransition.getSourceState()) + "-" + getIdOrNull(abstractStateTransition.getAction())
+                + "-" + getIdOrNull(abstractStateTransition.getTargetState());
+    }
+
+    private String getIdOrNull(AbstractEntity entity) {
+        return entity == null ? null : entity.getId();
+    }
+
+    private String getIdOrNull(ConcreteState concreteState) {
+        return concreteState == null ? null : concreteState.getId();
+    }
+
+    // the snapshots are taken on the test thread, while the entities are not being changed
+
+    private AbstractAction snapshot(AbstractAction abstractAction) {
+        return abstractAction == null ? null : new AbstractAction(abstractAction);
+    }
+
+    private AbstractState snapshot(AbstractState abstractState) {
+        return abstractState == null ? null : new AbstractState(abstractState);
+    }
+
+    private AbstractStateTransition snapshot(AbstractStateTransition abstractStateTransition) {
+        return new AbstractStateTransition(snapshot(abstractStateTransition.getSourceState()),
+                snapshot(abstractStateTransition.getTargetState()), snapshot(abstractStateTransition.getAction()));
+    }
+
+    private ConcreteState snapshot(ConcreteState concreteState) {
+        return concreteState == null ? null : new ConcreteState(concreteState, snapshot(concreteState.getAbstractState()));
+    }
+
+    private SequenceNode snapshot(SequenceNode sequenceNode) {
+        if (sequenceNode == null) {
+            return null;
+        }
+        Sequence sequence = sequenceNode.getSequence() == null ? null : new Sequence(sequenceNode.getSequence());
+        return new SequenceNode(sequenceNode, snapshot(sequenceNode.getConcreteState()), sequence);
+    }
+
+    /**
+     * A request waiting in the queue.
+     */
+    private static class PersistenceRequest {
+
+        private final String key;
+
+        // cleared by the test thread when a later request for the same entity cancels this one
+        private volatile Runnable runnable;
+
+        private PersistenceRequest(String key, Runnable runnable) {
+            this.key = key;
+            this.runnable = runnable;
+        }
+    }
+}
@@ -3,6 +3,9 @@ package nl.ou.testar.StateModel.Persistence.OrientDB.Entity;
 import com.orientechnologies.orient.core.db.ODatabaseSession;
 import com.orientechnologies.orient.core.db.OrientDB;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+
 public class Connection {
 
     /**
@@ -15,6 +18,11 @@ public class Connection {
      */
     private OrientDB orientDB;
 
+    /**
+     * The session of the transaction that is running on the current thread, if any
+     */
+    private final ThreadLocal<ODatabaseSession> transactionSession = new ThreadLocal<>();
+
     public Connection(OrientDB orientDB, Config config) {
         this.orientDB = orientDB;
         this.config = config;
@@ -22,10 +30,61 @@ public class Connection {
 
     /**
      * This method fetches a database session to the configured data store instance.
+     * When a transaction is running on the current thread, see {@link #runInTransaction}, the session of that
+     * transaction is returned. Closing it has no effect, it is closed when the transaction ends.
      * @return
      */
     public ODatabaseSession getDatabaseSession() {
-        return orientDB.open(config.getDatabase(), config.getUser(), config.getPassword());
+        ODatabaseSession session = transactionSession.get();
+        if (session == null) {
+            return orientDB.open(config.getDatabase(), config.getUser(), config.getPassword());
+        }
+
+        session.activateOnCurrentThread();
+        return (ODatabaseSession) Proxy.newProxyInstance(ODatabaseSession.class.getClassLoader(), new Class<?>[]{ODatabaseSession.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                        return null;
+                    }
+                    try {
+                        return method.invoke(session, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * This method runs the given work in a single session and transaction. The sessions that are fetched on the
+     * current thread while the work runs all share this transaction. Transactions that are started in these sessions
+     * are nested in it, so that nothing is committed until the work has finished.
+     * If the work throws an exception, the transaction is rolled back and the exception is passed on.
+     * @param work
+     */
+    public void runInTransaction(Runnable work) {
+        if (transactionSession.get() != null) {
+            // we are already part of a transaction
+            work.run();
+            return;
+        }
+
+        try (ODatabaseSession db = orientDB.open(config.getDatabase(), config.getUser(), config.getPassword())) {
+            transactionSession.set(db);
+            db.begin();
+            try {
+                work.run();
+                db.activateOnCurrentThread();
+                db.commit();
+            }
+            catch (RuntimeException e) {
+                db.activateOnCurrentThread();
+                db.rollback(true);
+                throw e;
+            }
+        }
+        finally {
+            transactionSession.remove();
+        }
     }
 
     /**
@@ -25,6 +25,7 @@ import org.fruit.alayer.Tag;
 import org.fruit.alayer.Visualizer;
 
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class EntityManager {
@@ -483,6 +484,138 @@ public class EntityManager {
         edge.save();
     }
     
+    /**
+     * This method saves a root vertex entity together with the tree of vertices that hangs below it, using a single
+     * session and a single transaction. The tree is provided as a list of edges from child to parent vertex,
+     * ordered in such a way that the parent vertex of an edge has been provided before the edge that has it as a child.
+     * If the root vertex already exists in the data store, the tree is assumed to have been stored together with it
+     * and only the additional edges are saved. Otherwise, the tree vertices and edges are known to be new and
+     * are created without checking the data store for their existence first.
+     * @param rootEntity the root vertex of the tree
+     * @param treeEdges supplies the edges that make up the tree, in top-down order. Only called when the root is new.
+     * @param additionalEdges edges from the root vertex to vertices that may already exist in the data store
+     */
+    public void saveVertexTree(VertexEntity rootEntity, Supplier<List<EdgeEntity>> treeEdges, List<EdgeEntity> additionalEdges) {
+        try (ODatabaseSession db = connection.getDatabaseSession()) {
+            db.begin();
+            try {
+                // the root vertex is the only vertex of the tree that we need to look for
+                if (vertexExists(rootEntity, db)) {
+                    for (EdgeEntity edgeEntity : additionalEdges) {
+                        saveEdgeEntity(edgeEntity, db);
+                    }
+                    db.commit();
+                    return;
+                }
+
+                // within a tree, the same vertex or edge id can occur more than once (e.g. identical sibling widgets)
+                // we keep track of what was created in this transaction so that these are only stored once
+                Map<Object, OVertex> createdVertices = new HashMap<>();
+                Set<Object> createdEdges = new HashSet<>();
+                OVertex rootVertex = createVertex(rootEntity, db);
+                createdVertices.put(getIdentifierValue(rootEntity), rootVertex);
+
+                for (EdgeEntity edgeEntity : treeEdges.get()) {
+                    OVertex targetVertex = createdVertices.get(getIdentifierValue(edgeEntity.getTargetEntity()));
+                    if (targetVertex == null) {
+                        // the tree was not provided in top-down order
+                        throw new IllegalArgumentException("Parent vertex was not saved before its child");
+                    }
+
+                    Object sourceId = getIdentifierValue(edgeEntity.getSourceEntity());
+                    OVertex sourceVertex = createdVertices.get(sourceId);
+                    if (sourceVertex == null) {
+                        sourceVertex = createVertex(edgeEntity.getSourceEntity(), db);
+                        createdVertices.put(sourceId, sourceVertex);
+                    }
+
+                    Object edgeId = getIdentifierValue(edgeEntity);
+                    if (edgeId == null || createdEdges.add(edgeId)) {
+                        createEdge(edgeEntity, sourceVertex, targetVertex, db);
+                    }
+                }
+
+                // the additional edges originate from the new root vertex, so they cannot exist yet either
+                for (EdgeEntity edgeEntity : additionalEdges) {
+                    OVertex targetVertex;
+                    try {
+                        targetVertex = retrieveVertex(edgeEntity.getTargetEntity(), db);
+                    }
+                    catch (EntityNotFoundException e) {
+                        targetVertex = createVertex(edgeEntity.getTargetEntity(), db);
+                    }
+                    createEdge(edgeEntity, rootVertex, targetVertex, db);
+                }
+
+                db.commit();
+            }
+            catch (RuntimeException e) {
+                db.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Helper method that creates a new vertex in the data store, without checking if it already exists.
+     * @param entity
+     * @param db
+     * @return
+     */
+    private OVertex createVertex(VertexEntity entity, ODatabaseSession db) {
+        OVertex oVertex = db.newVertex(entity.getEntityClass().getClassName());
+        for (String propertyName : entity.getPropertyNames()) {
+            setProperty(oVertex, propertyName, entity.getPropertyValue(propertyName).getValue(), db);
+        }
+        setAutoIncrementProperties(oVertex, entity.getEntityClass(), db);
+        oVertex.save();
+        return oVertex;
+    }
+
+    /**
+     * Helper method that creates a new edge between two vertices, without checking if it already exists.
+     * @param entity
+     * @param sourceVertex
+     * @param targetVertex
+     * @param db
+     */
+    private void createEdge(EdgeEntity entity, OVertex sourceVertex, OVertex targetVertex, ODatabaseSession db) {
+        OEdge edge = sourceVertex.addEdge(targetVertex, entity.getEntityClass().getClassName());
+        for (String propertyName : entity.getPropertyNames()) {
+            setProperty(edge, propertyName, entity.getPropertyValue(propertyName).getValue(), db);
+        }
+        setAutoIncrementProperties(edge, entity.getEntityClass(), db);
+        edge.save();
+    }
+
+    /**
+     * Helper method that asks the sequences for a value for the auto-increment properties that do not have a value yet.
+     * @param element
+     * @param entityClass
+     * @param db
+     */
+    private void setAutoIncrementProperties(OElement element, EntityClass entityClass, ODatabaseSession db) {
+        for (Property property : entityClass.getProperties()) {
+            if (property.isAutoIncrement() && element.getProperty(property.getPropertyName()) == null) {
+                OSequence sequence = db.getMetadata().getSequenceLibrary().getSequence(createSequenceId(entityClass, property));
+                setProperty(element, property.getPropertyName(), sequence.next(), db);
+            }
+        }
+    }
+
+    /**
+     * Helper method that returns the value of the identifying property of an entity, or null if it has none.
+     * @param entity
+     * @return
+     */
+    private Object getIdentifierValue(DocumentEntity entity) {
+        Property identifier = entity.getEntityClass().getIdentifier();
+        if (identifier == null || entity.getPropertyValue(identifier.getPropertyName()) == null) {
+            return null;
+        }
+        return entity.getPropertyValue(identifier.getPropertyName()).getValue();
+    }
+
     private void updateAbstractActionEntity(OEdge edge, DocumentEntity entity, ODatabaseSession db) {
     	for (String propertyName : entity.getPropertyNames()) {
     		if(entity.getPropertyValue(propertyName) != null) {
@@ -835,6 +968,15 @@ public class EntityManager {
         return entityClass.getClassName() + "-" + property.getPropertyName() + "-seq";
     }
 
+    /**
+     * This method runs the given work, in which entities are saved and deleted through this entity manager,
+     * in a single transaction. If the work throws an exception, none of its changes are stored.
+     * @param work
+     */
+    public void runInTransaction(Runnable work) {
+        connection.runInTransaction(work);
+    }
+
     /**
      * Returns the connection object currently used by the entity manager
      * @return Connection
@@ -106,6 +106,11 @@ public class OrientDBManager implements PersistenceManager, StateModelEventListe
         entityManager = null;
     }
 
+    @Override
+    public void persistBatch(Runnable batch) {
+        entityManager.runInTransaction(batch);
+    }
+
     @Override
     public void persistAbstractState(AbstractState abstractState) {
         // create an entity to persist to the database
@@ -192,6 +197,7 @@ public class OrientDBManager implements PersistenceManager, StateModelEventListe
     }
 
     @Override
+    @SuppressWarnings({ "unchecked", "rawtypes" }) // the HydratorFactory hands out raw hydrators
     public void persistConcreteState(ConcreteState concreteState) {
         // create an entity to persist to the database
         EntityClass entityClass = EntityClassFactory.createEntityClass(EntityClassFactory.EntityClassName.ConcreteState);
@@ -209,55 +215,59 @@ public class OrientDBManager implements PersistenceManager, StateModelEventListe
             return;
         }
 
-        // save the entity!
-        entityManager.saveEntity(concreteStateEntity);
-
-        // store the widgettree attached to this concrete state
-        persistWidgetTree(concreteState, concreteStateEntity);
-
         // optional: if an abstract state is provided, we connect the concrete state to it using an isAbstractedBy relation
-        if (concreteState.getAbstractState() == null) {
-            return;
-        }
-        EntityClass targetEntityClass = EntityClassFactory.createEntityClass(EntityClassFactory.EntityClassName.AbstractState);
-        VertexEntity abstractStateEntity = new VertexEntity(targetEntityClass);
-        // hydrate the entity to a format the orient database can store
-        try {
-            EntityHydrator hydrator = HydratorFactory.getHydrator(HydratorFactory.HYDRATOR_ABSTRACT_STATE);
-            hydrator.hydrate(abstractStateEntity, concreteState.getAbstractState());
-        } catch (HydrationException e) {
-            e.printStackTrace();
-            System.out.println("Encountered a problem while saving abstract state with id " + concreteState.getAbstractState().getStateId() + " to the orient database");
-            return;
-        }
+        List<EdgeEntity> abstractedByEdges = new ArrayList<>();
+        if (concreteState.getAbstractState() != null) {
+            EntityClass targetEntityClass = EntityClassFactory.createEntityClass(EntityClassFactory.EntityClassName.AbstractState);
+            VertexEntity abstractStateEntity = new VertexEntity(targetEntityClass);
+            // hydrate the entity to a format the orient database can store
+            try {
+                EntityHydrator hydrator = HydratorFactory.getHydrator(HydratorFactory.HYDRATOR_ABSTRACT_STATE);
+                hydrator.hydrate(abstractStateEntity, concreteState.getAbstractState());
 
-        // set the concretestate and abstractstate entities to not update anymore. That is not required for this relation
-        concreteStateEntity.enableUpdate(false);
-        abstractStateEntity.enableUpdate(false);
+                // set the abstractstate entity to not update anymore. That is not required for this relation
+                abstractStateEntity.enableUpdate(false);
 
-        // create the edge entity and persist it
-        EntityClass edgeEntityClass = EntityClassFactory.createEntityClass(EntityClassFactory.EntityClassName.isAbstractedBy);
-        EdgeEntity edgeEntity = new EdgeEntity(edgeEntityClass, concreteStateEntity, abstractStateEntity);
-        edgeEntity.enableUpdate(false);
+                // create the edge entity
+                EntityClass edgeEntityClass = EntityClassFactory.createEntityClass(EntityClassFactory.EntityClassName.isAbstractedBy);
+                EdgeEntity edgeEntity = new EdgeEntity(edgeEntityClass, concreteStateEntity, abstractStateEntity);
+                edgeEntity.enableUpdate(false);
 
-        try {
-            EntityHydrator entityHydrator = HydratorFactory.getHydrator(HydratorFactory.HYDRATOR_ABSTRACTED_BY);
-            entityHydrator.hydrate(edgeEntity, null);
-        }
-        catch (HydrationException ex) {
-            //@todo add some meaningful logging here as well
+                try {
+                    EntityHydrator entityHydrator = HydratorFactory.getHydrator(HydratorFactory.HYDRATOR_ABSTRACTED_BY);
+                    entityHydrator.hydrate(edgeEntity, null);
+                }
+                catch (HydrationException ex) {
+                    //@todo add some meaningful logging here as well
+                }
+                abstractedByEdges.add(edgeEntity);
+            } catch (HydrationException e) {
+                e.printStackTrace();
+                System.out.println("Encountered a problem while saving abstract state with id " + concreteState.getAbstractState().getStateId() + " to the orient database");
+            }
         }
-        entityManager.saveEntity(edgeEntity);
+
+        // save the concrete state, its widget tree and the relation to the abstract state in one go
+        // the widget tree is only collected if the concrete state was not stored before
+        entityManager.saveVertexTree(concreteStateEntity, () -> {
+            List<EdgeEntity> widgetTreeEdges = new ArrayList<>();
+            collectWidgetTree(concreteState, concreteStateEntity, widgetTreeEdges);
+            return widgetTreeEdges;
+        }, abstractedByEdges);
     }
 
     /**
-     * This method will store a widget tree to the orient database.
+     * This method will collect the entities for a widget tree, so they can be stored to the orient database in one batch.
+     * The edges are collected top-down, so that a parent widget is always stored before its children.
      * @param widget
+     * @param widgetEntity
+     * @param widgetTreeEdges the list to which the isChildOf edges of the tree are added
      */
-    private void persistWidgetTree(Widget widget, VertexEntity widgetEntity) {
+    @SuppressWarnings({ "unchecked", "rawtypes" }) // the HydratorFactory hands out raw hydrators
+    private void collectWidgetTree(Widget widget, VertexEntity widgetEntity, List<EdgeEntity> widgetTreeEdges) {
         widgetEntity.enableUpdate(false);
-        // we assume the root widget of the tree has already been stored, as this will be the concrete state
-        // we loop through the child widgets and for each widget, store the widget and then store the needed edges between them
+        // we assume the root widget of the tree is stored separately, as this will be the concrete state
+        // we loop through the child widgets and for each widget, create the widget entity and the needed edges between them
         for (Widget childWidget : widget.getChildren()) {
             VertexEntity childWidgetEntity = persistWidget(childWidget);
             if (childWidgetEntity == null) {
@@ -266,7 +276,7 @@ public class OrientDBManager implements PersistenceManager, StateModelEventListe
             }
             childWidgetEntity.enableUpdate(false);
 
-            // with the widget saved, we need to also store parent and child relationships between the two widgets
+            // we also need to store parent and child relationships between the two widgets
             EntityClass isChildEntityClass = EntityClassFactory.createEntityClass(EntityClassFactory.EntityClassName.isChildOf);
             EdgeEntity isChildEntity = new EdgeEntity(isChildEntityClass, childWidgetEntity, widgetEntity);
             isChildEntity.enableUpdate(false);
@@ -281,15 +291,15 @@ public class OrientDBManager implements PersistenceManager, StateModelEventListe
                 System.out.println("Encountered a problem while saving the inter-widget relation to the orient database");
                 return;
             }
-            entityManager.saveEntity(isChildEntity);
+            widgetTreeEdges.add(isChildEntity);
 
             // go down the widget tree and do it again
-            persistWidgetTree(childWidget, childWidgetEntity);
+            collectWidgetTree(childWidget, childWidgetEntity, widgetTreeEdges);
         }
     }
 
     /**
-     * This method will persist a single widget to the OrientDB data store.
+     * This method will prepare a single widget for the OrientDB data store.
      * @param widget
      * @return
      */
@@ -310,8 +320,6 @@ public class OrientDBManager implements PersistenceManager, StateModelEventListe
             return null;
         }
 
-        // save the widget
-        entityManager.saveEntity(vertexEntity);
         return vertexEntity;
     }
 
@@ -1,5 +1,6 @@
 package nl.ou.testar.StateModel.Persistence.OrientDB;
 
+import nl.ou.testar.StateModel.Persistence.AsyncQueueManager;
 import nl.ou.testar.StateModel.Persistence.DummyManager;
 import nl.ou.testar.StateModel.Persistence.OrientDB.Entity.Config;
 import nl.ou.testar.StateModel.Persistence.OrientDB.Entity.EntityManager;
@@ -38,6 +39,10 @@ public class OrientDBManagerFactory implements PersistenceManagerFactory {
                 persistenceManager = new QueueManager(new OrientDBManager(eventHelper, entityManager), new EventHelper(), true);
                 break;
 
+            case PersistenceManager.DATA_STORE_MODE_ASYNC:
+                persistenceManager = new AsyncQueueManager(new OrientDBManager(eventHelper, entityManager), new EventHelper());
+                break;
+
             case PersistenceManager.DATA_STORE_MODE_INSTANT:
              default:
                  persistenceManager = new OrientDBManager(eventHelper, entityManager);
@@ -17,6 +17,9 @@ public interface PersistenceManager {
     // some data will be stored instantly and some will be stored after the sequence has finished
     String DATA_STORE_MODE_HYBRID = "hybrid";
 
+    // the data will be stored by a background thread while the sequence continues
+    String DATA_STORE_MODE_ASYNC = "async";
+
     // sometimes we do not want to persist data
     String DATA_STORE_MODE_NONE = "none";
 
@@ -25,6 +28,15 @@ public interface PersistenceManager {
      */
     void shutdown();
 
+    /**
+     * This method executes a batch of persistence calls. Data stores that support transactions store the batch
+     * in a single transaction, so that it is either stored completely or not at all.
+     * @param batch
+     */
+    default void persistBatch(Runnable batch) {
+        batch.run();
+    }
+
     /**
      * This method persists an abstract state.
      * @param abstractState
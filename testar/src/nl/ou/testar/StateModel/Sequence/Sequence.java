@@ -11,6 +11,7 @@ import org.fruit.alayer.Tags;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -84,6 +85,25 @@ public class Sequence implements Persistable {
         nodes = new ArrayList<>();
     }
 
+    /**
+     * Creates a snapshot of a sequence, which does not change when the sequence itself changes and does not emit events.
+     * @param sequence
+     */
+    public Sequence(Sequence sequence) {
+        active = sequence.active;
+        currentSequenceId = sequence.currentSequenceId;
+        currentSequenceNr = sequence.currentSequenceNr;
+        currentNodeNr = sequence.currentNodeNr;
+        nodes = new ArrayList<>(sequence.nodes);
+        modelIdentifier = sequence.modelIdentifier;
+        concreteStateTags = sequence.concreteStateTags;
+        startDateTime = sequence.startDateTime;
+        currentNode = sequence.currentNode;
+        verdict = sequence.verdict;
+        terminationMessage = sequence.terminationMessage;
+        eventListeners = Collections.emptySet();
+    }
+
     /**
      * Start the sequence.
      */
@@ -7,6 +7,7 @@ import nl.ou.testar.StateModel.Event.StateModelEventType;
 import nl.ou.testar.StateModel.Persistence.Persistable;
 
 import java.time.Instant;
+import java.util.Collections;
 import java.util.Set;
 import java.util.StringJoiner;
 
@@ -63,6 +64,26 @@ public class SequenceNode implements Persistable {
         this.eventListeners = eventListeners;
     }
 
+    /**
+     * Creates a snapshot of a sequence node, which does not change when the node itself changes and does not emit events.
+     * @param sequenceNode
+     * @param concreteState a snapshot of the concrete state of the node
+     * @param sequence a snapshot of the sequence of the node, if the node has one
+     */
+    public SequenceNode(SequenceNode sequenceNode, ConcreteState concreteState, Sequence sequence) {
+        timestamp = sequenceNode.timestamp;
+        nodeNr = sequenceNode.nodeNr;
+        nodeId = sequenceNode.nodeId;
+        sequenceId = sequenceNode.sequenceId;
+        this.concreteState = concreteState;
+        this.sequence = sequence;
+        errorMessages = new StringJoiner(", ");
+        if (sequenceNode.containsErrors()) {
+            errorMessages.add(sequenceNode.getErrorMessage());
+        }
+        eventListeners = Collections.emptySet();
+    }
+
     public Instant getTimestamp() {
         return timestamp;
     }
@@ -46,6 +46,21 @@ public class SequenceStep implements Persistable {
         nonDeterministic = false;
     }
 
+    /**
+     * Creates a snapshot of a sequence step.
+     * @param sequenceStep
+     * @param sourceNode a snapshot of the source node of the step
+     * @param targetNode a snapshot of the target node of the step
+     */
+    public SequenceStep(SequenceStep sequenceStep, SequenceNode sourceNode, SequenceNode targetNode) {
+        concreteAction = sequenceStep.concreteAction;
+        this.sourceNode = sourceNode;
+        this.targetNode = targetNode;
+        actionDescription = sequenceStep.actionDescription;
+        timestamp = sequenceStep.timestamp;
+        nonDeterministic = sequenceStep.nonDeterministic;
+    }
+
     public ConcreteAction getConcreteAction() {
         return concreteAction;
     }
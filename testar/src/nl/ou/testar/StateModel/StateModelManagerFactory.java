@@ -39,6 +39,7 @@ import nl.ou.testar.ReinforcementLearning.ActionSelectors.ReinforcementLearningA
 import nl.ou.testar.ReinforcementLearning.Policies.PolicyFactory;
 import nl.ou.testar.ReinforcementLearning.QFunctions.QFunction;
 import nl.ou.testar.ReinforcementLearning.QFunctions.QFunctionFactory;
+import nl.ou.testar.ReinforcementLearning.QFunctions.QTable;
 import nl.ou.testar.ReinforcementLearning.RewardFunctions.RewardFunction;
 import nl.ou.testar.ReinforcementLearning.RewardFunctions.RewardFunctionFactory;
 import nl.ou.testar.ReinforcementLearning.Utils.ReinforcementLearningUtil;
@@ -122,10 +123,12 @@ public class StateModelManagerFactory {
         		System.out.println("State Model iv4xr Reinforcement Learning Model Manager");
         		logger.info("State Model iv4xr Reinforcement Learning Model Manager");
 
-        		final ActionSelector actionSelector = new ReinforcementLearningActionSelector(PolicyFactory.getPolicy(settings)) ;
+        		Tag<Float> tag = ReinforcementLearningUtil.getTag(settings);
+        		// the policy and the Q-function share the Q-values
+        		final QTable qTable = new QTable(tag, settings.get(ConfigTags.DefaultValue, 0f));
+        		final ActionSelector actionSelector = new ReinforcementLearningActionSelector(PolicyFactory.getPolicy(settings, qTable)) ;
         		final RewardFunction rewardFunction = RewardFunctionFactory.getRewardFunction(settings);
-        		final QFunction qFunction = QFunctionFactory.getQFunction(settings);
-        		Tag<?> tag = ReinforcementLearningUtil.getTag(settings);
+        		final QFunction qFunction = QFunctionFactory.getQFunction(settings, qTable);
 
         		return new iv4xrRLModelManager(abstractStateModelRL, 
         				actionSelector, 
@@ -135,6 +138,7 @@ public class StateModelManagerFactory {
         				storeWidgets,
         				rewardFunction,
         				qFunction,
+        				qTable,
         				tag);
         	}
 
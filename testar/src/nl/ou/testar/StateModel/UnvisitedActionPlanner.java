@@ -0,0 +1,258 @@
+package nl.ou.testar.StateModel;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Keeps track of the shortest paths from the states in an abstract state model to the nearest state that still has
+ * unvisited actions, so that a path to an unvisited action can be followed without searching the model.
+ *
+ * For every state the planner stores the distance to the nearest state with unvisited actions and the first
+ * transition on the way there. The distances are updated by the state model when transitions are added and when
+ * states gain or lose their unvisited actions, which only touches the states whose distance changes.
+ */
+public class UnvisitedActionPlanner {
+
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final AbstractStateModel abstractStateModel;
+
+    // the distance and first transition for every state in the model
+    private final Map<String, Node> nodes;
+
+    /**
+     * Constructor. Computes the distances for the states that are currently in the model.
+     * @param abstractStateModel
+     */
+    UnvisitedActionPlanner(AbstractStateModel abstractStateModel) {
+        this.abstractStateModel = abstractStateModel;
+        nodes = new HashMap<>();
+
+        // a breadth first search over the incoming transitions, starting from all states with unvisited actions
+        Deque<Node> queue = new ArrayDeque<>();
+        for (AbstractState state : abstractStateModel.getStatesWithUnvisitedActions()) {
+            Node node = getNode(state.getStateId());
+            node.goal = true;
+            node.distance = 0;
+            queue.add(node);
+        }
+        decreaseFrom(queue);
+    }
+
+    /**
+     * Returns the transitions that lead from the given state to the nearest state with unvisited actions.
+     * @param stateId the state to start from
+     * @return the transitions to follow, an empty list if the state itself has unvisited actions,
+     * or null if no state with unvisited actions can be reached.
+     */
+    public List<AbstractStateTransition> getPathToUnvisitedActions(String stateId) {
+        Node node = nodes.get(stateId);
+        if (node == null || node.distance == UNREACHABLE) {
+            return null;
+        }
+
+        List<AbstractStateTransition> path = new LinkedList<>();
+        while (node.distance > 0) {
+            path.add(node.next);
+            node = nodes.get(node.next.getTargetStateId());
+        }
+        return path;
+    }
+
+    /**
+     * Returns the number of transitions between the given state and the nearest state with unvisited actions.
+     * @param stateId
+     * @return the distance, or -1 if no state with unvisited actions can be reached.
+     */
+    public int getDistanceToUnvisitedActions(String stateId) {
+        Node node = nodes.get(stateId);
+        return node == null || node.distance == UNREACHABLE ? -1 : node.distance;
+    }
+
+    /**
+     * Called by the state model when a transition was added.
+     * @param transition
+     */
+    void transitionAdded(AbstractStateTransition transition) {
+        Node source = getNode(transition.getSourceStateId());
+        Node target = getNode(transition.getTargetStateId());
+        if (target.distance != UNREACHABLE && target.distance + 1 < source.distance) {
+            source.distance = target.distance + 1;
+            source.next = transition;
+            Deque<Node> queue = new ArrayDeque<>();
+            queue.add(source);
+            decreaseFrom(queue);
+        }
+    }
+
+    /**
+     * Called by the state model when a state was added or when the unvisited actions of a state changed.
+     * @param state
+     */
+    void unvisitedActionsChanged(AbstractState state) {
+        Node node = getNode(state.getStateId());
+        boolean goal = state.hasUnvisitedActions();
+        if (goal == node.goal) {
+            return;
+        }
+        node.goal = goal;
+
+        if (goal) {
+            node.distance = 0;
+            node.next = null;
+            Deque<Node> queue = new ArrayDeque<>();
+            queue.add(node);
+            decreaseFrom(queue);
+        }
+        else {
+            increaseFrom(node);
+        }
+    }
+
+    private Node getNode(String stateId) {
+        return nodes.computeIfAbsent(stateId, Node::new);
+    }
+
+    /**
+     * Propagates the distances of the queued nodes, which have just decreased, to the states that lead to them.
+     * The queue has to be ordered by distance.
+     * @param queue
+     */
+    private void decreaseFrom(Deque<Node> queue) {
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            Set<AbstractStateTransition> incoming = abstractStateModel.getIncomingTransitionsForState(node.stateId);
+            if (incoming == null) {
+                continue;
+            }
+            for (AbstractStateTransition transition : incoming) {
+                Node source = getNode(transition.getSourceStateId());
+                if (node.distance + 1 < source.distance) {
+                    source.distance = node.distance + 1;
+                    source.next = transition;
+                    queue.add(source);
+                }
+            }
+        }
+    }
+
+    /**
+     * Repairs the distances after the given node lost its unvisited actions. Only the states whose path led
+     * through this node are recomputed.
+     * @param lostGoal
+     */
+    private void increaseFrom(Node lostGoal) {
+        // collect the states whose path to unvisited actions passes through the node
+        List<Node> affected = new ArrayList<>();
+        affected.add(lostGoal);
+        lostGoal.affected = true;
+        for (int i = 0; i < affected.size(); i++) {
+            Set<AbstractStateTransition> incoming = abstractStateModel.getIncomingTransitionsForState(affected.get(i).stateId);
+            if (incoming == null) {
+                continue;
+            }
+            for (AbstractStateTransition transition : incoming) {
+                Node source = getNode(transition.getSourceStateId());
+                if (source.next == transition && !source.affected) {
+                    source.affected = true;
+                    affected.add(source);
+                }
+            }
+        }
+
+        // find the best path for each of them that does not pass through one of the others
+        PriorityQueue<QueueEntry> queue = new PriorityQueue<>(Comparator.comparingInt((QueueEntry entry) -> entry.distance));
+        for (Node node : affected) {
+            node.distance = node.goal ? 0 : UNREACHABLE;
+            node.next = null;
+        }
+        for (Node node : affected) {
+            if (!node.goal) {
+                Set<AbstractStateTransition> outgoing = abstractStateModel.getOutgoingTransitionsForState(node.stateId);
+                for (AbstractStateTransition transition : outgoing == null ? Collections.<AbstractStateTransition>emptySet() : outgoing) {
+                    Node target = getNode(transition.getTargetStateId());
+                    if (!target.affected && target.distance != UNREACHABLE && target.distance + 1 < node.distance) {
+                        node.distance = target.distance + 1;
+                        node.next = transition;
+                    }
+                }
+            }
+            if (node.distance != UNREACHABLE) {
+                queue.add(new QueueEntry(node));
+            }
+        }
+        for (Node node : affected) {
+            node.affected = false;
+        }
+
+        // and propagate these distances, nearest first
+        while (!queue.isEmpty()) {
+            QueueEntry entry = queue.poll();
+            Node node = entry.node;
+            if (entry.distance != node.distance) {
+                // the node was queued again with a shorter distance
+                continue;
+            }
+            Set<AbstractStateTransition> incoming = abstractStateModel.getIncomingTransitionsForState(node.stateId);
+            if (incoming == null) {
+                continue;
+            }
+            for (AbstractStateTransition transition : incoming) {
+                Node source = getNode(transition.getSourceStateId());
+                if (node.distance + 1 < source.distance) {
+                    source.distance = node.distance + 1;
+                    source.next = transition;
+                    queue.add(new QueueEntry(source));
+                }
+            }
+        }
+    }
+
+    /**
+     * A node in the priority queue, with the distance it had when it was queued.
+     */
+    private static class QueueEntry {
+
+        private final Node node;
+
+        private final int distance;
+
+        private QueueEntry(Node node) {
+            this.node = node;
+            distance = node.distance;
+        }
+    }
+
+    /**
+     * The planning information for a single state.
+     */
+    private static class Node {
+
+        private final String stateId;
+
+        // the number of transitions to the nearest state with unvisited actions
+        private int distance = UNREACHABLE;
+
+        // the first transition on the path to the nearest state with unvisited actions
+        private AbstractStateTransition next;
+
+        // does the state have unvisited actions?
+        private boolean goal;
+
+        // used while repairing the distances
+        private boolean affected;
+
+        private Node(String stateId) {
+            this.stateId = stateId;
+        }
+    }
+}
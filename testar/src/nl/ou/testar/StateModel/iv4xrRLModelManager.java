@@ -31,6 +31,7 @@
 package nl.ou.testar.StateModel;
 
 import nl.ou.testar.ReinforcementLearning.QFunctions.QFunction;
+import nl.ou.testar.ReinforcementLearning.QFunctions.QTable;
 import nl.ou.testar.ReinforcementLearning.RLTags;
 import nl.ou.testar.ReinforcementLearning.RewardFunctions.RewardFunction;
 import nl.ou.testar.StateModel.ActionSelection.ActionSelector;
@@ -69,6 +70,11 @@ public class iv4xrRLModelManager extends iv4xrModelManager implements StateModel
      */
     private final QFunction qFunction;
 
+    /**
+     * The {@link QTable} that holds the Q-values, shared with the {@link QFunction} and the policy
+     */
+    private final QTable qTable;
+
     private State state = null;
 
     private final Tag<?> tag;
@@ -85,10 +91,12 @@ public class iv4xrRLModelManager extends iv4xrModelManager implements StateModel
             final boolean storeWidgets,
             final RewardFunction rewardFunction,
             final QFunction qFunction,
+            final QTable qTable,
             final Tag<?> tag) {
         super(abstractStateModel, actionSelector, persistenceManager, concreteStateTags, sequenceManager, storeWidgets);
         this.rewardFunction = rewardFunction;
         this.qFunction = qFunction;
+        this.qTable = qTable;
         this.tag = tag;
     }
 
@@ -96,6 +104,10 @@ public class iv4xrRLModelManager extends iv4xrModelManager implements StateModel
     public void notifyNewStateReached(final State newState, final Set<Action> actions) {
         super.notifyNewStateReached(newState, actions);
         state = newState;
+        if (currentAbstractState != null) {
+            // imports the Q-values of new actions, also the ones loaded from the model
+            qTable.register(currentAbstractState);
+        }
     }
 
     @Override
@@ -190,8 +202,9 @@ public class iv4xrRLModelManager extends iv4xrModelManager implements StateModel
             logger.warn("Update of Q-value failed because no previous action was found");
             return;
         }
-        logger.info("Q-value of abstractAction before updating with ID={} and q-value={}", previouslySelectedAbstractAction.getId(),  previouslySelectedAbstractAction.getAttributes().get(RLTags.SarsaValue, 0f));
-        previouslySelectedAbstractAction.addAttribute(RLTags.SarsaValue, (float) qValue);
-        logger.info("Q-value of abstractAction after updating with ID={} and q-value={}", previouslySelectedAbstractAction.getId(),  previouslySelectedAbstractAction.getAttributes().get(RLTags.SarsaValue));
+        logger.info("Q-value of abstractAction before updating with ID={} and q-value={}", previouslySelectedAbstractAction.getId(), qTable.getQValue(previouslySelectedAbstractAction));
+        // also sets the attribute of the abstract action, which is saved in the model
+        qTable.setQValue(previouslySelectedAbstractAction, (float) qValue);
+        logger.info("Q-value of abstractAction after updating with ID={} and q-value={}", previouslySelectedAbstractAction.getId(), qTable.getQValue(previouslySelectedAbstractAction));
     }
 }
@@ -50,6 +50,9 @@ public final class ConfigTags {
   public static final Tag<Double> ActionDuration = Tag.from("ActionDuration", Double.class);
   public static final Tag<Double> FaultThreshold = Tag.from("FaultThreshold", Double.class);
   public static final Tag<Double> TimeToWaitAfterAction = Tag.from("TimeToWaitAfterAction", Double.class);
+  public static final Tag<String> SettleStrategy = Tag.from("SettleStrategy", String.class);
+  public static final Tag<Double> SettleTimeout = Tag.from("SettleTimeout", Double.class);
+  public static final Tag<Integer> PhaseMetricsLogInterval = Tag.from("PhaseMetricsLogInterval", Integer.class);
   public static final Tag<Boolean> VisualizeActions = Tag.from("VisualizeActions", Boolean.class);
   public static final Tag<Boolean> VisualizeSelectedAction = Tag.from("VisualizeSelectedAction", Boolean.class);
   public static final Tag<Boolean> DrawWidgetUnderCursor = Tag.from("DrawWidgetUnderCursor", Boolean.class);
@@ -61,6 +64,10 @@ public final class ConfigTags {
   public static final Tag<Integer> SequenceLength = Tag.from("SequenceLength", Integer.class);
   public static final Tag<Integer> Sequences = Tag.from("Sequences", Integer.class);
   public static final Tag<Double> ReplayRetryTime = Tag.from("ReplayRetryTime", Double.class);
+  public static final Tag<String> ReplayableSequenceFormat = Tag.from("ReplayableSequenceFormat", String.class);
+  public static final Tag<Integer> ScreenshotWriterThreads = Tag.from("ScreenshotWriterThreads", Integer.class);
+  public static final Tag<String> ScreenshotFormat = Tag.from("ScreenshotFormat", String.class);
+  public static final Tag<Double> ScreenshotScale = Tag.from("ScreenshotScale", Double.class);
   public static final Tag<Double> MaxTime = Tag.from("MaxTime", Double.class);
   public static final Tag<Double> StartupTime = Tag.from("StartupTime", Double.class);
   @SuppressWarnings("unchecked")
@@ -93,6 +100,7 @@ public final class ConfigTags {
   public static final Tag<Float> StateScreenshotSimilarityThreshold = Tag.from("StateScreenshotSimilarityThreshold", Float.class);
   public static final Tag<Boolean> UnattendedTests = Tag.from("UnattendedTests", Boolean.class);
   public static final Tag<Boolean> AccessBridgeEnabled = Tag.from("AccessBridgeEnabled", Boolean.class);
+  public static final Tag<Boolean> CompactTagStore = Tag.from("CompactTagStore", Boolean.class);
   public static final Tag<String> SUTProcesses = Tag.from("SUTProcesses", String.class); // Shift+0 shortcut to debug (STDOUT) windows' process names
 
   // state model config tags
@@ -130,6 +138,8 @@ public final class ConfigTags {
   @SuppressWarnings("unchecked")
   public static final Tag<List<String>> AbstractStateAttributes = Tag.from("AbstractStateAttributes", (Class<List<String>>) (Class<?>) List.class);
 
+  public static final Tag<String> StateIdHashing = Tag.from("StateIdHashing", String.class);
+
   public static final Tag<Boolean> AlwaysCompile = Tag.from("AlwaysCompile", Boolean.class);
 
   public static final Tag<Boolean> ProcessListenerEnabled = Tag.from("ProcessListenerEnabled", Boolean.class);
@@ -170,6 +180,8 @@ public final class ConfigTags {
   public static final Tag<Boolean> FollowLinks = Tag.from("FollowLinks", Boolean.class);
   public static final Tag<Boolean> BrowserFullScreen = Tag.from("BrowserFullScreen", Boolean.class);
   public static final Tag<Boolean> SwitchNewTabs = Tag.from("SwitchNewTabs", Boolean.class);
+  public static final Tag<Boolean> CompactStateTransport = Tag.from("CompactStateTransport", Boolean.class);
+  public static final Tag<Boolean> IncrementalStateFetch = Tag.from("IncrementalStateFetch", Boolean.class);
   public static final Tag<Boolean> FlashFeedback = Tag.from("FlashFeedback", Boolean.class);
   public static final Tag<String> ProtocolCompileDirectory = Tag.from("ProtocolCompileDirectory", String.class);
   public static final Tag<String> ReportingClass = Tag.from("ReportingClass", String.class);
@@ -42,21 +42,16 @@ import static org.fruit.alayer.Tags.SystemState;
 import static org.fruit.monkey.ConfigTags.LogLevel;
 
 import java.awt.Desktop;
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.PrintStream;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.zip.GZIPInputStream;
 
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
@@ -83,13 +78,20 @@ import org.fruit.alayer.exceptions.NoSuchTagException;
 import org.fruit.alayer.exceptions.StateBuildException;
 import org.fruit.alayer.exceptions.SystemStartException;
 import org.fruit.alayer.exceptions.WidgetNotFoundException;
+import org.fruit.alayer.settle.FingerprintSettleStrategy;
+import org.fruit.alayer.settle.ScreenshotFingerprint;
+import org.fruit.alayer.settle.SettleStrategy;
 import org.fruit.alayer.visualizers.ShapeVisualizer;
+import org.fruit.alayer.webdriver.WdMutationFingerprint;
 import org.fruit.alayer.webdriver.WdProtocolUtil;
 import org.fruit.alayer.windows.WinApiException;
 
 import es.upv.staq.testar.managers.DataManager;
 import es.upv.staq.testar.serialisation.LogSerialiser;
 import es.upv.staq.testar.serialisation.ScreenshotSerialiser;
+import es.upv.staq.testar.serialisation.SequenceFormat;
+import es.upv.staq.testar.serialisation.SequenceReader;
+import es.upv.staq.testar.serialisation.SequenceWriter;
 import es.upv.staq.testar.serialisation.TestSerialiser;
 import eu.testar.iv4xr.IV4XRProtocolUtil;
 
@@ -97,6 +99,7 @@ import org.jnativehook.GlobalScreen;
 import org.jnativehook.NativeHookException;
 import org.openqa.selenium.SessionNotCreatedException;
 import org.testar.OutputStructure;
+import org.testar.metrics.PhaseMetrics;
 
 import com.orientechnologies.orient.core.exception.ODatabaseException;
 import com.orientechnologies.orient.core.exception.OSecurityAccessException;
@@ -173,11 +176,13 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 	protected long lastStamp = -1;
 	protected EventHandler eventHandler;
 	protected Canvas cv;
-	protected Pattern clickFilterPattern = null;
-	protected Map<String, Matcher> clickFilterMatchers = new WeakHashMap<String, Matcher>();
-	protected Pattern suspiciousTitlesPattern = null;
-	protected Map<String, Matcher> suspiciousTitlesMatchers = new WeakHashMap<String, Matcher>();
+	protected TagValuePattern clickFilterPattern = null;
+	protected TagValuePattern suspiciousTitlesPattern = null;
 	private StateBuilder builder;
+	private SettleStrategy settleStrategy;
+	private int settleTimeCount;
+	private long settleTimeTotal, settleTimeMax; // ms
+	protected PhaseMetrics phaseMetrics = new PhaseMetrics();
 	protected String forceKillProcess = null;
 	protected boolean forceToForeground = false;
 	protected int testFailTimes = 0;
@@ -380,6 +385,7 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 		startTime = Util.time();
 		this.settings = settings;
 		mode = settings.get(ConfigTags.Mode);
+		settleStrategy = null;
 
 		//EventHandler is implemented in RuntimeControlsProtocol (super class):
 		eventHandler = initializeEventHandler();
@@ -388,7 +394,8 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 		builder = NativeLinker.getNativeStateBuilder(
 				settings.get(ConfigTags.TimeToFreeze),
 				settings.get(ConfigTags.AccessBridgeEnabled),
-				settings.get(ConfigTags.SUTProcesses)
+				settings.get(ConfigTags.SUTProcesses),
+				settings.get(ConfigTags.CompactTagStore)
 				);
 
 		if ( mode() == Modes.Generate || mode() == Modes.Record || mode() == Modes.Replay ) {
@@ -437,13 +444,10 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 
 			File seqFile = new File(settings.get(ConfigTags.PathToReplaySequence));
 
-			FileInputStream fis = new FileInputStream(seqFile);
-			BufferedInputStream bis = new BufferedInputStream(fis);
-			GZIPInputStream gis = new GZIPInputStream(bis);
-			ObjectInputStream ois = new ObjectInputStream(gis);
+			SequenceReader reader = SequenceReader.open(seqFile);
 
-			ois.readObject();
-			ois.close();
+			reader.read();
+			reader.close();
 
 		} catch (ClassNotFoundException | IOException e) {
 			popupMessage("ERROR: File is not a readable, please select a correct testar sequence file");
@@ -549,7 +553,14 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 			e3.printStackTrace();
 		}
 
-		ScreenshotSerialiser.start(OutputStructure.screenshotsOutputDir, screenshotsDirectory);
+		AWTCanvas.StorageFormat screenshotFormat = AWTCanvas.StorageFormat.PNG;
+		try {
+			screenshotFormat = AWTCanvas.StorageFormat.valueOf(settings.get(ConfigTags.ScreenshotFormat, "PNG").toUpperCase());
+		} catch (IllegalArgumentException e) {
+			System.out.println("Unknown ScreenshotFormat " + settings.get(ConfigTags.ScreenshotFormat) + ", using PNG");
+		}
+		ScreenshotSerialiser.start(OutputStructure.screenshotsOutputDir, screenshotsDirectory, settings.get(ConfigTags.ScreenshotWriterThreads, 1),
+				screenshotFormat, 1.0, settings.get(ConfigTags.ScreenshotScale, 1.0));
 
 		return generatedSequenceName;
 	}
@@ -571,7 +582,11 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 		final File currentSeqObject = new File(sequenceObject);
 
 		try {
-			TestSerialiser.start(new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(currentSeqObject, true))));
+			if (SequenceFormat.FORMAT_COMPACT.equals(settings.get(ConfigTags.ReplayableSequenceFormat))) {
+				TestSerialiser.start(new SequenceWriter(new BufferedOutputStream(new FileOutputStream(currentSeqObject))));
+			} else {
+				TestSerialiser.start(new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(currentSeqObject, true))));
+			}
 			LogSerialiser.log("Created new sequence file!\n", LogSerialiser.LogLevel.Debug);
 		} catch (IOException e) {
 			LogSerialiser.log("I/O exception creating new sequence file\n", LogSerialiser.LogLevel.Critical);
@@ -733,6 +748,7 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 
 			//initializing TESTAR for a new sequence:
 			startTestSequence(system);
+			phaseMetrics.reset();
 
 			try {
 				// getState() called before beginSequence:
@@ -759,6 +775,8 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 
 				writeAndCloseFragmentForReplayableSequence();
 
+				writePhaseMetrics();
+
 				if (faultySequence)
 					LogSerialiser.log("Sequence contained faults!\n", LogSerialiser.LogLevel.Critical);
 
@@ -835,33 +853,50 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 				runRecordLoop(system);
 			}
 
+			long stepStart = System.nanoTime();
+
 			// getState() including getVerdict() that is saved into the state:
 			LogSerialiser.log("Obtained system state in inner loop of TESTAR...\n", LogSerialiser.LogLevel.Debug);
 			cv.begin(); Util.clear(cv);
 
 			//Deriving actions from the state:
+			long phaseStart = System.nanoTime();
 			Set<Action> actions = deriveActions(system, state);
+			phaseMetrics.record("deriveActions", phaseStart);
+			phaseMetrics.add("derivedActions", actions.size());
+
+			phaseStart = System.nanoTime();
 			buildStateActionsIdentifiers(state, actions);
 			for(Action a : actions)
 				if(a.get(Tags.AbstractIDCustom, null) == null)
 				    buildEnvironmentActionIdentifiers(state, a);
+			phaseMetrics.record("buildActionIDs", phaseStart);
 			
 			// notify to state model the current state
+			phaseStart = System.nanoTime();
 			notifyNewStateReachedToStateModel(state, actions);
+			phaseMetrics.record("stateModelState", phaseStart);
 
 			//Showing the green dots if visualization is on:
 			if(visualizationOn) visualizeActions(cv, state, actions);
 
 			//Selecting one of the available actions:
+			phaseStart = System.nanoTime();
 			Action action = selectAction(state, actions);
+			phaseMetrics.record("selectAction", phaseStart);
 			//Showing the red dot if visualization is on:
 			if(visualizationOn) visualizeSelectedAction(cv, state, action);
 
 			//before action execution, pass it to the state model manager
+			phaseStart = System.nanoTime();
 			notifyActionToStateModel(action);
+			phaseMetrics.record("stateModelAction", phaseStart);
 
 			//Executing the selected action:
-			executeAction(system, state, action);
+			phaseStart = System.nanoTime();
+			if (!executeAction(system, state, action))
+				phaseMetrics.increment("failedActions");
+			phaseMetrics.record("executeAction", phaseStart);
 			lastExecutedAction = action;
 			actionCount++;
 
@@ -870,10 +905,19 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 			cv.end();
 
 			// fetch the new state
+			phaseStart = System.nanoTime();
 			state = getState(system);
+			phaseMetrics.record("getState", phaseStart);
 
 			//Saving the actions and the executed action into replayable test sequence:
+			phaseStart = System.nanoTime();
 			saveActionIntoFragmentForReplayableSequence(action, state, actions);
+			phaseMetrics.record("saveFragment", phaseStart);
+
+			phaseMetrics.record("step", stepStart);
+			int logInterval = settings.get(ConfigTags.PhaseMetricsLogInterval, 0);
+			if (logInterval > 0 && actionCount % logInterval == 0)
+				LogSerialiser.log("Phase latencies after " + actionCount + " actions: " + phaseMetrics.summary() + "\n", LogSerialiser.LogLevel.Info);
 		}
 
 		// notify to state model the last state
@@ -901,7 +945,9 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 	    fragment.set(ActionDuration, settings().get(ConfigTags.ActionDuration));
 	    fragment.set(ActionDelay, settings().get(ConfigTags.TimeToWaitAfterAction));
 	    fragment.set(SystemState, state);
-	    fragment.set(OracleVerdict, getVerdict(state));
+	    // getState has already computed the verdict of the state
+	    Verdict verdict = state.get(OracleVerdict, null);
+	    fragment.set(OracleVerdict, verdict != null ? verdict : getVerdict(state));
 
 	    //Find the target widget of the current action, and save the title into the fragment
 	    if (state != null && action.get(Tags.OriginWidget, null) != null){
@@ -912,28 +958,40 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 	    TestSerialiser.write(fragment);
 	}
 
+	/**
+	 * Writes the phase latencies and counters of the sequence into the metrics output folder, as CSV and JSON,
+	 * and starts collecting them again for the next sequence.
+	 */
+	private void writePhaseMetrics() {
+		String metricsFile = OutputStructure.metricsOutputDir + File.separator + OutputStructure.startInnerLoopDateString + "_"
+				+ OutputStructure.executedSUTname + "_sequence_" + OutputStructure.sequenceInnerLoopCount + "_phases";
+		try {
+			phaseMetrics.writeCsv(new File(metricsFile + ".csv"));
+			phaseMetrics.writeJson(new File(metricsFile + ".json"));
+		} catch (IOException e) {
+			LogSerialiser.log("Unable to write the phase metrics to " + metricsFile + "\n", LogSerialiser.LogLevel.Critical);
+		}
+		LogSerialiser.log("Phase latencies of sequence " + sequenceCount + ": " + phaseMetrics.summary() + "\n", LogSerialiser.LogLevel.Info);
+		phaseMetrics.reset();
+	}
+
 	/**
 	 * Wait until fragments have been written then close the test serialiser
 	 */
 	private void writeAndCloseFragmentForReplayableSequence() {
-	    //Wait since TestSerialiser and ScreenshotSerialiser write all fragments/src on sequence File
-	    while(!TestSerialiser.isSavingQueueEmpty() || !ScreenshotSerialiser.isSavingQueueEmpty()) {
-	        synchronized (this) {
-	            try {
-	                this.wait(1000);
-	            } catch (InterruptedException e) {
-	                e.printStackTrace();
-	            }
-	        }
-	    }
+	    //Stop accepting fragments/screenshots and wait until the last ones have been written on sequence File
+	    CompletableFuture.allOf(ScreenshotSerialiser.finish(), TestSerialiser.finish()).join();
 
 	    //closing ScreenshotSerialiser and TestSerialiser
-	    ScreenshotSerialiser.finish();
 	    ScreenshotSerialiser.exit();
-	    TestSerialiser.finish();
 	    TestSerialiser.exit();
 
 	    LogSerialiser.log("Wrote fragment to sequence file!\n", LogSerialiser.LogLevel.Debug);
+	    if (settleTimeCount > 0) {
+	        LogSerialiser.log("SUT settled after " + settleTimeCount + " actions in " + settleTimeTotal / settleTimeCount
+	                + " ms on average, " + settleTimeMax + " ms at most\n", LogSerialiser.LogLevel.Info);
+	        settleTimeCount = 0; settleTimeTotal = 0; settleTimeMax = 0;
+	    }
 	    LogSerialiser.log("Sequence " + sequenceCount + " finished.\n", LogSerialiser.LogLevel.Info);
 	}
 
@@ -1165,10 +1223,7 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 	 * Read the replayable file, repeat saved actions and generate new sequences, oracles and logs
 	 */
 	protected void runReplayLoop(){
-	    FileInputStream fis = null;
-	    BufferedInputStream bis = null;
-	    GZIPInputStream gis = null;
-	    ObjectInputStream ois = null;
+	    SequenceReader reader = null;
 
 	    actionCount = 1;
 	    boolean success = true;
@@ -1192,10 +1247,7 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 	    try{
 	        File seqFile = new File(settings.get(ConfigTags.PathToReplaySequence));
 
-	        fis = new FileInputStream(seqFile);
-	        bis = new BufferedInputStream(fis);
-	        gis = new GZIPInputStream(bis);
-	        ois = new ObjectInputStream(gis);
+	        reader = SequenceReader.open(seqFile);
 
 	        /**
 	         * Initialize the fragment to create a new sequence and logs
@@ -1221,20 +1273,19 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 	            Taggable replayableFragment;
 	            Action actionToReplay;
 	            try {
-	                replayableFragment = (Taggable) ois.readObject();
-	                actionToReplay = replayableFragment.get(ExecutedAction); 
-	            } catch(IOException ioe){
-	                // Check if exception thrown because we finished replaying data
-	                if(fis.available() <= 0) {
+	                replayableFragment = reader.read();
+	                // Check if we finished replaying data
+	                if(replayableFragment == null) {
 	                    success = true;
 	                    break;
-	                } else {
-	                    success = false;
-	                    String msg = "Exception " + ioe.getMessage() + " reading TESTAR replayableFragment: " + seqFile;
-	                    setReplayVerdict(new Verdict(Verdict.SEVERITY_UNREPLAYABLE, msg));
-	                    stateModelManager.notifyTestSequenceInterruptedBySystem(ioe.toString());
-	                    break;
 	                }
+	                actionToReplay = replayableFragment.get(ExecutedAction); 
+	            } catch(IOException ioe){
+	                success = false;
+	                String msg = "Exception " + ioe.getMessage() + " reading TESTAR replayableFragment: " + seqFile;
+	                setReplayVerdict(new Verdict(Verdict.SEVERITY_UNREPLAYABLE, msg));
+	                stateModelManager.notifyTestSequenceInterruptedBySystem(ioe.toString());
+	                break;
 	            } catch(NullPointerException npe) {
 	                success = false;
 	                String msg = "Null exception replaying TESTAR action";
@@ -1358,17 +1409,8 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 	    } catch (ClassNotFoundException cnfe) {
 	        throw new RuntimeException("Cannot read file.", cnfe);
 	    } finally {
-	        if (ois != null){
-	            try { ois.close(); } catch (IOException e) { e.printStackTrace(); }
-	        }
-	        if (gis != null){
-	            try { gis.close(); } catch (IOException e) { e.printStackTrace(); }
-	        }
-	        if (bis != null){
-	            try { bis.close(); } catch (IOException e) { e.printStackTrace(); }
-	        }
-	        if (fis != null){
-	            try { fis.close(); } catch (IOException e) { e.printStackTrace(); }
+	        if (reader != null){
+	            try { reader.close(); } catch (IOException e) { e.printStackTrace(); }
 	        }
 	        if (cv != null)
 	            cv.release();
@@ -1497,20 +1539,31 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 	@Override
 	protected State getState(SUT system) throws StateBuildException {
 		Assert.notNull(system);
+		long phaseStart = System.nanoTime();
 		State state = builder.apply(system);
+		phaseMetrics.record("buildState", phaseStart);
+		phaseMetrics.increment("states");
 
+		phaseStart = System.nanoTime();
 		buildStateIdentifiers(state);
+		phaseMetrics.record("buildIDs", phaseStart);
+		phaseStart = System.nanoTime();
 		state = ProtocolUtil.calculateZIndices(state);
+		phaseMetrics.record("calculateZIndices", phaseStart);
 		
 		setStateForClickFilterLayerProtocol(state);
 
 		if(settings.get(ConfigTags.Mode) == Modes.Spy)
 			return state;
 		
+		phaseStart = System.nanoTime();
 		Verdict verdict = getVerdict(state);
 		state.set(Tags.OracleVerdict, verdict);
+		phaseMetrics.record("getVerdict", phaseStart);
 
+		phaseStart = System.nanoTime();
 		setStateScreenshot(state);
+		phaseMetrics.record("stateshot", phaseStart);
 
 		if (mode() != Modes.Spy && verdict.severity() >= settings().get(ConfigTags.FaultThreshold)){
 			faultySequence = true;
@@ -1545,6 +1598,15 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 				state.set(Tags.ScreenshotPath, ProtocolUtil.getStateshot(state, actionCount));
 			}
 		}
+
+		// the state can outlive its screenshot for a long time, the canvas is only kept until the state model has its PNG
+		StateScreenshot screenshot = state.get(Tags.StateScreenshot, null);
+		if(screenshot != null){
+			if(settings.get(ConfigTags.StateModelEnabled, false))
+				screenshot.png();
+			else
+				screenshot.release();
+		}
 	}
 
 	@Override
@@ -1566,8 +1628,8 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 		// ORACLES ALMOST FOR FREE
 		//------------------------
 
-		if (this.suspiciousTitlesPattern == null)
-			this.suspiciousTitlesPattern = Pattern.compile(settings().get(ConfigTags.SuspiciousTitles), Pattern.UNICODE_CHARACTER_CLASS);
+		if (this.suspiciousTitlesPattern == null || !this.suspiciousTitlesPattern.isFor(settings().get(ConfigTags.TagsForSuspiciousOracle), settings().get(ConfigTags.SuspiciousTitles)))
+			this.suspiciousTitlesPattern = new TagValuePattern(settings().get(ConfigTags.TagsForSuspiciousOracle), settings().get(ConfigTags.SuspiciousTitles));
 
 		// search all widgets for suspicious String Values
 		Verdict suspiciousValueVerdict = Verdict.OK;
@@ -1588,42 +1650,18 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 	}
 	
 	private Verdict suspiciousStringValueMatcher(Widget w) {
-		Matcher m;
-
-		for(String tagForSuspiciousOracle : settings.get(ConfigTags.TagsForSuspiciousOracle)){
-			String tagValue = "";
-			// First finding the Tag that matches the TagsToFilter string, then getting the value of that Tag:
-			for(Tag tag : w.tags()){
-				if(tag.name().equals(tagForSuspiciousOracle)){
-					tagValue = w.get(tag, "");
-					break;
-					//System.out.println("DEBUG: tag found, "+tagToFilter+"="+tagValue);
-				}
-			}
-
-			//Check whether the Tag value is empty or null
-			if (tagValue == null || tagValue.isEmpty())
-				continue; //no action
-
-			//Ignore value ValuePattern for UIAEdit widgets
-			if(tagValue.equals("ValuePattern") && w.get(Tags.Role, Roles.Widget).toString().equalsIgnoreCase("UIAEdit")) {
-				continue;
-			}
-
-			m = this.suspiciousTitlesMatchers.get(tagValue);
-			if (m == null){
-				m = this.suspiciousTitlesPattern.matcher(tagValue);
-				this.suspiciousTitlesMatchers.put(tagValue, m);
-			}
-
-			if (m.matches()){
-				Visualizer visualizer = Util.NullVisualizer;
-				// visualize the problematic widget, by marking it with a red box
-				if(w.get(Tags.Shape, null) != null)
-					visualizer = new ShapeVisualizer(RedPen, w.get(Tags.Shape), "Suspicious Title", 0.5, 0.5);
-				return new Verdict(Verdict.SEVERITY_SUSPICIOUS_TITLE,
-						"Discovered suspicious widget '" + tagForSuspiciousOracle + "' : '" + tagValue + "'.", visualizer);
-			}
+		// only the tags of TagsForSuspiciousOracle are requested from the widget
+		// Ignore value ValuePattern for UIAEdit widgets
+		Tag<?> tag = this.suspiciousTitlesPattern.find(w, (widget, tagValue) ->
+				tagValue.equals("ValuePattern") && widget.get(Tags.Role, Roles.Widget).toString().equalsIgnoreCase("UIAEdit"));
+
+		if (tag != null){
+			Visualizer visualizer = Util.NullVisualizer;
+			// visualize the problematic widget, by marking it with a red box
+			if(w.get(Tags.Shape, null) != null)
+				visualizer = new ShapeVisualizer(RedPen, w.get(Tags.Shape), "Suspicious Title", 0.5, 0.5);
+			return new Verdict(Verdict.SEVERITY_SUSPICIOUS_TITLE,
+					"Discovered suspicious widget '" + tag.name() + "' : '" + TagValuePattern.valueOf(w, tag) + "'.", visualizer);
 		}
 		return Verdict.OK;
 	}
@@ -1721,11 +1759,57 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 		return null;
 	}
 
-	final static double MAX_ACTION_WAIT_FRAME = 1.0; // (seconds)
-	//TODO move the CPU metric to another helper class that is not default "TrashBinCode" or "SUTprofiler"
+	final static double MAX_ACTION_WAIT_FRAME = CpuSettleStrategy.MAX_ACTION_WAIT_FRAME; // (seconds)
+
+	/**
+	 * Creates the strategy that decides how long to wait after an action, based on the SettleStrategy setting.
+	 * Protocols can override this to use a strategy that fits their SUT.
+	 *
+	 * @return the settle strategy
+	 */
+	protected SettleStrategy createSettleStrategy() {
+		String strategy = settings.get(ConfigTags.SettleStrategy, "cpu");
+		double timeout = settings.get(ConfigTags.SettleTimeout, 5.0);
+		switch (strategy.toLowerCase()) {
+		case "screenshot":
+			return new FingerprintSettleStrategy(new ScreenshotFingerprint(), ScreenshotFingerprint.POLL_INTERVAL,
+					ScreenshotFingerprint.STABLE_FINGERPRINTS, timeout);
+		case "dom":
+			return new FingerprintSettleStrategy(new WdMutationFingerprint(), timeout);
+		case "cpu":
+			return new CpuSettleStrategy();
+		default:
+			System.out.println("Unknown SettleStrategy " + strategy + ", using cpu");
+			return new CpuSettleStrategy();
+		}
+	}
+
+	/**
+	 * Executes the action and waits until the SUT has settled, according to the settle strategy.
+	 * The time it took the SUT to settle is logged.
+	 */
+	private void runAndSettle(SUT system, State state, Action action, double waitTime, double duration) {
+		if (settleStrategy == null) {
+			settleStrategy = createSettleStrategy();
+		}
+		settleStrategy.beforeAction(system, state, action, waitTime);
+		long start = System.nanoTime();
+		action.run(system, state, duration);
+		phaseMetrics.record("runAction", start);
+		start = System.nanoTime();
+		settleStrategy.afterAction(system, state, action, waitTime);
+		phaseMetrics.record("settle", start);
+		long settleTime = (System.nanoTime() - start) / 1000000;
+		settleTimeCount++;
+		settleTimeTotal += settleTime;
+		settleTimeMax = Math.max(settleTimeMax, settleTime);
+		LogSerialiser.log("SUT settled " + settleTime + " ms after the action\n", LogSerialiser.LogLevel.Debug);
+	}
+
 	//TODO check how well the CPU usage based waiting works
 	protected boolean executeAction(SUT system, State state, Action action){
 
+		long phaseStart = System.nanoTime();
 		if(NativeLinker.getPLATFORM_OS().contains(OperatingSystems.WEBDRIVER)){
 			//System.out.println("DEBUG: Using WebDriver specific action shot.");
 			WdProtocolUtil.getActionshot(state,action);
@@ -1733,22 +1817,12 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 			//System.out.println("DEBUG: normal action shot");
 			ProtocolUtil.getActionshot(state,action);
 		}
+		phaseMetrics.record("actionshot", phaseStart);
 		
 		double waitTime = settings.get(ConfigTags.TimeToWaitAfterAction);
 
 		try{
-			double halfWait = waitTime == 0 ? 0.01 : waitTime / 2.0; // seconds
-			Util.pause(halfWait); // help for a better match of the state' actions visualization
-			action.run(system, state, settings.get(ConfigTags.ActionDuration));
-			int waitCycles = (int) (MAX_ACTION_WAIT_FRAME / halfWait);
-			long actionCPU;
-			do {
-				long CPU1[] = NativeLinker.getCPUsage(system);
-				Util.pause(halfWait);
-				long CPU2[] = NativeLinker.getCPUsage(system);
-				actionCPU = ( CPU2[0] + CPU2[1] - CPU1[0] - CPU1[1] );
-				waitCycles--;
-			} while (actionCPU > 0 && waitCycles > 0);
+			runAndSettle(system, state, action, waitTime, settings.get(ConfigTags.ActionDuration));
 
 			//Save the executed action information into the logs
 			saveActionInfoInLogs(state, action, "ExecutedAction");
@@ -1785,18 +1859,7 @@ public class DefaultProtocol extends RuntimeControlsProtocol {
 		}
 
 		try{
-			double halfWait = actionWaitTime == 0 ? 0.01 : actionWaitTime / 2.0; // seconds
-			Util.pause(halfWait); // help for a better match of the state' actions visualization
-			action.run(system, state, actionDuration);
-			int waitCycles = (int) (MAX_ACTION_WAIT_FRAME / halfWait);
-			long actionCPU;
-			do {
-				long CPU1[] = NativeLinker.getCPUsage(system);
-				Util.pause(halfWait);
-				long CPU2[] = NativeLinker.getCPUsage(system);
-				actionCPU = ( CPU2[0] + CPU2[1] - CPU1[0] - CPU1[1] );
-				waitCycles--;
-			} while (actionCPU > 0 && waitCycles > 0);
+			runAndSettle(system, state, action, actionWaitTime, actionDuration);
 
 			//Save the replayed action information into the logs
 			saveActionInfoInLogs(state, action, "ReplayedAction");
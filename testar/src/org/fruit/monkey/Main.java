@@ -36,8 +36,10 @@ import es.upv.staq.testar.OperatingSystems;
 import es.upv.staq.testar.StateManagementTags;
 import es.upv.staq.testar.serialisation.LogSerialiser;
 import es.upv.staq.testar.serialisation.ScreenshotSerialiser;
+import es.upv.staq.testar.serialisation.SequenceFormat;
 import es.upv.staq.testar.serialisation.TestSerialiser;
 import org.fruit.*;
+import org.fruit.alayer.AWTCanvas;
 import org.fruit.alayer.Tag;
 
 import javax.swing.*;
@@ -428,6 +430,9 @@ public class Main {
 			defaults.add(Pair.from(PathToReplaySequence, tempDir));
 			defaults.add(Pair.from(ActionDuration, 0.1));
 			defaults.add(Pair.from(TimeToWaitAfterAction, 0.1));
+			defaults.add(Pair.from(SettleStrategy, "cpu"));
+			defaults.add(Pair.from(SettleTimeout, 5.0));
+			defaults.add(Pair.from(PhaseMetricsLogInterval, 0));
 			defaults.add(Pair.from(ExecuteActions, true));
 			defaults.add(Pair.from(DrawWidgetUnderCursor, false));
 			defaults.add(Pair.from(DrawWidgetInfo, true));
@@ -435,6 +440,10 @@ public class Main {
 			defaults.add(Pair.from(VisualizeSelectedAction, false));
 			defaults.add(Pair.from(SequenceLength, 10));
 			defaults.add(Pair.from(ReplayRetryTime, 30.0));
+			defaults.add(Pair.from(ReplayableSequenceFormat, SequenceFormat.FORMAT_LEGACY));
+			defaults.add(Pair.from(ScreenshotWriterThreads, 1));
+			defaults.add(Pair.from(ScreenshotFormat, AWTCanvas.StorageFormat.PNG.toString()));
+			defaults.add(Pair.from(ScreenshotScale, 1.0));
 			defaults.add(Pair.from(Sequences, 1));
 			defaults.add(Pair.from(MaxTime, 31536000.0));
 			defaults.add(Pair.from(StartupTime, 8.0));
@@ -468,6 +477,7 @@ public class Main {
 			defaults.add(Pair.from(StateScreenshotSimilarityThreshold, Float.MIN_VALUE)); // disabled
 			defaults.add(Pair.from(UnattendedTests, false)); // disabled
 			defaults.add(Pair.from(AccessBridgeEnabled, false)); // disabled
+			defaults.add(Pair.from(CompactTagStore, false));
 			defaults.add(Pair.from(SUTProcesses, ""));
 			defaults.add(Pair.from(StateModelEnabled, false));
 			defaults.add(Pair.from(DataStore, ""));
@@ -521,6 +531,8 @@ public class Main {
 				}
 			}));
 
+			defaults.add(Pair.from(StateIdHashing, CodingManager.ID_HASHING_COMPATIBLE));
+
 			defaults.add(Pair.from(ClickableClasses, new ArrayList<String>() {
 				{
 					add("v-menubar-menuitem");
@@ -564,6 +576,8 @@ public class Main {
 			defaults.add(Pair.from(FollowLinks, true));
 			defaults.add(Pair.from(BrowserFullScreen, true));
 			defaults.add(Pair.from(SwitchNewTabs, true));
+			defaults.add(Pair.from(CompactStateTransport, false));
+			defaults.add(Pair.from(IncrementalStateFetch, false));
 
 			/*
 			//TODO web driver settings for login feature
@@ -780,6 +794,9 @@ public class Main {
             Tag<?>[] abstractTags = settings.get(AbstractStateAttributes).stream().map(StateManagementTags::getTagFromSettingsString).filter(Objects::nonNull).toArray(Tag<?>[]::new);
             CodingManager.setCustomTagsForAbstractId(abstractTags);
         }
+
+        // and the way the state ids are hashed
+        CodingManager.setIdHashing(settings.get(ConfigTags.StateIdHashing));
     }
 
 	/**
@@ -41,14 +41,10 @@ import java.awt.Graphics;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.image.BufferedImage;
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
 
 import org.fruit.Assert;
 import org.fruit.Util;
@@ -71,11 +67,14 @@ import org.fruit.alayer.Widget;
 import org.fruit.alayer.actions.NOP;
 import org.fruit.alayer.visualizers.ShapeVisualizer;
 
+import es.upv.staq.testar.serialisation.SequenceFormat;
+import es.upv.staq.testar.serialisation.SequenceReader;
+
 
 public class SequenceViewer extends javax.swing.JFrame{
 
 	private static final long serialVersionUID = -7545369239319448135L;
-	ObjectInputStream stream;
+	SequenceReader stream;
 	BufferedImage buffer = new BufferedImage(1024, 768, BufferedImage.TYPE_INT_ARGB);
 	int stateCount;
 	
@@ -252,7 +251,8 @@ public class SequenceViewer extends javax.swing.JFrame{
 	public void movePic(Taggable fragment, int direction) throws IOException, ClassNotFoundException{
 		State state = fragment.get(Tags.SystemState, new StdState());
 
-		String scrshotPath = state.get(Tags.ScreenshotPath, null);
+		// fragments of compact sequence files contain the screenshot path instead of the state
+		String scrshotPath = fragment.get(Tags.ScreenshotPath, state.get(Tags.ScreenshotPath, null));
 		Image img = AWTCanvas.fromFile(scrshotPath);
 
 		if(img == null){
@@ -300,6 +300,19 @@ public class SequenceViewer extends javax.swing.JFrame{
 					v.run(state, cv, pen);
 				}
 			}
+		} else {
+			// the target shapes of compact sequence files are already relative to the SUT
+			List<Shape> targetShapes = fragment.get(SequenceFormat.TargetShapes, null);
+			if (targetShapes != null){
+				Pen pen = Pen.startFrom(Pen.PEN_DEFAULT)
+						.setColor(Color.Red)
+						.setFillPattern(FillPattern.Stroke)
+						.setStrokeWidth(2.0)
+						.build();
+				for (Shape vShape : targetShapes){
+					new ShapeVisualizer(pen, vShape, null, 0.0, 0.0).run(state, cv, pen);
+				}
+			}
 		}
 		Verdict verdict = fragment.get(Tags.OracleVerdict, null);
 		if (verdict != null){
@@ -343,10 +356,7 @@ public class SequenceViewer extends javax.swing.JFrame{
 	public void nextPic() throws IOException, ClassNotFoundException{
 		synchronized(cachedSequence){			
 			if(stream == null){
-				FileInputStream fis = new FileInputStream(new File(settings.get(PathToReplaySequence)));
-				//BufferedInputStream bis = new BufferedInputStream(fis);
-				BufferedInputStream bis = new BufferedInputStream(new GZIPInputStream(fis));
-				stream = new ObjectInputStream(bis);
+				stream = SequenceReader.open(new File(settings.get(PathToReplaySequence)));
 			}
 
 			Taggable fragment = null;
@@ -356,7 +366,9 @@ public class SequenceViewer extends javax.swing.JFrame{
 			else {
 				//This try catch is used for the case of reaching the end of the fragment
 				try{
-					fragment = (Taggable) stream.readObject();
+					fragment = stream.read();
+					if (fragment == null)
+						return;
 					cachedSequence.add(fragment);
 				} catch (IOException ioe){ return; }
 			}
@@ -369,10 +381,7 @@ public class SequenceViewer extends javax.swing.JFrame{
 	public void endPic() throws IOException, ClassNotFoundException{
 		synchronized(cachedSequence){		
 			if(stream == null){
-				FileInputStream fis = new FileInputStream(new File(settings.get(PathToReplaySequence)));
-				//BufferedInputStream bis = new BufferedInputStream(fis);
-				BufferedInputStream bis = new BufferedInputStream(new GZIPInputStream(fis));
-				stream = new ObjectInputStream(bis);
+				stream = SequenceReader.open(new File(settings.get(PathToReplaySequence)));
 			}
 
 			int steps = cachedSequence.size() - sequenceViewIndex - 1;
@@ -382,15 +391,15 @@ public class SequenceViewer extends javax.swing.JFrame{
 			
 			//This try catch is used for the case of reaching the end of the fragment
 			try{
-				do{
-					fragment = (Taggable) stream.readObject();
+				Taggable next;
+				while((next = stream.read()) != null){ // til end of file
+					fragment = next;
 					cachedSequence.add(fragment);
 					steps++;
 					sequenceViewIndex++;
-				}while(true); // til end of file
-			} catch (IOException ioe) { // end of file reached?
-				movePic(fragment == null ? cachedSequence.get(sequenceViewIndex) : fragment, steps);
-			}		
+				}
+			} catch (IOException ioe) {} // unreadable remainder, show what we have
+			movePic(fragment == null ? cachedSequence.get(sequenceViewIndex) : fragment, steps);		
 		}
 	}	
 
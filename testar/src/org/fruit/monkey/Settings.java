@@ -316,6 +316,15 @@ public class Settings extends TaggableBase implements Serializable {
 					+"AccessBridgeEnabled = " + Util.lineSep()
 					+"\n"
 					+"#################################################################\n"
+					+"# Widget tag storage\n"
+					+"#\n"
+					+"# CompactTagStore stores the tags of the widgets (Windows and webdriver)\n"
+					+"# in compact arrays instead of hash maps, which needs less memory for big states\n"
+					+"#################################################################\n"
+					+"\n"
+					+"CompactTagStore = " + Util.lineSep()
+					+"\n"
+					+"#################################################################\n"
 					+"# Sequences\n"
 					+"#\n"
 					+"# Number of sequences and the length of these sequences\n"
@@ -325,6 +334,42 @@ public class Settings extends TaggableBase implements Serializable {
 					+"SequenceLength = " + Util.lineSep()
 					+"\n"
 					+"#################################################################\n"
+					+"# Waiting after actions\n"
+					+"#\n"
+					+"# SettleStrategy decides how long to wait for the SUT after an action:\n"
+					+"# cpu (default) waits until the SUT process stops using CPU time,\n"
+					+"# screenshot until the screen of the SUT stops changing and\n"
+					+"# dom (webdriver) until the DOM of the page stops changing.\n"
+					+"# SettleTimeout is the maximum wait in seconds for screenshot and dom.\n"
+					+"#################################################################\n"
+					+"\n"
+					+"SettleStrategy = " + Util.lineSep()
+					+"SettleTimeout = " + Util.lineSep()
+					+"\n"
+					+"#################################################################\n"
+					+"# Phase metrics\n"
+					+"#\n"
+					+"# The latencies of the phases of every step are written per sequence\n"
+					+"# to logs/metrics. PhaseMetricsLogInterval logs a summary every\n"
+					+"# given number of actions (0 = only at the end of the sequence).\n"
+					+"#################################################################\n"
+					+"\n"
+					+"PhaseMetricsLogInterval = " + Util.lineSep()
+					+"\n"
+					+"#################################################################\n"
+					+"# Screenshots\n"
+					+"#\n"
+					+"# ScreenshotFormat can be PNG (default), PNG_FAST, JPEG or BMP.\n"
+					+"# PNG_FAST is lossless and much faster to encode than PNG.\n"
+					+"# ScreenshotScale resizes the screenshots, e.g. 0.5 for half the size.\n"
+					+"# ScreenshotWriterThreads is the number of threads that encode them.\n"
+					+"#################################################################\n"
+					+"\n"
+					+"ScreenshotFormat = " + Util.lineSep()
+					+"ScreenshotScale = " + Util.lineSep()
+					+"ScreenshotWriterThreads = " + Util.lineSep()
+					+"\n"
+					+"#################################################################\n"
 					+"# Oracles based on suspicious titles\n"
 					+"#\n"
 					+"# Regular expression and Tags to apply them\n"
@@ -412,8 +457,11 @@ public class Settings extends TaggableBase implements Serializable {
 					+"#\n"
 					+"# Specify the widget attributes that you wish to use in constructing\n"
 					+"# the widget and state hash strings. Use a comma separated list.\n"
+					+"# StateIdHashing can be compatible (default) or streaming, which is\n"
+					+"# faster for large widget trees but produces different ids.\n"
 					+"#################################################################\n"
 					+"AbstractStateAttributes = " + Util.lineSep()
+					+"StateIdHashing = " + Util.lineSep()
 					+"\n"
 					+"#################################################################\n"
 					+"# WebDriver features\n"
@@ -425,6 +473,8 @@ public class Settings extends TaggableBase implements Serializable {
 					+"FollowLinks = " + Util.lineSep()
 					+"BrowserFullScreen = " + Util.lineSep()
 					+"SwitchNewTabs = " + Util.lineSep()
+					+"CompactStateTransport = " + Util.lineSep()
+					+"IncrementalStateFetch = " + Util.lineSep()
 					+"\n"
 					+"#################################################################\n"
 					+"# Reinforcement learning settings\n"
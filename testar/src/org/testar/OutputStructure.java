@@ -57,6 +57,7 @@ public class OutputStructure {
 	public static String logsOutputDir;
 	public static String debugLogsOutputDir;
 	public static String processListenerDir;
+	public static String metricsOutputDir;
 
 	public static void calculateOuterLoopDateString() {
 		startOuterLoopDateString = "";
@@ -163,6 +164,11 @@ public class OutputStructure {
 		File procListDir = new File(processListenerDir);
 		if(!procListDir.exists())
 			procListDir.mkdirs();
+
+		metricsOutputDir = logsOutputDir + File.separator + "metrics";
+		File metricsDir = new File(metricsOutputDir);
+		if(!metricsDir.exists())
+			metricsDir.mkdirs();
 	}
 
 }
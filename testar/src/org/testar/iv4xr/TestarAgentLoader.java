@@ -100,6 +100,9 @@ public class TestarAgentLoader {
 			Tag<?>[] abstractTags = settings.get(ConfigTags.AbstractStateAttributes).stream().map(StateManagementTags::getTagFromSettingsString).filter(Objects::nonNull).toArray(Tag<?>[]::new);
 			CodingManager.setCustomTagsForAbstractId(abstractTags);
 		}
+
+		// and the way the state ids are hashed
+		CodingManager.setIdHashing(settings.get(ConfigTags.StateIdHashing));
 	}
 
 	/**
@@ -0,0 +1,175 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package org.testar.metrics;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import com.google.gson.GsonBuilder;
+
+/**
+ * Latencies of the phases of the TESTAR loop (getting the state, deriving actions, executing an action, ...)
+ * and counters of what happened during these phases, collected per test sequence.
+ *
+ * Typical use:
+ * <pre>
+ * long start = System.nanoTime();
+ * Set&lt;Action&gt; actions = deriveActions(system, state);
+ * phaseMetrics.record("deriveActions", start);
+ * </pre>
+ * Phases and counters are reported in the order in which they were first used.
+ * The class is not thread safe, it is meant to be used from the thread that runs the protocol.
+ */
+public class PhaseMetrics {
+
+	private static final double[] PERCENTILES = {50, 90, 99};
+
+	private final Map<String, LatencyHistogram> phases = new LinkedHashMap<>();
+	private final Map<String, Long> counters = new LinkedHashMap<>();
+
+	/**
+	 * Records the latency of a phase that started at the given time.
+	 * @param phase The name of the phase.
+	 * @param startNanos The value of System.nanoTime() when the phase started.
+	 */
+	public void record(String phase, long startNanos) {
+		recordNanos(phase, System.nanoTime() - startNanos);
+	}
+
+	public void recordNanos(String phase, long nanos) {
+		LatencyHistogram histogram = phases.get(phase);
+		if (histogram == null) {
+			histogram = new LatencyHistogram();
+			phases.put(phase, histogram);
+		}
+		histogram.record(nanos);
+	}
+
+	public void increment(String counter) {
+		add(counter, 1);
+	}
+
+	public void add(String counter, long amount) {
+		counters.merge(counter, amount, Long::sum);
+	}
+
+	/**
+	 * @return The histogram of the phase, or null if the phase was not recorded.
+	 */
+	public LatencyHistogram getPhase(String phase) {
+		return phases.get(phase);
+	}
+
+	public long getCounter(String counter) {
+		return counters.getOrDefault(counter, 0L);
+	}
+
+	public void reset() {
+		phases.clear();
+		counters.clear();
+	}
+
+	/**
+	 * @return A one line summary of the mean and the 99th percentile of every phase, in milliseconds.
+	 */
+	public String summary() {
+		StringBuilder summary = new StringBuilder();
+		for (Map.Entry<String, LatencyHistogram> phase : phases.entrySet()) {
+			if (summary.length() > 0) {
+				summary.append(", ");
+			}
+			summary.append(String.format(Locale.ROOT, "%s %.1f/%.1f ms", phase.getKey(),
+					millis(phase.getValue().getMean()), millis(phase.getValue().getValueAtPercentile(99))));
+		}
+		return summary.append(" (mean/p99)").toString();
+	}
+
+	/**
+	 * Writes one line per phase with the count, the total, the mean, the percentiles and the maximum in milliseconds,
+	 * followed by one line per counter.
+	 */
+	public void writeCsv(File file) throws IOException {
+		try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+			writer.println("phase;count;total_ms;mean_ms;min_ms;p50_ms;p90_ms;p99_ms;max_ms");
+			for (Map.Entry<String, LatencyHistogram> phase : phases.entrySet()) {
+				LatencyHistogram histogram = phase.getValue();
+				writer.print(phase.getKey() + ";" + histogram.getCount());
+				writer.print(format(histogram.getTotal()) + format(histogram.getMean()) + format(histogram.getMin()));
+				for (double percentile : PERCENTILES) {
+					writer.print(format(histogram.getValueAtPercentile(percentile)));
+				}
+				writer.println(format(histogram.getMax()));
+			}
+			writer.println();
+			writer.println("counter;value");
+			for (Map.Entry<String, Long> counter : counters.entrySet()) {
+				writer.println(counter.getKey() + ";" + counter.getValue());
+			}
+		}
+	}
+
+	public void writeJson(File file) throws IOException {
+		Map<String, Object> json = new LinkedHashMap<>();
+		Map<String, Object> phasesJson = new LinkedHashMap<>();
+		for (Map.Entry<String, LatencyHistogram> phase : phases.entrySet()) {
+			LatencyHistogram histogram = phase.getValue();
+			Map<String, Object> phaseJson = new LinkedHashMap<>();
+			phaseJson.put("count", histogram.getCount());
+			phaseJson.put("total_ms", millis(histogram.getTotal()));
+			phaseJson.put("mean_ms", millis(histogram.getMean()));
+			phaseJson.put("min_ms", millis(histogram.getMin()));
+			for (double percentile : PERCENTILES) {
+				phaseJson.put("p" + (int) percentile + "_ms", millis(histogram.getValueAtPercentile(percentile)));
+			}
+			phaseJson.put("max_ms", millis(histogram.getMax()));
+			phasesJson.put(phase.getKey(), phaseJson);
+		}
+		json.put("phases", phasesJson);
+		json.put("counters", counters);
+		try (FileWriter writer = new FileWriter(file)) {
+			new GsonBuilder().setPrettyPrinting().create().toJson(json, writer);
+		}
+	}
+
+	private static double millis(double nanos) {
+		return Math.round(nanos / 1000.0) / 1000.0;
+	}
+
+	private static String format(double nanos) {
+		return String.format(Locale.ROOT, ";%.3f", nanos / 1000000.0);
+	}
+}
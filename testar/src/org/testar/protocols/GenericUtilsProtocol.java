@@ -48,8 +48,6 @@ import org.fruit.monkey.ConfigTags;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class GenericUtilsProtocol extends ClickFilterLayerProtocol {
 
@@ -402,43 +400,15 @@ public class GenericUtilsProtocol extends ClickFilterLayerProtocol {
         if(!Util.hitTest(w, 0.5, 0.5))
             return false;
 
-        Boolean isFiltered = false;
+        //If no clickFilterPattern exists, then create it
+        //Get the clickFilterPattern from the regular expression provided by the tester in the Dialog
+        if (this.clickFilterPattern == null || !this.clickFilterPattern.isFor(settings.get(ConfigTags.TagsToFilter), settings().get(ConfigTags.ClickFilter)))
+            this.clickFilterPattern = new TagValuePattern(settings.get(ConfigTags.TagsToFilter), settings().get(ConfigTags.ClickFilter));
 
-        for(String tagToFilter : settings.get(ConfigTags.TagsToFilter)){
-            String tagValue = "";
-            // First finding the Tag that matches the TagsToFilter string, then getting the value of that Tag:
-            for(Tag tag : w.tags()){
-                if(tag.name().equals(tagToFilter)){
-                    tagValue = w.get(tag, "");
-                    break;
-                    //System.out.println("DEBUG: tag found, "+tagToFilter+"="+tagValue);
-                }
-            }
-
-            //Check whether the Tag value is empty or null
-            //If it is, it is unfiltered
-            //Because it cannot match the regular expression of the Action Filter.
-            if (tagValue == null || tagValue.isEmpty())
-                continue; //no action, isFiltered is still false (cannot return directly if other Tags are checked)
-
-            //If no clickFilterPattern exists, then create it
-            //Get the clickFilterPattern from the regular expression provided by the tester in the Dialog
-            if (this.clickFilterPattern == null)
-                this.clickFilterPattern = Pattern.compile(settings().get(ConfigTags.ClickFilter), Pattern.UNICODE_CHARACTER_CLASS);
-
-            //Check whether the title matches any of the clickFilterPatterns
-            Matcher m = this.clickFilterMatchers.get(tagValue);
-            if (m == null){
-                m = this.clickFilterPattern.matcher(tagValue);
-                this.clickFilterMatchers.put(tagValue, m);
-            }
-            isFiltered = m.matches();
-            // if filtered, no need to check if it should be filtered multiple times:
-            if(isFiltered) return(!isFiltered); //method is for is-UN-filtered
-
-        }
+        //Only the Tags of TagsToFilter are requested from the widget. Empty or null values cannot match the
+        //regular expression of the Action Filter, so the widget is filtered if any of the other values matches
         //method is for is-UN-filtered
-        return !isFiltered;
+        return this.clickFilterPattern.find(w) == null;
     }
 
     /**
@@ -139,6 +139,12 @@ public class WebdriverProtocol extends GenericUtilsProtocol {
 		//Force webdriver to switch to a new tab if opened
 		//This feature can block the correct display of select dropdown elements 
 		WdDriver.forceActivateTab = settings.get(ConfigTags.SwitchNewTabs);
+
+		//Fetch the widget tree as columns and a string table, faster for large pages
+		WdDriver.compactStateTransport = settings.get(ConfigTags.CompactStateTransport);
+
+		//Only fetch the parts of the widget tree that changed since the previous state
+		WdDriver.incrementalStateFetch = settings.get(ConfigTags.IncrementalStateFetch);
 	}
 	
     /**
@@ -324,6 +324,11 @@ public class SEProtocol extends iv4xrProtocol {
 			SpatialAccumulativeMap.extractAccumulativeActionStepSpatialCoverage(actionCount);
 
 			return false;
+		} finally {
+			// The action changed the game, the observations of the state are no longer valid
+			if(system.get(IV4XRtags.iv4xrSeObservation, null) != null) {
+				system.get(IV4XRtags.iv4xrSeObservation).invalidate();
+			}
 		}
 	}
 
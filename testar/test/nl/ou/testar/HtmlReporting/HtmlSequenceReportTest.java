@@ -0,0 +1,93 @@
+package nl.ou.testar.HtmlReporting;
+
+import es.upv.staq.testar.serialisation.ScreenshotSerialiser;
+import org.fruit.alayer.AWTCanvas;
+import org.fruit.alayer.StdState;
+import org.fruit.alayer.Tags;
+import org.fruit.alayer.actions.NOP;
+import org.junit.Test;
+import org.testar.OutputStructure;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HtmlSequenceReportTest {
+
+    private AWTCanvas createScreenshot(int color) {
+        AWTCanvas canvas = new AWTCanvas(0, 0, 20, 10);
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 20; x++) {
+                canvas.image().setRGB(x, y, 0xFF000000 | color);
+            }
+        }
+        return canvas;
+    }
+
+    private NOP action(String concreteId) {
+        NOP action = new NOP();
+        action.set(Tags.ConcreteIDCustom, concreteId);
+        return action;
+    }
+
+    @Test
+    public void addSelectedAction_linksTheIdenticalActionshot_whenTheActionshotIsSavedAfterwards() throws IOException {
+        // given
+        File outputFolder = Files.createTempDirectory("report").toFile();
+        OutputStructure.htmlOutputDir = outputFolder.getPath();
+        OutputStructure.startInnerLoopDateString = "date";
+        OutputStructure.executedSUTname = "sut";
+        OutputStructure.sequenceInnerLoopCount = 1;
+        ScreenshotSerialiser.start(outputFolder.getPath(), "sequence_1", 1);
+        StdState state = new StdState();
+        state.set(Tags.ConcreteIDCustom, "state");
+        String stored = ScreenshotSerialiser.saveActionshot("state", "first", createScreenshot(0x336699));
+        HtmlSequenceReport report = new HtmlSequenceReport();
+
+        // when
+        report.addSelectedAction(state, action("second"));
+        ScreenshotSerialiser.saveActionshot("state", "second", createScreenshot(0x336699));
+        report.close();
+        ScreenshotSerialiser.exit();
+
+        // then
+        List<String> images = Files.readAllLines(new File(outputFolder, "date_sut_sequence_1.html").toPath(), StandardCharsets.UTF_8)
+                .stream().filter(line -> line.contains("<img")).collect(Collectors.toList());
+        assertEquals(1, images.size());
+        assertEquals("<p><img src=\"" + stored + "\"></p>", images.get(0));
+    }
+
+    @Test
+    public void close_linksTheActionshotInTheSequenceFolder_whenTheScreenshotsWereFinishedBefore() throws IOException {
+        // given
+        File outputFolder = Files.createTempDirectory("report").toFile();
+        OutputStructure.htmlOutputDir = outputFolder.getPath();
+        OutputStructure.startInnerLoopDateString = "date";
+        OutputStructure.executedSUTname = "sut";
+        OutputStructure.sequenceInnerLoopCount = 1;
+        ScreenshotSerialiser.start(outputFolder.getPath(), "sequence_1", 1);
+        StdState state = new StdState();
+        state.set(Tags.ConcreteIDCustom, "state");
+        HtmlSequenceReport report = new HtmlSequenceReport();
+
+        // when
+        report.addSelectedAction(state, action("first"));
+        String stored = ScreenshotSerialiser.saveActionshot("state", "first", createScreenshot(0x336699));
+        // the protocol finishes the screenshots of the sequence before it closes the report
+        ScreenshotSerialiser.exit();
+        report.close();
+
+        // then
+        List<String> images = Files.readAllLines(new File(outputFolder, "date_sut_sequence_1.html").toPath(), StandardCharsets.UTF_8)
+                .stream().filter(line -> line.contains("<img")).collect(Collectors.toList());
+        assertEquals(1, images.size());
+        assertEquals("<p><img src=\"" + stored + "\"></p>", images.get(0));
+        assertTrue(stored.contains("sequence_1"));
+    }
+}
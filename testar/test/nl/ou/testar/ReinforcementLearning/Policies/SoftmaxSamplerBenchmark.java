@@ -0,0 +1,89 @@
+package nl.ou.testar.ReinforcementLearning.Policies;
+
+import nl.ou.testar.ReinforcementLearning.QFunctions.QTable;
+import nl.ou.testar.ReinforcementLearning.RLTags;
+import nl.ou.testar.StateModel.AbstractAction;
+import nl.ou.testar.StateModel.AbstractState;
+import org.apache.commons.math3.distribution.EnumeratedDistribution;
+import org.apache.commons.math3.util.Pair;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Boltzmann action selection the way the policy used to do it, computing the exponentials of the
+ * attributes and building an enumerated distribution every step, with the {@link SoftmaxSampler}. The sampler is
+ * measured with unchanged Q-values, when it reuses the alias table of the state, and with one updated Q-value per
+ * step, when it rebuilds the alias table, and with a temperature that decays every step, when it samples from the
+ * cumulative distribution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class SoftmaxSamplerBenchmark {
+
+    private static final float TEMPERATURE = 0.7f;
+
+    @Param({"50", "500"})
+    public int nrOfActions;
+
+    private List<AbstractAction> actionList;
+    private Set<AbstractAction> actions;
+    private QTable qTable;
+    private SoftmaxSampler sampler;
+    private Random random;
+    private float temperature;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new Random(3);
+        actions = new HashSet<>();
+        for (int a = 0; a < nrOfActions; a++) {
+            final AbstractAction action = new AbstractAction("s-a" + a);
+            action.addAttribute(RLTags.SarsaValue, random.nextFloat());
+            actions.add(action);
+        }
+        actionList = new ArrayList<>(actions);
+        qTable = new QTable(RLTags.SarsaValue, 0f);
+        qTable.register(new AbstractState("s", actions));
+        sampler = new SoftmaxSampler(qTable);
+        temperature = TEMPERATURE;
+    }
+
+    @Benchmark
+    public AbstractAction enumeratedDistribution() {
+        final double sum = actions.stream()
+                .mapToDouble(action -> Math.exp(action.getAttributes().get(RLTags.SarsaValue, 0f) / TEMPERATURE))
+                .sum();
+        final List<Pair<AbstractAction, Double>> probabilities = new ArrayList<>();
+        actions.forEach(action -> probabilities.add(
+                new Pair<>(action, Math.exp(action.getAttributes().get(RLTags.SarsaValue, 0f) / TEMPERATURE) / sum)));
+        return new EnumeratedDistribution<>(probabilities).sample();
+    }
+
+    @Benchmark
+    public AbstractAction softmaxSampler() {
+        return sampler.sample(actions, TEMPERATURE);
+    }
+
+    @Benchmark
+    public AbstractAction softmaxSamplerAfterUpdate() {
+        qTable.setQValue(actionList.get(random.nextInt(nrOfActions)), random.nextFloat());
+        return sampler.sample(actions, TEMPERATURE);
+    }
+
+    @Benchmark
+    public AbstractAction softmaxSamplerDecayingTemperature() {
+        // starts again before the temperature gets close to zero
+        temperature = temperature < 0.1f ? TEMPERATURE : temperature * 0.9999f;
+        return sampler.sample(actions, temperature);
+    }
+}
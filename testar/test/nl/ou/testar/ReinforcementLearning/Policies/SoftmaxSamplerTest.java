@@ -0,0 +1,158 @@
+package nl.ou.testar.ReinforcementLearning.Policies;
+
+import nl.ou.testar.ReinforcementLearning.QFunctions.QTable;
+import nl.ou.testar.ReinforcementLearning.RLTags;
+import nl.ou.testar.StateModel.AbstractAction;
+import nl.ou.testar.StateModel.AbstractState;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SoftmaxSamplerTest {
+
+    private static final int NR_OF_SAMPLES = 100_000;
+
+    private final QTable qTable = new QTable(RLTags.SarsaValue, 0f);
+    private final SoftmaxSampler sampler = new SoftmaxSampler(qTable);
+
+    private Set<AbstractAction> actions(final float... qValues) {
+        final Set<AbstractAction> actions = new HashSet<>();
+        for (int i = 0; i < qValues.length; i++) {
+            final AbstractAction action = new AbstractAction("a" + i);
+            action.addAttribute(RLTags.SarsaValue, qValues[i]);
+            actions.add(action);
+        }
+        return actions;
+    }
+
+    private Map<String, Integer> sample(final Set<AbstractAction> actions, final float temperature) {
+        final Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < NR_OF_SAMPLES; i++) {
+            counts.merge(sampler.sample(actions, temperature).getActionId(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private void assertBoltzmannDistribution(final Map<String, Integer> counts, final float temperature, final float... qValues) {
+        double sum = 0;
+        for (final float qValue : qValues) {
+            sum += Math.exp(qValue / temperature);
+        }
+        for (int i = 0; i < qValues.length; i++) {
+            final double expected = Math.exp(qValues[i] / temperature) / sum;
+            assertEquals(expected, counts.getOrDefault("a" + i, 0) / (double) NR_OF_SAMPLES, 0.01);
+        }
+    }
+
+    @Test
+    public void sample_followsTheBoltzmannDistribution_forTheActionsOfARegisteredState() {
+        // given
+        final Set<AbstractAction> actions = actions(0f, 1f, 2f, 0.5f);
+        qTable.register(new AbstractState("s1", actions));
+
+        // when
+        final Map<String, Integer> counts = sample(actions, 1.0f);
+
+        // then
+        assertBoltzmannDistribution(counts, 1.0f, 0f, 1f, 2f, 0.5f);
+    }
+
+    @Test
+    public void sample_followsTheBoltzmannDistribution_forActionsThatAreNotRegistered() {
+        // given
+        final Set<AbstractAction> actions = actions(0f, 1f, 2f, 0.5f);
+
+        // when
+        final Map<String, Integer> counts = sample(actions, 0.7f);
+
+        // then
+        assertBoltzmannDistribution(counts, 0.7f, 0f, 1f, 2f, 0.5f);
+    }
+
+    @Test
+    public void sample_followsTheChangedQValues_ofARegisteredState() {
+        // given
+        final Set<AbstractAction> actions = actions(0f, 1f);
+        qTable.register(new AbstractState("s1", actions));
+        sample(actions, 1.0f);
+
+        // when
+        for (final AbstractAction action : actions) {
+            qTable.setQValue(action, action.getActionId().equals("a0") ? 2f : 0f);
+        }
+        final Map<String, Integer> counts = sample(actions, 1.0f);
+
+        // then
+        assertBoltzmannDistribution(counts, 1.0f, 2f, 0f);
+    }
+
+    @Test
+    public void sample_selectsTheMaxQValue_whenTheExponentialsWouldOverflow() {
+        // given
+        final Set<AbstractAction> actions = actions(1000f, 2000f);
+        qTable.register(new AbstractState("s1", actions));
+
+        // when
+        final AbstractAction selectedAction = sampler.sample(actions, 0.01f);
+
+        // then
+        assertEquals("a1", selectedAction.getActionId());
+    }
+
+    @Test
+    public void sample_returnsTheGivenInstances_whenTheStateWasRegisteredWithOtherInstances() {
+        // given
+        qTable.register(new AbstractState("s1", actions(0f, 1f, 2f)));
+        final Set<AbstractAction> actions = actions(0f, 1f, 2f);
+        final Set<AbstractAction> selectedActions = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            selectedActions.add(sampler.sample(actions, 1.0f));
+        }
+
+        // then
+        assertEquals(actions.size(), selectedActions.size());
+        for (final AbstractAction action : actions) {
+            assertTrue(selectedActions.contains(action));
+        }
+    }
+
+    @Test
+    public void sample_followsTheBoltzmannDistribution_whenTheTemperatureChangesEveryCall() {
+        // given
+        final Set<AbstractAction> actions = actions(0f, 1f, 2f, 0.5f);
+        qTable.register(new AbstractState("s1", actions));
+
+        // when
+        final Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < NR_OF_SAMPLES; i++) {
+            final float temperature = i % 2 == 0 ? 1.0f : 1.0f + Math.ulp(1.0f);
+            counts.merge(sampler.sample(actions, temperature).getActionId(), 1, Integer::sum);
+        }
+
+        // then
+        assertBoltzmannDistribution(counts, 1.0f, 0f, 1f, 2f, 0.5f);
+    }
+
+    @Test
+    public void sample_returnsNull_whenAnEmptySetIsProvided() {
+        // given
+        final Set<AbstractAction> actions = new HashSet<>();
+
+        // when
+        final AbstractAction selectedAction = sampler.sample(actions, 1.0f);
+
+        // then
+        assertNull(selectedAction);
+    }
+}
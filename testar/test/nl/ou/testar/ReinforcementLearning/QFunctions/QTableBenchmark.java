@@ -0,0 +1,86 @@
+package nl.ou.testar.ReinforcementLearning.QFunctions;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
+import nl.ou.testar.ReinforcementLearning.Policies.GreedyPolicy;
+import nl.ou.testar.ReinforcementLearning.Policies.Policy;
+import nl.ou.testar.ReinforcementLearning.RLTags;
+import nl.ou.testar.StateModel.AbstractAction;
+import nl.ou.testar.StateModel.AbstractState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading the Q-values from the attributes of the abstract actions, the way the Q-learning function and the
+ * greedy policy used to do, with reading them from the {@link QTable}. Every step one Q-value is updated, like the
+ * model manager does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class QTableBenchmark {
+
+    @Param({"50", "500"})
+    public int nrOfActions;
+
+    private AbstractState state;
+    private List<AbstractAction> actionList;
+    private Set<AbstractAction> actions;
+    private QTable qTable;
+    private Policy attributePolicy;
+    private Policy qTablePolicy;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new Random(3);
+        actions = new HashSet<>();
+        for (int a = 0; a < nrOfActions; a++) {
+            final AbstractAction action = new AbstractAction("s-a" + a);
+            action.addAttribute(RLTags.SarsaValue, random.nextFloat());
+            actions.add(action);
+        }
+        actionList = new ArrayList<>(actions);
+        state = new AbstractState("s", actions);
+        qTable = new QTable(RLTags.SarsaValue, 0f);
+        qTable.register(state);
+        attributePolicy = new GreedyPolicy<>(0f, RLTags.SarsaValue);
+        qTablePolicy = new GreedyPolicy<Float>(qTable);
+    }
+
+    @Benchmark
+    public float attributeMaxQValue() {
+        actionList.get(random.nextInt(nrOfActions)).addAttribute(RLTags.SarsaValue, random.nextFloat());
+        final Multimap<Float, AbstractAction> qValues = ArrayListMultimap.create();
+        actions.forEach(action -> qValues.put(action.getAttributes().get(RLTags.SarsaValue, 0f), action));
+        return Collections.max(qValues.keySet());
+    }
+
+    @Benchmark
+    public float qTableMaxQValue() {
+        qTable.setQValue(actionList.get(random.nextInt(nrOfActions)), random.nextFloat());
+        return qTable.getMaxQValue(state);
+    }
+
+    @Benchmark
+    public AbstractAction attributeGreedyPolicy() {
+        actionList.get(random.nextInt(nrOfActions)).addAttribute(RLTags.SarsaValue, random.nextFloat());
+        return attributePolicy.applyPolicy(actions);
+    }
+
+    @Benchmark
+    public AbstractAction qTableGreedyPolicy() {
+        qTable.setQValue(actionList.get(random.nextInt(nrOfActions)), random.nextFloat());
+        return qTablePolicy.applyPolicy(actions);
+    }
+}
@@ -0,0 +1,122 @@
+package nl.ou.testar.ReinforcementLearning.QFunctions;
+
+import nl.ou.testar.ReinforcementLearning.RLTags;
+import nl.ou.testar.StateModel.AbstractAction;
+import nl.ou.testar.StateModel.AbstractState;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class QTableTest {
+
+    private final QTable qTable = new QTable(RLTags.SarsaValue, 0.5f);
+
+    private AbstractState state(final String stateId, final AbstractAction... actions) {
+        final Set<AbstractAction> actionSet = new HashSet<>();
+        for (final AbstractAction action : actions) {
+            actionSet.add(action);
+        }
+        return new AbstractState(stateId, actionSet);
+    }
+
+    @Test
+    public void register_importsTheQValuesOfTheActions() {
+        // given
+        final AbstractAction loaded = new AbstractAction("loaded");
+        loaded.addAttribute(RLTags.SarsaValue, 3f);
+        final AbstractAction unknown = new AbstractAction("unknown");
+        final AbstractState state = state("s1", loaded, unknown);
+
+        // when
+        qTable.register(state);
+
+        // then
+        assertEquals(3f, qTable.getQValue(loaded), 0f);
+        assertTrue(qTable.hasQValue(loaded));
+        assertEquals(0.5f, qTable.getQValue(unknown), 0f);
+        assertFalse(qTable.hasQValue(unknown));
+        assertEquals(3f, qTable.getMaxQValue(state), 0f);
+    }
+
+    @Test
+    public void setQValue_exportsTheQValueToTheAction() {
+        // given
+        final AbstractAction action = new AbstractAction("a1");
+        qTable.register(state("s1", action));
+
+        // when
+        qTable.setQValue(action, 2f);
+
+        // then
+        assertEquals(2f, qTable.getQValue(action), 0f);
+        assertEquals(2f, action.getAttributes().get(RLTags.SarsaValue), 0f);
+    }
+
+    @Test
+    public void getMaxQValue_followsTheUpdatesOfTheQValues() {
+        // given
+        final AbstractAction action1 = new AbstractAction("a1");
+        final AbstractAction action2 = new AbstractAction("a2");
+        final AbstractState state = state("s1", action1, action2);
+        qTable.setQValue(action1, 1f);
+        qTable.setQValue(action2, 2f);
+
+        // when
+        final float initialMax = qTable.getMaxQValue(state);
+        qTable.setQValue(action1, 4f);
+        final float increasedMax = qTable.getMaxQValue(state);
+        qTable.setQValue(action1, -1f);
+        final float decreasedMax = qTable.getMaxQValue(state);
+
+        // then
+        assertEquals(2f, initialMax, 0f);
+        assertEquals(4f, increasedMax, 0f);
+        assertEquals(2f, decreasedMax, 0f);
+    }
+
+    @Test
+    public void getMaxQValue_includesActionsAddedAfterRegistering() {
+        // given
+        final AbstractAction action1 = new AbstractAction("a1");
+        final AbstractState state = state("s1", action1);
+        qTable.register(state);
+        final AbstractAction action2 = new AbstractAction("a2");
+        action2.addAttribute(RLTags.SarsaValue, 7f);
+
+        // when
+        state.addNewAction(action2);
+
+        // then
+        assertEquals(7f, qTable.getMaxQValue(state), 0f);
+    }
+
+    @Test
+    public void getMaxQValue_returnsZero_whenTheStateHasNoActions() {
+        // given
+        final AbstractState state = state("s1");
+
+        // when
+        final float max = qTable.getMaxQValue(state);
+
+        // then
+        assertEquals(0f, max, 0f);
+    }
+
+    @Test
+    public void getQValue_readsTheAttribute_whenTheStateIsNotRegistered() {
+        // given
+        final AbstractAction action = new AbstractAction("a1");
+        action.getAttributes().set(RLTags.SarsaValue, 1.5f);
+
+        // when
+        final float qValue = qTable.getQValue(action);
+
+        // then
+        assertEquals(1.5f, qValue, 0f);
+    }
+}
@@ -0,0 +1,66 @@
+package nl.ou.testar.ReinforcementLearning.QFunctions;
+
+import nl.ou.testar.ReinforcementLearning.RLTags;
+import nl.ou.testar.StateModel.AbstractAction;
+import nl.ou.testar.StateModel.AbstractState;
+import org.fruit.alayer.Action;
+import org.fruit.alayer.Tags;
+import org.fruit.alayer.actions.NOP;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class QlearningFunctionTest {
+
+    private final QFunction qFunction = new QlearningFunction(1.0f, 0.99f, 0.0f);
+
+    private static AbstractAction abstractAction(final String actionId, final float qValue) {
+        final AbstractAction action = new AbstractAction(actionId);
+        action.getAttributes().set(RLTags.SarsaValue, qValue);
+        return action;
+    }
+
+    private static Action action(final String abstractId) {
+        final Action action = new NOP();
+        action.set(Tags.AbstractIDCustom, abstractId);
+        return action;
+    }
+
+    @Test
+    public void getQValue_takesTheMaximumOverTheAvailableActions() {
+        // given
+        final AbstractAction previouslyExecutedAction = abstractAction("previous", 1f);
+        // the abstract state also has an action of another concrete state, with a higher Q-value
+        final AbstractState state = new AbstractState("state",
+                new HashSet<>(Arrays.asList(abstractAction("available", 2f), abstractAction("elsewhere", 5f))));
+        final Set<Action> actions = Collections.singleton(action("available"));
+        final float reward = 0f;
+
+        // when
+        final float qValue = qFunction.getQValue(previouslyExecutedAction, null, reward, state, actions);
+
+        // then
+        final float expectedQValue = 1f + 1f * (reward + 0.99f * 2f - 1f);
+        assertEquals(expectedQValue, qValue, 0f);
+    }
+
+    @Test
+    public void getQValue_whenNoActionsAreAvailable() {
+        // given
+        final AbstractAction previouslyExecutedAction = abstractAction("previous", 1f);
+        final AbstractState state = new AbstractState("state", Collections.singleton(abstractAction("elsewhere", 5f)));
+        final float reward = 0.5f;
+
+        // when
+        final float qValue = qFunction.getQValue(previouslyExecutedAction, null, reward, state, Collections.emptySet());
+
+        // then
+        final float expectedQValue = 1f + 1f * (reward + 0.99f * 0f - 1f);
+        assertEquals(expectedQValue, qValue, 0f);
+    }
+}
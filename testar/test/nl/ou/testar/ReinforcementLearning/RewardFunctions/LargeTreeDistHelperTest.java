@@ -1,5 +1,7 @@
 package nl.ou.testar.ReinforcementLearning.RewardFunctions;
 
+import nl.ou.testar.ReinforcementLearning.Utils.PostOrderTree;
+import nl.ou.testar.ReinforcementLearning.Utils.TreeEditDistance;
 import nl.ou.testar.ReinforcementLearning.Utils.TreeGenerator;
 import org.apache.commons.collections.map.MultiKeyMap;
 import org.fruit.alayer.Tags;
@@ -10,6 +12,8 @@ import org.junit.jupiter.api.Disabled;
 import java.util.Deque;
 
 import static junit.framework.TestCase.fail;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * This unit test is based on an example in the article
@@ -71,5 +75,42 @@ public class LargeTreeDistHelperTest {
             fail(e.getMessage());
         }
     }
+
+    @Test
+    public void treeEditDistance_LargeTree() {
+        // given
+        final StateStub pState = new StateStub();
+        final StateStub sState = new StateStub();
+        int childs = 800;
+        int depth = 5;
+        pState.set(Tags.ConcreteID, String.format("%d-%d", childs, childs));
+        pState.set(Tags.AbstractIDCustom, String.format("%d-%d", childs, childs));
+
+        sState.set(Tags.ConcreteID, String.format("%d-%d", childs, childs));
+        sState.set(Tags.AbstractIDCustom, String.format("%d-%d", childs, childs));
+
+        final TreeGenerator t1 = new TreeGenerator(childs, 800);
+        final TreeGenerator t2 = new TreeGenerator(childs, 800);
+        final WidgetStub widget1 = t1.CreateTree(depth, 0);
+        final WidgetStub widget2 = t2.CreateTree(depth, 0);
+        pState.addChild(widget1);
+        widget1.setParent(pState);
+        sState.addChild(widget2);
+        widget2.setParent(sState);
+        final TreeEditDistance treeEditDistance = new TreeEditDistance();
+
+        // when
+        final long startTime = System.currentTimeMillis();
+        final PostOrderTree tree1 = treeEditDistance.toPostOrderTree(pState);
+        final PostOrderTree tree2 = treeEditDistance.toPostOrderTree(sState);
+        final int distance = treeEditDistance.distance(tree1, tree2);
+        final long endTime = System.currentTimeMillis();
+        System.out.println(String.format("Tree edit distance of %s and %s widgets took %s milli seconds", tree1.size(), tree2.size(), endTime - startTime));
+
+        // then
+        assertTrue(distance >= Math.abs(tree1.size() - tree2.size()));
+        assertTrue(distance <= tree1.size() + tree2.size());
+        assertEquals(0, treeEditDistance.distance(tree1, tree1));
+    }
 }
 
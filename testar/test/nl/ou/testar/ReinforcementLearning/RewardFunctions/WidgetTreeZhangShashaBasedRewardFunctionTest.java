@@ -5,6 +5,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import nl.ou.testar.ReinforcementLearning.Utils.TreeEditDistance;
 import nl.ou.testar.StateModel.AbstractAction;
 
 import static org.junit.Assert.assertEquals;
@@ -23,9 +24,7 @@ public class WidgetTreeZhangShashaBasedRewardFunctionTest {
 
     final AbstractAction abstractAction = new AbstractAction("AAC1");
 
-    private final LRKeyrootsHelper lrKeyrootsHelper = new LRKeyrootsHelper();
-
-    private final TreeDistHelper treeDistHelper = new TreeDistHelper();
+    private final TreeEditDistance treeEditDistance = new TreeEditDistance();
 
     // tree 1
     final WidgetStub widgetT1A = new WidgetStub();
@@ -43,7 +42,6 @@ public class WidgetTreeZhangShashaBasedRewardFunctionTest {
 
     @After
     public void cleanUp() {
-        WidgetTreeZhangShashaBasedRewardFunction.treeDist.clear();
         WidgetTreeZhangShashaBasedRewardFunction.previousState = null;
     }
 
@@ -93,7 +91,7 @@ public class WidgetTreeZhangShashaBasedRewardFunctionTest {
     @Test
     public void getReward() {
         // given
-        final WidgetTreeZhangShashaBasedRewardFunction widgetTreeZhangShashaBasedRewardFunction = new WidgetTreeZhangShashaBasedRewardFunction(lrKeyrootsHelper, treeDistHelper);
+        final WidgetTreeZhangShashaBasedRewardFunction widgetTreeZhangShashaBasedRewardFunction = new WidgetTreeZhangShashaBasedRewardFunction(treeEditDistance);
         WidgetTreeZhangShashaBasedRewardFunction.previousState = previousState;
 
         // when
@@ -0,0 +1,70 @@
+package nl.ou.testar.ReinforcementLearning.Utils;
+
+import nl.ou.testar.ReinforcementLearning.RewardFunctions.LRKeyrootsHelper;
+import nl.ou.testar.ReinforcementLearning.RewardFunctions.StateStub;
+import nl.ou.testar.ReinforcementLearning.RewardFunctions.TreeDistHelper;
+import nl.ou.testar.ReinforcementLearning.RewardFunctions.WidgetStub;
+import org.apache.commons.collections.map.MultiKeyMap;
+import org.fruit.alayer.Tags;
+import org.fruit.alayer.Widget;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the tree edit distance of the widget keyed {@link TreeDistHelper} with the array based
+ * {@link TreeEditDistance}, on the random trees of the LargeTreeDistHelperTest. The array based distance
+ * includes converting both trees.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class TreeEditDistanceBenchmark {
+
+    // the maximum number of widgets of each tree
+    @Param({"50", "200"})
+    public int nrOfWidgets;
+
+    private StateStub previousState;
+    private StateStub state;
+    private final TreeEditDistance treeEditDistance = new TreeEditDistance();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        previousState = createState();
+        state = createState();
+    }
+
+    private StateStub createState() {
+        final StateStub state = new StateStub();
+        state.set(Tags.ConcreteID, String.format("%d-%d", nrOfWidgets, nrOfWidgets));
+        state.set(Tags.AbstractIDCustom, String.format("%d-%d", nrOfWidgets, nrOfWidgets));
+        final WidgetStub widget = new TreeGenerator(nrOfWidgets, nrOfWidgets).CreateTree(5, 0);
+        state.addChild(widget);
+        widget.setParent(state);
+        return state;
+    }
+
+    @Benchmark
+    public Object treeDistHelper() {
+        final LRKeyrootsHelper lrKeyrootsHelper = new LRKeyrootsHelper();
+        final TreeDistHelper treeDistHelper = new TreeDistHelper();
+        final MultiKeyMap forestDist = new MultiKeyMap();
+        final MultiKeyMap treeDist = new MultiKeyMap();
+        for (final Widget keyRoot1 : lrKeyrootsHelper.getLRKeyroots(previousState)) {
+            for (final Widget keyRoot2 : lrKeyrootsHelper.getLRKeyroots(state)) {
+                treeDistHelper.treeDist(keyRoot1, keyRoot2, forestDist, treeDist);
+                forestDist.clear();
+            }
+        }
+        return treeDist.get(previousState, state);
+    }
+
+    @Benchmark
+    public int treeEditDistance() {
+        return treeEditDistance.distance(previousState, state);
+    }
+}
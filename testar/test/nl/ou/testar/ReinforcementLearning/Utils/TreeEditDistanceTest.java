@@ -0,0 +1,177 @@
+package nl.ou.testar.ReinforcementLearning.Utils;
+
+import nl.ou.testar.ReinforcementLearning.RewardFunctions.LRKeyrootsHelper;
+import nl.ou.testar.ReinforcementLearning.RewardFunctions.StateStub;
+import nl.ou.testar.ReinforcementLearning.RewardFunctions.WidgetStub;
+import org.fruit.alayer.Tags;
+import org.fruit.alayer.Widget;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TreeEditDistanceTest {
+
+    private int nrOfWidgets = 0;
+
+    private WidgetStub widget(final String label) {
+        final WidgetStub widget = new WidgetStub();
+        widget.set(Tags.AbstractIDCustom, label);
+        widget.set(Tags.ConcreteID, "w" + nrOfWidgets++);
+        return widget;
+    }
+
+    private void addChild(final WidgetStub parent, final WidgetStub child) {
+        parent.addChild(child);
+        child.setParent(parent);
+    }
+
+    private WidgetStub randomTree(final Random random, final int size) {
+        final List<WidgetStub> widgets = new ArrayList<>();
+        widgets.add(widget(String.valueOf((char) ('a' + random.nextInt(3)))));
+        for (int i = 1; i < size; i++) {
+            final WidgetStub child = widget(String.valueOf((char) ('a' + random.nextInt(3))));
+            addChild(widgets.get(random.nextInt(widgets.size())), child);
+            widgets.add(child);
+        }
+        return widgets.get(0);
+    }
+
+    /**
+     * The recursive definition of the forest edit distance, removing the rightmost roots of the forests.
+     */
+    private int forestDistance(final List<Widget> forest1, final List<Widget> forest2, final Map<String, Integer> memo) {
+        if (forest1.isEmpty() && forest2.isEmpty()) {
+            return 0;
+        }
+        final String key = forest1.stream().map(w -> w.get(Tags.ConcreteID)).collect(Collectors.joining(","))
+                + "|" + forest2.stream().map(w -> w.get(Tags.ConcreteID)).collect(Collectors.joining(","));
+        final Integer known = memo.get(key);
+        if (known != null) {
+            return known;
+        }
+
+        int distance = Integer.MAX_VALUE;
+        if (!forest1.isEmpty()) {
+            final Widget v = forest1.get(forest1.size() - 1);
+            distance = Math.min(distance, forestDistance(removeRoot(forest1), forest2, memo) + 1);
+            if (!forest2.isEmpty()) {
+                final Widget w = forest2.get(forest2.size() - 1);
+                distance = Math.min(distance,
+                        forestDistance(forest1.subList(0, forest1.size() - 1), forest2.subList(0, forest2.size() - 1), memo)
+                        + forestDistance(LRKeyrootsHelper.getSortedChildList(v), LRKeyrootsHelper.getSortedChildList(w), memo)
+                        + (v.get(Tags.AbstractIDCustom).equals(w.get(Tags.AbstractIDCustom)) ? 0 : 1));
+            }
+        }
+        if (!forest2.isEmpty()) {
+            distance = Math.min(distance, forestDistance(forest1, removeRoot(forest2), memo) + 1);
+        }
+        memo.put(key, distance);
+        return distance;
+    }
+
+    private List<Widget> removeRoot(final List<Widget> forest) {
+        final List<Widget> result = new ArrayList<>(forest.subList(0, forest.size() - 1));
+        result.addAll(LRKeyrootsHelper.getSortedChildList(forest.get(forest.size() - 1)));
+        return result;
+    }
+
+    @Test
+    public void distance_articleExample() {
+        // given
+        final StateStub previousState = new StateStub();
+        final StateStub state = new StateStub();
+        previousState.set(Tags.AbstractIDCustom, "f");
+        state.set(Tags.AbstractIDCustom, "f");
+        final WidgetStub t1d = widget("d");
+        final WidgetStub t1c = widget("c");
+        addChild(previousState, t1d);
+        addChild(previousState, widget("e"));
+        addChild(t1d, widget("a"));
+        addChild(t1d, t1c);
+        addChild(t1c, widget("b"));
+        final WidgetStub t2c = widget("c");
+        final WidgetStub t2d = widget("d");
+        addChild(state, t2c);
+        addChild(state, widget("e"));
+        addChild(t2c, t2d);
+        addChild(t2d, widget("a"));
+        addChild(t2d, widget("b"));
+
+        // when
+        final int distance = new TreeEditDistance().distance(previousState, state);
+
+        // then
+        assertEquals(2, distance);
+    }
+
+    @Test
+    public void distance_matchesTheRecursiveDefinition() {
+        // given
+        final Random random = new Random(7);
+        final TreeEditDistance treeEditDistance = new TreeEditDistance();
+
+        for (int i = 0; i < 300; i++) {
+            final WidgetStub tree1 = randomTree(random, 1 + random.nextInt(8));
+            final WidgetStub tree2 = randomTree(random, 1 + random.nextInt(8));
+            final List<Widget> forest1 = new ArrayList<>();
+            forest1.add(tree1);
+            final List<Widget> forest2 = new ArrayList<>();
+            forest2.add(tree2);
+
+            // when
+            final int distance = treeEditDistance.distance(tree1, tree2);
+
+            // then
+            assertEquals(forestDistance(forest1, forest2, new HashMap<>()), distance);
+        }
+    }
+
+    @Test
+    public void distance_isApproximatedByALowerBound_forHugeTrees() {
+        // given
+        final Random random = new Random(3);
+        final TreeEditDistance exact = new TreeEditDistance();
+        final TreeEditDistance bounded = new TreeEditDistance(100);
+
+        for (int i = 0; i < 50; i++) {
+            final WidgetStub tree1 = randomTree(random, 20 + random.nextInt(20));
+            final WidgetStub tree2 = randomTree(random, 20 + random.nextInt(20));
+            final PostOrderTree postOrderTree1 = bounded.toPostOrderTree(tree1);
+            final PostOrderTree postOrderTree2 = bounded.toPostOrderTree(tree2);
+
+            // when
+            final int approximation = bounded.distance(postOrderTree1, postOrderTree2);
+
+            // then
+            assertFalse(bounded.isExact(postOrderTree1, postOrderTree2));
+            assertTrue(approximation <= exact.distance(tree1, tree2));
+            assertTrue(approximation >= Math.abs(postOrderTree1.size() - postOrderTree2.size()));
+        }
+    }
+
+    @Test
+    public void distance_keepsTheMatricesWithinTheMaximum_whenAWideAndATallPairFollowEachOther() {
+        // given
+        final Random random = new Random(5);
+        final TreeEditDistance treeEditDistance = new TreeEditDistance(100);
+        final WidgetStub single = randomTree(random, 1);
+        final WidgetStub large = randomTree(random, 49);
+
+        // when
+        final int wide = treeEditDistance.distance(single, large);
+        final int tall = treeEditDistance.distance(large, single);
+
+        // then
+        assertEquals(wide, tall);
+        assertTrue(treeEditDistance.getAllocatedCells() <= 100);
+    }
+}
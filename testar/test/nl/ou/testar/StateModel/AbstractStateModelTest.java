@@ -0,0 +1,86 @@
+package nl.ou.testar.StateModel;
+
+import nl.ou.testar.StateModel.Exception.StateModelException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class AbstractStateModelTest {
+
+    private AbstractStateModel createModel() {
+        return new AbstractStateModel("model", "application", "1", new HashSet<>());
+    }
+
+    private AbstractState createState(String stateId, AbstractAction action) {
+        return new AbstractState(stateId, new HashSet<>(Collections.singletonList(action)));
+    }
+
+    @Test
+    public void getNrOfNonDeterministicActions_returnsZero_whenEachActionLeadsToOneState() throws StateModelException {
+        // given
+        final AbstractStateModel model = createModel();
+        final AbstractAction action = new AbstractAction("a");
+        final AbstractState source = createState("s1", action);
+
+        // when
+        model.addTransition(source, createState("s2", action), action);
+        model.addTransition(source, createState("s2", action), action);
+
+        // then
+        assertTrue(model.isDeterministic());
+        assertEquals(0, model.getNrOfNonDeterministicActions());
+    }
+
+    @Test
+    public void getNrOfNonDeterministicActions_countsEveryTransition_whenAnActionLeadsToMultipleStates() throws StateModelException {
+        // given
+        final AbstractStateModel model = createModel();
+        final AbstractAction action = new AbstractAction("a");
+        final AbstractState source = createState("s1", action);
+
+        // when
+        model.addTransition(source, createState("s2", action), action);
+        model.addTransition(source, createState("s3", action), action);
+
+        // then
+        assertFalse(model.isDeterministic());
+        assertEquals(2, model.getNrOfNonDeterministicActions());
+
+        // when
+        model.addTransition(source, createState("s4", action), action);
+
+        // then
+        assertEquals(3, model.getNrOfNonDeterministicActions());
+    }
+
+    @Test
+    public void getNrOfUnvisitedActions_followsVisitedAndNewActions() throws StateModelException {
+        // given
+        final AbstractStateModel model = createModel();
+        final AbstractAction action = new AbstractAction("a");
+        final AbstractState source = createState("s1", action);
+        final AbstractState target = createState("s2", new AbstractAction("b"));
+
+        // when
+        model.addTransition(source, target, action);
+
+        // then
+        assertEquals(2, model.getNrOfStates());
+        assertEquals(1, model.getNrOfUnvisitedActions());
+        assertEquals(Collections.singletonList(target), new ArrayList<>(model.getStatesWithUnvisitedActions()));
+
+        // when
+        source.addNewAction(new AbstractAction("c"));
+        target.addVisitedAction(new AbstractAction("b"));
+
+        // then
+        assertEquals(1, model.getNrOfUnvisitedActions());
+        assertEquals(Collections.singletonList(source), new ArrayList<>(model.getStatesWithUnvisitedActions()));
+        assertEquals(1, source.getNrOfUnvisitedActions());
+        assertFalse(target.hasUnvisitedActions());
+    }
+}
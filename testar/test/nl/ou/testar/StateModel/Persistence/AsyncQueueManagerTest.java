@@ -0,0 +1,212 @@
+package nl.ou.testar.StateModel.Persistence;
+
+import nl.ou.testar.StateModel.AbstractAction;
+import nl.ou.testar.StateModel.AbstractState;
+import nl.ou.testar.StateModel.AbstractStateTransition;
+import nl.ou.testar.StateModel.Util.EventHelper;
+import org.fruit.alayer.Tags;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AsyncQueueManagerTest {
+
+    /**
+     * Records the persisted abstract states, as they were when they were stored. A batch is only recorded when all of
+     * its requests succeeded, like a transaction. The first request blocks until it is released.
+     */
+    private static class RecordingManager extends DummyManager {
+
+        private final List<String> persistedStates = new CopyOnWriteArrayList<>();
+        private final List<String> persistedTitles = new CopyOnWriteArrayList<>();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private final List<String> transaction = new ArrayList<>();
+        private final List<String> transactionTitles = new ArrayList<>();
+        private volatile int nrOfBatches = 0;
+        private String failingStateId;
+        private boolean shutdown = false;
+
+        @Override
+        public void persistBatch(Runnable batch) {
+            nrOfBatches++;
+            transaction.clear();
+            transactionTitles.clear();
+            batch.run();
+            persistedStates.addAll(transaction);
+            persistedTitles.addAll(transactionTitles);
+        }
+
+        @Override
+        public void persistAbstractState(AbstractState abstractState) {
+            started.countDown();
+            try {
+                released.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (abstractState.getStateId().equals(failingStateId)) {
+                throw new IllegalStateException("Could not store " + failingStateId);
+            }
+            transaction.add(abstractState.getStateId());
+            transactionTitles.add(abstractState.getAttributes().get(Tags.Title, ""));
+        }
+
+        // stores the source and target state with the transition, like the OrientDB manager does
+        @Override
+        public void persistAbstractStateTransition(AbstractStateTransition abstractStateTransition) {
+            persistAbstractState(abstractStateTransition.getSourceState());
+            persistAbstractState(abstractStateTransition.getTargetState());
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+    }
+
+    private AbstractState createState(String stateId) {
+        return new AbstractState(stateId, new HashSet<>());
+    }
+
+    @Test
+    public void shutdown_persistsRequestsInOrder_andCoalescesPendingUpdates() throws InterruptedException {
+        // given
+        final RecordingManager delegate = new RecordingManager();
+        final AsyncQueueManager asyncQueueManager = new AsyncQueueManager(delegate, new EventHelper(), 10);
+        final AbstractState stateB = createState("B");
+
+        // when
+        asyncQueueManager.persistAbstractState(createState("A"));
+        assertTrue(delegate.started.await(5, TimeUnit.SECONDS));
+        asyncQueueManager.persistAbstractState(stateB);
+        asyncQueueManager.persistAbstractState(createState("C"));
+        asyncQueueManager.persistAbstractState(stateB);
+        delegate.released.countDown();
+        asyncQueueManager.shutdown();
+
+        // then
+        assertEquals(Arrays.asList("A", "C", "B"), delegate.persistedStates);
+        assertEquals(1, asyncQueueManager.getNrOfCoalescedRequests());
+        assertEquals(0, asyncQueueManager.getNrOfDroppedRequests());
+        assertEquals(0, asyncQueueManager.getQueueSize());
+        assertTrue(delegate.shutdown);
+    }
+
+    @Test
+    public void shutdown_storesTheLatestState_whenATransitionWasRequestedInBetween() throws InterruptedException {
+        // given
+        final RecordingManager delegate = new RecordingManager();
+        final AsyncQueueManager asyncQueueManager = new AsyncQueueManager(delegate, new EventHelper(), 10);
+        final AbstractState source = createState("S");
+        final AbstractState target = createState("T");
+
+        // when
+        asyncQueueManager.persistAbstractState(createState("A"));
+        assertTrue(delegate.started.await(5, TimeUnit.SECONDS));
+        source.addAttribute(Tags.Title, "first");
+        asyncQueueManager.persistAbstractState(source);
+        source.addAttribute(Tags.Title, "second");
+        asyncQueueManager.persistAbstractStateTransition(new AbstractStateTransition(source, target, new AbstractAction("a")));
+        source.addAttribute(Tags.Title, "third");
+        asyncQueueManager.persistAbstractState(source);
+        delegate.released.countDown();
+        asyncQueueManager.shutdown();
+
+        // then
+        // the state request made after the transition is stored after it, so the transition does not overwrite it
+        assertEquals(Arrays.asList("A", "S", "T", "S"), delegate.persistedStates);
+        assertEquals(Arrays.asList("", "second", "", "third"), delegate.persistedTitles);
+        assertEquals(1, asyncQueueManager.getNrOfCoalescedRequests());
+    }
+
+    @Test
+    public void shutdown_storesTheWaitingRequestsInOneBatch() throws InterruptedException {
+        // given
+        final RecordingManager delegate = new RecordingManager();
+        final AsyncQueueManager asyncQueueManager = new AsyncQueueManager(delegate, new EventHelper(), 10);
+
+        // when
+        asyncQueueManager.persistAbstractState(createState("A"));
+        assertTrue(delegate.started.await(5, TimeUnit.SECONDS));
+        asyncQueueManager.persistAbstractState(createState("B"));
+        asyncQueueManager.persistAbstractState(createState("C"));
+        asyncQueueManager.persistAbstractState(createState("D"));
+        delegate.released.countDown();
+        asyncQueueManager.shutdown();
+
+        // then
+        assertEquals(Arrays.asList("A", "B", "C", "D"), delegate.persistedStates);
+        assertEquals(2, delegate.nrOfBatches);
+    }
+
+    @Test
+    public void persistAbstractState_storesTheStateAsItWasWhenRequested() throws InterruptedException {
+        // given
+        final RecordingManager delegate = new RecordingManager();
+        final AsyncQueueManager asyncQueueManager = new AsyncQueueManager(delegate, new EventHelper(), 10);
+        final AbstractState stateB = createState("B");
+        final AbstractState stateC = createState("C");
+
+        // when
+        asyncQueueManager.persistAbstractState(createState("A"));
+        assertTrue(delegate.started.await(5, TimeUnit.SECONDS));
+        stateB.addAttribute(Tags.Title, "requested");
+        asyncQueueManager.persistAbstractState(stateB);
+        stateB.addAttribute(Tags.Title, "changed later");
+        stateC.addAttribute(Tags.Title, "requested");
+        asyncQueueManager.persistAbstractState(stateC);
+        stateC.addAttribute(Tags.Title, "requested again");
+        asyncQueueManager.persistAbstractState(stateC);
+        delegate.released.countDown();
+        asyncQueueManager.shutdown();
+
+        // then
+        assertEquals(Arrays.asList("A", "B", "C"), delegate.persistedStates);
+        assertEquals(Arrays.asList("", "requested", "requested again"), delegate.persistedTitles);
+    }
+
+    @Test
+    public void shutdown_retriesAFailedBatchOneByOne_andCountsTheDroppedRequest() throws InterruptedException {
+        // given
+        final RecordingManager delegate = new RecordingManager();
+        delegate.failingStateId = "C";
+        final AsyncQueueManager asyncQueueManager = new AsyncQueueManager(delegate, new EventHelper(), 10);
+
+        // when
+        asyncQueueManager.persistAbstractState(createState("A"));
+        assertTrue(delegate.started.await(5, TimeUnit.SECONDS));
+        asyncQueueManager.persistAbstractState(createState("B"));
+        asyncQueueManager.persistAbstractState(createState("C"));
+        asyncQueueManager.persistAbstractState(createState("D"));
+        delegate.released.countDown();
+        asyncQueueManager.shutdown();
+
+        // then
+        assertEquals(Arrays.asList("A", "B", "D"), delegate.persistedStates);
+        assertEquals(1, asyncQueueManager.getNrOfDroppedRequests());
+    }
+
+    @Test
+    public void persistAbstractState_isDropped_afterShutdown() {
+        // given
+        final RecordingManager delegate = new RecordingManager();
+        final AsyncQueueManager asyncQueueManager = new AsyncQueueManager(delegate, new EventHelper(), 10);
+        asyncQueueManager.shutdown();
+
+        // when
+        asyncQueueManager.persistAbstractState(createState("A"));
+
+        // then
+        assertTrue(delegate.persistedStates.isEmpty());
+        assertEquals(1, asyncQueueManager.getNrOfDroppedRequests());
+    }
+}
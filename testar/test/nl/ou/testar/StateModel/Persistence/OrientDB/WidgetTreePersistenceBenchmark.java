@@ -0,0 +1,145 @@
+package nl.ou.testar.StateModel.Persistence.OrientDB;
+
+import com.orientechnologies.orient.core.db.ODatabaseType;
+import com.orientechnologies.orient.core.db.OrientDB;
+import com.orientechnologies.orient.core.db.OrientDBConfig;
+import nl.ou.testar.StateModel.AbstractState;
+import nl.ou.testar.StateModel.ConcreteState;
+import nl.ou.testar.StateModel.Exception.HydrationException;
+import nl.ou.testar.StateModel.Persistence.OrientDB.Entity.*;
+import nl.ou.testar.StateModel.Persistence.OrientDB.Hydrator.EntityHydrator;
+import nl.ou.testar.StateModel.Persistence.OrientDB.Hydrator.HydratorFactory;
+import nl.ou.testar.StateModel.Util.EventHelper;
+import nl.ou.testar.StateModel.Widget;
+import org.fruit.alayer.Tags;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the number of concrete states per second that can be stored in an embedded OrientDB database,
+ * using one session and query per widget (the way widget trees used to be stored) versus one transaction per state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 2, time = 5)
+@Fork(1)
+public class WidgetTreePersistenceBenchmark {
+
+    @Param({"200", "2000"})
+    public int nrOfWidgets;
+
+    private File databaseDirectory;
+    private EntityManager entityManager;
+    private OrientDBManager orientDBManager;
+    private AbstractState abstractState;
+    private int stateCounter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        databaseDirectory = Files.createTempDirectory("testar-benchmark").toFile();
+        try (OrientDB orientDB = new OrientDB("plocal:" + databaseDirectory.getAbsolutePath(), OrientDBConfig.defaultConfig())) {
+            orientDB.create("benchmark", ODatabaseType.PLOCAL);
+        }
+
+        Config config = new Config();
+        config.setConnectionType(Config.CONNECTION_TYPE_LOCAL);
+        config.setDatabaseDirectory(databaseDirectory.getAbsolutePath());
+        config.setDatabase("benchmark");
+        config.setUser("admin");
+        config.setPassword("admin");
+        entityManager = new EntityManager(config);
+        orientDBManager = new OrientDBManager(new EventHelper(), entityManager);
+
+        abstractState = new AbstractState("abstractState", new HashSet<>());
+        abstractState.setModelIdentifier("benchmarkModel");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        orientDBManager.shutdown();
+        deleteDirectory(databaseDirectory);
+    }
+
+    @Benchmark
+    public void perEntitySessions() throws HydrationException {
+        ConcreteState concreteState = createConcreteState();
+        persistPerEntity(concreteState);
+    }
+
+    @Benchmark
+    public void singleTransaction() {
+        ConcreteState concreteState = createConcreteState();
+        orientDBManager.persistConcreteState(concreteState);
+    }
+
+    /**
+     * Creates a new concrete state with a widget tree of the configured size, with ten children per widget.
+     */
+    private ConcreteState createConcreteState() {
+        String stateId = "state" + stateCounter++;
+        ConcreteState concreteState = new ConcreteState(stateId, Collections.emptySet(), abstractState);
+        concreteState.addAttribute(Tags.Title, stateId);
+
+        Widget[] widgets = new Widget[nrOfWidgets];
+        widgets[0] = concreteState;
+        for (int i = 1; i < nrOfWidgets; i++) {
+            Widget widget = new Widget("widget" + i);
+            widget.setRootWidget(concreteState);
+            widget.addAttribute(Tags.Title, "title " + i);
+            widget.addAttribute(Tags.Desc, "description of widget " + i);
+            widget.addAttribute(Tags.ZIndex, (double) i);
+            widgets[(i - 1) / 10].addChild(widget);
+            widgets[i] = widget;
+        }
+        return concreteState;
+    }
+
+    /**
+     * Stores the concrete state and its widget tree the way it was done before the batched path existed:
+     * every widget and every edge is saved through a separate session that first looks for the entity.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" }) // the HydratorFactory hands out raw hydrators
+    private void persistPerEntity(ConcreteState concreteState) throws HydrationException {
+        VertexEntity concreteStateEntity = new VertexEntity(EntityClassFactory.createEntityClass(EntityClassFactory.EntityClassName.ConcreteState));
+        HydratorFactory.getHydrator(HydratorFactory.HYDRATOR_CONCRETE_STATE).hydrate(concreteStateEntity, concreteState);
+        concreteStateEntity.enableUpdate(false);
+        entityManager.saveEntity(concreteStateEntity);
+        persistWidgetTreePerEntity(concreteState, concreteStateEntity);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" }) // the HydratorFactory hands out raw hydrators
+    private void persistWidgetTreePerEntity(Widget widget, VertexEntity widgetEntity) throws HydrationException {
+        EntityHydrator widgetHydrator = HydratorFactory.getHydrator(HydratorFactory.HYDRATOR_WIDGET);
+        EntityHydrator relationHydrator = HydratorFactory.getHydrator(HydratorFactory.HYDRATOR_WIDGET_RELATION);
+        for (Widget childWidget : widget.getChildren()) {
+            VertexEntity childWidgetEntity = new VertexEntity(EntityClassFactory.createEntityClass(EntityClassFactory.EntityClassName.Widget));
+            childWidgetEntity.enableUpdate(false);
+            widgetHydrator.hydrate(childWidgetEntity, childWidget);
+            entityManager.saveEntity(childWidgetEntity);
+
+            EdgeEntity isChildEntity = new EdgeEntity(EntityClassFactory.createEntityClass(EntityClassFactory.EntityClassName.isChildOf), childWidgetEntity, widgetEntity);
+            isChildEntity.enableUpdate(false);
+            relationHydrator.hydrate(isChildEntity, null);
+            entityManager.saveEntity(isChildEntity);
+
+            persistWidgetTreePerEntity(childWidget, childWidgetEntity);
+        }
+    }
+
+    private static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                deleteDirectory(file);
+            }
+        }
+        directory.delete();
+    }
+}
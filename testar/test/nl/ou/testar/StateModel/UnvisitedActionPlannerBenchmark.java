@@ -0,0 +1,108 @@
+package nl.ou.testar.StateModel;
+
+import nl.ou.testar.StateModel.Exception.StateModelException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares finding the path to the nearest state with unvisited actions with a breadth first search per query,
+ * the way the unvisited action selector used to do, with the planner of the state model. Also measures the cost
+ * of updating the planner when a state gains and loses an unvisited action.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class UnvisitedActionPlannerBenchmark {
+
+    @Param({"10000", "100000"})
+    public int nrOfStates;
+
+    private AbstractStateModel model;
+    private List<AbstractState> states;
+    private Random random;
+    private long nrOfNewActions;
+
+    @Setup(Level.Trial)
+    public void setUp() throws StateModelException {
+        random = new Random(3);
+        model = new AbstractStateModel("model", "application", "1", new HashSet<>());
+        states = new ArrayList<>();
+        for (int i = 0; i < nrOfStates; i++) {
+            Set<AbstractAction> actions = new HashSet<>();
+            for (int a = 0; a < 4; a++) {
+                actions.add(new AbstractAction("s" + i + "-a" + a));
+            }
+            states.add(new AbstractState("s" + i, actions));
+        }
+        for (int i = 0; i < nrOfStates; i++) {
+            AbstractState state = states.get(i);
+            // a ring, so that every state can reach every other state, and two random transitions
+            model.addTransition(state, states.get((i + 1) % nrOfStates), state.getAction("s" + i + "-a0"));
+            model.addTransition(state, states.get(random.nextInt(nrOfStates)), state.getAction("s" + i + "-a1"));
+            model.addTransition(state, states.get(random.nextInt(nrOfStates)), state.getAction("s" + i + "-a2"));
+            // only a few states keep an unvisited action
+            if (random.nextInt(200) != 0) {
+                state.addVisitedAction(state.getAction("s" + i + "-a3"));
+            }
+        }
+        model.getUnvisitedActionPlanner();
+    }
+
+    @Benchmark
+    public List<AbstractStateTransition> breadthFirstSearch() throws StateModelException {
+        String start = states.get(random.nextInt(nrOfStates)).getStateId();
+        Map<String, AbstractStateTransition> reachedBy = new HashMap<>();
+        Set<String> visited = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        visited.add(start);
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            String stateId = queue.poll();
+            if (!model.getState(stateId).getUnvisitedActions().isEmpty()) {
+                List<AbstractStateTransition> path = new ArrayList<>();
+                while (reachedBy.containsKey(stateId)) {
+                    AbstractStateTransition transition = reachedBy.get(stateId);
+                    path.add(0, transition);
+                    stateId = transition.getSourceStateId();
+                }
+                return path;
+            }
+            for (AbstractStateTransition transition : model.getOutgoingTransitionsForState(stateId)) {
+                if (visited.add(transition.getTargetStateId())) {
+                    reachedBy.put(transition.getTargetStateId(), transition);
+                    queue.add(transition.getTargetStateId());
+                }
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public List<AbstractStateTransition> planner() {
+        String start = states.get(random.nextInt(nrOfStates)).getStateId();
+        return model.getUnvisitedActionPlanner().getPathToUnvisitedActions(start);
+    }
+
+    @Benchmark
+    public int plannerUpdate() {
+        // a state gains an unvisited action, which is visited right away
+        AbstractState state = states.get(random.nextInt(nrOfStates));
+        AbstractAction action = new AbstractAction("new" + nrOfNewActions++);
+        state.addNewAction(action);
+        state.addVisitedAction(action);
+        return model.getUnvisitedActionPlanner().getDistanceToUnvisitedActions(state.getStateId());
+    }
+}
@@ -0,0 +1,154 @@
+package nl.ou.testar.StateModel;
+
+import nl.ou.testar.StateModel.Exception.StateModelException;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class UnvisitedActionPlannerTest {
+
+    private static final int NR_OF_ACTIONS = 3;
+
+    private AbstractState createState(String stateId) {
+        Set<AbstractAction> actions = new HashSet<>();
+        for (int i = 0; i < NR_OF_ACTIONS; i++) {
+            actions.add(new AbstractAction(stateId + "-a" + i));
+        }
+        return new AbstractState(stateId, actions);
+    }
+
+    /**
+     * Computes the distances to the states with unvisited actions with a breadth first search over the whole model.
+     */
+    private Map<String, Integer> expectedDistances(AbstractStateModel model) {
+        Map<String, Integer> distances = new HashMap<>();
+        Deque<String> queue = new ArrayDeque<>();
+        for (AbstractState state : model.getStates()) {
+            if (!state.getUnvisitedActions().isEmpty()) {
+                distances.put(state.getStateId(), 0);
+                queue.add(state.getStateId());
+            }
+        }
+        while (!queue.isEmpty()) {
+            String stateId = queue.poll();
+            Set<AbstractStateTransition> incoming = model.getIncomingTransitionsForState(stateId);
+            if (incoming == null) {
+                continue;
+            }
+            for (AbstractStateTransition transition : incoming) {
+                if (!distances.containsKey(transition.getSourceStateId())) {
+                    distances.put(transition.getSourceStateId(), distances.get(stateId) + 1);
+                    queue.add(transition.getSourceStateId());
+                }
+            }
+        }
+        return distances;
+    }
+
+    private void assertPlannerMatchesModel(AbstractStateModel model) throws StateModelException {
+        UnvisitedActionPlanner planner = model.getUnvisitedActionPlanner();
+        Map<String, Integer> expected = expectedDistances(model);
+        for (AbstractState state : model.getStates()) {
+            String stateId = state.getStateId();
+            int distance = expected.getOrDefault(stateId, -1);
+            assertEquals(stateId, distance, planner.getDistanceToUnvisitedActions(stateId));
+
+            List<AbstractStateTransition> path = planner.getPathToUnvisitedActions(stateId);
+            if (distance == -1) {
+                assertNull(path);
+                continue;
+            }
+            assertEquals(distance, path.size());
+            String current = stateId;
+            for (AbstractStateTransition transition : path) {
+                assertEquals(current, transition.getSourceStateId());
+                current = transition.getTargetStateId();
+            }
+            assertFalse(model.getState(current).getUnvisitedActions().isEmpty());
+        }
+    }
+
+    @Test
+    public void planner_keepsShortestPaths_whileTheModelChanges() throws StateModelException {
+        // given
+        final Random random = new Random(11);
+        final AbstractStateModel model = new AbstractStateModel("model", "application", "1", new HashSet<>());
+        final List<AbstractState> states = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            AbstractState state = createState("s" + i);
+            states.add(state);
+            model.addState(state);
+        }
+        // the planner is created for a model that already has states
+        model.getUnvisitedActionPlanner();
+
+        for (int step = 0; step < 400; step++) {
+            // when
+            AbstractState source = states.get(random.nextInt(states.size()));
+            int choice = random.nextInt(10);
+            if (choice < 6) {
+                AbstractState target;
+                if (random.nextInt(10) == 0) {
+                    target = createState("s" + states.size());
+                    states.add(target);
+                } else {
+                    target = states.get(random.nextInt(states.size()));
+                }
+                AbstractAction action = new ArrayList<>(source.getActions()).get(random.nextInt(source.getActions().size()));
+                model.addTransition(source, target, action);
+            } else if (choice < 9) {
+                List<AbstractAction> unvisited = new ArrayList<>(source.getUnvisitedActions());
+                if (!unvisited.isEmpty()) {
+                    source.addVisitedAction(unvisited.get(random.nextInt(unvisited.size())));
+                }
+            } else {
+                source.addNewAction(new AbstractAction(source.getStateId() + "-new" + step));
+            }
+
+            // then
+            assertPlannerMatchesModel(model);
+        }
+    }
+
+    @Test
+    public void getPathToUnvisitedActions_returnsNull_whenNoUnvisitedActionsAreLeft() throws StateModelException {
+        // given
+        final AbstractStateModel model = new AbstractStateModel("model", "application", "1", new HashSet<>());
+        final AbstractAction action = new AbstractAction("a");
+        final AbstractState first = new AbstractState("s1", new HashSet<>(Collections.singletonList(action)));
+        final AbstractState second = new AbstractState("s2", new HashSet<>());
+        final UnvisitedActionPlanner planner = model.getUnvisitedActionPlanner();
+
+        // when
+        model.addState(first);
+        model.addState(second);
+
+        // then
+        assertEquals(0, planner.getPathToUnvisitedActions("s1").size());
+        assertNull(planner.getPathToUnvisitedActions("s2"));
+
+        // when
+        model.addTransition(second, first, new AbstractAction("b"));
+
+        // then
+        assertEquals(1, planner.getDistanceToUnvisitedActions("s2"));
+
+        // when
+        model.addTransition(first, second, action);
+
+        // then
+        assertNull(planner.getPathToUnvisitedActions("s1"));
+        assertNull(planner.getPathToUnvisitedActions("s2"));
+    }
+}
@@ -0,0 +1,41 @@
+package org.testar.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketIndex_isInverseOfHighestValue() {
+        for (long value : new long[]{0, 1, 127, 128, 129, 1000, 123456789L, Long.MAX_VALUE / 3, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.bucketIndex(value);
+            long highest = LatencyHistogram.highestValue(index);
+            assertTrue(highest >= value);
+            assertTrue((highest - value) <= value / 64 + 1);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.highestValue(index - 1) < value);
+            }
+        }
+    }
+
+    @Test
+    public void getValueAtPercentile_isWithinPrecision() {
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // when: 1 to 1000 milliseconds
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000000L);
+        }
+
+        // then
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000L, histogram.getMin());
+        assertEquals(1000000000L, histogram.getMax());
+        assertEquals(500500000.0, histogram.getMean(), 0.001);
+        assertEquals(500000000.0, histogram.getValueAtPercentile(50), 500000000.0 / 64);
+        assertEquals(990000000.0, histogram.getValueAtPercentile(99), 990000000.0 / 64);
+        assertEquals(1000000000L, histogram.getValueAtPercentile(100));
+    }
+}
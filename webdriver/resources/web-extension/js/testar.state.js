@@ -4,11 +4,17 @@
 var labelMap;
 
 /*
- * Get the widget tree (Chrome, Firefox) or flattened tree (Edge)
+ * The state of the incremental fetch in this page, see getStateTreeTestarIncremental
+ */
+var testarDelta;
+
+/*
+ * Get the flattened widget tree
  * @param {Array} array of tags that can be skipped, like <style>, <script> etc.
- * @return {(Object | Array)}
+ * @param {Array} elementArray, optional, receives the HTML element of every wrapped element
+ * @return {Array}
  */
-var getStateTreeTestar = function (ignoredTags) {
+var getStateTreeTestar = function (ignoredTags, elementArray) {
     var body = document.body;
     var bodyWrapped = wrapElementTestar(body, 0, 0);
     bodyWrapped['documentHasFocus'] = document.hasFocus();
@@ -17,25 +23,118 @@ var getStateTreeTestar = function (ignoredTags) {
     // Find all labels on the page
     getLabelMapTestar();
 
-    // For Edge we return a flattened tree (as array), see comment in WdStateFetcher
-    if (window.navigator.userAgent.indexOf("Edge") > -1) {
-        var treeArray = [];
-        traverseElementArrayTestar(treeArray, bodyWrapped, body, -1, ignoredTags);
-        return treeArray;
-    }
-    else {
-        traverseElementTestar(bodyWrapped, body, ignoredTags);
-        return bodyWrapped;
-    }
+    // We return a flattened tree (as array) for all browsers, see comment in WdStateFetcher
+    var treeArray = [];
+    traverseElementArrayTestar(treeArray, bodyWrapped, body, -1, ignoredTags, elementArray);
+    return treeArray;
+};
+
+/*
+ * Get the flattened widget tree in a compact, columnar encoding
+ * The columns must be kept in sync with WdCompactTree
+ * @param {Array} array of tags that can be skipped, like <style>, <script> etc.
+ * @return {object} the string table, the columns and the attributes of all elements
+ */
+var getStateTreeTestarCompact = function (ignoredTags) {
+    return encodeStateTreeTestar(getStateTreeTestar(ignoredTags));
 };
 
 /*
- * Traverse the children from the parent element
+ * Encode the flattened widget tree for getStateTreeTestarCompact
+ * @param {Array} treeArray, the flattened widget tree
+ * @return {object} the string table, the columns and the attributes of all elements
+ */
+function encodeStateTreeTestar(treeArray) {
+    var size = treeArray.length;
+
+    // Every string is sent once, the elements refer to it by its index in the table
+    var strings = [];
+    var stringIds = new Map();
+    var stringId = function (string) {
+        if (string === null || string === undefined) {
+            return -1;
+        }
+        var id = stringIds.get(string);
+        if (id === undefined) {
+            id = strings.length;
+            strings.push(string);
+            stringIds.set(string, id);
+        }
+        return id;
+    };
+
+    // One column after the other, all numbers are truncated to integers. Only the scroll position can be
+    // fractional, WdElement truncates it for the other encoding as well, see WdCompactTree
+    var columns = new Array(24 * size);
+    var attributes = [];
+    for (var i = 0; i < size; i++) {
+        var wrapped = treeArray[i];
+        var dims = wrapped.dimensions;
+        var flags = (wrapped.isBlocked ? 1 : 0) | (wrapped.isClickable ? 2 : 0) |
+            (wrapped.isShadowElement ? 4 : 0) | (wrapped.hasKeyboardFocus ? 8 : 0);
+
+        var attributeCount = 0;
+        for (var attributeName in wrapped.attributeMap) {
+            attributes.push(stringId(attributeName), stringId(wrapped.attributeMap[attributeName]));
+            attributeCount++;
+        }
+
+        var row = [
+            wrapped.parentId, wrapped.zIndex,
+            wrapped.rect[0], wrapped.rect[1], wrapped.rect[2], wrapped.rect[3],
+            dims.clientWidth, dims.clientHeight, dims.offsetWidth, dims.offsetHeight,
+            dims.scrollWidth, dims.scrollHeight, dims.scrollLeft, dims.scrollTop,
+            dims.borderWidth, dims.borderHeight, flags,
+            stringId(wrapped.name), stringId(wrapped.tagName),
+            stringId(normalizeTextTestar(wrapped.textContent)), stringId(wrapped.display),
+            stringId(dims.overflowX), stringId(dims.overflowY), attributeCount
+        ];
+        for (var column = 0; column < row.length; column++) {
+            var number = Math.trunc(row[column]);
+            columns[column * size + i] = isFinite(number) ? number : 0;
+        }
+    }
+
+    return {
+        size: size,
+        strings: strings,
+        columns: columns.join(','),
+        attributes: attributes.join(','),
+        documentHasFocus: treeArray[0].documentHasFocus,
+        documentTitle: treeArray[0].documentTitle
+    };
+}
+
+/*
+ * Collapse the white space in a text the way WdElement does for the other encoding,
+ * String.replaceAll("\\s+", " ").trim() in Java
+ * @param {string} text, the text content of an element
+ * @return {string} the normalized text
+ */
+function normalizeTextTestar(text) {
+    return text.replace(/[ \t\n\x0B\f\r]+/g, " ").replace(/^[\x00-\x20]+|[\x00-\x20]+$/g, "");
+}
+
+/*
+ * Traverse the children from the parent element into a flattened tree
+ * Every wrapped element gets the index of its parent and is added after its parent
+ * @param {Array} treeArray, array of wrapped elements
  * @param {object} parentWrapped, the (wrapped) parent object
  * @param {node} rootElement, the body element
- * @param {object} ignoredTags, list of tags to skip, <style>, <script> etc.
+ * @param {integer} parentId, index of the parent in the flattened array
+ * @param {object} ignoredTags, array of tags to skip, <style>, <script> etc.
+ * @param {Array} elementArray, optional, receives the HTML element of every wrapped element
+ * @param {function} reuse, optional, gives the id of an element of which the subtree did not change, or -1
  */
-function traverseElementTestar(parentWrapped, rootElement, ignoredTags) {
+function traverseElementArrayTestar(treeArray, parentWrapped, rootElement, parentId, ignoredTags, elementArray, reuse) {
+    parentWrapped['parentId'] = parentId;
+    treeArray.push(parentWrapped);
+    if (elementArray !== undefined) {
+        elementArray.push(parentWrapped.element);
+    }
+
+    parentId = treeArray.length - 1;
+
     var childNodes = getChildNodesTestar(parentWrapped);
     for (var i = 0; i < childNodes.length; i++) {
         var childElement = childNodes[i];
@@ -48,20 +147,22 @@ function traverseElementTestar(parentWrapped, rootElement, ignoredTags) {
         }
         if (childElement.nodeType !== 1 ||
             ignoredTags.includes(childElement.nodeName.toLowerCase())) {
+            continue
+        }
+        if (reuseElementTestar(treeArray, elementArray, parentId, childElement, reuse)) {
             continue;
         }
 
         var childWrapped = wrapElementTestar(childElement, parentWrapped["xOffset"], parentWrapped["yOffset"]);
-        traverseElementTestar(childWrapped, rootElement, ignoredTags);
-        parentWrapped.wrappedChildren.push(childWrapped);
+        traverseElementArrayTestar(treeArray, childWrapped, rootElement, parentId, ignoredTags, elementArray, reuse);
     }
-	
+
 	// Descend through Shadow DOM Web Elements
 	if(parentWrapped.element.shadowRoot !== null){
 		var shadowNodes = parentWrapped.element.shadowRoot.childNodes;
 		for (var i = 0; i < shadowNodes.length; i++) {
 			var childShadowElement = shadowNodes[i];
-			
+
 			// Filter ignored tags or non-element nodes
 			if (childShadowElement.nodeType === 3) {
 				parentWrapped.textContent += childShadowElement.textContent;
@@ -72,10 +173,12 @@ function traverseElementTestar(parentWrapped, rootElement, ignoredTags) {
 				ignoredTags.includes(childShadowElement.nodeName.toLowerCase())) {
 				continue;
 			}
-			
+			if (reuseElementTestar(treeArray, elementArray, parentId, childShadowElement, reuse)) {
+				continue;
+			}
+
 			var childShadowWrapped = wrapElementTestar(childShadowElement, parentWrapped["xOffset"], parentWrapped["yOffset"]);
-			traverseElementTestar(childShadowWrapped, rootElement, ignoredTags);
-			parentWrapped.wrappedChildren.push(childShadowWrapped);
+			traverseElementArrayTestar(treeArray, childShadowWrapped, rootElement, parentId, ignoredTags, elementArray, reuse);
 		}
 	}
 
@@ -84,37 +187,448 @@ function traverseElementTestar(parentWrapped, rootElement, ignoredTags) {
 }
 
 /*
- * Flattened version of traverseElementTestar for Edge
+ * Add a reference to an element of which the subtree did not change, instead of walking the subtree
  * @param {Array} treeArray, array of wrapped elements
- * @param {object} parentWrapped, the (wrapped) parent object
- * @param {node} rootElement, the body element
+ * @param {Array} elementArray, receives the HTML element of every wrapped element
  * @param {integer} parentId, index of the parent in the flattened array
- * @param {object} ignoredTags, array of tags to skip, <style>, <script> etc.
+ * @param {node} element, the child HTML element
+ * @param {function} reuse, optional, gives the id of an element of which the subtree did not change, or -1
+ * @return {bool} true if the element is reused
  */
-function traverseElementArrayTestar(treeArray, parentWrapped, rootElement, parentId, ignoredTags) {
-    parentWrapped['parentId'] = parentId;
-    treeArray.push(parentWrapped);
+function reuseElementTestar(treeArray, elementArray, parentId, element, reuse) {
+    var reuseId = reuse === undefined ? -1 : reuse(element);
+    if (reuseId < 0) {
+        return false;
+    }
+    treeArray.push({parentId: parentId, reuseId: reuseId});
+    elementArray.push(element);
+    return true;
+}
 
-    parentId = treeArray.length - 1;
+/*
+ * Get the changes to the widget tree since the previous incremental fetch
+ * A MutationObserver collects the elements that changed, which are walked again, except for the
+ * children of which the subtree did not change. For all other elements the position, the scroll
+ * position, the computed display, z-index and overflow, the clickable flag and the focus are compared
+ * with the previous fetch, as a changed class or pseudo-class of an ancestor may change the computed
+ * style of an element that did not change itself. The blocked flag is determined again when the center
+ * of the element lies in the area that changed.
+ * The complete tree is returned for the first fetch in a page, when the caller does not have the
+ * tree of the previous fetch, when the page has frames, or when too many elements changed.
+ * @param {Array} array of tags that can be skipped, like <style>, <script> etc.
+ * @param {string} generation, the generation of the tree of the caller
+ * @param {number} maxChanges, the number of changed elements above which the complete tree is returned
+ * @param {bool} compact, return the complete tree in the encoding of getStateTreeTestarCompact
+ * @return {object} the complete tree, or the changed subtrees and the updated elements
+ */
+var getStateTreeTestarIncremental = function (ignoredTags, generation, maxChanges, compact) {
+    var delta = testarDelta;
+    // Mutations inside frames are not observed
+    if (delta === undefined || delta.generation() !== generation ||
+        delta.nodes.get(0).element !== document.body ||
+        document.querySelector('iframe, frame') !== null) {
+        return getFullStateTreeTestar(ignoredTags, compact);
+    }
 
-    var childNodes = getChildNodesTestar(parentWrapped);
-    for (var i = 0; i < childNodes.length; i++) {
-        var childElement = childNodes[i];
+    // The names of all elements depend on the labels
+    getLabelMapTestar();
+    if (JSON.stringify(labelMap) !== delta.labels) {
+        return getFullStateTreeTestar(ignoredTags, compact);
+    }
+    var walking = delta.counter + 1;
+
+    // The elements that changed, and the elements that contain them
+    addMutationsTestar(delta, delta.observer.takeRecords());
+    var dirty = new Set();
+    var containsDirty = new Set();
+    delta.dirty.forEach(function (node) {
+        var entry = findEntryTestar(delta, node);
+        if (entry === undefined || dirty.has(entry)) {
+            return;
+        }
+        dirty.add(entry);
+        for (var ancestor = entry.parent; ancestor !== null && !containsDirty.has(ancestor); ancestor = ancestor.parent) {
+            containsDirty.add(ancestor);
+        }
+    });
+    delta.dirty = new Set();
+    var reuse = function (element) {
+        var entry = delta.entries.get(element);
+        return entry === undefined || dirty.has(entry) || containsDirty.has(entry) ? -1 : entry.id;
+    };
 
-        // Filter ignored tags or non-element nodes
-        if (childElement.nodeType === 3) {
-            parentWrapped.textContent += childElement.textContent;
-            parentWrapped.textContent = parentWrapped.textContent.trim();
-            continue;
+    // Walk the changed elements that are not inside another changed element
+    var subtrees = [];
+    var walked = 0;
+    var changed = Array.from(dirty).filter(function (entry) {
+        for (var ancestor = entry.parent; ancestor !== null; ancestor = ancestor.parent) {
+            if (dirty.has(ancestor)) {
+                return false;
+            }
         }
-        if (childElement.nodeType !== 1 ||
-            ignoredTags.includes(childElement.nodeName.toLowerCase())) {
-            continue
+        return true;
+    });
+    for (var i = 0; i < changed.length; i++) {
+        var entry = changed[i];
+        if (!entry.element.isConnected) {
+            return getFullStateTreeTestar(ignoredTags, compact);
         }
+        var treeArray = [];
+        var elementArray = [];
+        var wrapped = wrapElementTestar(entry.element, entry.xOffset, entry.yOffset);
+        traverseElementArrayTestar(treeArray, wrapped, document.body, -1, ignoredTags, elementArray, reuse);
+        walked += treeArray.length;
+        if (walked > maxChanges) {
+            return getFullStateTreeTestar(ignoredTags, compact);
+        }
+        subtrees.push({entry: entry, treeArray: treeArray, elementArray: elementArray});
+    }
 
-        var childWrapped = wrapElementTestar(childElement, parentWrapped["xOffset"], parentWrapped["yOffset"]);
-        traverseElementArrayTestar(treeArray, childWrapped, rootElement, parentId, ignoredTags);
+    // Replace the entries of the walked subtrees, a reused element may have moved to another subtree
+    var area = null;
+    var reused = new Set();
+    subtrees.forEach(function (subtree) {
+        subtree.treeArray.forEach(function (wrapped) {
+            if (wrapped.reuseId !== undefined) {
+                reused.add(delta.nodes.get(wrapped.reuseId));
+            }
+        });
+    });
+    subtrees.forEach(function (subtree) {
+        area = removeEntriesTestar(delta, subtree.entry, reused, area);
+    });
+    subtrees.forEach(function (subtree) {
+        area = addEntriesTestar(delta, subtree.treeArray, subtree.elementArray, subtree.entry, area);
+    });
+
+    // Compare the other elements with the previous fetch
+    var updated = new Set();
+    var focused = document.activeElement;
+    delta.nodes.forEach(function (entry) {
+        if (entry.walked === walking) {
+            return;
+        }
+        var rect = getRectTestar(entry.element, entry.xOffset, entry.yOffset);
+        var scroll = getScrollTestar(entry.element);
+        var style = getComputedStyle(entry.element);
+        var display = style.getPropertyValue('display');
+        var zIndex = getZIndexTestar(entry.element);
+        var overflow = [style.getPropertyValue('overflow-x'), style.getPropertyValue('overflow-y')];
+        var isClickable = isClickableTestar(entry.element);
+        var hasKeyboardFocus = focused === entry.element;
+        // An element that is shown, hidden or stacked differently may cover other elements
+        if (rect.join() !== entry.rect.join() || display !== entry.display || zIndex !== entry.zIndex) {
+            area = extendAreaTestar(extendAreaTestar(area, entry.rect), rect);
+        }
+        else if (scroll.join() === entry.scroll.join() && overflow.join() === entry.overflow.join() &&
+                 isClickable === entry.isClickable && hasKeyboardFocus === entry.hasKeyboardFocus) {
+            return;
+        }
+        entry.rect = rect;
+        entry.scroll = scroll;
+        entry.display = display;
+        entry.zIndex = zIndex;
+        entry.overflow = overflow;
+        entry.isClickable = isClickable;
+        entry.hasKeyboardFocus = hasKeyboardFocus;
+        updated.add(entry);
+    });
+    if (walked + updated.size > maxChanges) {
+        return getFullStateTreeTestar(ignoredTags, compact);
+    }
+
+    // Elements may be blocked, or no longer be blocked, by the elements that changed
+    if (area !== null) {
+        delta.nodes.forEach(function (entry) {
+            var x = entry.rect[0] + entry.rect[2] / 2;
+            var y = entry.rect[1] + entry.rect[3] / 2;
+            if (entry.walked === walking || x < area[0] || x > area[2] || y < area[1] || y > area[3]) {
+                return;
+            }
+            var isBlocked = getIsBlockedTestar(entry.element, entry.xOffset, entry.yOffset);
+            if (isBlocked !== entry.isBlocked) {
+                entry.isBlocked = isBlocked;
+                updated.add(entry);
+            }
+        });
+    }
+
+    var updates = [];
+    updated.forEach(function (entry) {
+        updates.push({
+            nodeId: entry.id,
+            rect: entry.rect,
+            dimensions: getDimensionsTestar(entry.element),
+            display: entry.display,
+            zIndex: entry.zIndex,
+            isBlocked: entry.isBlocked,
+            isClickable: entry.isClickable,
+            hasKeyboardFocus: entry.hasKeyboardFocus
+        });
+    });
+
+    delta.counter = walking;
+    return {
+        full: false,
+        generation: delta.generation(),
+        subtrees: subtrees.map(function (subtree) {
+            return subtree.treeArray;
+        }),
+        updates: updates,
+        documentHasFocus: document.hasFocus(),
+        documentTitle: document.title
+    };
+};
+
+/*
+ * Get the complete widget tree, and start to observe the mutations of the page
+ * @param {Array} array of tags that can be skipped, like <style>, <script> etc.
+ * @param {bool} compact, return the tree in the encoding of getStateTreeTestarCompact
+ * @return {object} the tree, in which the id of an element is its index
+ */
+function getFullStateTreeTestar(ignoredTags, compact) {
+    if (testarDelta !== undefined) {
+        testarDelta.observer.disconnect();
+        testarDelta = undefined;
+    }
+
+    var elementArray = [];
+    var treeArray = getStateTreeTestar(ignoredTags, elementArray);
+
+    var delta = {
+        token: Math.random().toString(36).substring(2),
+        counter: 0,
+        generation: function () {
+            return this.token + ":" + this.counter;
+        },
+        ignoredTags: ignoredTags,
+        labels: JSON.stringify(labelMap),
+        dirty: new Set(),
+        // the entries by id and by element
+        nodes: new Map(),
+        entries: new WeakMap(),
+        nextId: treeArray.length
+    };
+    var entries = [];
+    for (var i = 0; i < treeArray.length; i++) {
+        var wrapped = treeArray[i];
+        wrapped.nodeId = i;
+        entries.push(createEntryTestar(delta, i, elementArray[i],
+            wrapped.parentId < 0 ? null : entries[wrapped.parentId], wrapped));
+    }
+
+    delta.observer = new MutationObserver(function (mutations) {
+        addMutationsTestar(delta, mutations);
+    });
+    delta.observer.observe(document, {subtree: true, childList: true, attributes: true, characterData: true});
+    delta.counter = 1;
+    testarDelta = delta;
+
+    return {
+        full: true,
+        generation: delta.generation(),
+        tree: compact ? encodeStateTreeTestar(treeArray) : treeArray
+    };
+}
+
+/*
+ * Create the entry with which an element is compared in the next incremental fetch
+ * @param {object} delta, the state of the incremental fetch
+ * @param {number} id, the id of the element
+ * @param {node} element, the HTML element
+ * @param {object} parentEntry, the entry of the parent, null for the body
+ * @param {object} wrapped, the wrapped element
+ * @return {object} the entry
+ */
+function createEntryTestar(delta, id, element, parentEntry, wrapped) {
+    var entry = {
+        id: id,
+        element: element,
+        parent: parentEntry,
+        children: [],
+        xOffset: wrapped.xOffset,
+        yOffset: wrapped.yOffset
+    };
+    updateEntryTestar(delta, entry, wrapped);
+    if (parentEntry !== null) {
+        parentEntry.children.push(entry);
+    }
+    delta.nodes.set(id, entry);
+    delta.entries.set(element, entry);
+    return entry;
+}
+
+/*
+ * Store the values of a wrapped element that are compared in the next incremental fetch
+ * @param {object} delta, the state of the incremental fetch
+ * @param {object} entry, the entry of the element
+ * @param {object} wrapped, the wrapped element
+ */
+function updateEntryTestar(delta, entry, wrapped) {
+    entry.rect = wrapped.rect;
+    entry.scroll = [wrapped.dimensions.scrollLeft, wrapped.dimensions.scrollTop];
+    entry.display = wrapped.display;
+    entry.zIndex = wrapped.zIndex;
+    entry.overflow = [wrapped.dimensions.overflowX, wrapped.dimensions.overflowY];
+    entry.isClickable = wrapped.isClickable;
+    entry.isBlocked = wrapped.isBlocked;
+    entry.hasKeyboardFocus = wrapped.hasKeyboardFocus;
+    entry.walked = delta.counter + 1;
+}
+
+/*
+ * Remember the nodes of which the mutations change the widget tree
+ * Elements with ignored tags, like the TESTAR canvas, are not part of the tree
+ * @param {object} delta, the state of the incremental fetch
+ * @param {Array} mutations, the MutationRecords
+ */
+function addMutationsTestar(delta, mutations) {
+    var changesTree = function (node) {
+        if (node.nodeType === 1) {
+            return !delta.ignoredTags.includes(node.nodeName.toLowerCase());
+        }
+        return node.nodeType === 3;
+    };
+    for (var i = 0; i < mutations.length; i++) {
+        var mutation = mutations[i];
+        if (mutation.type === 'characterData') {
+            delta.dirty.add(mutation.target.parentNode);
+        }
+        else if (mutation.type === 'attributes' ? changesTree(mutation.target) :
+                 Array.from(mutation.addedNodes).some(changesTree) || Array.from(mutation.removedNodes).some(changesTree)) {
+            delta.dirty.add(mutation.target);
+        }
+    }
+}
+
+/*
+ * Find the entry of a node, or of the nearest ancestor that has one
+ * @param {object} delta, the state of the incremental fetch
+ * @param {node} node, the node that changed
+ * @return {object} the entry, undefined if the node is not inside the body
+ */
+function findEntryTestar(delta, node) {
+    while (node !== null && node !== undefined) {
+        var entry = delta.entries.get(node);
+        if (entry !== undefined) {
+            return entry;
+        }
+        // Leave a shadow root through its host
+        node = node.parentNode !== null ? node.parentNode : node.host;
+    }
+    return undefined;
+}
+
+/*
+ * Remove the entries of the descendants of an element that is walked again
+ * @param {object} delta, the state of the incremental fetch
+ * @param {object} entry, the entry of the element
+ * @param {Set} reused, the entries of which the subtree is kept
+ * @param {Array} area, the area that changed so far
+ * @return {Array} the area, extended with the previous positions of the removed elements
+ */
+function removeEntriesTestar(delta, entry, reused, area) {
+    area = extendAreaTestar(area, entry.rect);
+    var reusedIndex = 0;
+    for (var i = 0; i < entry.children.length; i++) {
+        var child = entry.children[i];
+        if (reused.has(child)) {
+            // Remember the place of the child, to find out if it moved
+            child.previousPlace = entry.id + ":" + reusedIndex++;
+        }
+        else {
+            area = removeEntriesTestar(delta, child, reused, area);
+            delta.nodes.delete(child.id);
+            delta.entries.delete(child.element);
+        }
+    }
+    entry.children = [];
+    return area;
+}
+
+/*
+ * Add the entries of a subtree that was walked again
+ * The root of the subtree keeps its id, the new elements get new ids, and the reused elements are moved
+ * @param {object} delta, the state of the incremental fetch
+ * @param {Array} treeArray, the wrapped elements of the subtree
+ * @param {Array} elementArray, the HTML elements of the subtree
+ * @param {object} entry, the entry of the root of the subtree
+ * @param {Array} area, the area that changed so far
+ * @return {Array} the area, extended with the positions of the new elements
+ */
+function addEntriesTestar(delta, treeArray, elementArray, entry, area) {
+    var entries = [];
+    var reusedCounts = [];
+    for (var i = 0; i < treeArray.length; i++) {
+        var wrapped = treeArray[i];
+        var added;
+        if (i === 0) {
+            added = entry;
+            updateEntryTestar(delta, entry, wrapped);
+            wrapped.nodeId = entry.id;
+        }
+        else if (wrapped.reuseId !== undefined) {
+            added = delta.nodes.get(wrapped.reuseId);
+            added.parent = entries[wrapped.parentId];
+            added.parent.children.push(added);
+            // A moved element may cover other elements, or no longer cover them
+            var reusedIndex = reusedCounts[wrapped.parentId] || 0;
+            reusedCounts[wrapped.parentId] = reusedIndex + 1;
+            if (added.previousPlace !== added.parent.id + ":" + reusedIndex) {
+                area = extendSubtreeAreaTestar(area, added);
+            }
+        }
+        else {
+            added = createEntryTestar(delta, delta.nextId++, elementArray[i], entries[wrapped.parentId], wrapped);
+            wrapped.nodeId = added.id;
+        }
+        if (wrapped.reuseId === undefined) {
+            area = extendAreaTestar(area, added.rect);
+        }
+        entries.push(added);
+    }
+    return area;
+}
+
+/*
+ * Extend an area, given as [left, top, right, bottom], with a rectangle
+ * @param {Array} area, the area, null if it is empty
+ * @param {Array} rect, the rectangle as [x, y, width, height]
+ * @return {Array} the extended area
+ */
+function extendAreaTestar(area, rect) {
+    if (area === null) {
+        return [rect[0], rect[1], rect[0] + rect[2], rect[1] + rect[3]];
+    }
+    return [Math.min(area[0], rect[0]), Math.min(area[1], rect[1]),
+        Math.max(area[2], rect[0] + rect[2]), Math.max(area[3], rect[1] + rect[3])];
+}
+
+/*
+ * Extend an area with the rectangles of all elements in a subtree
+ * @param {Array} area, the area, null if it is empty
+ * @param {object} entry, the entry of the root of the subtree
+ * @return {Array} the extended area
+ */
+function extendSubtreeAreaTestar(area, entry) {
+    area = extendAreaTestar(area, entry.rect);
+    for (var i = 0; i < entry.children.length; i++) {
+        area = extendSubtreeAreaTestar(area, entry.children[i]);
+    }
+    return area;
+}
+
+/*
+ * Get the scroll position of the element, as getDimensionsTestar does
+ * @param {node} element, the HTML element
+ * @return {Array} the horizontal and vertical scroll position
+ */
+function getScrollTestar(element) {
+    if (element === document.body) {
+        return [Math.max(document.documentElement.scrollLeft, document.body.scrollLeft),
+            Math.max(document.documentElement.scrollTop, document.body.scrollTop)];
     }
+    return [element.scrollLeft, element.scrollTop];
 }
 
 /*
@@ -0,0 +1,174 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package org.fruit.alayer.webdriver;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The widget tree as returned by getStateTreeTestarCompact. Instead of a map per element, the elements are
+ * stored in integer columns, and all strings are kept once in a string table to which the columns refer.
+ * The WdElements are filled from the columns directly.
+ *
+ * The browser truncates all numbers to integers. Only scrollLeft and scrollTop can be fractional, for instance
+ * when the page is zoomed. WdElement keeps these as longs and truncates them for the other encoding as well,
+ * so both encodings give the same scroll values and visible bounds, and both lose the fraction. The frame
+ * offsets are not sent, they are already part of the integer rects.
+ */
+class WdCompactTree {
+
+  // The columns in the order of getStateTreeTestarCompact
+  static final int PARENT_ID = 0, Z_INDEX = 1, X = 2, Y = 3, WIDTH = 4, HEIGHT = 5,
+      CLIENT_WIDTH = 6, CLIENT_HEIGHT = 7, OFFSET_WIDTH = 8, OFFSET_HEIGHT = 9,
+      SCROLL_WIDTH = 10, SCROLL_HEIGHT = 11, SCROLL_LEFT = 12, SCROLL_TOP = 13,
+      BORDER_WIDTH = 14, BORDER_HEIGHT = 15, FLAGS = 16,
+      NAME = 17, TAG_NAME = 18, TEXT_CONTENT = 19, DISPLAY = 20, OVERFLOW_X = 21, OVERFLOW_Y = 22,
+      ATTRIBUTE_COUNT = 23;
+  static final int NR_OF_COLUMNS = 24;
+
+  // The bits in the FLAGS column
+  static final int BLOCKED = 1, CLICKABLE = 2, SHADOW_ELEMENT = 4, KEYBOARD_FOCUS = 8;
+
+  final int size;
+  final boolean documentHasFocus;
+  final String documentTitle;
+
+  private final String[] strings;
+  private final int[] columns;
+  private final int[] attributes;
+  // where the attributes of each element start
+  private final int[] attributeStart;
+  // the children of an element, in document order
+  private final int[] firstChild, nextSibling;
+
+  @SuppressWarnings("unchecked")
+  WdCompactTree(Map<String, Object> compactTree) {
+    size = ((Number) compactTree.get("size")).intValue();
+    strings = ((List<String>) compactTree.get("strings")).toArray(new String[0]);
+    columns = parseIntegers((String) compactTree.get("columns"), NR_OF_COLUMNS * size);
+    documentHasFocus = (Boolean) compactTree.get("documentHasFocus");
+    documentTitle = (String) compactTree.get("documentTitle");
+
+    attributeStart = new int[size + 1];
+    for (int idx = 0; idx < size; idx++) {
+      attributeStart[idx + 1] = attributeStart[idx] + 2 * get(idx, ATTRIBUTE_COUNT);
+    }
+    attributes = parseIntegers((String) compactTree.get("attributes"), attributeStart[size]);
+
+    // The parent of an element comes before the element, and siblings are in document order
+    firstChild = new int[size];
+    nextSibling = new int[size];
+    int[] lastChild = new int[size];
+    for (int idx = 0; idx < size; idx++) {
+      firstChild[idx] = lastChild[idx] = nextSibling[idx] = -1;
+      int parentId = get(idx, PARENT_ID);
+      if (parentId < 0) {
+        continue;
+      }
+      if (lastChild[parentId] < 0) {
+        firstChild[parentId] = idx;
+      }
+      else {
+        nextSibling[lastChild[parentId]] = idx;
+      }
+      lastChild[parentId] = idx;
+    }
+  }
+
+  int get(int element, int column) {
+    return columns[column * size + element];
+  }
+
+  boolean flag(int element, int flag) {
+    return (get(element, FLAGS) & flag) != 0;
+  }
+
+  /**
+   * @return The string of a string column, null if the element had none.
+   */
+  String string(int element, int column) {
+    int id = get(element, column);
+    return id < 0 ? null : strings[id];
+  }
+
+  Map<String, String> attributeMap(int element) {
+    int start = attributeStart[element], end = attributeStart[element + 1];
+    Map<String, String> attributeMap = new HashMap<>(1 + (end - start) * 2 / 3);
+    for (int idx = start; idx < end; idx += 2) {
+      attributeMap.put(strings[attributes[idx]],
+          attributes[idx + 1] < 0 ? null : strings[attributes[idx + 1]]);
+    }
+    return attributeMap;
+  }
+
+  /**
+   * @return The first child of the element, -1 if there is none.
+   */
+  int firstChild(int element) {
+    return firstChild[element];
+  }
+
+  /**
+   * @return The next child of the parent of the element, -1 if there is none.
+   */
+  int nextSibling(int element) {
+    return nextSibling[element];
+  }
+
+  /**
+   * Parses the comma separated integers, without splitting the string first.
+   */
+  static int[] parseIntegers(String text, int count) {
+    int[] integers = new int[count];
+    int length = text.length(), pos = 0;
+    for (int idx = 0; idx < count; idx++) {
+      boolean negative = pos < length && text.charAt(pos) == '-';
+      if (negative) {
+        pos++;
+      }
+      int value = 0;
+      char c;
+      while (pos < length && (c = text.charAt(pos)) != ',') {
+        value = 10 * value + (c - '0');
+        pos++;
+      }
+      integers[idx] = negative ? -value : value;
+      // skip the comma
+      pos++;
+    }
+    if (pos != (count == 0 ? 0 : length + 1)) {
+      throw new IllegalArgumentException("Expected " + count + " integers in the compact widget tree");
+    }
+    return integers;
+  }
+}
@@ -78,6 +78,10 @@ public class WdDriver extends SUTBase {
   public static boolean fullScreen = false;
   public static boolean forceActivateTab = true;
   public static boolean disableSecurity = false;
+  // Fetch the widget tree with getStateTreeTestarCompact, see WdCompactTree
+  public static boolean compactStateTransport = false;
+  // Only fetch the parts of the widget tree that changed, see WdIncrementalTree
+  public static boolean incrementalStateFetch = false;
 
   private final Keyboard kbd = AWTKeyboard.build();
   private final Mouse mouse = WdMouse.build();
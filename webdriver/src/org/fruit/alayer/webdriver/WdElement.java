@@ -38,6 +38,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiFunction;
 
 public class WdElement extends TaggableBase implements Serializable {
   private static final long serialVersionUID = 2695983969893321255L;
@@ -87,10 +88,22 @@ public class WdElement extends TaggableBase implements Serializable {
 
   public transient Map<String, String> attributeMap;
 
-  @SuppressWarnings("unchecked")
+  // The id of the element in the incremental fetch, -1 if it has none
+  int nodeId = -1;
+
   public WdElement(Map<String, Object> packedElement,
 		  			WdRootElement root, WdElement parent) {
-    this.root = root;
+    this(packedElement, root, parent, null);
+  }
+
+  /**
+   * @param reuse Gives the element for a child that refers to an element of the previous tree by its
+   *              reuseId, see WdIncrementalTree. Null if there are no such children.
+   */
+  @SuppressWarnings("unchecked")
+  WdElement(Map<String, Object> packedElement, WdRootElement root, WdElement parent,
+            BiFunction<Integer, WdElement, WdElement> reuse) {
+    this.root = rootOf(root);
     this.parent = parent;
 
     try {
@@ -104,24 +117,14 @@ public class WdElement extends TaggableBase implements Serializable {
     	throw e;
     }
     
-    id = attributeMap.getOrDefault("id", "");
-    name = attributeMap.getOrDefault("name", "");
+    fillAttributes();
+    Object packedNodeId = packedElement.get("nodeId");
+    if (packedNodeId != null) {
+      nodeId = ((Number) packedNodeId).intValue();
+    }
     genericTitle = (String) packedElement.get("name");
     tagName = (String) packedElement.get("tagName");
     textContent = ((String) packedElement.get("textContent")).replaceAll("\\s+", " ").trim();
-    title = attributeMap.getOrDefault("title","");
-    href = attributeMap.getOrDefault("href", "");
-    value = attributeMap.getOrDefault("value", "");
-    style = attributeMap.getOrDefault("style", "");
-    target = attributeMap.getOrDefault("target", "");
-    alt = attributeMap.getOrDefault("alt", "");
-    type = attributeMap.getOrDefault("type", "");
-    src = attributeMap.getOrDefault("src", "");
-
-    String classesString = attributeMap.getOrDefault("class", "");
-    if (classesString != null) {
-      cssClasses = Arrays.asList(classesString.split(" "));
-    }
     display = (String) packedElement.get("display");
 
     zindex = (double) (long) packedElement.get("zIndex");
@@ -136,15 +139,15 @@ public class WdElement extends TaggableBase implements Serializable {
     isKeyboardFocusable = getIsFocusable();
     hasKeyboardFocus = (Boolean) packedElement.get("hasKeyboardFocus");
 
-    enabled = !Constants.hiddenTags.contains(tagName);
-    if (display != null && display.toLowerCase().equals("none")) {
-      enabled = false;
-    }
+    setEnabled();
 
     List<Map<String, Object>> wrappedChildren =
         (List<Map<String, Object>>) packedElement.get("wrappedChildren");
     for (Map<String, Object> wrappedChild : wrappedChildren) {
-      WdElement child = new WdElement(wrappedChild, root, this);
+      Object reuseId = wrappedChild.get("reuseId");
+      WdElement child = reuseId != null && reuse != null ?
+          reuse.apply(((Number) reuseId).intValue(), this) :
+          new WdElement(wrappedChild, this.root, this, reuse);
       if (!Constants.hiddenTags.contains(child.tagName) &&
           !Constants.ignoredTags.contains(child.tagName)) {
         children.add(child);
@@ -164,6 +167,154 @@ public class WdElement extends TaggableBase implements Serializable {
     }*/
   }
 
+  /**
+   * Fills the element from the compact widget tree, without the maps of the other constructor.
+   * The text content was already normalized in the browser.
+   * @param tree The compact widget tree.
+   * @param element The index of the element in the tree.
+   */
+  WdElement(WdCompactTree tree, int element, WdRootElement root, WdElement parent) {
+    this.root = rootOf(root);
+    this.parent = parent;
+
+    attributeMap = tree.attributeMap(element);
+    fillAttributes();
+    nodeId = element;
+    genericTitle = tree.string(element, WdCompactTree.NAME);
+    tagName = tree.string(element, WdCompactTree.TAG_NAME);
+    textContent = tree.string(element, WdCompactTree.TEXT_CONTENT);
+    display = tree.string(element, WdCompactTree.DISPLAY);
+
+    zindex = tree.get(element, WdCompactTree.Z_INDEX);
+    rect = Rect.from(tree.get(element, WdCompactTree.X), tree.get(element, WdCompactTree.Y),
+        tree.get(element, WdCompactTree.WIDTH), tree.get(element, WdCompactTree.HEIGHT));
+    overflowX = String.valueOf(tree.string(element, WdCompactTree.OVERFLOW_X));
+    overflowY = String.valueOf(tree.string(element, WdCompactTree.OVERFLOW_Y));
+    clientWidth = tree.get(element, WdCompactTree.CLIENT_WIDTH);
+    clientHeight = tree.get(element, WdCompactTree.CLIENT_HEIGHT);
+    offsetWidth = tree.get(element, WdCompactTree.OFFSET_WIDTH);
+    offsetHeight = tree.get(element, WdCompactTree.OFFSET_HEIGHT);
+    scrollWidth = tree.get(element, WdCompactTree.SCROLL_WIDTH);
+    scrollHeight = tree.get(element, WdCompactTree.SCROLL_HEIGHT);
+    scrollLeft = tree.get(element, WdCompactTree.SCROLL_LEFT);
+    scrollTop = tree.get(element, WdCompactTree.SCROLL_TOP);
+    borderWidth = tree.get(element, WdCompactTree.BORDER_WIDTH);
+    borderHeight = tree.get(element, WdCompactTree.BORDER_HEIGHT);
+
+    isFullVisibleOnScreen = isFullVisibleAtCanvasBrowser();
+
+    blocked = tree.flag(element, WdCompactTree.BLOCKED);
+    isClickable = tree.flag(element, WdCompactTree.CLICKABLE);
+    isShadow = (parent != null && parent.isShadow) || tree.flag(element, WdCompactTree.SHADOW_ELEMENT);
+    isKeyboardFocusable = getIsFocusable();
+    hasKeyboardFocus = tree.flag(element, WdCompactTree.KEYBOARD_FOCUS);
+
+    setEnabled();
+
+    for (int idx = tree.firstChild(element); idx != -1; idx = tree.nextSibling(idx)) {
+      WdElement child = new WdElement(tree, idx, this.root, this);
+      if (!Constants.hiddenTags.contains(child.tagName) &&
+          !Constants.ignoredTags.contains(child.tagName)) {
+        children.add(child);
+      }
+    }
+
+    setName();
+    fillScrollValues();
+  }
+
+  /**
+   * Copies an element of a previous tree, without its children.
+   * @param other The element to copy.
+   * @param root The root of the tree the copy is part of.
+   * @param parent The parent of the copy.
+   */
+  WdElement(WdElement other, WdRootElement root, WdElement parent) {
+    this.root = root;
+    this.parent = parent;
+    nodeId = other.nodeId;
+    attributeMap = other.attributeMap;
+
+    blocked = other.blocked;
+    isModal = other.isModal;
+    id = other.id;
+    name = other.name;
+    genericTitle = other.genericTitle;
+    tagName = other.tagName;
+    textContent = other.textContent;
+    helpText = other.helpText;
+    title = other.title;
+    cssClasses = other.cssClasses;
+    display = other.display;
+    type = other.type;
+    enabled = other.enabled;
+    ignore = other.ignore;
+    isClickable = other.isClickable;
+    isShadow = other.isShadow;
+    isContentElement = other.isContentElement;
+    isControlElement = other.isControlElement;
+    hasKeyboardFocus = other.hasKeyboardFocus;
+    isKeyboardFocusable = other.isKeyboardFocusable;
+    acceleratorKey = other.acceleratorKey;
+    accessKey = other.accessKey;
+    valuePattern = other.valuePattern;
+    href = other.href;
+    value = other.value;
+    style = other.style;
+    target = other.target;
+    alt = other.alt;
+    src = other.src;
+
+    zindex = other.zindex;
+    rect = other.rect;
+    scrollPattern = other.scrollPattern;
+    hScroll = other.hScroll;
+    vScroll = other.vScroll;
+    hScrollViewSize = other.hScrollViewSize;
+    vScrollViewSize = other.vScrollViewSize;
+    hScrollPercent = other.hScrollPercent;
+    vScrollPercent = other.vScrollPercent;
+    isFullVisibleOnScreen = other.isFullVisibleOnScreen;
+
+    overflowX = other.overflowX;
+    overflowY = other.overflowY;
+    clientWidth = other.clientWidth;
+    clientHeight = other.clientHeight;
+    offsetWidth = other.offsetWidth;
+    offsetHeight = other.offsetHeight;
+    scrollWidth = other.scrollWidth;
+    scrollHeight = other.scrollHeight;
+    scrollLeft = other.scrollLeft;
+    scrollTop = other.scrollTop;
+    borderWidth = other.borderWidth;
+    borderHeight = other.borderHeight;
+  }
+
+  /**
+   * @return The given root, or this element while it is being constructed as the root of a tree.
+   */
+  private WdRootElement rootOf(WdRootElement root) {
+    return root == null && this instanceof WdRootElement ? (WdRootElement) this : root;
+  }
+
+  /**
+   * Applies an update of the incremental fetch: the position, the dimensions, the computed style
+   * and the flags that may change without a DOM mutation of the element itself.
+   * @param update The update, as created by getStateTreeTestarIncremental.
+   */
+  void update(Map<String, Object> update) {
+    fillRect(update);
+    fillDimensions(update);
+    display = (String) update.get("display");
+    zindex = ((Number) update.get("zIndex")).doubleValue();
+    setEnabled();
+    isFullVisibleOnScreen = isFullVisibleAtCanvasBrowser();
+    blocked = (Boolean) update.get("isBlocked");
+    isClickable = (Boolean) update.get("isClickable");
+    hasKeyboardFocus = (Boolean) update.get("hasKeyboardFocus");
+    fillScrollValues();
+  }
+
   private void writeObject(ObjectOutputStream oos) throws IOException {
     oos.defaultWriteObject();
   }
@@ -202,6 +353,31 @@ public class WdElement extends TaggableBase implements Serializable {
 	  return String.join(",", cssClasses);
   }
 
+  private void fillAttributes() {
+    id = attributeMap.getOrDefault("id", "");
+    name = attributeMap.getOrDefault("name", "");
+    title = attributeMap.getOrDefault("title","");
+    href = attributeMap.getOrDefault("href", "");
+    value = attributeMap.getOrDefault("value", "");
+    style = attributeMap.getOrDefault("style", "");
+    target = attributeMap.getOrDefault("target", "");
+    alt = attributeMap.getOrDefault("alt", "");
+    type = attributeMap.getOrDefault("type", "");
+    src = attributeMap.getOrDefault("src", "");
+
+    String classesString = attributeMap.getOrDefault("class", "");
+    if (classesString != null) {
+      cssClasses = Arrays.asList(classesString.split(" "));
+    }
+  }
+
+  private void setEnabled() {
+    enabled = !Constants.hiddenTags.contains(tagName);
+    if (display != null && display.toLowerCase().equals("none")) {
+      enabled = false;
+    }
+  }
+
   private void setName() {
     if (name == null || name.equals("null") || name.isEmpty()) {
       name = textContent;
@@ -240,15 +416,31 @@ public class WdElement extends TaggableBase implements Serializable {
     scrollPattern = hScroll || vScroll;
   }
 
+  /*
+   * Only the hit test area of the root is offset by the scroll values of the page. The rects of the other
+   * elements are relative to the viewport, like the shapes of their widgets.
+   */
   public boolean visibleAt(double x, double y) {
-    int scrollLeft = (root == null) ? 0 : (int) root.scrollLeft;
-    int scrollHeight = (root == null) ? 0 : (int) root.scrollHeight;
+    int scrollLeft = (root != this) ? 0 : (int) root.scrollLeft;
+    int scrollHeight = (root != this) ? 0 : (int) root.scrollHeight;
     return rect != null && rect.contains(x - scrollLeft, y - scrollHeight);
   }
 
   public boolean visibleAt(double x, double y, boolean obscuredByChildFeature) {
     return visibleAt(x, y);
   }
+
+  /**
+   * @return The area in which visibleAt can be true, null if the element has no rect.
+   */
+  public Rect visibleBounds() {
+    if (rect == null) {
+      return null;
+    }
+    int scrollLeft = (root != this) ? 0 : (int) root.scrollLeft;
+    int scrollHeight = (root != this) ? 0 : (int) root.scrollHeight;
+    return Rect.from(rect.x() + scrollLeft, rect.y() + scrollHeight, rect.width(), rect.height());
+  }
   
   private boolean isFullVisibleAtCanvasBrowser() {
 	  return rect.x() >= 0 && rect.x() + rect.width() <= CanvasDimensions.getCanvasWidth() &&
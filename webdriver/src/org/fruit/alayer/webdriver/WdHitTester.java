@@ -31,6 +31,7 @@
 package org.fruit.alayer.webdriver;
 
 import org.fruit.alayer.HitTester;
+import org.fruit.alayer.Rect;
 
 import java.io.Serializable;
 
@@ -66,6 +67,11 @@ public class WdHitTester implements HitTester, Serializable {
     return element.visibleAt(x, y, obscuredByChildFeature);
   }
 
+  @Override
+  public Rect bounds() {
+    return element.visibleBounds();
+  }
+
   public String toString() {
     return "WdHitTester";
   }
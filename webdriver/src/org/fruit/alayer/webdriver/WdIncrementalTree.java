@@ -0,0 +1,208 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package org.fruit.alayer.webdriver;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fetches the widget tree with getStateTreeTestarIncremental, which only walks the parts of the DOM that
+ * changed since the previous fetch. The new tree is a copy of the previous tree, in which the changed
+ * subtrees are replaced and the changed positions and flags are updated. The previous tree itself is not
+ * changed, as it still belongs to the previous state.
+ */
+class WdIncrementalTree {
+
+  // The fraction of the elements that may change before the complete tree is fetched instead
+  private static final double MAX_CHANGED_FRACTION = 0.25;
+  private static final int MIN_MAX_CHANGES = 100;
+
+  private WdRootElement previous;
+  // The elements of the previous tree by their node id
+  private Map<Integer, WdElement> previousElements = new HashMap<>();
+  // The generation of the previous tree in the page, empty if there is none
+  private String generation = "";
+
+  /**
+   * @return The root element, null if the tree could not be fetched.
+   */
+  synchronized WdRootElement fetch() {
+    Object result = fetchChanges();
+    WdRootElement root = apply(result);
+    if (root == null && result instanceof Map && Boolean.FALSE.equals(((Map<?, ?>) result).get("full"))) {
+      // The changes do not fit the previous tree, fetch the complete tree
+      root = apply(fetchChanges());
+    }
+    return root;
+  }
+
+  private Object fetchChanges() {
+    int maxChanges = Math.max(MIN_MAX_CHANGES, (int) (MAX_CHANGED_FRACTION * previousElements.size()));
+    return WdDriver.executeScript(
+        "return getStateTreeTestarIncremental(arguments[0], arguments[1], arguments[2], arguments[3])",
+        Constants.ignoredTags, generation, maxChanges, WdDriver.compactStateTransport);
+  }
+
+  /**
+   * Builds the new tree from the result of getStateTreeTestarIncremental.
+   * @param result The complete tree, or the changes to the previous tree.
+   * @return The root element, null if the result could not be used.
+   */
+  @SuppressWarnings("unchecked")
+  WdRootElement apply(Object result) {
+    WdRootElement root = null;
+    if (result instanceof Map) {
+      Map<String, Object> delta = (Map<String, Object>) result;
+      root = Boolean.TRUE.equals(delta.get("full")) ? decodeTree(delta.get("tree")) : patch(delta);
+    }
+    if (root == null) {
+      reset();
+      return null;
+    }
+
+    previous = root;
+    previousElements = new HashMap<>(2 * previousElements.size());
+    addElements(root);
+    generation = (String) ((Map<String, Object>) result).get("generation");
+    return root;
+  }
+
+  private void reset() {
+    previous = null;
+    previousElements = new HashMap<>();
+    generation = "";
+  }
+
+  @SuppressWarnings("unchecked")
+  private static WdRootElement decodeTree(Object tree) {
+    if (tree instanceof List) {
+      return new WdRootElement(WdStateFetcher.unflattenTree((List<Map<String, Object>>) tree));
+    }
+    else if (tree instanceof Map) {
+      return new WdRootElement(new WdCompactTree((Map<String, Object>) tree));
+    }
+    return null;
+  }
+
+  private void addElements(WdElement element) {
+    previousElements.put(element.nodeId, element);
+    for (WdElement child : element.children) {
+      addElements(child);
+    }
+  }
+
+  /**
+   * Applies the changes to a copy of the previous tree.
+   * @param delta The changed subtrees and the updated elements.
+   * @return The new tree, null if the changes do not fit the previous tree.
+   */
+  @SuppressWarnings("unchecked")
+  private WdRootElement patch(Map<String, Object> delta) {
+    if (previous == null) {
+      return null;
+    }
+
+    Patch patch = new Patch();
+    for (List<Map<String, Object>> flatTree : (List<List<Map<String, Object>>>) delta.get("subtrees")) {
+      Map<String, Object> subtree = WdStateFetcher.unflattenTree(flatTree);
+      patch.subtrees.put(((Number) subtree.get("nodeId")).intValue(), subtree);
+    }
+    for (Map<String, Object> update : (List<Map<String, Object>>) delta.get("updates")) {
+      patch.updates.put(((Number) update.get("nodeId")).intValue(), update);
+    }
+
+    try {
+      WdRootElement root;
+      Map<String, Object> body = patch.subtrees.remove(previous.nodeId);
+      if (body != null) {
+        body.put("documentHasFocus", delta.get("documentHasFocus"));
+        body.put("documentTitle", delta.get("documentTitle"));
+        root = new WdRootElement(body, patch::reuse);
+      }
+      else {
+        root = new WdRootElement(previous);
+        root.isForeground = (Boolean) delta.get("documentHasFocus");
+        root.documentTitle = (String) delta.get("documentTitle");
+        Map<String, Object> update = patch.updates.remove(previous.nodeId);
+        if (update != null) {
+          root.update(update);
+        }
+        patch.copyChildren(previous, root);
+      }
+      return patch.subtrees.isEmpty() && patch.updates.isEmpty() ? root : null;
+    }
+    catch (IllegalStateException e) {
+      return null;
+    }
+  }
+
+  /**
+   * The changes of a single fetch, which are removed when they are applied.
+   */
+  private class Patch {
+
+    private final Map<Integer, Map<String, Object>> subtrees = new HashMap<>();
+    private final Map<Integer, Map<String, Object>> updates = new HashMap<>();
+    private final Set<Integer> reused = new HashSet<>();
+
+    private void copyChildren(WdElement from, WdElement to) {
+      for (WdElement child : from.children) {
+        Map<String, Object> subtree = subtrees.remove(child.nodeId);
+        to.children.add(subtree != null ? new WdElement(subtree, to.root, to, this::reuse) : copy(child, to));
+      }
+    }
+
+    private WdElement copy(WdElement element, WdElement parent) {
+      WdElement copy = new WdElement(element, parent.root, parent);
+      Map<String, Object> update = updates.remove(element.nodeId);
+      if (update != null) {
+        copy.update(update);
+      }
+      copyChildren(element, copy);
+      return copy;
+    }
+
+    /**
+     * Copies an element of the previous tree of which the subtree did not change, into a subtree that did.
+     */
+    private WdElement reuse(int nodeId, WdElement parent) {
+      WdElement element = previousElements.get(nodeId);
+      if (element == null || !reused.add(nodeId)) {
+        throw new IllegalStateException("Element " + nodeId + " can not be reused");
+      }
+      return copy(element, parent);
+    }
+  }
+}
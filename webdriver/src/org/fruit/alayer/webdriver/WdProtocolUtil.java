@@ -45,13 +45,7 @@ import static org.fruit.alayer.webdriver.Constants.scrollThick;
 public class WdProtocolUtil extends ProtocolUtil {
 
   public static String getStateshot(State state, int actionCount) {
-    double width = CanvasDimensions.getCanvasWidth() + (
-        state.get(WdTags.WebVerticallyScrollable) ? scrollThick : 0);
-    double height = CanvasDimensions.getCanvasHeight() + (
-        state.get(WdTags.WebHorizontallyScrollable) ? scrollThick : 0);
-    Rect rect = Rect.from(0, 0, width, height);
-    AWTCanvas screenshot = WdScreenshot.fromScreenshot(rect, state.get(Tags.HWND, (long)0));
-    return ScreenshotSerialiser.saveStateshot(state.get(Tags.ConcreteIDCustom), screenshot);
+    return ScreenshotSerialiser.saveStateshot(state.get(Tags.ConcreteIDCustom), getStateshotBinary(state));
   }
 
   public static String getActionshot(State state, Action action) {
@@ -86,6 +80,11 @@ public class WdProtocolUtil extends ProtocolUtil {
   }
   
   public static AWTCanvas getStateshotBinary(State state) {
+	  // the same screenshot is used for the stateshot and the state model
+	  return StateScreenshot.of(state, () -> takeStateshot(state));
+  }
+
+  private static AWTCanvas takeStateshot(State state) {
 	  //If these State Tags are not obtained, the State has an error, use full monitor screen
 	  if(state.get(WdTags.WebVerticallyScrollable, null) == null 
 			  && state.get(WdTags.WebHorizontallyScrollable, null) == null) {
@@ -31,6 +31,7 @@
 package org.fruit.alayer.webdriver;
 
 import java.util.Map;
+import java.util.function.BiFunction;
 
 public class WdRootElement extends WdElement {
   private static final long serialVersionUID = -6309113639487862284L;
@@ -44,7 +45,14 @@ public class WdRootElement extends WdElement {
   public String documentTitle;
 
   public WdRootElement(Map<String, Object> packedbody) {
-    super(packedbody, null, null);
+    this(packedbody, null);
+  }
+
+  /**
+   * @param reuse Gives the elements of the previous tree that are reused, see WdIncrementalTree.
+   */
+  WdRootElement(Map<String, Object> packedbody, BiFunction<Integer, WdElement, WdElement> reuse) {
+    super(packedbody, null, null, reuse);
     root = this;
     parent = this;
     isForeground = (Boolean) packedbody.get("documentHasFocus");
@@ -52,6 +60,38 @@ public class WdRootElement extends WdElement {
     blocked = false;
   }
 
+  WdRootElement(WdCompactTree tree) {
+    super(tree, 0, null, null);
+    root = this;
+    parent = this;
+    isForeground = tree.documentHasFocus;
+    documentTitle = tree.documentTitle;
+    blocked = false;
+  }
+
+  /**
+   * Copies the root of a previous tree, without its children.
+   */
+  WdRootElement(WdRootElement other) {
+    super(other, null, null);
+    root = this;
+    parent = this;
+    pid = other.pid;
+    timeStamp = other.timeStamp;
+    isRunning = other.isRunning;
+    isForeground = other.isForeground;
+    hasStandardMouse = other.hasStandardMouse;
+    hasStandardKeyboard = other.hasStandardKeyboard;
+    documentTitle = other.documentTitle;
+  }
+
+  @Override
+  void update(Map<String, Object> update) {
+    super.update(update);
+    // like a fetched root, the root of an updated tree is never blocked
+    blocked = false;
+  }
+
   public WdElement at(double x, double y) {
     throw new UnsupportedOperationException();
   }
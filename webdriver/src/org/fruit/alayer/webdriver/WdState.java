@@ -46,9 +46,20 @@ import java.util.Set;
 public final class WdState extends WdWidget implements State {
 	private static final long serialVersionUID = 661696260972010052L;
 
+	// whether the tags of the widgets are stored in a CompactTagMap
+	final boolean compactTags;
+
 	public WdState(WdElement root) {
+		this(root, false);
+	}
+
+	public WdState(WdElement root, boolean compactTags) {
 		super(null, null, root);
 		this.root = this;
+		this.compactTags = compactTags;
+		if (compactTags) {
+			this.tags = new CompactTagMap();
+		}
 	}
 
 	public Iterator<Widget> iterator() {
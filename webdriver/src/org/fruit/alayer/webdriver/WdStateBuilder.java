@@ -42,11 +42,21 @@ public class WdStateBuilder implements StateBuilder {
   private static final int defaultThreadPoolCount = 1;
 
   private final double timeOut;
+  private final boolean compactTags;
   private transient ExecutorService executor;
 
   public WdStateBuilder(double timeOut) {
+    this(timeOut, false);
+  }
+
+  /**
+   * @param timeOut
+   * @param compactTags Whether the tags of the widgets are stored in a CompactTagMap, which needs less memory.
+   */
+  public WdStateBuilder(double timeOut, boolean compactTags) {
     Assert.isTrue(timeOut > 0);
     this.timeOut = timeOut;
+    this.compactTags = compactTags;
 
     // Needed to be able to schedule asynchronous tasks conveniently.
     executor = Executors.newFixedThreadPool(defaultThreadPoolCount);
@@ -55,7 +65,7 @@ public class WdStateBuilder implements StateBuilder {
   @Override
   public WdState apply(SUT system) throws StateBuildException {
     try {
-      Future<WdState> future = executor.submit(new WdStateFetcher(system));
+      Future<WdState> future = executor.submit(new WdStateFetcher(system, compactTags));
       WdState state = future.get((long) (timeOut), TimeUnit.SECONDS);
       // When the SUT has a valid windowHandle store it in the state, it's required to create well aligned screenshots.
       if (system.get(Tags.HWND, null) != null){
@@ -69,7 +79,7 @@ public class WdStateBuilder implements StateBuilder {
     }
     catch (TimeoutException e) {
       WdRootElement wdRootElement = WdStateFetcher.buildRoot(system);
-      WdState wdState = new WdState(wdRootElement);
+      WdState wdState = new WdState(wdRootElement, compactTags);
       wdState.set(Tags.Role, Roles.Process);
       wdState.set(Tags.NotResponding, true);
       return wdState;
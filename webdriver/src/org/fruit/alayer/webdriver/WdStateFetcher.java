@@ -36,38 +36,43 @@ import org.fruit.alayer.SUT;
 import org.fruit.alayer.Tags;
 import org.fruit.alayer.Widget;
 import org.fruit.alayer.exceptions.StateBuildException;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 import java.util.concurrent.Callable;
 
 public class WdStateFetcher implements Callable<WdState> {
+  private static final WdIncrementalTree incrementalTree = new WdIncrementalTree();
+
   private final SUT system;
+  private final boolean compactTags;
 
   public WdStateFetcher(SUT system) {
+    this(system, false);
+  }
+
+  /**
+   * @param system
+   * @param compactTags Whether the tags of the widgets are stored in a CompactTagMap instead of a HashMap.
+   */
+  public WdStateFetcher(SUT system, boolean compactTags) {
     this.system = system;
+    this.compactTags = compactTags;
   }
 
-  @SuppressWarnings("unchecked")
   public static WdRootElement buildRoot(SUT system) throws StateBuildException {
-    Object result = WdDriver.executeScript(
-        "return getStateTreeTestar(arguments[0])", Constants.ignoredTags);
-
-    // TODO As Edge limits its recursion to 20, we need to flatten the tree in JS
-    // And unflatten the list here into a nested Map (as produced by Chrome / FF)
-    // https://developer.microsoft.com/en-us/microsoft-edge/platform/issues/18531786/
-    Map<String, Object> packedBody;
-    if (result instanceof List) {
-      packedBody = unflattenTree((List<Map<String, Object>>) result);
-    }
-    else if (result instanceof Map) {
-      packedBody = (Map<String, Object>) result;
+    WdRootElement wdRoot;
+    if (WdDriver.incrementalStateFetch) {
+      wdRoot = incrementalTree.fetch();
     }
     else {
+      wdRoot = WdDriver.compactStateTransport ? fetchCompactRoot() : fetchRoot();
+    }
+    if (wdRoot == null) {
       return null;
     }
 
-    WdRootElement wdRoot = new WdRootElement(packedBody);
     wdRoot.isRunning = system.isRunning();
     wdRoot.timeStamp = System.currentTimeMillis();
     wdRoot.hasStandardKeyboard = system.get(Tags.StandardKeyboard, null) != null;
@@ -78,28 +83,60 @@ public class WdStateFetcher implements Callable<WdState> {
   }
 
   @SuppressWarnings("unchecked")
-  private static Map<String, Object> unflattenTree(List<Map<String, Object>> flatTree) {
-    for (int idx = flatTree.size() - 1; idx > 0; idx--) {
-      Map<String, Object> node = flatTree.remove(idx);
+  private static WdRootElement fetchRoot() {
+    Object result = WdDriver.executeScript(
+        "return getStateTreeTestar(arguments[0])", Constants.ignoredTags);
 
-      Long parentId = (Long) node.get("parentId");
-      Map<String, Object> parent = getParent(parentId.intValue(), flatTree);
-      List<Map<String, Object>> wrappedChildren = (List<Map<String, Object>>) parent.get("wrappedChildren");
-      wrappedChildren.add(node);
+    // Edge limits its recursion to 20 when serialising the result, and deep trees are costly to
+    // serialise in the other drivers as well. So the tree is flattened in JS for all browsers
+    // and we unflatten the list here into a nested Map.
+    // https://developer.microsoft.com/en-us/microsoft-edge/platform/issues/18531786/
+    Map<String, Object> packedBody;
+    if (result instanceof List) {
+      packedBody = unflattenTree((List<Map<String, Object>>) result);
+    }
+    else if (result instanceof Map) {
+      packedBody = (Map<String, Object>) result;
+    }
+    else {
+      return null;
     }
+    return new WdRootElement(packedBody);
+  }
 
-    return flatTree.get(0);
+  /**
+   * Fetches the tree as columns of numbers and a string table, which is much smaller to serialise
+   * and is decoded into the WdElements without a map per element.
+   */
+  @SuppressWarnings("unchecked")
+  private static WdRootElement fetchCompactRoot() {
+    Object result = WdDriver.executeScript(
+        "return getStateTreeTestarCompact(arguments[0])", Constants.ignoredTags);
+    if (!(result instanceof Map)) {
+      return null;
+    }
+    return new WdRootElement(new WdCompactTree((Map<String, Object>) result));
   }
 
-  private static Map<String, Object> getParent(int parentId,
-                                               List<Map<String, Object>> flatTree) {
-    Map<String, Object> parent = flatTree.remove(parentId);
-    Map<String, Object> newParent = new HashMap<>();
-    for (String key : parent.keySet()) {
-      newParent.put(key, parent.get(key));
+  /**
+   * Nests the flattened tree into the children of the nodes, as the nested tree used to be returned.
+   * Every node holds the index of its parent, which comes before the node, and nodes with the same
+   * parent are in document order. So a single pass over the nodes suffices.
+   * @param flatTree The nodes in the order in which getStateTreeTestar visited them.
+   * @return The root node.
+   */
+  @SuppressWarnings("unchecked")
+  static Map<String, Object> unflattenTree(List<Map<String, Object>> flatTree) {
+    // the nodes are looked up by the index of their parent
+    List<Map<String, Object>> nodes = flatTree instanceof RandomAccess ? flatTree : new ArrayList<>(flatTree);
+    for (int idx = 1; idx < nodes.size(); idx++) {
+      Map<String, Object> node = nodes.get(idx);
+      int parentId = ((Number) node.get("parentId")).intValue();
+      List<Map<String, Object>> wrappedChildren = (List<Map<String, Object>>) nodes.get(parentId).get("wrappedChildren");
+      wrappedChildren.add(node);
     }
-    flatTree.add(parentId, newParent);
-    return newParent;
+
+    return nodes.get(0);
   }
 
   public WdState call() {
@@ -107,7 +144,7 @@ public class WdStateFetcher implements Callable<WdState> {
 
     if (rootElement == null) {
       system.set(Tags.Desc, " ");
-      return new WdState(null);
+      return new WdState(null, compactTags);
     }
 
     system.set(Tags.Desc, rootElement.documentTitle);
@@ -124,7 +161,7 @@ public class WdStateFetcher implements Callable<WdState> {
   }
 
   private WdState createWidgetTree(WdRootElement root) {
-    WdState state = new WdState(root);
+    WdState state = new WdState(root, compactTags);
     root.backRef = state;
     for (WdElement childElement : root.children) {
       if (!childElement.ignore) {
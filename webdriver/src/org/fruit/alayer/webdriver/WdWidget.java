@@ -49,7 +49,7 @@ public class WdWidget implements Widget, Serializable {
 
   WdState root;
   WdWidget parent;
-  Map<Tag<?>, Object> tags = new HashMap<>();
+  Map<Tag<?>, Object> tags;
   List<WdWidget> children = new ArrayList<>();
   public WdElement element;
 
@@ -57,6 +57,7 @@ public class WdWidget implements Widget, Serializable {
     this.parent = parent;
     this.element = element;
     this.root = root;
+    this.tags = root != null && root.compactTags ? new CompactTagMap() : new HashMap<>();
 
     if (parent != null) {
       root.connect(parent, this);
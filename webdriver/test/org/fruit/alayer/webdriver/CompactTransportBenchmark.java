@@ -0,0 +1,83 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+
+package org.fruit.alayer.webdriver;
+
+import org.openjdk.jmh.annotations.*;
+import org.openqa.selenium.json.Json;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Java side of fetching a synthetic DOM tree with getStateTreeTestar and with
+ * getStateTreeTestarCompact: parsing the JSON response the way Selenium does, and building the WdElements.
+ * The size of the responses is printed when the benchmark starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class CompactTransportBenchmark {
+
+    @Param({"10000"})
+    public int nrOfElements;
+
+    private final Json json = new Json();
+    private String flatResponse;
+    private String compactResponse;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Map<String, Object>> flatTree = WdCompactTreeTest.randomFlatTree(new Random(5), nrOfElements);
+        flatResponse = json.toJson(flatTree);
+        compactResponse = json.toJson(WdCompactTreeTest.encode(flatTree));
+        System.out.println("\nResponse size, flat tree: " + flatResponse.length() +
+            " characters, compact tree: " + compactResponse.length() + " characters");
+    }
+
+    @Benchmark
+    public WdRootElement flatTree() {
+        List<Map<String, Object>> flatTree = json.toType(flatResponse, Json.LIST_OF_MAPS_TYPE);
+        return new WdRootElement(WdStateFetcher.unflattenTree(flatTree));
+    }
+
+    @Benchmark
+    public WdRootElement compactTree() {
+        Map<String, Object> compactTree = json.toType(compactResponse, Json.MAP_TYPE);
+        return new WdRootElement(new WdCompactTree(compactTree));
+    }
+}
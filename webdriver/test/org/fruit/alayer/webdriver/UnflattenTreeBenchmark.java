@@ -0,0 +1,105 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+package org.fruit.alayer.webdriver;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares nesting a synthetic flattened DOM tree, as returned by getStateTreeTestar, in a single pass
+ * with the way the tree used to be nested, removing the nodes from the end of the list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class UnflattenTreeBenchmark {
+
+    @Param({"20000"})
+    public int nrOfNodes;
+
+    private List<Map<String, Object>> flatTree;
+
+    // the tree is changed by nesting it, so every invocation gets a new one
+    @Setup(Level.Invocation)
+    public void setUp() {
+        Random random = new Random(5);
+        flatTree = new ArrayList<>(nrOfNodes);
+        // the nodes are added in document order: the parent of a node is one of the nodes on the path to the last node
+        List<Long> path = new ArrayList<>();
+        for (int i = 0; i < nrOfNodes; i++) {
+            int depth = path.isEmpty() ? 0 : 1 + random.nextInt(Math.min(path.size(), 30));
+            while (path.size() > depth) {
+                path.remove(path.size() - 1);
+            }
+            Map<String, Object> node = new HashMap<>();
+            node.put("parentId", path.isEmpty() ? -1L : path.get(path.size() - 1));
+            path.add((long) i);
+            node.put("tagName", "div");
+            node.put("rect", new ArrayList<>());
+            node.put("wrappedChildren", new ArrayList<>());
+            flatTree.add(node);
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> singlePass() {
+        return WdStateFetcher.unflattenTree(flatTree);
+    }
+
+    @Benchmark
+    public Map<String, Object> removeFromEnd() {
+        return removeFromEnd(flatTree);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> removeFromEnd(List<Map<String, Object>> flatTree) {
+        for (int idx = flatTree.size() - 1; idx > 0; idx--) {
+            Map<String, Object> node = flatTree.remove(idx);
+
+            Long parentId = (Long) node.get("parentId");
+            Map<String, Object> parent = flatTree.remove(parentId.intValue());
+            Map<String, Object> newParent = new HashMap<>(parent);
+            flatTree.add(parentId.intValue(), newParent);
+            ((List<Map<String, Object>>) newParent.get("wrappedChildren")).add(node);
+        }
+        return flatTree.get(0);
+    }
+}
@@ -0,0 +1,238 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+
+package org.fruit.alayer.webdriver;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.StringJoiner;
+
+import static org.junit.Assert.*;
+
+public class WdCompactTreeTest {
+
+    private static final String[] TAG_NAMES = {"div", "span", "a", "input", "button", "p", "li", "canvas", "svg"};
+
+    /**
+     * Creates a flattened tree of wrapped elements, the way getStateTreeTestar returns it.
+     */
+    static List<Map<String, Object>> randomFlatTree(Random random, int nrOfElements) {
+        List<Map<String, Object>> flatTree = new ArrayList<>(nrOfElements);
+        List<Long> path = new ArrayList<>();
+        for (int i = 0; i < nrOfElements; i++) {
+            int depth = path.isEmpty() ? 0 : 1 + random.nextInt(Math.min(path.size(), 30));
+            while (path.size() > depth) {
+                path.remove(path.size() - 1);
+            }
+
+            Map<String, Object> wrapped = new HashMap<>();
+            wrapped.put("parentId", path.isEmpty() ? -1L : path.get(path.size() - 1));
+            path.add((long) i);
+
+            Map<String, String> attributeMap = new LinkedHashMap<>();
+            if (random.nextBoolean()) {
+                attributeMap.put("id", "element" + i);
+            }
+            if (random.nextBoolean()) {
+                attributeMap.put("class", "item item-" + random.nextInt(10));
+            }
+            if (random.nextInt(4) == 0) {
+                attributeMap.put("href", "https://www.ou.nl/page" + random.nextInt(100));
+            }
+            if (random.nextInt(10) == 0) {
+                attributeMap.put("title", "");
+            }
+            wrapped.put("attributeMap", attributeMap);
+            wrapped.put("name", attributeMap.getOrDefault("id", ""));
+            wrapped.put("tagName", i == 0 ? "body" : TAG_NAMES[random.nextInt(TAG_NAMES.length)]);
+            wrapped.put("textContent", random.nextBoolean() ? "" : " Some\n\ttext  " + random.nextInt(1000) + " ");
+            wrapped.put("display", random.nextInt(20) == 0 ? "none" : "block");
+            wrapped.put("zIndex", (long) random.nextInt(5) - 1);
+            wrapped.put("rect", Arrays.asList((long) random.nextInt(1000) - 100, (long) random.nextInt(1000),
+                (long) random.nextInt(300), (long) random.nextInt(300)));
+
+            Map<String, Object> dimensions = new HashMap<>();
+            dimensions.put("overflowX", random.nextBoolean() ? "visible" : "auto");
+            dimensions.put("overflowY", random.nextBoolean() ? "visible" : "scroll");
+            for (String dimension : new String[]{"clientWidth", "clientHeight", "offsetWidth", "offsetHeight",
+                "scrollWidth", "scrollHeight", "borderWidth", "borderHeight"}) {
+                dimensions.put(dimension, (long) random.nextInt(400));
+            }
+            // the scroll position can be fractional
+            dimensions.put("scrollLeft", random.nextInt(50) + 0.5);
+            dimensions.put("scrollTop", random.nextInt(50) + 0.75);
+            wrapped.put("dimensions", dimensions);
+
+            wrapped.put("isBlocked", random.nextBoolean());
+            wrapped.put("isClickable", random.nextBoolean());
+            wrapped.put("isShadowElement", random.nextInt(20) == 0);
+            wrapped.put("hasKeyboardFocus", random.nextInt(20) == 0);
+            wrapped.put("wrappedChildren", new ArrayList<>());
+            flatTree.add(wrapped);
+        }
+        flatTree.get(0).put("documentHasFocus", true);
+        flatTree.get(0).put("documentTitle", "fixture");
+        return flatTree;
+    }
+
+    /**
+     * Encodes the flattened tree the way getStateTreeTestarCompact does.
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> encode(List<Map<String, Object>> flatTree) {
+        int size = flatTree.size();
+        List<String> strings = new ArrayList<>();
+        Map<String, Integer> stringIds = new HashMap<>();
+        long[] columns = new long[WdCompactTree.NR_OF_COLUMNS * size];
+        StringJoiner attributes = new StringJoiner(",");
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> wrapped = flatTree.get(i);
+            Map<String, Object> dims = (Map<String, Object>) wrapped.get("dimensions");
+            List<Long> rect = (List<Long>) wrapped.get("rect");
+            Map<String, String> attributeMap = (Map<String, String>) wrapped.get("attributeMap");
+            for (Map.Entry<String, String> attribute : attributeMap.entrySet()) {
+                attributes.add(String.valueOf(stringId(strings, stringIds, attribute.getKey())));
+                attributes.add(String.valueOf(stringId(strings, stringIds, attribute.getValue())));
+            }
+            int flags = ((Boolean) wrapped.get("isBlocked") ? WdCompactTree.BLOCKED : 0) |
+                ((Boolean) wrapped.get("isClickable") ? WdCompactTree.CLICKABLE : 0) |
+                ((Boolean) wrapped.get("isShadowElement") ? WdCompactTree.SHADOW_ELEMENT : 0) |
+                ((Boolean) wrapped.get("hasKeyboardFocus") ? WdCompactTree.KEYBOARD_FOCUS : 0);
+            String textContent = ((String) wrapped.get("textContent")).replaceAll("\\s+", " ").trim();
+
+            Object[] row = {wrapped.get("parentId"), wrapped.get("zIndex"),
+                rect.get(0), rect.get(1), rect.get(2), rect.get(3),
+                dims.get("clientWidth"), dims.get("clientHeight"), dims.get("offsetWidth"), dims.get("offsetHeight"),
+                dims.get("scrollWidth"), dims.get("scrollHeight"), dims.get("scrollLeft"), dims.get("scrollTop"),
+                dims.get("borderWidth"), dims.get("borderHeight"), flags,
+                stringId(strings, stringIds, (String) wrapped.get("name")),
+                stringId(strings, stringIds, (String) wrapped.get("tagName")),
+                stringId(strings, stringIds, textContent),
+                stringId(strings, stringIds, (String) wrapped.get("display")),
+                stringId(strings, stringIds, (String) dims.get("overflowX")),
+                stringId(strings, stringIds, (String) dims.get("overflowY")),
+                attributeMap.size()};
+            for (int column = 0; column < row.length; column++) {
+                columns[column * size + i] = ((Number) row[column]).longValue();
+            }
+        }
+
+        StringJoiner columnsText = new StringJoiner(",");
+        for (long value : columns) {
+            columnsText.add(String.valueOf(value));
+        }
+        Map<String, Object> compactTree = new HashMap<>();
+        compactTree.put("size", (long) size);
+        compactTree.put("strings", strings);
+        compactTree.put("columns", columnsText.toString());
+        compactTree.put("attributes", attributes.toString());
+        compactTree.put("documentHasFocus", flatTree.get(0).get("documentHasFocus"));
+        compactTree.put("documentTitle", flatTree.get(0).get("documentTitle"));
+        return compactTree;
+    }
+
+    private static int stringId(List<String> strings, Map<String, Integer> stringIds, String string) {
+        return stringIds.computeIfAbsent(string, s -> {
+            strings.add(s);
+            return strings.size() - 1;
+        });
+    }
+
+    static void assertSameElement(WdElement expected, WdElement actual) {
+        assertEquals(expected.attributeMap, actual.attributeMap);
+        assertEquals(expected.id, actual.id);
+        assertEquals(expected.name, actual.name);
+        assertEquals(expected.genericTitle, actual.genericTitle);
+        assertEquals(expected.tagName, actual.tagName);
+        assertEquals(expected.textContent, actual.textContent);
+        assertEquals(expected.title, actual.title);
+        assertEquals(expected.href, actual.href);
+        assertEquals(expected.cssClasses, actual.cssClasses);
+        assertEquals(expected.display, actual.display);
+        assertEquals(expected.zindex, actual.zindex, 0);
+        assertEquals(expected.rect, actual.rect);
+        assertEquals(expected.overflowX, actual.overflowX);
+        assertEquals(expected.overflowY, actual.overflowY);
+        assertEquals(expected.clientWidth, actual.clientWidth);
+        assertEquals(expected.scrollWidth, actual.scrollWidth);
+        assertEquals(expected.scrollLeft, actual.scrollLeft);
+        assertEquals(expected.scrollTop, actual.scrollTop);
+        assertEquals(expected.visibleBounds(), actual.visibleBounds());
+        assertEquals(expected.blocked, actual.blocked);
+        assertEquals(expected.isClickable, actual.isClickable);
+        assertEquals(expected.isShadow, actual.isShadow);
+        assertEquals(expected.hasKeyboardFocus, actual.hasKeyboardFocus);
+        assertEquals(expected.enabled, actual.enabled);
+        assertEquals(expected.isFullVisibleOnScreen, actual.isFullVisibleOnScreen);
+        assertEquals(expected.hScroll, actual.hScroll);
+        assertEquals(expected.vScroll, actual.vScroll);
+        assertEquals(expected.hScrollPercent, actual.hScrollPercent, 0);
+        assertEquals(expected.vScrollViewSize, actual.vScrollViewSize, 0);
+        assertEquals(expected.children.size(), actual.children.size());
+        for (int i = 0; i < expected.children.size(); i++) {
+            assertSameElement(expected.children.get(i), actual.children.get(i));
+        }
+    }
+
+    @Test
+    public void compactTree_decodesToTheSameElements() {
+        // given
+        final Map<String, Object> compactTree = encode(randomFlatTree(new Random(7), 2000));
+        final WdRootElement expected = new WdRootElement(WdStateFetcher.unflattenTree(randomFlatTree(new Random(7), 2000)));
+
+        // when
+        final WdRootElement actual = new WdRootElement(new WdCompactTree(compactTree));
+
+        // then
+        assertEquals(expected.documentTitle, actual.documentTitle);
+        assertEquals(expected.isForeground, actual.isForeground);
+        assertSameElement(expected, actual);
+    }
+
+    @Test
+    public void parseIntegers_readsNegativeNumbersAndEmptyLists() {
+        assertArrayEquals(new int[]{12, -3, 0, 4567}, WdCompactTree.parseIntegers("12,-3,0,4567", 4));
+        assertArrayEquals(new int[0], WdCompactTree.parseIntegers("", 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseIntegers_rejectsAWrongCount() {
+        WdCompactTree.parseIntegers("1,2,3", 2);
+    }
+}
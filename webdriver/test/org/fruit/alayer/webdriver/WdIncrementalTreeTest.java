@@ -0,0 +1,347 @@
+/***************************************************************************************************
+*
+* Copyright (c) 2020 Universitat Politecnica de Valencia - www.upv.es
+* Copyright (c) 2020 Open Universiteit - www.ou.nl
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice,
+* this list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright
+* notice, this list of conditions and the following disclaimer in the
+* documentation and/or other materials provided with the distribution.
+* 3. Neither the name of the copyright holder nor the names of its
+* contributors may be used to endorse or promote products derived from
+* this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+* AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+* IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+* ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+* LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+* CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+* SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+* INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+* CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+* ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+* POSSIBILITY OF SUCH DAMAGE.
+*******************************************************************************************************/
+
+
+
+package org.fruit.alayer.webdriver;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.fruit.alayer.webdriver.WdCompactTreeTest.assertSameElement;
+import static org.fruit.alayer.webdriver.WdCompactTreeTest.randomFlatTree;
+import static org.junit.Assert.*;
+
+public class WdIncrementalTreeTest {
+
+    private static final int NR_OF_ELEMENTS = 500;
+
+    /**
+     * Creates the tree of the page, in which the index of an element is its id.
+     */
+    private static List<Map<String, Object>> page() {
+        List<Map<String, Object>> flatTree = randomFlatTree(new Random(3), NR_OF_ELEMENTS);
+        for (int i = 0; i < flatTree.size(); i++) {
+            flatTree.get(i).put("nodeId", (long) i);
+        }
+        return flatTree;
+    }
+
+    private static Map<String, Object> fullResult() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("full", true);
+        result.put("generation", "test:1");
+        result.put("tree", page());
+        return result;
+    }
+
+    private static Map<String, Object> deltaResult(List<List<Map<String, Object>>> subtrees, List<Map<String, Object>> updates) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("full", false);
+        result.put("generation", "test:2");
+        result.put("subtrees", subtrees);
+        result.put("updates", updates);
+        result.put("documentHasFocus", true);
+        result.put("documentTitle", "fixture");
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void index(Map<String, Object> packedElement, Map<Integer, Map<String, Object>> packedElements) {
+        packedElements.put(((Number) packedElement.get("nodeId")).intValue(), packedElement);
+        for (Map<String, Object> child : (List<Map<String, Object>>) packedElement.get("wrappedChildren")) {
+            index(child, packedElements);
+        }
+    }
+
+    private static WdElement findElementWithChildren(WdElement element) {
+        if (element.children.size() >= 2 && !(element instanceof WdRootElement)) {
+            return element;
+        }
+        for (WdElement child : element.children) {
+            WdElement found = findElementWithChildren(child);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Asserts that the element and all of its descendants belong to the given root.
+     */
+    private static void assertRoot(WdRootElement root, WdElement element) {
+        assertSame(root, element.root);
+        for (WdElement child : element.children) {
+            assertRoot(root, child);
+        }
+    }
+
+    private static WdElement findElement(WdElement element, int nodeId) {
+        if (element.nodeId == nodeId) {
+            return element;
+        }
+        for (WdElement child : element.children) {
+            WdElement found = findElement(child, nodeId);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    private static boolean inTree(WdElement element, int nodeId) {
+        return findElement(element, nodeId) != null;
+    }
+
+    private static void assertSameVisibleBounds(WdElement expected, WdElement actual) {
+        assertEquals(expected.visibleBounds(), actual.visibleBounds());
+        assertEquals(expected.children.size(), actual.children.size());
+        for (int i = 0; i < expected.children.size(); i++) {
+            assertSameVisibleBounds(expected.children.get(i), actual.children.get(i));
+        }
+    }
+
+    /**
+     * Walks an element of the page again, as getStateTreeTestarIncremental does: the element is wrapped
+     * again, its children that did not change are reused, and a new child is added.
+     */
+    private static List<Map<String, Object>> walkAgain(Map<String, Object> packedElement, WdElement element,
+                                                       Map<String, Object> newChild) {
+        List<Map<String, Object>> flatTree = new ArrayList<>();
+        Map<String, Object> wrapped = new HashMap<>(packedElement);
+        wrapped.put("parentId", -1L);
+        wrapped.put("wrappedChildren", new ArrayList<>());
+        flatTree.add(wrapped);
+        for (WdElement child : element.children.subList(1, element.children.size())) {
+            Map<String, Object> reused = new HashMap<>();
+            reused.put("parentId", 0L);
+            reused.put("reuseId", (long) child.nodeId);
+            flatTree.add(reused);
+        }
+        Map<String, Object> added = new HashMap<>(newChild);
+        added.put("parentId", 0L);
+        added.put("wrappedChildren", new ArrayList<>());
+        flatTree.add(added);
+        return flatTree;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void patch_givesTheTreeOfTheChangedPage(boolean changeBody) {
+        // given
+        final WdIncrementalTree incrementalTree = new WdIncrementalTree();
+        final WdRootElement previous = incrementalTree.apply(fullResult());
+        final WdElement changed = changeBody ? previous : findElementWithChildren(previous);
+        final WdElement removed = changed.children.get(0);
+        final WdElement moved = previous.children.get(previous.children.size() - 1);
+        assertNotSame(changed, moved);
+
+        // the page after the change: a child is replaced, the text changes and an element moves
+        final Map<String, Object> page = WdStateFetcher.unflattenTree(page());
+        final Map<Integer, Map<String, Object>> packedElements = new HashMap<>();
+        index(page, packedElements);
+        final Map<String, Object> packedChanged = packedElements.get(changed.nodeId);
+        final Map<String, Object> newChild = new HashMap<>(packedElements.get(moved.nodeId));
+        newChild.put("nodeId", (long) NR_OF_ELEMENTS);
+        newChild.put("tagName", "div");
+        newChild.put("wrappedChildren", new ArrayList<>());
+        packedChanged.put("textContent", "changed");
+        List<Map<String, Object>> children = (List<Map<String, Object>>) packedChanged.get("wrappedChildren");
+        children.remove(packedElements.get(removed.nodeId));
+        children.add(newChild);
+        final Map<String, Object> packedMoved = packedElements.get(moved.nodeId);
+        packedMoved.put("rect", Arrays.asList(1L, 2L, 3L, 4L));
+        packedMoved.put("isBlocked", !(Boolean) packedMoved.get("isBlocked"));
+
+        final Map<String, Object> update = new HashMap<>();
+        update.put("nodeId", (long) moved.nodeId);
+        update.put("rect", packedMoved.get("rect"));
+        update.put("dimensions", packedMoved.get("dimensions"));
+        update.put("display", packedMoved.get("display"));
+        update.put("zIndex", packedMoved.get("zIndex"));
+        update.put("isBlocked", packedMoved.get("isBlocked"));
+        update.put("isClickable", packedMoved.get("isClickable"));
+        update.put("hasKeyboardFocus", packedMoved.get("hasKeyboardFocus"));
+
+        // when
+        final WdRootElement actual = incrementalTree.apply(deltaResult(
+            Collections.singletonList(walkAgain(packedChanged, changed, newChild)),
+            Collections.singletonList(update)));
+
+        // then
+        assertSameElement(new WdRootElement(page), actual);
+        assertRoot(actual, actual);
+        assertRoot(previous, previous);
+        // the previous tree did not change
+        assertSameElement(new WdRootElement(WdStateFetcher.unflattenTree(page())), previous);
+    }
+
+    @Test
+    public void patch_givesTheTreeOfTheChangedPage() {
+        patch_givesTheTreeOfTheChangedPage(false);
+    }
+
+    @Test
+    public void patch_givesTheTreeOfTheChangedPage_whenTheBodyChanged() {
+        patch_givesTheTreeOfTheChangedPage(true);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void patch_givesTheScrolledTree_whenTheBodyScrolled() {
+        // given
+        final WdIncrementalTree incrementalTree = new WdIncrementalTree();
+        final WdRootElement previous = incrementalTree.apply(fullResult());
+        final long previousScrollTop = previous.scrollTop;
+
+        // the page after scrolling the body: all elements move up
+        final Map<String, Object> page = WdStateFetcher.unflattenTree(page());
+        final Map<String, Object> bodyDimensions = new HashMap<>((Map<String, Object>) page.get("dimensions"));
+        bodyDimensions.put("scrollLeft", 20L);
+        bodyDimensions.put("scrollTop", previousScrollTop + 300);
+        page.put("dimensions", bodyDimensions);
+        final Map<Integer, Map<String, Object>> packedElements = new HashMap<>();
+        index(page, packedElements);
+        final List<Map<String, Object>> updates = new ArrayList<>();
+        for (Map<String, Object> packedElement : packedElements.values()) {
+            final List<Long> rect = (List<Long>) packedElement.get("rect");
+            packedElement.put("rect", Arrays.asList(rect.get(0) - 20, rect.get(1) - 300, rect.get(2), rect.get(3)));
+            if (!inTree(previous, ((Number) packedElement.get("nodeId")).intValue())) {
+                // hidden elements are not in the tree and are not updated
+                continue;
+            }
+            final Map<String, Object> update = new HashMap<>();
+            update.put("nodeId", packedElement.get("nodeId"));
+            update.put("rect", packedElement.get("rect"));
+            update.put("dimensions", packedElement.get("dimensions"));
+            update.put("display", packedElement.get("display"));
+            update.put("zIndex", packedElement.get("zIndex"));
+            update.put("isBlocked", packedElement.get("isBlocked"));
+            update.put("isClickable", packedElement.get("isClickable"));
+            update.put("hasKeyboardFocus", packedElement.get("hasKeyboardFocus"));
+            updates.add(update);
+        }
+
+        // when
+        final WdRootElement actual = incrementalTree.apply(deltaResult(Collections.emptyList(), updates));
+
+        // then
+        final WdRootElement expected = new WdRootElement(page);
+        assertSameElement(expected, actual);
+        assertEquals(previousScrollTop + 300, actual.scrollTop);
+        assertEquals(20L, actual.scrollLeft);
+        assertRoot(actual, actual);
+        assertSameVisibleBounds(expected, actual);
+        // the previous tree still has the scroll values from before
+        assertEquals(previousScrollTop, previous.scrollTop);
+        assertRoot(previous, previous);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void patch_givesTheStyleOfAReusedChild_whenTheClassOfItsParentChanged() {
+        // given
+        final WdIncrementalTree incrementalTree = new WdIncrementalTree();
+        final WdRootElement previous = incrementalTree.apply(fullResult());
+        final WdElement changed = findElementWithChildren(previous);
+        final WdElement shown = changed.children.get(0);
+
+        // the page after a class toggle on the parent, a rule like .open .menu shows and raises the child
+        final Map<String, Object> page = WdStateFetcher.unflattenTree(page());
+        final Map<Integer, Map<String, Object>> packedElements = new HashMap<>();
+        index(page, packedElements);
+        final Map<String, Object> packedChanged = packedElements.get(changed.nodeId);
+        final Map<String, String> attributeMap = new HashMap<>((Map<String, String>) packedChanged.get("attributeMap"));
+        attributeMap.put("class", "open");
+        packedChanged.put("attributeMap", attributeMap);
+        final Map<String, Object> packedShown = packedElements.get(shown.nodeId);
+        packedShown.put("display", "none".equals(packedShown.get("display")) ? "block" : "none");
+        packedShown.put("zIndex", (Long) packedShown.get("zIndex") + 10);
+        final Map<String, Object> dimensions = new HashMap<>((Map<String, Object>) packedShown.get("dimensions"));
+        dimensions.put("overflowY", "hidden");
+        packedShown.put("dimensions", dimensions);
+
+        // the parent is walked again and all of its children are reused
+        final List<Map<String, Object>> flatTree = new ArrayList<>();
+        final Map<String, Object> wrapped = new HashMap<>(packedChanged);
+        wrapped.put("parentId", -1L);
+        wrapped.put("wrappedChildren", new ArrayList<>());
+        flatTree.add(wrapped);
+        for (WdElement child : changed.children) {
+            final Map<String, Object> reused = new HashMap<>();
+            reused.put("parentId", 0L);
+            reused.put("reuseId", (long) child.nodeId);
+            flatTree.add(reused);
+        }
+        final Map<String, Object> update = new HashMap<>();
+        update.put("nodeId", (long) shown.nodeId);
+        update.put("rect", packedShown.get("rect"));
+        update.put("dimensions", packedShown.get("dimensions"));
+        update.put("display", packedShown.get("display"));
+        update.put("zIndex", packedShown.get("zIndex"));
+        update.put("isBlocked", packedShown.get("isBlocked"));
+        update.put("isClickable", packedShown.get("isClickable"));
+        update.put("hasKeyboardFocus", packedShown.get("hasKeyboardFocus"));
+
+        // when
+        final WdRootElement actual = incrementalTree.apply(deltaResult(
+            Collections.singletonList(flatTree), Collections.singletonList(update)));
+
+        // then
+        assertSameElement(new WdRootElement(page), actual);
+        assertNotEquals(shown.enabled, findElement(actual, shown.nodeId).enabled);
+        // the previous tree did not change
+        assertSameElement(new WdRootElement(WdStateFetcher.unflattenTree(page())), previous);
+    }
+
+    @Test
+    public void patch_fails_whenTheChangesDoNotFitThePreviousTree() {
+        // given
+        final WdIncrementalTree incrementalTree = new WdIncrementalTree();
+        final WdRootElement previous = incrementalTree.apply(fullResult());
+        final Map<String, Object> update = new HashMap<>();
+        update.put("nodeId", (long) NR_OF_ELEMENTS);
+
+        // when
+        final WdRootElement actual = incrementalTree.apply(deltaResult(
+            Collections.emptyList(), Collections.singletonList(update)));
+
+        // then
+        assertNotNull(previous);
+        assertNull(actual);
+    }
+}
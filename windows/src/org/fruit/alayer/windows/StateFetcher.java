@@ -63,10 +63,18 @@ public class StateFetcher implements Callable<UIAState>{
 
 	private List<Map<String , String>> mappedValues;
 
+	private final boolean compactTags;
+
 	
 	public StateFetcher(SUT system, long automationPointer, long cacheRequestPointer,
-						boolean accessBridgeEnabled, String SUTProcesses){		
+						boolean accessBridgeEnabled, String SUTProcesses){
+		this(system, automationPointer, cacheRequestPointer, accessBridgeEnabled, SUTProcesses, false);
+	}
+
+	public StateFetcher(SUT system, long automationPointer, long cacheRequestPointer,
+						boolean accessBridgeEnabled, String SUTProcesses, boolean compactTags){		
 		this.system = system;
+		this.compactTags = compactTags;
 		this.automationPointer = automationPointer;
 		this.cacheRequestPointer = cacheRequestPointer;
 		this.accessBridgeEnabled = accessBridgeEnabled;
@@ -639,7 +647,7 @@ public class StateFetcher implements Callable<UIAState>{
 	}
 
 	private UIAState createWidgetTree(UIARootElement root){
-		UIAState state = new UIAState(root);
+		UIAState state = new UIAState(root, compactTags);
 		root.backRef = state;
 		for(UIAElement childElement : root.children){
 			if(!childElement.ignore)
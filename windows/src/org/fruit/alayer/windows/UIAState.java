@@ -43,6 +43,7 @@ import java.util.Set;
 
 import org.fruit.Assert;
 import org.fruit.Util;
+import org.fruit.alayer.CompactTagMap;
 import org.fruit.alayer.State;
 import org.fruit.alayer.Tag;
 import org.fruit.alayer.Tags;
@@ -53,9 +54,19 @@ import org.fruit.alayer.exceptions.NoSuchTagException;
 final class UIAState extends UIAWidget implements State {
 	private static final long serialVersionUID = 7823095941981151363L;
 
+	// whether the tags of the widgets are stored in a CompactTagMap
+	final boolean compactTags;
+
 	public UIAState(UIAElement root){
+		this(root, false);
+	}
+
+	public UIAState(UIAElement root, boolean compactTags){
 		super(null, null, root);
 		this.root = this;
+		this.compactTags = compactTags;
+		if(compactTags)
+			this.tags = new CompactTagMap();
 	}
 
 	public Iterator<Widget> iterator() { return new WidgetIterator(this); }
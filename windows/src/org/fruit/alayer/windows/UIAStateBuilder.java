@@ -54,12 +54,18 @@ public final class UIAStateBuilder implements StateBuilder {
 	transient long automationPointer, treeFilterConditionPointer, cacheRequestPointer;
 	boolean accessBridgeEnabled;
 	String SUTProcesses; // regex
+	boolean compactTags; // store the tags of the widgets in a CompactTagMap
 
 	public UIAStateBuilder(){ this(10/*seconds*/,false,"");	}
 
 	public UIAStateBuilder(double timeOut, boolean accessBridgeEnabled, String SUTProcesses){ // seconds
+		this(timeOut, accessBridgeEnabled, SUTProcesses, false);
+	}
+
+	public UIAStateBuilder(double timeOut, boolean accessBridgeEnabled, String SUTProcesses, boolean compactTags){ // seconds
 		Assert.isTrue(timeOut > 0);
 		this.timeOut = timeOut;
+		this.compactTags = compactTags;
 		initialize();
 		this.accessBridgeEnabled = accessBridgeEnabled;
 		this.SUTProcesses = SUTProcesses;
@@ -182,7 +188,7 @@ public final class UIAStateBuilder implements StateBuilder {
 	public UIAState apply(SUT system) throws StateBuildException {
 		try {
 			Future<UIAState> future = executor.submit(new StateFetcher(system, automationPointer, cacheRequestPointer,
-																	   this.accessBridgeEnabled, this.SUTProcesses));
+																	   this.accessBridgeEnabled, this.SUTProcesses, this.compactTags));
 			return future.get((long)(timeOut * 1000.0), TimeUnit.MILLISECONDS);
 		} catch (InterruptedException e) {
 			throw new StateBuildException(e);
@@ -191,7 +197,7 @@ public final class UIAStateBuilder implements StateBuilder {
 			throw new StateBuildException(e);
 		} catch (TimeoutException e) {
 			//UIAState ret = new UIAState(uiaRoot);
-			UIAState ret = new UIAState(StateFetcher.buildRoot(system));
+			UIAState ret = new UIAState(StateFetcher.buildRoot(system), compactTags);
 			ret.set(Tags.Role, Roles.Process);
 			ret.set(Tags.NotResponding, true);
 			return ret;
@@ -43,6 +43,7 @@ import java.util.Map;
 
 import org.fruit.Drag;
 import org.fruit.Util;
+import org.fruit.alayer.CompactTagMap;
 import org.fruit.alayer.Role;
 import org.fruit.alayer.Shape;
 import org.fruit.alayer.Tag;
@@ -57,7 +58,7 @@ class UIAWidget implements Widget, Serializable {
 	private static final long serialVersionUID = 8840515358018797073L;
 	UIAState root;
 	UIAWidget parent;
-	Map<Tag<?>, Object> tags = Util.newHashMap();
+	Map<Tag<?>, Object> tags;
 	List<UIAWidget> children = new ArrayList<UIAWidget>();
 	UIAElement uiaElement;
 		
@@ -65,6 +66,7 @@ class UIAWidget implements Widget, Serializable {
 		this.parent = parent;
 		this.uiaElement = uiaElement;
 		this.root = root;
+		this.tags = root != null && root.compactTags ? new CompactTagMap() : Util.newHashMap();
 		
 		if(parent != null)
 			root.connect(parent, this);